@@ -1,12 +1,21 @@
 package com.BlogApp;
 
+import com.BlogApp.payloads.PostFields;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import javax.annotation.PostConstruct;
 
 @SpringBootApplication
+@EnableScheduling
+// Outside the transaction advice, so cache hits and callers waiting for a load in flight hold no connection
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
 public class BlogAppApplication {
 
 	@Bean
@@ -14,6 +23,12 @@ public class BlogAppApplication {
 		return new ModelMapper();
 	}
 
+	// PostDto is written in full unless a controller supplies the PostFields filter
+	@Bean
+	public Jackson2ObjectMapperBuilderCustomizer postFieldsFilter() {
+		return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+	}
+
 //	@PostConstruct
 //	public void init() {
 //		try {
@@ -1,5 +1,8 @@
 package com.BlogApp.Security;
 
+import com.BlogApp.audit.AuditEvent;
+import com.BlogApp.audit.AuditLog;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import jakarta.servlet.FilterChain;
@@ -29,41 +32,49 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
     private UserDetailsService userDetailsService;
+
+    @Autowired
+    private TokenRevocation tokenRevocation;
+
+    @Autowired
+    private AuditLog auditLog;
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String requestHeader = request.getHeader("Authorization");
         //Bearer 2352345235sdfrsfgsdfsdf
-        logger.info(" Header :  {}", requestHeader);
         String username = null;
-        String token = null;
+        Claims claims = null;
+        // bad tokens go to the audit log, which never blocks the request, see AuditLog
         if (requestHeader != null && requestHeader.startsWith("Bearer")) {
             //looking good
-            token = requestHeader.substring(7);
+            String token = requestHeader.substring(7);
             try {
 
-                username = this.jwtHelper.getUsernameFromToken(token);
+                // parsed once, verifying the signature, and every claim is read from the result
+                claims = this.jwtHelper.getAllClaimsFromToken(token);
+                username = claims.getSubject();
 
             } catch (IllegalArgumentException e) {
-                logger.info("Illegal Argument while fetching the username !!");
-                e.printStackTrace();
+                this.rejected(request, null, "empty token");
             } catch (ExpiredJwtException e) {
-                logger.info("Given jwt token is expired !!");
-                e.printStackTrace();
+                this.rejected(request, null, "expired token");
             } catch (MalformedJwtException e) {
-                logger.info("Some changed has done in token !! Invalid Token");
-                e.printStackTrace();
+                this.rejected(request, null, "malformed token");
             } catch (Exception e) {
-                e.printStackTrace();
-
+                this.rejected(request, null, e.getClass().getSimpleName());
             }
         } else {
-            logger.info("Invalid Header Value !! ");
+            logger.debug("No bearer token");
+        }
+        // a revoked token is refused before the user is loaded, see TokenRevocation
+        if (username != null && this.tokenRevocation.isRevoked(claims.getId())) {
+            this.rejected(request, username, "revoked token");
+            username = null;
         }
-        //
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             //fetch user detail from username
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            Boolean validateToken = this.jwtHelper.validateToken(token, userDetails);
+            Boolean validateToken = this.jwtHelper.validateToken(claims, userDetails);
             if (validateToken) {
                 //set the authentication
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
@@ -71,11 +82,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authentication);
 
             } else {
-                logger.info("Validation fails !!");
+                this.rejected(request, username, "failed validation");
             }
         }
         filterChain.doFilter(request, response);
 
 
     }
+
+    private void rejected(HttpServletRequest request, String username, String reason) {
+        logger.debug("Token rejected: {}", reason);
+        this.auditLog.access(AuditEvent.Action.TOKEN_REJECTED, username == null ? request.getRemoteAddr() : username,
+                reason + " on " + request.getMethod() + " " + request.getRequestURI());
+    }
 }
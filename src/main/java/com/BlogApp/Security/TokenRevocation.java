@@ -0,0 +1,155 @@
+package com.BlogApp.Security;
+
+import com.BlogApp.entities.RevokedToken;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.repositories.RevokedTokenRepo;
+import com.BlogApp.search.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+
+// Revoked JWTs are kept in revoked_tokens by their jti until they would have expired. Every authenticated request
+// asks isRevoked, which checks a Bloom filter of the revoked jtis first: a token not in the filter is certainly not
+// revoked and is accepted without I/O, only filter hits are looked up in the table. The filter gets local
+// revocations at once and those of other nodes every app.revocation.refresh-interval-ms, so a token revoked on
+// another node is refused everywhere within that interval. It is rebuilt from the table after each purge of
+// expired rows and when more revocations arrive than it was sized for. Until the first load every check goes to
+// the table.
+@Component
+public class TokenRevocation {
+
+    // revocations from up to this long before the last load are read again, covering clock skew between the nodes
+    // and transactions that committed after the load
+    private static final long OVERLAP_MILLIS = 60_000;
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(TokenRevocation.class);
+
+    private final RevokedTokenRepo revokedTokenRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+
+    // null until the first load; replaced, never cleared, under this
+    private volatile BloomFilter filter;
+    private long capacity;
+    private long added;
+    private long loadedAt;
+
+    private final Counter filtered;
+    private final Counter lookups;
+    private final Counter rejected;
+
+    public TokenRevocation(RevokedTokenRepo revokedTokenRepo, TransactionTemplate transactionTemplate,
+                           @Value("${app.revocation.expected:10000}") long expectedRevocations,
+                           @Value("${app.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                           MeterRegistry registry) {
+        this.revokedTokenRepo = revokedTokenRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.filtered = Counter.builder("blog.revocation.filtered").description("Token checks answered by the filter without a lookup").register(registry);
+        this.lookups = Counter.builder("blog.revocation.lookups").description("Token checks that hit the filter and were looked up").register(registry);
+        this.rejected = Counter.builder("blog.revocation.rejected").description("Revoked tokens refused").register(registry);
+    }
+
+    // Tokens issued without a jti cannot be revoked
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        BloomFilter current = this.filter;
+        if (current != null && !current.mightContain(jti)) {
+            this.filtered.increment();
+            return false;
+        }
+        this.lookups.increment();
+        boolean revoked = this.revokedTokenRepo.existsById(jti);
+        if (revoked) {
+            this.rejected.increment();
+        }
+        return revoked;
+    }
+
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null) {
+            throw new BadRequestException("The token has no id and cannot be revoked, it expires at " + expiresAt);
+        }
+        this.revokedTokenRepo.save(new RevokedToken(jti, expiresAt, new Date()));
+        // after the commit, so a load running now either reads the row or is replaced before this put
+        synchronized (this) {
+            if (this.filter != null && this.filter.put(jti)) {
+                this.added++;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.revocation.refresh-interval-ms:5000}")
+    public void refresh() {
+        try {
+            synchronized (this) {
+                if (this.filter == null || this.added > this.capacity) {
+                    this.rebuild();
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                for (String jti : this.revokedTokenRepo.findJtisRevokedSince(new Date(this.loadedAt - OVERLAP_MILLIS))) {
+                    // the overlap reads most of them again
+                    if (this.filter.put(jti)) {
+                        this.added++;
+                    }
+                }
+                this.loadedAt = now;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Loading token revocations failed, retrying on the next run: {}", e.toString());
+        }
+    }
+
+    // Drops the revocations of tokens that have expired, then the filter is rebuilt without them
+    @Scheduled(initialDelayString = "${app.revocation.purge-interval-ms:3600000}",
+            fixedDelayString = "${app.revocation.purge-interval-ms:3600000}")
+    public void purge() {
+        try {
+            Date now = new Date();
+            List<String> expired;
+            do {
+                expired = this.revokedTokenRepo.findExpiredJtis(now, PageRequest.of(0, PURGE_BATCH_SIZE));
+                if (!expired.isEmpty()) {
+                    List<String> batch = expired;
+                    this.transactionTemplate.executeWithoutResult(status -> this.revokedTokenRepo.purge(batch));
+                }
+            } while (expired.size() == PURGE_BATCH_SIZE);
+            synchronized (this) {
+                this.rebuild();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Purging token revocations failed, retrying on the next run: {}", e.toString());
+        }
+    }
+
+    // Under this, with room for twice the revocations loaded
+    private void rebuild() {
+        long now = System.currentTimeMillis();
+        List<String> jtis = this.revokedTokenRepo.findLiveJtis(new Date(now));
+        long capacity = Math.max(this.expectedRevocations, 2L * jtis.size());
+        BloomFilter rebuilt = new BloomFilter(capacity, this.falsePositiveRate);
+        for (String jti : jtis) {
+            rebuilt.put(jti);
+        }
+        this.filter = rebuilt;
+        this.capacity = capacity;
+        this.added = jtis.size();
+        this.loadedAt = now;
+    }
+}
@@ -0,0 +1,30 @@
+package com.BlogApp.audit;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+// One line of the audit log, see AuditLog
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AuditEvent {
+
+    public enum Action {
+        LOGIN, LOGIN_FAILED, LOGOUT, TOKEN_REJECTED,
+        POST_CREATED, POST_UPDATED, POST_DELETED,
+        COMMENT_CREATED, COMMENT_DELETED
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Instant time;
+    private Action action;
+    // the authenticated user, the login name tried, or the client address when there is neither
+    private String actor;
+    // e.g. post/12
+    private String target;
+    private String detail;
+}
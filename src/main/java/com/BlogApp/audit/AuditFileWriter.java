@@ -0,0 +1,80 @@
+package com.BlogApp.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Appends lines to a file that is rolled once it passes maxBytes: audit.log becomes audit.log.1, audit.log.1 becomes
+// audit.log.2 and so on, the oldest past maxFiles is deleted. Used by the audit writer thread only.
+final class AuditFileWriter {
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+
+    private Writer writer;
+    private long size;
+
+    AuditFileWriter(Path file, long maxBytes, int maxFiles) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    void write(String line) throws IOException {
+        if (this.writer == null) {
+            this.open();
+        } else if (this.size >= this.maxBytes) {
+            this.roll();
+        }
+        this.writer.write(line);
+        this.writer.write('\n');
+        // close enough for rolling, the lines are mostly ASCII
+        this.size += line.length() + 1;
+    }
+
+    void flush() throws IOException {
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+    }
+
+    void close() throws IOException {
+        if (this.writer != null) {
+            Writer closing = this.writer;
+            this.writer = null;
+            closing.close();
+        }
+    }
+
+    private void open() throws IOException {
+        if (this.file.getParent() != null) {
+            Files.createDirectories(this.file.getParent());
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(this.file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+        this.size = Files.size(this.file);
+    }
+
+    private void roll() throws IOException {
+        this.close();
+        Files.deleteIfExists(this.rolled(this.maxFiles));
+        for (int i = this.maxFiles - 1; i >= 1; i--) {
+            if (Files.exists(this.rolled(i))) {
+                Files.move(this.rolled(i), this.rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(this.file, this.rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        this.open();
+    }
+
+    private Path rolled(int index) {
+        return this.file.resolveSibling(this.file.getFileName() + "." + index);
+    }
+}
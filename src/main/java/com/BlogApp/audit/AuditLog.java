@@ -0,0 +1,197 @@
+package com.BlogApp.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Audit trail of logins, rejected tokens and post and comment changes, written as JSON lines to app.audit.file.
+// Request threads only put events on a bounded lock-free ring buffer, they never wait on the disk or on each other.
+// The audit-writer thread drains it in batches of app.audit.batch-size and flushes the file whenever the buffer runs
+// empty. When events arrive faster than the file takes them and the buffer fills, new events are dropped and counted
+// in blog.audit.dropped rather than slowing requests down. Changes are recorded after their transaction commits.
+// On shutdown the events still buffered are written before the file is closed.
+@Component
+public class AuditLog {
+
+    private final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private final ObjectMapper objectMapper;
+    private final AuditRingBuffer buffer;
+    private final AuditFileWriter file;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long idleNanos;
+
+    private final Counter recorded;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AuditLog(ObjectMapper objectMapper,
+                    @Value("${app.audit.enabled:true}") boolean enabled,
+                    @Value("${app.audit.file:logs/audit.log}") String file,
+                    @Value("${app.audit.max-file-size:10485760}") long maxFileSize,
+                    @Value("${app.audit.max-files:10}") int maxFiles,
+                    @Value("${app.audit.capacity:8192}") int capacity,
+                    @Value("${app.audit.batch-size:512}") int batchSize,
+                    @Value("${app.audit.idle-ms:100}") long idleMillis,
+                    MeterRegistry registry) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.buffer = new AuditRingBuffer(capacity);
+        this.file = new AuditFileWriter(Path.of(file), maxFileSize, maxFiles);
+        this.batchSize = batchSize;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+
+        this.recorded = Counter.builder("blog.audit.recorded").description("Audit events queued for writing").register(registry);
+        this.dropped = Counter.builder("blog.audit.dropped").description("Audit events dropped because the buffer was full").register(registry);
+        this.written = Counter.builder("blog.audit.written").description("Audit events written to the file").register(registry);
+        this.failed = Counter.builder("blog.audit.failed").description("Audit events lost to write errors").register(registry);
+        Gauge.builder("blog.audit.pending", this.buffer, AuditRingBuffer::size)
+                .description("Audit events waiting for the writer").register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!this.enabled) {
+            return;
+        }
+        this.running = true;
+        this.writer = new Thread(this::drain, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (this.writer == null) {
+            return;
+        }
+        this.running = false;
+        LockSupport.unpark(this.writer);
+        this.writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // A change by the current user, recorded once the surrounding transaction commits
+    public void record(AuditEvent.Action action, String target, String detail) {
+        this.record(action, currentActor(), target, detail);
+    }
+
+    // A change made on behalf of actor, e.g. an autosaved draft written on the scheduler thread
+    public void record(AuditEvent.Action action, String actor, String target, String detail) {
+        AuditEvent event = new AuditEvent(Instant.now(), action, actor, target, detail);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(event);
+                }
+            });
+        } else {
+            this.offer(event);
+        }
+    }
+
+    // The current user, "system" for scheduled jobs, which have none
+    public static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "system" : authentication.getName();
+    }
+
+    // An access event, recorded at once
+    public void access(AuditEvent.Action action, String actor, String detail) {
+        this.offer(new AuditEvent(Instant.now(), action, actor, null, detail));
+    }
+
+    private void offer(AuditEvent event) {
+        if (!this.enabled) {
+            return;
+        }
+        if (this.buffer.offer(event)) {
+            this.recorded.increment();
+        } else {
+            this.dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<AuditEvent> batch = new ArrayList<>(this.batchSize);
+        boolean unflushed = false;
+        while (true) {
+            batch.clear();
+            if (this.buffer.drain(batch, this.batchSize) > 0) {
+                this.write(batch);
+                unflushed = true;
+                continue;
+            }
+            if (unflushed) {
+                this.flush();
+                unflushed = false;
+            }
+            if (!this.running) {
+                break;
+            }
+            LockSupport.parkNanos(this.idleNanos);
+        }
+        try {
+            this.file.close();
+        } catch (IOException e) {
+            logger.warn("Closing the audit log failed: {}", e.toString());
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        int lines = 0;
+        try {
+            for (AuditEvent event : batch) {
+                this.file.write(this.objectMapper.writeValueAsString(event));
+                lines++;
+            }
+        } catch (IOException e) {
+            this.failed.increment(batch.size() - lines);
+            logger.warn("Writing the audit log failed, {} events lost: {}", batch.size() - lines, e.toString());
+            this.closeQuietly();
+        }
+        this.written.increment(lines);
+    }
+
+    private void flush() {
+        try {
+            this.file.flush();
+        } catch (IOException e) {
+            logger.warn("Flushing the audit log failed: {}", e.toString());
+            this.closeQuietly();
+        }
+    }
+
+    // the file is opened again for the next event
+    private void closeQuietly() {
+        try {
+            this.file.close();
+        } catch (IOException ignored) {
+            // the writer is dropped either way
+        }
+    }
+}
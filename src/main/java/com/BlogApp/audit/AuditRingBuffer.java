@@ -0,0 +1,63 @@
+package com.BlogApp.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded lock-free queue of many producers and one consumer. A producer claims the next sequence with a CAS on tail
+// as long as it is less than capacity ahead of head, then publishes its event into the slot. The consumer takes
+// slots in sequence order up to the first one not yet published, clears them and only then moves head, which is what
+// frees them for producers. offer never blocks or waits for the consumer: a full buffer returns false at once.
+final class AuditRingBuffer {
+
+    private final AtomicReferenceArray<AuditEvent> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // written by the consumer only
+    private volatile long head;
+
+    AuditRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    boolean offer(AuditEvent event) {
+        while (true) {
+            long sequence = this.tail.get();
+            if (sequence - this.head > this.mask) {
+                return false;
+            }
+            if (this.tail.compareAndSet(sequence, sequence + 1)) {
+                this.slots.set((int) sequence & this.mask, event);
+                return true;
+            }
+        }
+    }
+
+    // Consumer thread only
+    int drain(List<AuditEvent> into, int max) {
+        long sequence = this.head;
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) sequence & this.mask;
+            AuditEvent event = this.slots.get(slot);
+            if (event == null) {
+                break;
+            }
+            this.slots.lazySet(slot, null);
+            into.add(event);
+            sequence++;
+            drained++;
+        }
+        // releases the cleared slots
+        this.head = sequence;
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, this.tail.get() - this.head);
+    }
+}
@@ -0,0 +1,8 @@
+package com.BlogApp.cache;
+
+// Told about every eviction on this node, whether the write happened here or on another node
+public interface CacheEvictionListener {
+
+    // id is null when the whole cache was cleared
+    void onEvict(String cacheName, Integer id);
+}
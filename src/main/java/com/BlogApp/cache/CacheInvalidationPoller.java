@@ -0,0 +1,101 @@
+package com.BlogApp.cache;
+
+import com.BlogApp.entities.CacheInvalidation;
+import com.BlogApp.repositories.CacheInvalidationRepo;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+// Tails the cache_invalidations journal by primary key and evicts the local cache entries.
+// Ids can commit out of order, so a missing id holds the watermark back for gap-timeout-ms.
+// If polling keeps failing for max-staleness-ms every local cache is cleared.
+@Component
+public class CacheInvalidationPoller {
+
+    private final Logger logger = LoggerFactory.getLogger(CacheInvalidationPoller.class);
+
+    @Autowired
+    private CacheInvalidationRepo cacheInvalidationRepo;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Value("${app.cache.poll-batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.cache.gap-timeout-ms:10000}")
+    private long gapTimeoutMillis;
+
+    @Value("${app.cache.max-staleness-ms:10000}")
+    private long maxStalenessMillis;
+
+    @Value("${app.cache.retention-ms:3600000}")
+    private long retentionMillis;
+
+    // every journal id up to the watermark has been applied, -1 until the first poll
+    private long watermark = -1;
+    private final Set<Long> appliedAboveWatermark = new HashSet<>();
+    private final Map<Long, Long> gapsSince = new HashMap<>();
+    private long lastSuccessfulPoll = System.currentTimeMillis();
+
+    // the watermark is taken before anything is cached
+    @PostConstruct
+    void start() {
+        this.poll();
+    }
+
+    @Scheduled(initialDelayString = "${app.cache.poll-interval-ms:1000}", fixedDelayString = "${app.cache.poll-interval-ms:1000}")
+    public synchronized void poll() {
+        long now = System.currentTimeMillis();
+        try {
+            if (this.watermark < 0) {
+                // nothing before this point needs applying, entries cached before a late start are dropped
+                this.watermark = this.cacheInvalidationRepo.findMaxId();
+                this.cacheInvalidator.clearLocal();
+            } else {
+                this.apply(this.cacheInvalidationRepo.findByIdGreaterThanOrderByIdAsc(this.watermark, PageRequest.of(0, this.batchSize)), now);
+            }
+            this.lastSuccessfulPoll = now;
+        } catch (RuntimeException e) {
+            logger.warn("Cache invalidation poll failed: {}", e.toString());
+            if (now - this.lastSuccessfulPoll > this.maxStalenessMillis) {
+                this.cacheInvalidator.clearLocal();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.purge-interval-ms:600000}")
+    @Transactional
+    public void purge() {
+        this.cacheInvalidationRepo.deleteOlderThan(new Date(System.currentTimeMillis() - this.retentionMillis));
+    }
+
+    private void apply(List<CacheInvalidation> entries, long now) {
+        long highest = this.watermark;
+        for (CacheInvalidation entry : entries) {
+            if (this.appliedAboveWatermark.add(entry.getId())) {
+                this.cacheInvalidator.evictLocal(entry.getCacheName(), entry.getEntityId());
+            }
+            highest = Math.max(highest, entry.getId());
+        }
+        for (long id = this.watermark + 1; id <= highest; id++) {
+            if (this.appliedAboveWatermark.remove(id)) {
+                this.gapsSince.remove(id);
+            } else if (now - this.gapsSince.computeIfAbsent(id, missing -> now) >= this.gapTimeoutMillis) {
+                // rolled back or never coming
+                this.gapsSince.remove(id);
+            } else {
+                break;
+            }
+            this.watermark = id;
+        }
+    }
+}
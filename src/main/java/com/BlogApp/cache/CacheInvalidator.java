@@ -0,0 +1,73 @@
+package com.BlogApp.cache;
+
+import com.BlogApp.entities.CacheInvalidation;
+import com.BlogApp.repositories.CacheInvalidationRepo;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Called by service writes. The journal row is part of the write transaction,
+// the local entry is evicted after commit and the other nodes evict when they poll.
+@Component
+public class CacheInvalidator {
+
+    public static final String POSTS = "posts";
+    public static final String CATEGORIES = "categories";
+    public static final String USERS = "users";
+    // not a cache, evicting it loads every node's PostIndex beans again
+    public static final String POST_INDEXES = "post-indexes";
+
+    @Autowired
+    private CacheInvalidationRepo cacheInvalidationRepo;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectProvider<CacheEvictionListener> evictionListeners;
+
+    public void invalidate(String cacheName, Integer id) {
+        this.cacheInvalidationRepo.save(new CacheInvalidation(cacheName, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocal(cacheName, id);
+                }
+            });
+        } else {
+            this.evictLocal(cacheName, id);
+        }
+    }
+
+    public void invalidateAll(String cacheName) {
+        this.invalidate(cacheName, null);
+    }
+
+    // For changes the post indexes cannot follow post by post, like all posts of a user hidden at once
+    public void reloadPostIndexes() {
+        this.invalidateAll(POST_INDEXES);
+    }
+
+    void evictLocal(String cacheName, Integer id) {
+        Cache cache = this.cacheManager.getCache(cacheName);
+        if (cache != null) {
+            if (id == null) {
+                cache.clear();
+            } else {
+                cache.evict(id);
+            }
+        }
+        this.evictionListeners.orderedStream().forEach(listener -> listener.onEvict(cacheName, id));
+    }
+
+    void clearLocal() {
+        for (String cacheName : this.cacheManager.getCacheNames()) {
+            this.evictLocal(cacheName, null);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.BlogApp.cache;
+
+import com.BlogApp.config.ReadWriteRoutingDataSource;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+// Single-flight loading in front of a cache, for @Cacheable(sync = true) methods: on a miss the first caller loads
+// and every concurrent caller of the same key waits for that load instead of running its own query. A failed load
+// is handed to the callers waiting on it and is not cached, the next caller loads again. A waiter gives up after
+// timeoutMillis and loads on its own, so one stuck query does not hold every request for the key.
+// An evict or clear forgets the loads in flight: their results are still returned to the callers that were waiting,
+// but are not cached, and later callers start a new load that sees the write. Loads read from the primary, a replica
+// that lags behind the write would put the old value back after the evict, for as long as the entry lives.
+// A load that finds nothing (ResourceNotFoundException) is cached as a miss for missTtlMillis, so walking a range of
+// ids that do not exist is answered without a transaction or a query. Creates go through the invalidation journal
+// like any write, their evict drops the miss on every node.
+// loadAll fills many keys with one load under the same rules.
+public class CoalescingCache implements Cache {
+
+    // Completes the flight of a key loadAll found nothing for, its waiters load on their own
+    private static final class NotLoaded extends RuntimeException {
+        NotLoaded() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final NotLoaded NOT_LOADED = new NotLoaded();
+
+    private final Cache delegate;
+    private final long timeoutMillis;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // null when misses are not cached
+    private final com.github.benmanes.caffeine.cache.Cache<Object, ResourceNotFoundException> misses;
+
+    private final Counter loads;
+    private final Counter coalesced;
+    private final Counter timeouts;
+    private final Counter missHits;
+
+    public CoalescingCache(Cache delegate, long timeoutMillis, long missTtlMillis, long maxMisses, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        this.misses = missTtlMillis <= 0 ? null : Caffeine.newBuilder()
+                .expireAfterWrite(missTtlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maxMisses)
+                .build();
+
+        String name = delegate.getName();
+        this.loads = Counter.builder("blog.cache.loads").tag("cache", name).description("Cache misses loaded").register(registry);
+        this.coalesced = Counter.builder("blog.cache.coalesced").tag("cache", name).description("Cache misses that waited for a load already in flight instead of loading").register(registry);
+        this.timeouts = Counter.builder("blog.cache.coalesce-timeouts").tag("cache", name).description("Waiters that gave up on a load in flight and loaded on their own").register(registry);
+        this.missHits = Counter.builder("blog.cache.miss-hits").tag("cache", name).description("Lookups of missing entries answered from the cached miss").register(registry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = this.delegate.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        ResourceNotFoundException miss = this.misses == null ? null : this.misses.getIfPresent(key);
+        if (miss != null) {
+            this.missHits.increment();
+            // passed on by the default CacheErrorHandler, not wrapped, so no stack trace is taken
+            throw miss;
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = this.inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            this.coalesced.increment();
+            return (T) this.await(key, leader, valueLoader);
+        }
+        this.loads.increment();
+        try {
+            // a lagging replica would fill the cache with an old value, or with a miss for a row just created
+            T value = ReadWriteRoutingDataSource.onPrimary(valueLoader);
+            // an evict during the load removed the flight, the value may predate the write
+            this.land(key, flight, () -> this.delegate.put(key, value));
+            flight.complete(value);
+            return value;
+        } catch (Exception e) {
+            // like a value, a miss found before an evict may predate the write
+            ResourceNotFoundException notFound = notFound(e);
+            this.land(key, flight, () -> {
+                if (notFound != null && this.misses != null) {
+                    this.misses.put(key, notFound);
+                }
+            });
+            flight.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (Error e) {
+            this.inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Loads the given keys with one call of the loader, on the primary like get(key, valueLoader). A flight is
+    // registered for each key first, so callers of get wait for this load, and a key evicted during it is not
+    // cached. Keys with a load already in flight are loaded here too but left for that load to cache.
+    // Keys the loader returns nothing for are neither cached nor cached as misses.
+    public <K, V> Map<K, V> loadAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<Object>> flights = new HashMap<>();
+        for (K key : keys) {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            if (this.inFlight.putIfAbsent(key, flight) == null) {
+                flights.put(key, flight);
+            }
+        }
+        this.loads.increment(keys.size());
+        Map<K, V> values;
+        try {
+            values = ReadWriteRoutingDataSource.onPrimary(() -> loader.apply(new ArrayList<>(keys)));
+        } catch (Throwable e) {
+            flights.forEach((key, flight) -> {
+                this.inFlight.remove(key, flight);
+                flight.completeExceptionally(e);
+            });
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e);
+        }
+        flights.forEach((key, flight) -> {
+            V value = values.get(key);
+            this.land(key, flight, () -> {
+                if (value != null) {
+                    this.delegate.put(key, value);
+                }
+            });
+            if (value == null) {
+                flight.completeExceptionally(NOT_LOADED);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return values;
+    }
+
+    // Ends the flight and, unless an evict or clear removed it during the load, caches its result. The cache is
+    // written inside the map's compute for the key, so an evict either removes the flight first and nothing is
+    // cached, or waits for the write and then evicts it.
+    private void land(Object key, CompletableFuture<Object> flight, Runnable cacheResult) {
+        this.inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != flight) {
+                return current;
+            }
+            cacheResult.run();
+            return null;
+        });
+    }
+
+    private Object await(Object key, CompletableFuture<Object> leader, Callable<?> valueLoader) {
+        try {
+            return leader.get(this.timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            this.timeouts.increment();
+            return loadAlone(key, valueLoader);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NotLoaded) {
+                return loadAlone(key, valueLoader);
+            }
+            // the leader's failure, as if this caller had loaded
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    // A waiter's own load, not cached, but read from the primary like the leader's so it sees the writes the leader would
+    private static Object loadAlone(Object key, Callable<?> valueLoader) {
+        try {
+            return ReadWriteRoutingDataSource.onPrimary(valueLoader);
+        } catch (Exception loadFailure) {
+            throw new ValueRetrievalException(key, valueLoader, loadFailure);
+        }
+    }
+
+    // @Cacheable wraps what the method threw
+    private static ResourceNotFoundException notFound(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ResourceNotFoundException notFound) {
+                return notFound;
+            }
+        }
+        return null;
+    }
+
+    private void forgetMiss(Object key) {
+        if (this.misses != null) {
+            this.misses.invalidate(key);
+        }
+    }
+
+    private void forgetMisses() {
+        if (this.misses != null) {
+            this.misses.invalidateAll();
+        }
+    }
+
+    // The load of the key in flight, completed once its value is cached, null when there is none
+    public CompletableFuture<Object> loading(Object key) {
+        return this.inFlight.get(key);
+    }
+
+    // Loads currently in flight, for tests
+    int inFlight() {
+        return this.inFlight.size();
+    }
+
+    @Override
+    public String getName() {
+        return this.delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this.delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return this.delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return this.delegate.get(key, type);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        this.delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return this.delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        this.inFlight.remove(key);
+        this.forgetMiss(key);
+        this.delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        this.inFlight.remove(key);
+        this.forgetMiss(key);
+        return this.delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        this.inFlight.clear();
+        this.forgetMisses();
+        this.delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        this.inFlight.clear();
+        this.forgetMisses();
+        return this.delegate.invalidate();
+    }
+}
@@ -2,13 +2,16 @@ package com.BlogApp.config;
 
 import com.BlogApp.Security.JwtAuthenticationFilter;
 import com.BlogApp.Security.securityJwtAuthenticationEntryPoint;
+import com.BlogApp.limit.ConcurrencyLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 
 @Configuration
 public class AppConfig {
@@ -19,6 +22,9 @@ public class AppConfig {
     @Autowired
     private JwtAuthenticationFilter filter;
 
+    @Autowired
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(csrf -> csrf.disable())
@@ -29,7 +35,18 @@ public class AppConfig {
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(point))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
+        // load is shed before any other filter runs
+        http.addFilterBefore(concurrencyLimitFilter, DisableEncodeUrlFilter.class);
         http.addFilterBefore(filter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
+
+    // A Filter bean is also registered with the servlet container by Boot, where it would run a second time
+    // outside the security chain, behind the token parsing it is meant to spare
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration() {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(concurrencyLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
 }
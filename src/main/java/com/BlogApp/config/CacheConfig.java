@@ -0,0 +1,48 @@
+package com.BlogApp.config;
+
+import com.BlogApp.cache.CoalescingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+// The Caffeine caches Spring Boot would create from spring.cache.*, each behind a CoalescingCache
+@Configuration
+public class CacheConfig {
+
+    @Value("${spring.cache.cache-names}")
+    private List<String> cacheNames;
+
+    @Value("${spring.cache.caffeine.spec:}")
+    private String spec;
+
+    @Value("${app.cache.coalesce-timeout-ms:2000}")
+    private long coalesceTimeoutMillis;
+
+    @Value("${app.cache.miss-ttl-ms:30000}")
+    private long missTtlMillis;
+
+    @Value("${app.cache.max-misses:100000}")
+    private long maxMisses;
+
+    @Bean
+    public CacheManager cacheManager(MeterRegistry registry) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CoalescingCache(super.adaptCaffeineCache(name, cache), coalesceTimeoutMillis,
+                        missTtlMillis, maxMisses, registry);
+            }
+        };
+        if (!this.spec.isBlank()) {
+            cacheManager.setCacheSpecification(this.spec);
+        }
+        cacheManager.setCacheNames(this.cacheNames);
+        return cacheManager;
+    }
+}
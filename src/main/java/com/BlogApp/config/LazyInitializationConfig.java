@@ -0,0 +1,21 @@
+package com.BlogApp.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+// With LAZY_INIT=true controllers, services and the rest are created on first use. The migrations and the
+// Hibernate schema validation stay at startup so a bad schema still fails the boot, not the first request.
+// Beans with @Scheduled methods are kept eager by Spring Boot itself.
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter schemaBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class,
+                AbstractEntityManagerFactoryBean.class, EntityManagerFactory.class);
+    }
+}
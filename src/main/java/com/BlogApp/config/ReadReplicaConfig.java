@@ -0,0 +1,75 @@
+package com.BlogApp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Only active when DB_REPLICA_URLS is set, otherwise Spring Boot creates the single primary pool
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replica-urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Value("${app.datasource.replica-urls}")
+    private List<String> replicaUrls;
+
+    @Value("${app.datasource.replica-username}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replica-password}")
+    private String replicaPassword;
+
+    @Value("${app.datasource.replica-selection:ROUND_ROBIN}")
+    private ReadWriteRoutingDataSource.Selection selection;
+
+    @Value("${app.datasource.read-your-writes-ms:5000}")
+    private long readYourWritesMillis;
+
+    // not beans of their own, so they are closed here
+    private final List<HikariDataSource> replicas = new ArrayList<>();
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, DataSourceProperties properties) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < this.replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(this.replicaUrls.get(i).trim());
+            replica.setUsername(this.replicaUsername);
+            replica.setPassword(this.replicaPassword);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+            this.replicas.add(replica);
+        }
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicas, this.selection, this.readYourWritesMillis));
+    }
+
+    // After the beans using the data source, they depend on this configuration
+    @PreDestroy
+    void closeReplicas() {
+        for (HikariDataSource replica : this.replicas) {
+            replica.close();
+        }
+    }
+}
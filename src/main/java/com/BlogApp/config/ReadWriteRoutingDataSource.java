@@ -0,0 +1,121 @@
+package com.BlogApp.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Routes @Transactional(readOnly = true) work to a replica and everything else to the primary.
+// Must sit behind a LazyConnectionDataSourceProxy, the read-only flag is only known once the
+// transaction has started. A user who wrote within readYourWritesMillis keeps reading from the primary.
+// Writes are remembered per node: a read that a load balancer sends to another node than the write may still
+// go to a replica that has not caught up. Reads run through onPrimary() always go to the primary.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_CONNECTIONS
+    }
+
+    private static final String PRIMARY = "primary";
+
+    private final List<DataSource> replicas;
+    private final Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+    // users who wrote within readYourWritesMillis; expired entries are swept as the cache is used, so users who
+    // write once and never read again are not kept
+    private final Cache<String, Boolean> recentWriters;
+
+    private static final ThreadLocal<Boolean> primaryReads = new ThreadLocal<>();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, Selection selection, long readYourWritesMillis) {
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(readYourWritesMillis))
+                .build();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(i, this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive() || this.replicas.isEmpty()) {
+            return PRIMARY;
+        }
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null) {
+                this.recentWriters.put(user, Boolean.TRUE);
+            }
+            return PRIMARY;
+        }
+        if (primaryReads.get() != null || user != null && this.recentWriters.getIfPresent(user) != null) {
+            return PRIMARY;
+        }
+        return this.selectReplica();
+    }
+
+    // For reads whose result outlives them, like cache fills: one from a replica that is behind a write
+    // whose eviction already ran would cache the old value until it expires. Only transactions that get
+    // their connection inside work are routed.
+    public static <T> T onPrimary(Callable<T> work) throws Exception {
+        if (primaryReads.get() != null) {
+            return work.call();
+        }
+        primaryReads.set(Boolean.TRUE);
+        try {
+            return work.call();
+        } finally {
+            primaryReads.remove();
+        }
+    }
+
+    private Integer selectReplica() {
+        int start = Math.floorMod(this.next.getAndIncrement(), this.replicas.size());
+        if (this.selection == Selection.ROUND_ROBIN) {
+            return start;
+        }
+        // least connections, ties go to the next replica in round-robin order
+        int best = start;
+        int fewest = Integer.MAX_VALUE;
+        for (int n = 0; n < this.replicas.size(); n++) {
+            int i = (start + n) % this.replicas.size();
+            int active = activeConnections(this.replicas.get(i));
+            if (active < fewest) {
+                fewest = active;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            return hikari.getHikariPoolMXBean().getActiveConnections();
+        }
+        return 0;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
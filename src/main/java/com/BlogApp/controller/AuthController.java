@@ -2,8 +2,17 @@ package com.BlogApp.controller;
 
 
 import com.BlogApp.Security.JwtHelper;
+import com.BlogApp.audit.AuditEvent;
+import com.BlogApp.audit.AuditLog;
+import com.BlogApp.Security.TokenRevocation;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.exception.UnauthorizedException;
+import com.BlogApp.payloads.ApiResponse;
 import com.BlogApp.payloads.JwtRequest;
 import com.BlogApp.payloads.JwtResponse;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +39,12 @@ public class AuthController {
     @Autowired
     private JwtHelper helper;
 
+    @Autowired
+    private TokenRevocation tokenRevocation;
+
+    @Autowired
+    private AuditLog auditLog;
+
     private Logger logger = LoggerFactory.getLogger(AuthController.class);
 
 
@@ -41,6 +56,7 @@ public class AuthController {
 
         UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
         String token = this.helper.generateToken(userDetails);
+        this.auditLog.access(AuditEvent.Action.LOGIN, userDetails.getUsername(), null);
 
         JwtResponse response = JwtResponse.builder()
                 .jwtToken(token)
@@ -48,6 +64,26 @@ public class AuthController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    // Revokes the token of this request, it is refused from now on. A header that is not a bearer token is a
+    // 400, a token that does not verify or has expired a 401.
+    @PostMapping("/logout")
+    public ApiResponse logout(@RequestHeader("Authorization") String requestHeader) {
+        if (!requestHeader.startsWith("Bearer ")) {
+            throw new BadRequestException("Authorization header must be a Bearer token");
+        }
+        Claims claims;
+        try {
+            claims = this.helper.getAllClaimsFromToken(requestHeader.substring(7));
+        } catch (ExpiredJwtException e) {
+            throw new UnauthorizedException("Token has expired");
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new UnauthorizedException("Invalid token");
+        }
+        this.tokenRevocation.revoke(claims.getId(), claims.getExpiration());
+        this.auditLog.access(AuditEvent.Action.LOGOUT, claims.getSubject(), null);
+        return new ApiResponse("Logged out, the token is revoked", true, HttpStatus.OK.value());
+    }
+
     private void doAuthenticate(String email, String password) {
 
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(email, password);
@@ -56,6 +92,7 @@ public class AuthController {
 
 
         } catch (BadCredentialsException e) {
+            this.auditLog.access(AuditEvent.Action.LOGIN_FAILED, email, null);
             throw new BadCredentialsException(" Invalid Username or Password  !!");
         }
 
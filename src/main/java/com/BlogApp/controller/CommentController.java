@@ -2,6 +2,7 @@ package com.BlogApp.controller;
 
 import com.BlogApp.payloads.ApiResponse;
 import com.BlogApp.payloads.CommentDto;
+import com.BlogApp.payloads.CommentThreadResponse;
 import com.BlogApp.services.CommentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -21,6 +22,31 @@ public class CommentController {
         return new ResponseEntity<CommentDto>(createdComment, HttpStatus.OK);
     }
 
+    @PostMapping("/comments/{commentId}/replies")
+    public ResponseEntity<CommentDto> createReply(@RequestBody CommentDto commentDto, @PathVariable Integer commentId) {
+        return new ResponseEntity<>(this.commentService.createReply(commentDto, commentId), HttpStatus.OK);
+    }
+
+    // Top-level comments, oldest first, each with up to depth levels of replies and at most limit replies per page
+    @GetMapping("/post/{postId}/comments")
+    public ResponseEntity<CommentThreadResponse> getThreads(
+            @PathVariable Integer postId,
+            @RequestParam(value = "after", required = false) Integer after,
+            @RequestParam(value = "pageSize", defaultValue = "10", required = false) Integer pageSize,
+            @RequestParam(value = "depth", defaultValue = "2", required = false) Integer depth,
+            @RequestParam(value = "limit", defaultValue = "100", required = false) Integer limit) {
+        return new ResponseEntity<>(this.commentService.getThreads(postId, after, pageSize, depth, limit), HttpStatus.OK);
+    }
+
+    // A comment with the replies below it, for expanding a thread past what getThreads loaded
+    @GetMapping("/comments/{commentId}/replies")
+    public ResponseEntity<CommentDto> getReplies(
+            @PathVariable Integer commentId,
+            @RequestParam(value = "depth", defaultValue = "3", required = false) Integer depth,
+            @RequestParam(value = "limit", defaultValue = "100", required = false) Integer limit) {
+        return new ResponseEntity<>(this.commentService.getReplies(commentId, depth, limit), HttpStatus.OK);
+    }
+
     @DeleteMapping("/comments/{commentId}")
     public ResponseEntity<ApiResponse> deleteComment(@PathVariable Integer commentId) {
         commentService.deleteComment(commentId);
@@ -1,11 +1,24 @@
 package com.BlogApp.controller;
 
+import com.BlogApp.drafts.DraftBuffer;
 import com.BlogApp.payloads.ApiResponse;
+import com.BlogApp.payloads.ArchiveMonth;
+import com.BlogApp.payloads.PostBatchResponse;
 import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.PostFields;
 import com.BlogApp.payloads.PostResponse;
+import com.BlogApp.payloads.PostSuggestion;
+import com.BlogApp.payloads.RelatedPost;
+import com.BlogApp.payloads.TaggedPostResponse;
+import com.BlogApp.payloads.UploadRequest;
+import com.BlogApp.payloads.UploadStatus;
 import com.BlogApp.payloads.UserDto;
 import com.BlogApp.services.FileService;
 import com.BlogApp.services.PostService;
+import com.BlogApp.services.UploadService;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,6 +26,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -20,6 +34,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api")
@@ -29,6 +44,10 @@ public class PostController {
     private PostService postService;
     @Autowired
     private FileService fileService;
+    @Autowired
+    private DraftBuffer draftBuffer;
+    @Autowired
+    private UploadService uploadService;
 
     @Value("${project.image}")
     private String imagePath;
@@ -43,35 +62,52 @@ public class PostController {
 
     //GET by USerId
     @GetMapping("/user/{userId}/posts")
-    public ResponseEntity<List<PostDto>> getPostByUser(@PathVariable Integer userId) {
-        List<PostDto> posts = this.postService.getPostByUser(userId);
-        return new ResponseEntity<List<PostDto>>(posts, HttpStatus.OK);
+    public ResponseEntity<MappingJacksonValue> getPostByUser(@PathVariable Integer userId,
+                                                             @RequestParam(value = "fields", required = false) String fields) {
+        Set<String> selected = PostFields.parse(fields);
+        List<PostDto> posts = this.postService.getPostByUser(userId, selected);
+        return new ResponseEntity<>(this.withFields(posts, selected), HttpStatus.OK);
     }
 
     //Get by Category
     @GetMapping("/category/{categoryId}/posts")
-    public ResponseEntity<List<PostDto>> getPostByCategory(@PathVariable Integer categoryId) {
-        List<PostDto> posts = this.postService.getPostByCategory(categoryId);
-        return new ResponseEntity<List<PostDto>>(posts, HttpStatus.OK);
+    public ResponseEntity<MappingJacksonValue> getPostByCategory(@PathVariable Integer categoryId,
+                                                                 @RequestParam(value = "fields", required = false) String fields) {
+        Set<String> selected = PostFields.parse(fields);
+        List<PostDto> posts = this.postService.getPostByCategory(categoryId, selected);
+        return new ResponseEntity<>(this.withFields(posts, selected), HttpStatus.OK);
     }
 
     //GET all Posts
     @GetMapping("/posts")
-    public ResponseEntity<PostResponse> getAllPosts(
+    public ResponseEntity<MappingJacksonValue> getAllPosts(
             @RequestParam(value = "pageNumber", defaultValue = "0", required = false) Integer pageNumber,
             @RequestParam(value = "pageSize", defaultValue = "10", required = false) Integer pageSize,
             @RequestParam(value = "sortBy", defaultValue = "postId", required = false) String sortBy,
-            @RequestParam(value = "sortDir", defaultValue = "ASC", required = false) String sortDir) {
-        PostResponse posts = this.postService.getAllPosts(pageNumber, pageSize,sortBy,sortDir);
-        return new ResponseEntity<PostResponse>(posts, HttpStatus.OK);
+            @RequestParam(value = "sortDir", defaultValue = "ASC", required = false) String sortDir,
+            @RequestParam(value = "fields", required = false) String fields) {
+        Set<String> selected = PostFields.parse(fields);
+        PostResponse posts = this.postService.getAllPosts(pageNumber, pageSize, sortBy, sortDir, selected);
+        return new ResponseEntity<>(this.withFields(posts, selected), HttpStatus.OK);
     }
 
 
     //GET PostByID
     @GetMapping("/posts/{postId}")
-    public ResponseEntity<PostDto> getPostById(@PathVariable Integer postId) {
-        PostDto postDto = this.postService.getPostById(postId);
-        return ResponseEntity.ok().body(postDto);
+    public ResponseEntity<MappingJacksonValue> getPostById(@PathVariable Integer postId,
+                                                           @RequestParam(value = "fields", required = false) String fields) {
+        Set<String> selected = PostFields.parse(fields);
+        // the full post goes through the post cache, sparse fieldsets read the selected columns
+        PostDto postDto = selected == null
+                ? this.postService.getPostById(postId)
+                : this.postService.getPostById(postId, selected);
+        return ResponseEntity.ok().body(this.withFields(postDto, selected));
+    }
+
+    // Many posts by id in one request, e.g. /api/posts/batch?ids=12,7,31
+    @GetMapping("/posts/batch")
+    public ResponseEntity<PostBatchResponse> getPostsByIds(@RequestParam("ids") List<Integer> ids) {
+        return new ResponseEntity<>(this.postService.getPostsByIds(ids), HttpStatus.OK);
     }
 
     //DeletePost
@@ -81,18 +117,58 @@ public class PostController {
         return new ApiResponse("Post is successfully Deleted", true, HttpStatus.OK.value());
     }
 
-    //UpdatePost
+    //UpdatePost, autosave=true only buffers the edit, see DraftBuffer
     @PutMapping("/posts/{postId}")
-    public ResponseEntity<PostDto> updatePost(@PathVariable Integer postId, @RequestBody PostDto postDto) {
-        PostDto updatePost = this.postService.updatePost(postDto, postId);
+    public ResponseEntity<PostDto> updatePost(@PathVariable Integer postId, @RequestBody PostDto postDto,
+                                              @RequestParam(value = "autosave", defaultValue = "false") boolean autosave) {
+        if (autosave) {
+            postDto.setPostId(postId);
+            this.draftBuffer.save(postId, postDto);
+            return new ResponseEntity<PostDto>(postDto, HttpStatus.ACCEPTED);
+        }
+        PostDto updatePost = this.draftBuffer.publish(postId, postDto);
         return new ResponseEntity<PostDto>(updatePost, HttpStatus.OK);
     }
 
+    // Typeahead on post titles, answered from memory
+    @GetMapping("/posts/suggest")
+    public ResponseEntity<List<PostSuggestion>> suggestPosts(@RequestParam("q") String q,
+                                                             @RequestParam(value = "limit", defaultValue = "10", required = false) Integer limit) {
+        return new ResponseEntity<>(this.postService.suggestPosts(q, limit), HttpStatus.OK);
+    }
+
+    // Posts with the most words in common, from the MinHash index
+    @GetMapping("/posts/{postId}/related")
+    public ResponseEntity<List<RelatedPost>> getRelatedPosts(@PathVariable Integer postId,
+                                                             @RequestParam(value = "limit", defaultValue = "5", required = false) Integer limit) {
+        return new ResponseEntity<>(this.postService.getRelatedPosts(postId, limit), HttpStatus.OK);
+    }
+
+    // Newest posts by tags and category, e.g. /api/posts/tagged?tags=java,spring&anyTags=jpa,jdbc&categoryId=3
+    @GetMapping("/posts/tagged")
+    public ResponseEntity<TaggedPostResponse> getPostsByTags(
+            @RequestParam(value = "tags", required = false) Set<String> tags,
+            @RequestParam(value = "anyTags", required = false) Set<String> anyTags,
+            @RequestParam(value = "categoryId", required = false) Integer categoryId,
+            @RequestParam(value = "before", required = false) Integer before,
+            @RequestParam(value = "pageSize", defaultValue = "10", required = false) Integer pageSize) {
+        return new ResponseEntity<>(this.postService.getPostsByTags(tags, anyTags, categoryId, before, pageSize), HttpStatus.OK);
+    }
+
+    // Live posts per month, newest first, e.g. /api/posts/archive?categoryId=3
+    @GetMapping("/posts/archive")
+    public ResponseEntity<List<ArchiveMonth>> getArchive(
+            @RequestParam(value = "categoryId", required = false) Integer categoryId) {
+        return new ResponseEntity<>(this.postService.getArchive(categoryId), HttpStatus.OK);
+    }
+
 //    ??search
     @GetMapping("/posts/search/{search}")
-    public ResponseEntity<List<PostDto>> searchPosts(@PathVariable("search") String search) {
-        List<PostDto> searchPosts = this.postService.searchPosts(search);
-        return new ResponseEntity<>(searchPosts, HttpStatus.OK);
+    public ResponseEntity<MappingJacksonValue> searchPosts(@PathVariable("search") String search,
+                                                           @RequestParam(value = "fields", required = false) String fields) {
+        Set<String> selected = PostFields.parse(fields);
+        List<PostDto> searchPosts = this.postService.searchPosts(search, selected);
+        return new ResponseEntity<>(this.withFields(searchPosts, selected), HttpStatus.OK);
     }
 
     @PostMapping("/posts/upload/image/{postId}")
@@ -100,11 +176,41 @@ public class PostController {
             @RequestParam("image") MultipartFile image,
             @PathVariable Integer postId
     ) throws IOException {
-        PostDto postDto = this.postService.getPostById(postId);
+        // the image goes on top of the latest draft
+        this.draftBuffer.flush(postId);
+        this.postService.getPostById(postId);
         String fileName = this.fileService.uploadImage(imagePath, image);
-        postDto.setImageName(fileName);
-        PostDto updatedPost = this.postService.updatePost(postDto, postId);
-        return new ResponseEntity<PostDto>(postDto, HttpStatus.OK);
+        return new ResponseEntity<PostDto>(this.postService.setPostImage(postId, fileName), HttpStatus.OK);
+    }
+
+    // Resumable upload of a large image, see UploadServiceImpl
+    @PostMapping("/posts/{postId}/uploads")
+    public ResponseEntity<UploadStatus> startUpload(@PathVariable Integer postId, @RequestBody UploadRequest request)
+            throws IOException {
+        return new ResponseEntity<>(this.uploadService.startUpload(postId, request), HttpStatus.CREATED);
+    }
+
+    // The offset to resume from
+    @GetMapping("/posts/{postId}/uploads/{uploadId}")
+    public ResponseEntity<UploadStatus> getUpload(@PathVariable Integer postId, @PathVariable String uploadId) {
+        return new ResponseEntity<>(this.uploadService.getUpload(postId, uploadId), HttpStatus.OK);
+    }
+
+    // The raw request body is the chunk, written at ?offset=
+    @PutMapping("/posts/{postId}/uploads/{uploadId}")
+    public ResponseEntity<UploadStatus> appendChunk(@PathVariable Integer postId, @PathVariable String uploadId,
+                                                    @RequestParam("offset") long offset,
+                                                    HttpServletRequest request) throws IOException {
+        return new ResponseEntity<>(this.uploadService.appendChunk(postId, uploadId, offset, request.getInputStream()),
+                HttpStatus.OK);
+    }
+
+    @PostMapping("/posts/{postId}/uploads/{uploadId}/complete")
+    public ResponseEntity<PostDto> completeUpload(@PathVariable Integer postId, @PathVariable String uploadId,
+                                                  @RequestParam("sha256") String sha256) throws IOException {
+        this.draftBuffer.flush(postId);
+        String fileName = this.uploadService.completeUpload(postId, uploadId, sha256);
+        return new ResponseEntity<PostDto>(this.postService.setPostImage(postId, fileName), HttpStatus.OK);
     }
 
     // Serve Image
@@ -115,5 +221,13 @@ public class PostController {
         StreamUtils.copy(resource, response.getOutputStream());
     }
 
-
+    // Writes only the selected PostDto properties, or all of them when no fields were given
+    private MappingJacksonValue withFields(Object body, Set<String> fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (fields != null) {
+            value.setFilters(new SimpleFilterProvider()
+                    .addFilter(PostFields.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        }
+        return value;
+    }
 }
@@ -1,6 +1,10 @@
 package com.BlogApp.controller;
 
+import com.BlogApp.payloads.ApiResponse;
+import com.BlogApp.payloads.AuthorStatsDto;
+import com.BlogApp.payloads.TimelineResponse;
 import com.BlogApp.payloads.UserDto;
+import com.BlogApp.services.FollowService;
 import com.BlogApp.services.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +20,8 @@ import java.util.List;
 public class UserContoller {
     @Autowired
     private UserService userService;
+    @Autowired
+    private FollowService followService;
 
     @PostMapping
     public ResponseEntity<UserDto> createUser(@Valid @RequestBody UserDto userDto) {
@@ -48,4 +54,30 @@ public class UserContoller {
         return ResponseEntity.ok(users);
     }
 
+    // Posts, comments on them and the newest post date of the author
+    @GetMapping("/{userId}/stats")
+    public ResponseEntity<AuthorStatsDto> getAuthorStats(@PathVariable Integer userId) {
+        return ResponseEntity.ok(this.userService.getAuthorStats(userId));
+    }
+
+    @PutMapping("/{userId}/following/{followeeId}")
+    public ApiResponse follow(@PathVariable Integer userId, @PathVariable Integer followeeId) {
+        this.followService.follow(userId, followeeId);
+        return new ApiResponse("User is followed", true, HttpStatus.OK.value());
+    }
+
+    @DeleteMapping("/{userId}/following/{followeeId}")
+    public ResponseEntity<Void> unfollow(@PathVariable Integer userId, @PathVariable Integer followeeId) {
+        this.followService.unfollow(userId, followeeId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Posts of the followed authors, newest first; pass nextCursor as before for the next page
+    @GetMapping("/{userId}/timeline")
+    public ResponseEntity<TimelineResponse> getHomeTimeline(@PathVariable Integer userId,
+            @RequestParam(value = "before", required = false) Integer before,
+            @RequestParam(value = "pageSize", defaultValue = "10", required = false) Integer pageSize) {
+        return ResponseEntity.ok(this.followService.getHomeTimeline(userId, before, pageSize));
+    }
+
 }
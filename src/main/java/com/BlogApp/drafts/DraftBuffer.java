@@ -0,0 +1,175 @@
+package com.BlogApp.drafts;
+
+import com.BlogApp.audit.AuditLog;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.repositories.PostRepo;
+import com.BlogApp.services.PostService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Autosaved post edits (PUT /api/posts/{postId}?autosave=true) are kept in memory, only the newest per post,
+// and written through PostService.updatePost once the post has had no autosave for app.drafts.debounce-ms,
+// or at the latest app.drafts.max-delay-ms after the first unwritten one. A regular update drops the pending
+// draft and writes at once. Pending drafts are written on shutdown; they live on the node that received them.
+// A draft is based on the post's revision when it started and written only while the post is still at it, so an
+// update through another node, which never sees this node's drafts, is not overwritten by an older draft.
+// The user who saved a draft is kept with it for the audit log, the scheduler thread that writes it has none.
+@Component
+public class DraftBuffer {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final class Draft {
+        private final PostDto changes;
+        // who saved the changes
+        private final String actor;
+        private final int revision;
+        private final long firstSavedAt;
+        private final long savedAt;
+
+        Draft(PostDto changes, String actor, int revision, long firstSavedAt, long savedAt) {
+            this.changes = changes;
+            this.actor = actor;
+            this.revision = revision;
+            this.firstSavedAt = firstSavedAt;
+            this.savedAt = savedAt;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(DraftBuffer.class);
+
+    private final PostService postService;
+    private final PostRepo postRepo;
+    private final Map<Integer, Draft> drafts = new ConcurrentHashMap<>();
+    // writes of one post are serialized so an older draft never lands after a newer write
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private volatile boolean closed;
+
+    @Value("${app.drafts.debounce-ms:5000}")
+    private long debounceMillis;
+
+    @Value("${app.drafts.max-delay-ms:30000}")
+    private long maxDelayMillis;
+
+    private final Counter saved;
+    private final Counter coalesced;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter superseded;
+
+    public DraftBuffer(PostService postService, PostRepo postRepo, MeterRegistry registry) {
+        this.postService = postService;
+        this.postRepo = postRepo;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.locks[i] = new Object();
+        }
+
+        this.saved = Counter.builder("blog.drafts.saved").description("Autosaves received").register(registry);
+        this.coalesced = Counter.builder("blog.drafts.coalesced").description("Autosaves replaced by a newer one before being written").register(registry);
+        this.written = Counter.builder("blog.drafts.written").description("Drafts written to the database").register(registry);
+        this.dropped = Counter.builder("blog.drafts.dropped").description("Drafts of posts that no longer exist").register(registry);
+        this.superseded = Counter.builder("blog.drafts.superseded").description("Drafts of posts updated since they were started, not written").register(registry);
+        Gauge.builder("blog.drafts.pending", this.drafts, Map::size)
+                .description("Drafts waiting to be written").register(registry);
+    }
+
+    public void save(Integer postId, PostDto changes) {
+        long now = System.currentTimeMillis();
+        String actor = AuditLog.currentActor();
+        this.saved.increment();
+        // under the lock a write cannot slip between reading the pending draft and replacing it
+        synchronized (this.lock(postId)) {
+            Draft pending = this.drafts.get(postId);
+            if (pending == null) {
+                // the post is read when its first draft arrives, not on every keystroke
+                int revision = this.postRepo.findRevision(postId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
+                this.drafts.put(postId, new Draft(changes, actor, revision, now, now));
+            } else {
+                this.coalesced.increment();
+                this.drafts.put(postId, new Draft(changes, actor, pending.revision, pending.firstSavedAt, now));
+            }
+        }
+        if (this.closed) {
+            this.flush(postId);
+        }
+    }
+
+    // A regular update, newer than any pending draft
+    public PostDto publish(Integer postId, PostDto changes) {
+        synchronized (this.lock(postId)) {
+            this.drafts.remove(postId);
+            return this.postService.updatePost(changes, postId);
+        }
+    }
+
+    // Writes the pending draft now, before a change made on top of the stored post
+    public void flush(Integer postId) {
+        synchronized (this.lock(postId)) {
+            Draft draft = this.drafts.get(postId);
+            if (draft != null) {
+                this.write(postId, draft);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.drafts.flush-interval-ms:1000}")
+    public void flushDue() {
+        long now = System.currentTimeMillis();
+        this.drafts.forEach((postId, draft) -> {
+            if (now - draft.savedAt >= this.debounceMillis || now - draft.firstSavedAt >= this.maxDelayMillis) {
+                synchronized (this.lock(postId)) {
+                    this.write(postId, draft);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        this.closed = true;
+        int pending = this.drafts.size();
+        for (Integer postId : new ArrayList<>(this.drafts.keySet())) {
+            this.flush(postId);
+        }
+        if (pending > 0) {
+            logger.info("Wrote {} pending drafts on shutdown", pending);
+        }
+    }
+
+    // Unless a newer draft replaced it. A failed write is kept for the next flush
+    private void write(Integer postId, Draft draft) {
+        if (!this.drafts.remove(postId, draft)) {
+            return;
+        }
+        try {
+            if (this.postService.updatePost(draft.changes, postId, draft.revision, draft.actor) == null) {
+                this.superseded.increment();
+                logger.info("Dropped the draft of post {}, updated since revision {}", postId, draft.revision);
+            } else {
+                this.written.increment();
+            }
+        } catch (ResourceNotFoundException e) {
+            this.dropped.increment();
+        } catch (RuntimeException e) {
+            logger.warn("Writing the draft of post {} failed: {}", postId, e.toString());
+            this.drafts.putIfAbsent(postId, draft);
+        }
+    }
+
+    private Object lock(Integer postId) {
+        return this.locks[Math.floorMod(postId, LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,43 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+// Live posts of a category added in one month, see PostStats
+@Entity
+@Table(name = "archive_stats")
+@IdClass(ArchiveStats.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class ArchiveStats {
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer postYear;
+        private Integer postMonth;
+        private Integer categoryId;
+    }
+
+    @Id
+    private Integer postYear;
+
+    // 1 to 12
+    @Id
+    private Integer postMonth;
+
+    @Id
+    private Integer categoryId;
+
+    @Column(nullable = false)
+    private int postCount;
+}
@@ -0,0 +1,29 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+// Live posts of an author and the comments on them, see PostStats
+@Entity
+@Table(name = "author_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+public class AuthorStats {
+
+    @Id
+    private Integer userId;
+
+    @Column(nullable = false)
+    private int postCount;
+
+    @Column(nullable = false)
+    private int commentCount;
+
+    // null once the author has no posts
+    private Date lastPostedAt;
+}
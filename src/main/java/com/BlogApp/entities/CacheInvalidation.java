@@ -0,0 +1,36 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+// Journal row telling every node to evict an entry, see CacheInvalidationPoller
+@Entity
+@Table(name = "cache_invalidations")
+@Getter
+@Setter
+@NoArgsConstructor
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String cacheName;
+
+    // null clears the whole cache
+    private Integer entityId;
+
+    @Column(nullable = false)
+    private Date createdAt;
+
+    public CacheInvalidation(String cacheName, Integer entityId) {
+        this.cacheName = cacheName;
+        this.entityId = entityId;
+        this.createdAt = new Date();
+    }
+}
@@ -4,12 +4,15 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 @Entity
 @Table(name="categories")
+@SQLRestriction("deleted_at is null")
 @NoArgsConstructor
 @Getter
 @Setter
@@ -25,7 +28,10 @@ public class Category {
     @Column(name="description")
     private String categoryDescription;
 
-    @OneToMany(mappedBy = "category", cascade = CascadeType.ALL,fetch = FetchType.LAZY)
+    // removal is left to ContentPurger, see CategoryServiceImpl.deleteCategory
+    @OneToMany(mappedBy = "category", cascade = {CascadeType.PERSIST, CascadeType.MERGE},fetch = FetchType.LAZY)
     private List<Post> posts = new ArrayList<>();
 
+    private Date deletedAt;
+
 }
@@ -21,4 +21,15 @@ public class Comment {
     @ManyToOne
     @JoinColumn(name = "post_id")
     private Post post;
+
+    // null for a top-level comment
+    private Integer parentId;
+
+    private int depth;
+
+    private int replyCount;
+
+    // the padded ids from the top-level comment down to this one, see V14__comment_threads.sql
+    @Column(nullable = false)
+    private String path;
 }
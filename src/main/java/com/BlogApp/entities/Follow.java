@@ -0,0 +1,35 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.Date;
+
+@Entity
+@Table(name = "follows")
+@IdClass(Follow.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class Follow {
+
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer followerId;
+        private Integer followeeId;
+    }
+
+    @Id
+    private Integer followerId;
+
+    @Id
+    private Integer followeeId;
+
+    @Column(nullable = false)
+    private Date createdAt;
+}
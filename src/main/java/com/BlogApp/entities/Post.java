@@ -4,13 +4,18 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 
+// Soft-deleted posts, and posts of a soft-deleted category or user, are never loaded
 @Entity
 @Table(name = "posts")
+@SQLRestriction("deleted_at is null"
+        + " and not exists (select 1 from categories dc where dc.category_id = category_id and dc.deleted_at is not null)"
+        + " and not exists (select 1 from users du where du.id = user_id and du.deleted_at is not null)")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,20 +28,27 @@ public class Post {
     @Column(name = "post_title", length = 100, nullable = false)
     private String title;
 
+    // first characters of the body, the body itself is a PostBody
     @Column(length = 100,name="description")
-
-    private String content;
+    private String excerpt;
 
     private String imageName;
 
     private Date addedDate;
 
+    private Date deletedAt;
+
+    // updates so far, raised by PostRepo.incrementRevision
+    @Column(nullable = false)
+    private int revision;
+
     @ManyToOne
     @JoinColumn(name = "category_id")
     private Category category;
 
     @ManyToOne
     private User user;
-    @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    // removal is left to ContentPurger, see PostServiceImpl.deletePost
+    @OneToMany(mappedBy = "post", cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY)
     private Set<Comment> comments = new HashSet<>();
 }
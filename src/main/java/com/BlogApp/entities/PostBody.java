@@ -0,0 +1,112 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Full text of a post, kept out of the posts rows that listings page through.
+// Loaded by id only, see PostServiceImpl.getPostById
+@Entity
+@Table(name = "post_bodies")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PostBody {
+
+    @Id
+    private Integer postId;
+
+    private boolean compressed;
+
+    // UTF-8 text, deflated when compressed
+    @Lob
+    @Column(nullable = false)
+    private byte[] body;
+
+    // SHA-256 of the text in hex, set with the text, PostHtml is current while its hash matches.
+    // Null for bodies stored before V7 until PostHtmlRenderer stores their HTML.
+    private String contentHash;
+
+    public PostBody(Integer postId) {
+        this.postId = postId;
+    }
+
+    // Bodies above threshold bytes of UTF-8 are deflated, unless that does not make them smaller
+    public void setText(String text, int threshold) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        this.contentHash = hash(utf8);
+        this.compressed = false;
+        this.body = utf8;
+        if (utf8.length > threshold) {
+            byte[] deflated = deflate(utf8);
+            if (deflated.length < utf8.length) {
+                this.compressed = true;
+                this.body = deflated;
+            }
+        }
+    }
+
+    public String getText() {
+        return new String(this.compressed ? inflate(this.body) : this.body, StandardCharsets.UTF_8);
+    }
+
+    // The stored hash, computed from the text for bodies stored before V7
+    public String hashOfText() {
+        return this.contentHash != null ? this.contentHash : hash(this.getText().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String hash(byte[] utf8) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(utf8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated post body");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt post body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
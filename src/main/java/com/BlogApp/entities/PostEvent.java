@@ -0,0 +1,52 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.Date;
+
+// Outbox row recording a post change, see PostEventDispatcher
+@Entity
+@Table(name = "post_events")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PostEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private Type type;
+
+    @Column(nullable = false)
+    private Integer postId;
+
+    @Column(nullable = false)
+    private Date createdAt;
+
+    private int attempts;
+
+    // null once delivery has been given up
+    private Date nextAttemptAt;
+
+    private String lastError;
+
+    public PostEvent(Type type, Integer postId) {
+        this.type = type;
+        this.postId = postId;
+        this.createdAt = new Date();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
@@ -0,0 +1,47 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.nio.charset.StandardCharsets;
+
+// Sanitized HTML rendered once from a post body, see PostHtmlRenderer.
+// Stale, and ignored, once contentHash no longer matches the PostBody
+@Entity
+@Table(name = "post_html")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PostHtml {
+
+    @Id
+    private Integer postId;
+
+    @Column(nullable = false)
+    private String contentHash;
+
+    private boolean compressed;
+
+    // UTF-8 HTML, deflated when compressed
+    @Lob
+    @Column(nullable = false)
+    private byte[] html;
+
+    public PostHtml(Integer postId) {
+        this.postId = postId;
+    }
+
+    // Same rule as PostBody.setText
+    public void setText(String text, int threshold) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = utf8.length > threshold ? PostBody.deflate(utf8) : utf8;
+        this.compressed = deflated.length < utf8.length;
+        this.html = this.compressed ? deflated : utf8;
+    }
+
+    public String getText() {
+        return new String(this.compressed ? PostBody.inflate(this.html) : this.html, StandardCharsets.UTF_8);
+    }
+}
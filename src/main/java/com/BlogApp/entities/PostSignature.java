@@ -0,0 +1,41 @@
+package com.BlogApp.entities;
+
+import com.BlogApp.search.MinHash;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// MinHash signature and shingles of a post, persisted so RelatedPostIndex starts without reading every body
+@Entity
+@Table(name = "post_signatures")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PostSignature {
+
+    @Id
+    private Integer postId;
+
+    @Column(nullable = false, length = MinHash.HASHES * Integer.BYTES)
+    private byte[] signature;
+
+    // MinHash.shingles of the title and content
+    @Lob
+    @Column(nullable = false)
+    private byte[] shingles;
+
+    public PostSignature(Integer postId, int[] signature, int[] shingles) {
+        this.postId = postId;
+        this.signature = MinHash.toBytes(signature);
+        this.shingles = MinHash.toBytes(shingles);
+    }
+
+    public int[] getHashes() {
+        return MinHash.fromBytes(this.signature);
+    }
+
+    public int[] getShingleHashes() {
+        return MinHash.fromBytes(this.shingles);
+    }
+}
@@ -0,0 +1,34 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+// A tag on a post. Kept apart from Post like PostBody, PostServiceImpl fills in PostDto.tags
+@Entity
+@Table(name = "post_tags")
+@IdClass(PostTag.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostTag {
+
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer postId;
+        private Integer tagId;
+    }
+
+    @Id
+    private Integer postId;
+
+    @Id
+    private Integer tagId;
+}
@@ -0,0 +1,51 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.Date;
+
+// Pending removal of a soft-deleted category, user or post, see ContentPurger
+@Entity
+@Table(name = "purge_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PurgeJob {
+
+    public enum TargetType {
+        CATEGORY, USER, POST
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 20)
+    private TargetType targetType;
+
+    @Column(nullable = false)
+    private Integer targetId;
+
+    private long postsDeleted;
+
+    private long commentsDeleted;
+
+    @Column(nullable = false)
+    private Date createdAt;
+
+    // null while the purge is still in progress
+    private Date completedAt;
+
+    public PurgeJob(TargetType targetType, Integer targetId) {
+        this.targetType = targetType;
+        this.targetId = targetId;
+        this.createdAt = new Date();
+    }
+}
@@ -0,0 +1,31 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+// A JWT that is no longer accepted, see TokenRevocation
+@Entity
+@Table(name = "revoked_tokens")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    // the token's jti claim
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    // the token's exp, the row is purged after it
+    @Column(nullable = false)
+    private Date expiresAt;
+
+    @Column(nullable = false)
+    private Date revokedAt;
+}
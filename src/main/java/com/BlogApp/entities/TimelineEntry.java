@@ -0,0 +1,35 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+// A post in a follower's home timeline, see TimelineFanOut
+@Entity
+@Table(name = "timeline_entries")
+@IdClass(TimelineEntry.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class TimelineEntry {
+
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer userId;
+        private Integer postId;
+    }
+
+    @Id
+    private Integer userId;
+
+    @Id
+    private Integer postId;
+
+    @Column(nullable = false)
+    private Integer authorId;
+}
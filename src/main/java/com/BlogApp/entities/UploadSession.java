@@ -0,0 +1,46 @@
+package com.BlogApp.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+// A resumable image upload in progress, see UploadServiceImpl
+@Entity
+@Table(name = "upload_sessions")
+@Getter
+@Setter
+@NoArgsConstructor
+public class UploadSession {
+
+    @Id
+    @Column(length = 36)
+    private String uploadId;
+
+    @Column(nullable = false)
+    private Integer postId;
+
+    // under project.image, the image name once complete
+    @Column(nullable = false, length = 50)
+    private String fileName;
+
+    // declared by the client
+    private long length;
+
+    // bytes written so far, where the next chunk starts
+    private long received;
+
+    // the chunk being written, until claimedUntil at the latest
+    @Column(length = 36)
+    private String claim;
+
+    private Date claimedUntil;
+
+    @Column(nullable = false)
+    private Date createdAt;
+
+    @Column(nullable = false)
+    private Date expiresAt;
+}
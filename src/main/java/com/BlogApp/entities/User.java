@@ -4,12 +4,15 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 @Entity
 @Table(name="users")
+@SQLRestriction("deleted_at is null")
 @NoArgsConstructor
 @Getter
 @Setter
@@ -24,8 +27,19 @@ public class User {
     private String password;
     private String about;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
+    // removal is left to ContentPurger, see UserServiceImpl.deleteUser
+    @OneToMany(mappedBy = "user", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     private List<Post> posts = new ArrayList<>();
 
+    private Date deletedAt;
+
+    // written only by the FollowRepo and UserRepo counter queries, never by a user update
+    @Column(insertable = false, updatable = false)
+    private int followerCount;
+
+    // set by UserRepo.markTimelinePulled, see TimelineFanOut
+    @Column(insertable = false, updatable = false)
+    private boolean timelinePulled;
+
 
 }
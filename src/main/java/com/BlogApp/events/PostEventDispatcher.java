@@ -0,0 +1,147 @@
+package com.BlogApp.events;
+
+import com.BlogApp.entities.PostEvent;
+import com.BlogApp.repositories.PostEventRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drains the post_events outbox in id order and hands each batch to every PostEventListener.
+// A batch is claimed in a short transaction by pushing its next attempt out by app.outbox.lease-ms, the
+// listeners then run in transactions of their own without holding the row locks. A failed batch is split
+// in halves until the failing events are found; only those are retried, with exponential backoff, until
+// app.outbox.max-attempts is reached.
+@Component
+public class PostEventDispatcher {
+
+    private final Logger logger = LoggerFactory.getLogger(PostEventDispatcher.class);
+
+    private final PostEventRepo postEventRepo;
+    private final ObjectProvider<PostEventListener> listeners;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.backoff-ms:1000}")
+    private long backoffMillis;
+
+    @Value("${app.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMillis;
+
+    @Value("${app.outbox.lease-ms:60000}")
+    private long leaseMillis;
+
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter abandoned;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public PostEventDispatcher(PostEventRepo postEventRepo, ObjectProvider<PostEventListener> listeners,
+                               TransactionTemplate transactionTemplate, MeterRegistry registry) {
+        this.postEventRepo = postEventRepo;
+        this.listeners = listeners;
+        this.transactionTemplate = transactionTemplate;
+
+        this.delivered = Counter.builder("blog.outbox.delivered").description("Post events delivered to the listeners").register(registry);
+        this.retried = Counter.builder("blog.outbox.retried").description("Post event deliveries scheduled for retry").register(registry);
+        this.abandoned = Counter.builder("blog.outbox.abandoned").description("Post events that ran out of attempts").register(registry);
+        Gauge.builder("blog.outbox.pending", this.pending, AtomicLong::get)
+                .description("Post events waiting for delivery").register(registry);
+        Gauge.builder("blog.outbox.lag", this.lagMillis, lag -> lag.get() / 1000.0)
+                .baseUnit("seconds").description("Age of the oldest undelivered post event").register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${app.outbox.poll-interval-ms:500}", fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        int count;
+        do {
+            count = this.dispatchBatch();
+        } while (count == this.batchSize);
+        this.updateLag();
+    }
+
+    // Returns the number of events delivered, 0 when there was nothing to do or every event failed
+    int dispatchBatch() {
+        List<PostEvent> batch = this.transactionTemplate.execute(status -> {
+            List<PostEvent> ready = this.postEventRepo.findReady(new Date(), PageRequest.of(0, this.batchSize));
+            // held by this node until the lease runs out, another node takes them over after a crash
+            Date leasedUntil = new Date(System.currentTimeMillis() + this.leaseMillis);
+            ready.forEach(event -> event.setNextAttemptAt(leasedUntil));
+            return ready;
+        });
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<Long, RuntimeException> failed = new LinkedHashMap<>();
+        this.deliver(batch, failed);
+        List<Long> delivered = batch.stream().map(PostEvent::getId).filter(id -> !failed.containsKey(id)).toList();
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.postEventRepo.deleteAllByIdInBatch(delivered);
+            this.reschedule(failed);
+        });
+        this.delivered.increment(delivered.size());
+        return delivered.size();
+    }
+
+    // Bisects on failure, so an event that always fails costs log2(batch size) extra deliveries
+    // and the others in its batch are delivered, out of order with it, without being charged an attempt
+    private void deliver(List<PostEvent> events, Map<Long, RuntimeException> failed) {
+        try {
+            this.transactionTemplate.executeWithoutResult(status ->
+                    this.listeners.orderedStream().forEach(listener -> listener.onPostEvents(events)));
+        } catch (RuntimeException e) {
+            if (events.size() == 1) {
+                logger.warn("Delivery of post event {} failed: {}", events.get(0).getId(), e.toString());
+                failed.put(events.get(0).getId(), e);
+                return;
+            }
+            int half = events.size() / 2;
+            this.deliver(events.subList(0, half), failed);
+            this.deliver(events.subList(half, events.size()), failed);
+        }
+    }
+
+    private void reschedule(Map<Long, RuntimeException> failures) {
+        long now = System.currentTimeMillis();
+        for (PostEvent event : this.postEventRepo.findAllById(failures.keySet())) {
+            String error = String.valueOf(failures.get(event.getId()).getMessage());
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(error.length() > 255 ? error.substring(0, 255) : error);
+            if (event.getAttempts() >= this.maxAttempts) {
+                event.setNextAttemptAt(null);
+                this.abandoned.increment();
+            } else {
+                long delay = Math.min(this.maxBackoffMillis, this.backoffMillis << Math.min(event.getAttempts() - 1, 20));
+                event.setNextAttemptAt(new Date(now + delay));
+                this.retried.increment();
+            }
+        }
+    }
+
+    private void updateLag() {
+        this.pending.set(this.postEventRepo.countByNextAttemptAtIsNotNull());
+        this.lagMillis.set(this.postEventRepo.findFirstByNextAttemptAtIsNotNullOrderByIdAsc()
+                .map(oldest -> System.currentTimeMillis() - oldest.getCreatedAt().getTime())
+                .orElse(0L));
+    }
+}
@@ -0,0 +1,13 @@
+package com.BlogApp.events;
+
+import com.BlogApp.entities.PostEvent;
+
+import java.util.List;
+
+// Side effect of post writes, implemented by beans and called by PostEventDispatcher.
+// Delivery is at least once: when any listener throws, the batch is redelivered in halves down to the
+// failing events, so a listener sees the other events again and must tolerate that.
+public interface PostEventListener {
+
+    void onPostEvents(List<PostEvent> events);
+}
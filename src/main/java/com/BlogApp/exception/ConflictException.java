@@ -0,0 +1,9 @@
+package com.BlogApp.exception;
+
+// The request does not fit the current state of the resource, e.g. an upload chunk at the wrong offset
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
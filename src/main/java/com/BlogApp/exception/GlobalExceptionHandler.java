@@ -23,6 +23,27 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ApiResponse> badRequestExceptionHandler(BadRequestException ex) {
+        int code = HttpStatus.BAD_REQUEST.value();
+        ApiResponse response = new ApiResponse(ex.getMessage(), false, code);
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(UnauthorizedException.class)
+    public ResponseEntity<ApiResponse> unauthorizedExceptionHandler(UnauthorizedException ex) {
+        int code = HttpStatus.UNAUTHORIZED.value();
+        ApiResponse response = new ApiResponse(ex.getMessage(), false, code);
+        return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ApiResponse> conflictExceptionHandler(ConflictException ex) {
+        int code = HttpStatus.CONFLICT.value();
+        ApiResponse response = new ApiResponse(ex.getMessage(), false, code);
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
         Map<String, String> resp = new HashMap<>();
@@ -3,6 +3,8 @@ package com.BlogApp.exception;
 import lombok.Getter;
 import lombok.Setter;
 
+// Without a stack trace: a 404 is an answer, not a fault, and id scans throw it at request rate. CoalescingCache
+// rethrows one instance for a cached miss, which is safe as it has no stack or suppressed exceptions to change.
 @Getter
 @Setter
 public class ResourceNotFoundException extends RuntimeException {
@@ -11,10 +13,19 @@ public class ResourceNotFoundException extends RuntimeException {
     String fieldName;
     String fieldValue;
     public ResourceNotFoundException(String resourceName, String fieldName, long fieldValue) {
-        super(String.format("Resource %s not found for field %s and value %s", resourceName, fieldName, fieldValue));
+        super(String.format("Resource %s not found for field %s and value %s", resourceName, fieldName, fieldValue),
+                null, false, false);
         this.resourceName = resourceName;
         this.fieldName = fieldName;
         this.fieldValue = String.valueOf(fieldValue);
     }
 
+    public ResourceNotFoundException(String resourceName, String fieldName, String fieldValue) {
+        super(String.format("Resource %s not found for field %s and value %s", resourceName, fieldName, fieldValue),
+                null, false, false);
+        this.resourceName = resourceName;
+        this.fieldName = fieldName;
+        this.fieldValue = fieldValue;
+    }
+
 }
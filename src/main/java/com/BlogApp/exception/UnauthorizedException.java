@@ -0,0 +1,9 @@
+package com.BlogApp.exception;
+
+// The request carries credentials that are not accepted, e.g. an expired or tampered token
+public class UnauthorizedException extends RuntimeException {
+
+    public UnauthorizedException(String message) {
+        super(message);
+    }
+}
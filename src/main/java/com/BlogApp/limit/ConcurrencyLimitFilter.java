@@ -0,0 +1,70 @@
+package com.BlogApp.limit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+// First filter of the security chain (AppConfig), so a shed request costs no token parsing or database work. Only
+// there: its servlet container registration is disabled in AppConfig.
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Pattern UPLOAD_CHUNK = Pattern.compile("/api/posts/[^/]+/uploads/[^/]+");
+
+    @Autowired
+    private ConcurrencyLimiter limiter;
+
+    @Value("${app.limit.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!this.enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        // a chunk takes as long as the client's connection, and would hold a write slot for the whole transfer
+        boolean upload = isUploadChunk(request);
+        if (!(upload ? this.limiter.tryAcquireUpload() : this.limiter.tryAcquire(priorityOf(request)))) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.getWriter().println("Server busy, retry shortly");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (upload) {
+                this.limiter.releaseUpload();
+            } else {
+                this.limiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    static boolean isUploadChunk(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return request.getMethod().equals("PUT") && UPLOAD_CHUNK.matcher(path).matches();
+    }
+
+    static ConcurrencyLimiter.Priority priorityOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/auth/login") || path.startsWith("/actuator/health")) {
+            return ConcurrencyLimiter.Priority.CRITICAL;
+        }
+        String method = request.getMethod();
+        if (method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS")) {
+            return ConcurrencyLimiter.Priority.READ;
+        }
+        return ConcurrencyLimiter.Priority.WRITE;
+    }
+}
@@ -0,0 +1,140 @@
+package com.BlogApp.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Caps the requests in flight at a limit that follows their latency (GradientLimit), so when the database slows down
+// the excess is turned away at once instead of queueing on Tomcat threads and the connection pool until everything
+// times out. Each priority may fill a share of the limit: critical requests all of it, reads app.limit.read-share
+// and writes app.limit.write-share, so writes are shed first and logins last. Upload chunks wait on the client's
+// connection, not the database, so they are held to a fixed budget of app.limit.uploads of their own instead.
+// The limit is recomputed once a window of app.limit.window-ms has at least MIN_SAMPLES completed requests.
+@Component
+public class ConcurrencyLimiter {
+
+    public enum Priority {
+        // logins and health checks
+        CRITICAL,
+        READ,
+        WRITE
+    }
+
+    private static final int MIN_SAMPLES = 10;
+
+    private final GradientLimit gradient;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // the most in flight during the current window
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile int limit;
+
+    private final int maxUploads;
+    private final AtomicInteger uploadsInFlight = new AtomicInteger();
+
+    // the current window; releases only add to the adders, and the release that wins the CAS on windowStart rolls it
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+
+    private final Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+    private final Counter rejectedUploads;
+
+    public ConcurrencyLimiter(@Value("${app.limit.initial:20}") int initialLimit,
+                              @Value("${app.limit.min:5}") int minLimit,
+                              @Value("${app.limit.max:200}") int maxLimit,
+                              @Value("${app.limit.tolerance:1.5}") double tolerance,
+                              @Value("${app.limit.smoothing:0.2}") double smoothing,
+                              @Value("${app.limit.window-ms:500}") long windowMillis,
+                              @Value("${app.limit.read-share:0.9}") double readShare,
+                              @Value("${app.limit.write-share:0.6}") double writeShare,
+                              @Value("${app.limit.uploads:20}") int maxUploads,
+                              MeterRegistry registry) {
+        this.gradient = new GradientLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing);
+        this.limit = this.gradient.getLimit();
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.shares.put(Priority.CRITICAL, 1.0);
+        this.shares.put(Priority.READ, readShare);
+        this.shares.put(Priority.WRITE, writeShare);
+        this.maxUploads = maxUploads;
+
+        for (Priority priority : Priority.values()) {
+            this.rejected.put(priority, Counter.builder("blog.limit.rejected").tag("priority", priority.name().toLowerCase())
+                    .description("Requests turned away with 503 over the concurrency limit").register(registry));
+        }
+        this.rejectedUploads = Counter.builder("blog.limit.rejected").tag("priority", "upload")
+                .description("Requests turned away with 503 over the concurrency limit").register(registry);
+        Gauge.builder("blog.limit.limit", this, ConcurrencyLimiter::getLimit)
+                .description("Requests allowed in flight").register(registry);
+        Gauge.builder("blog.limit.in-flight", this.inFlight, AtomicInteger::get)
+                .description("Requests in flight").register(registry);
+    }
+
+    public int getLimit() {
+        return this.limit;
+    }
+
+    // false when the request must be turned away; otherwise release must follow
+    public boolean tryAcquire(Priority priority) {
+        int allowed = Math.max(1, (int) (this.limit * this.shares.get(priority)));
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= allowed) {
+                this.rejected.get(priority).increment();
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                this.maxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        this.release(latencyNanos, System.nanoTime());
+    }
+
+    // An upload chunk, outside the limit; false when app.limit.uploads are in flight, otherwise releaseUpload must follow
+    public boolean tryAcquireUpload() {
+        if (this.uploadsInFlight.incrementAndGet() > this.maxUploads) {
+            this.uploadsInFlight.decrementAndGet();
+            this.rejectedUploads.increment();
+            return false;
+        }
+        return true;
+    }
+
+    // Not sampled, a chunk's time is set by the client and would read as server queueing
+    public void releaseUpload() {
+        this.uploadsInFlight.decrementAndGet();
+    }
+
+    void release(long latencyNanos, long now) {
+        this.inFlight.decrementAndGet();
+        this.latencySum.add(latencyNanos);
+        this.samples.increment();
+        long start = this.windowStart.get();
+        if (now - start < this.windowNanos || this.samples.sum() < MIN_SAMPLES
+                || !this.windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        // a sample added while the sums are taken may count towards the next window instead, which is harmless
+        long count = this.samples.sumThenReset();
+        long sum = this.latencySum.sumThenReset();
+        if (count > 0) {
+            this.limit = this.gradient.update((double) sum / count, this.maxInFlight.get());
+        }
+        this.maxInFlight.set(this.inFlight.get());
+    }
+}
@@ -0,0 +1,55 @@
+package com.BlogApp.limit;
+
+// Concurrency limit from observed latency, after the gradient algorithm of Netflix's concurrency-limits (Gradient2).
+// Each window's average latency (short) is compared with a slow moving average of past windows (long): while
+// short stays within tolerance times long the limit grows by a queue allowance of sqrt(limit), once requests queue up
+// and short rises the limit shrinks in proportion, by at most half per window. Changes are smoothed, and the limit
+// stays between min and max. Windows where less than half the limit was in use say nothing about capacity and are
+// skipped, so an idle node does not grow its limit without bound.
+// Not thread-safe, ConcurrencyLimiter calls it only from the release that rolls a window, one window at a time.
+public class GradientLimit {
+
+    // windows averaged into the long latency
+    private static final int LONG_WINDOWS = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private double limit;
+    private double longLatency;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+    }
+
+    public int getLimit() {
+        return (int) this.limit;
+    }
+
+    // The average latency of a window and the most requests in flight during it; returns the new limit
+    public int update(double shortLatency, int maxInFlight) {
+        if (this.longLatency == 0) {
+            this.longLatency = shortLatency;
+        } else {
+            this.longLatency += (shortLatency - this.longLatency) / LONG_WINDOWS;
+        }
+        // after a slow period the long average would stay high and hide the next one, let it catch up
+        if (this.longLatency / shortLatency > 2) {
+            this.longLatency *= 0.95;
+        }
+        if (maxInFlight < this.limit / 2) {
+            return this.getLimit();
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, this.tolerance * this.longLatency / shortLatency));
+        double target = this.limit * gradient + Math.sqrt(this.limit);
+        double next = this.limit * (1 - this.smoothing) + target * this.smoothing;
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, next));
+        return this.getLimit();
+    }
+}
@@ -0,0 +1,17 @@
+package com.BlogApp.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ArchiveMonth {
+    private Integer year;
+    // 1 to 12
+    private Integer month;
+    private Long postCount;
+}
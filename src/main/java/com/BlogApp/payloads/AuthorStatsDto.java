@@ -0,0 +1,21 @@
+package com.BlogApp.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AuthorStatsDto {
+    private Integer userId;
+    private Integer postCount;
+    // comments on the author's posts
+    private Integer commentCount;
+    // null without posts
+    private Date lastPostedAt;
+}
@@ -1,14 +1,24 @@
 package com.BlogApp.payloads;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.List;
+
 @Getter
 @Setter
 @NoArgsConstructor
 public class CommentDto {
     private int id;
     private String content;
+    // null for a top-level comment
+    private Integer parentId;
+    // direct replies, including those not loaded in replies
+    private int replyCount;
+    // the replies loaded with a thread, oldest first; absent outside threads
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<CommentDto> replies;
 }
 
@@ -0,0 +1,19 @@
+package com.BlogApp.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class CommentThreadResponse {
+    // top-level comments, oldest first, each with its replies down to the requested depth
+    private List<CommentDto> content;
+    // after for the next page, null on the last one
+    private Integer nextCursor;
+}
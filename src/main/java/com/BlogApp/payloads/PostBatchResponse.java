@@ -0,0 +1,19 @@
+package com.BlogApp.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PostBatchResponse {
+    // in the order the ids were requested, each id once
+    private List<PostDto> posts;
+    // requested ids with no post, in request order
+    private List<Integer> missing;
+}
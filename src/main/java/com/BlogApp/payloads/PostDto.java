@@ -1,5 +1,6 @@
 package com.BlogApp.payloads;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -11,14 +12,21 @@ import java.util.Set;
 @Setter
 @Getter
 @NoArgsConstructor
+@JsonFilter(PostFields.FILTER)
 public class PostDto {
 
     private Integer postId;
     private String title;
+    // full body, filled in by getPostById only
     private String content;
+    // content rendered to sanitized HTML, null until the first render of new content has finished
+    private String html;
+    private String excerpt;
     private String imageName;
     private Date addedDate;
     private CategoryDto category;
     private UserDto user;
+    // trimmed lower case names, filled in for single posts and batch reads; null on an update keeps the current tags
+    private Set<String> tags;
     private Set<CommentDto> comments = new HashSet<>();
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.BlogApp.payloads;
+
+import com.BlogApp.exception.BadRequestException;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Property names accepted by the fields= parameter on the post read endpoints
+public final class PostFields {
+
+    public static final String FILTER = "postFields";
+
+    public static final String POST_ID = "postId";
+    public static final String TITLE = "title";
+    public static final String CONTENT = "content";
+    public static final String HTML = "html";
+    public static final String EXCERPT = "excerpt";
+    public static final String IMAGE_NAME = "imageName";
+    public static final String ADDED_DATE = "addedDate";
+    public static final String CATEGORY = "category";
+    public static final String USER = "user";
+    public static final String COMMENTS = "comments";
+
+    // Plain columns on the posts table
+    public static final Set<String> COLUMNS = Set.of(TITLE, EXCERPT, IMAGE_NAME, ADDED_DATE);
+
+    // content and html come from PostBody and PostHtml and are only available for a single post
+    public static final Set<String> ALL = Set.of(POST_ID, TITLE, CONTENT, HTML, EXCERPT, IMAGE_NAME, ADDED_DATE, CATEGORY, USER, COMMENTS);
+
+    private PostFields() {
+    }
+
+    // null means the caller did not ask for a sparse fieldset, postId is always included otherwise
+    public static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(POST_ID);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ALL.contains(name)) {
+                throw new BadRequestException("Unknown post field: " + name);
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,15 @@
+package com.BlogApp.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PostSuggestion {
+    private Integer postId;
+    private String title;
+}
@@ -0,0 +1,17 @@
+package com.BlogApp.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class RelatedPost {
+    private Integer postId;
+    private String title;
+    // estimated Jaccard similarity of the two posts' words, 0 to 1
+    private Double similarity;
+}
@@ -0,0 +1,21 @@
+package com.BlogApp.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class TaggedPostResponse {
+    // newest first, can be fewer than pageSize when posts were deleted
+    private List<PostDto> content;
+    // before for the next page, null on the last one
+    private Integer nextCursor;
+    // posts matching the filters on all pages
+    private int totalElements;
+}
@@ -0,0 +1,19 @@
+package com.BlogApp.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class TimelineResponse {
+    // newest first, can be fewer than pageSize when posts were deleted
+    private List<PostDto> content;
+    // before for the next page, null on the last one
+    private Integer nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.BlogApp.payloads;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class UploadRequest {
+    // only its extension is kept
+    private String fileName;
+    // total bytes of the file
+    private long length;
+}
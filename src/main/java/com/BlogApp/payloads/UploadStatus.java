@@ -0,0 +1,21 @@
+package com.BlogApp.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class UploadStatus {
+    private String uploadId;
+    private Integer postId;
+    private long length;
+    // bytes received so far, where the next chunk must start
+    private long offset;
+    private Date expiresAt;
+}
@@ -0,0 +1,138 @@
+package com.BlogApp.purge;
+
+import com.BlogApp.entities.PurgeJob;
+import com.BlogApp.repositories.CategoryRepo;
+import com.BlogApp.repositories.CommentRepo;
+import com.BlogApp.repositories.FollowRepo;
+import com.BlogApp.repositories.PostBodyRepo;
+import com.BlogApp.repositories.PostHtmlRepo;
+import com.BlogApp.repositories.PostSignatureRepo;
+import com.BlogApp.repositories.PostTagRepo;
+import com.BlogApp.repositories.PostRepo;
+import com.BlogApp.repositories.PurgeJobRepo;
+import com.BlogApp.repositories.TimelineEntryRepo;
+import com.BlogApp.repositories.UserRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+
+// Removes soft-deleted categories, users and posts recorded in purge_jobs.
+// Comments go first, then post tags, bodies and posts, then the target row (a user with their follows and timeline),
+// each chunk of at most app.purge.chunk-size rows in its own transaction. All state is in the database, so a restarted node carries on where it stopped.
+@Component
+public class ContentPurger {
+
+    private final Logger logger = LoggerFactory.getLogger(ContentPurger.class);
+
+    @Autowired
+    private PurgeJobRepo purgeJobRepo;
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Autowired
+    private CommentRepo commentRepo;
+
+    @Autowired
+    private PostBodyRepo postBodyRepo;
+
+    @Autowired
+    private PostHtmlRepo postHtmlRepo;
+
+    @Autowired
+    private PostSignatureRepo postSignatureRepo;
+
+    @Autowired
+    private PostTagRepo postTagRepo;
+
+    @Autowired
+    private CategoryRepo categoryRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private FollowRepo followRepo;
+
+    @Autowired
+    private TimelineEntryRepo timelineEntryRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.purge.chunk-size:500}")
+    private int chunkSize;
+
+    @Scheduled(initialDelayString = "${app.purge.interval-ms:5000}", fixedDelayString = "${app.purge.interval-ms:5000}")
+    public void purge() {
+        for (Long jobId : this.purgeJobRepo.findPendingIds()) {
+            try {
+                while (this.purgeChunk(jobId)) {
+                    // next chunk
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Purge job {} failed, retrying on the next run: {}", jobId, e.toString());
+            }
+        }
+    }
+
+    // Deletes one chunk, returns false once the job is complete or claimed by another node
+    boolean purgeChunk(Long jobId) {
+        return this.transactionTemplate.execute(status -> {
+            PurgeJob job = this.purgeJobRepo.claim(jobId).orElse(null);
+            if (job == null) {
+                return false;
+            }
+            List<Integer> postIds = this.postIdsOf(job);
+            if (postIds.isEmpty()) {
+                this.purgeTarget(job);
+                job.setCompletedAt(new Date());
+                logger.info("Purged {} {}: {} posts, {} comments", job.getTargetType(), job.getTargetId(),
+                        job.getPostsDeleted(), job.getCommentsDeleted());
+                return false;
+            }
+            List<Integer> commentIds = this.commentRepo.findIdsToPurge(postIds, this.chunkSize);
+            if (!commentIds.isEmpty()) {
+                job.setCommentsDeleted(job.getCommentsDeleted() + this.commentRepo.purge(commentIds));
+            } else {
+                this.postTagRepo.purge(postIds);
+                this.postSignatureRepo.purge(postIds);
+                this.postHtmlRepo.purge(postIds);
+                this.postBodyRepo.purge(postIds);
+                job.setPostsDeleted(job.getPostsDeleted() + this.postRepo.purge(postIds));
+            }
+            return true;
+        });
+    }
+
+    private List<Integer> postIdsOf(PurgeJob job) {
+        return switch (job.getTargetType()) {
+            case CATEGORY -> this.postRepo.findIdsToPurgeByCategory(job.getTargetId(), this.chunkSize);
+            case USER -> this.postRepo.findIdsToPurgeByUser(job.getTargetId(), this.chunkSize);
+            case POST -> this.postRepo.findIdsToPurgeByPost(job.getTargetId());
+        };
+    }
+
+    private void purgeTarget(PurgeJob job) {
+        switch (job.getTargetType()) {
+            case CATEGORY -> this.categoryRepo.purge(job.getTargetId());
+            case USER -> {
+                this.userRepo.removeFollower(job.getTargetId());
+                this.followRepo.purgeByFollower(job.getTargetId());
+                this.followRepo.purgeByFollowee(job.getTargetId());
+                this.timelineEntryRepo.purge(job.getTargetId());
+                this.userRepo.purge(job.getTargetId());
+            }
+            case POST -> {
+                // the post itself went with the last chunk
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.BlogApp.render;
+
+import com.BlogApp.cache.CacheInvalidator;
+import com.BlogApp.cache.CoalescingCache;
+import com.BlogApp.entities.PostBody;
+import com.BlogApp.entities.PostHtml;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.repositories.PostBodyRepo;
+import com.BlogApp.repositories.PostHtmlRepo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Renders post bodies from Markdown to sanitized HTML once per content hash, on its own threads.
+// Writes queue a render after commit. Posts without a current post_html row (written before V7, or whose
+// render was lost) are rendered on first read, and served from a bounded cache until the row is stored.
+// A render only completes this node's cached post, a node that cached the post without HTML rendered it too.
+@Component
+public class PostHtmlRenderer {
+
+    private final Logger logger = LoggerFactory.getLogger(PostHtmlRenderer.class);
+
+    // raw HTML in the Markdown is escaped, javascript: and other unsafe link targets are dropped
+    private final Parser parser = Parser.builder().build();
+    private final HtmlRenderer htmlRenderer = HtmlRenderer.builder().escapeHtml(true).sanitizeUrls(true).build();
+
+    @Autowired
+    private PostBodyRepo postBodyRepo;
+
+    @Autowired
+    private PostHtmlRepo postHtmlRepo;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.html.threads:2}")
+    private int threads;
+
+    @Value("${app.html.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.html.cache-size:1000}")
+    private int cacheSize;
+
+    @Value("${app.posts.body-compress-threshold:1024}")
+    private int compressThreshold;
+
+    private ThreadPoolExecutor executor;
+
+    // content hash to HTML of recent renders, serves reads until post_html is stored
+    private Cache<String, String> rendered;
+
+    // postId:hash of queued renders, so a hot unrendered post is queued once
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void start() {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "post-html-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rendered = Caffeine.newBuilder().maximumSize(this.cacheSize).build();
+    }
+
+    // Renders still queued are dropped, their posts are rendered again on first read
+    @PreDestroy
+    void stop() throws InterruptedException {
+        this.executor.shutdown();
+        this.executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public String render(String markdown) {
+        return this.htmlRenderer.render(this.parser.parse(markdown));
+    }
+
+    // Called from a write transaction, the request does not wait for the render
+    public void renderAfterCommit(Integer postId, PostBody body) {
+        String hash = body.hashOfText();
+        String content = body.getText();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue(postId, hash, content);
+                }
+            });
+        } else {
+            this.queue(postId, hash, content);
+        }
+    }
+
+    // HTML of the body as stored, null while its render is still queued
+    public String html(Integer postId, PostBody body) {
+        return this.html(postId, body, this.postHtmlRepo.findById(postId).orElse(null));
+    }
+
+    // Same for many posts, with one post_html query
+    public Map<Integer, String> html(Map<Integer, PostBody> bodies) {
+        Map<Integer, PostHtml> stored = new HashMap<>();
+        for (PostHtml html : this.postHtmlRepo.findAllById(bodies.keySet())) {
+            stored.put(html.getPostId(), html);
+        }
+        Map<Integer, String> html = new HashMap<>();
+        bodies.forEach((postId, body) -> html.put(postId, this.html(postId, body, stored.get(postId))));
+        return html;
+    }
+
+    private String html(Integer postId, PostBody body, PostHtml stored) {
+        String hash = body.hashOfText();
+        if (stored != null && stored.getContentHash().equals(hash)) {
+            return stored.getText();
+        }
+        // the queued store takes the HTML from the cache when it is there
+        this.queue(postId, hash, body.getText());
+        return this.rendered.getIfPresent(hash);
+    }
+
+    private void queue(Integer postId, String hash, String content) {
+        String key = postId + ":" + hash;
+        if (!this.queued.add(key)) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> {
+                try {
+                    this.store(postId, hash, content);
+                } catch (RuntimeException e) {
+                    logger.warn("Rendering post {} failed: {}", postId, e.toString());
+                } finally {
+                    this.queued.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // queue full or shutting down, the next read queues it again
+            this.queued.remove(key);
+        }
+    }
+
+    void store(Integer postId, String hash, String content) {
+        String html = this.rendered.get(hash, key -> this.render(content));
+        Boolean current = this.transactionTemplate.execute(status -> {
+            // skipped when the body changed again since, or the post is gone
+            PostBody body = this.postBodyRepo.findById(postId).orElse(null);
+            if (body == null || !body.hashOfText().equals(hash)) {
+                return false;
+            }
+            if (body.getContentHash() == null) {
+                body.setContentHash(hash);
+            }
+            PostHtml postHtml = this.postHtmlRepo.findById(postId).orElseGet(() -> new PostHtml(postId));
+            // another node may have stored it already
+            if (!hash.equals(postHtml.getContentHash())) {
+                postHtml.setContentHash(hash);
+                postHtml.setText(html, this.compressThreshold);
+                this.postHtmlRepo.save(postHtml);
+            }
+            return true;
+        });
+        if (Boolean.TRUE.equals(current)) {
+            this.completeCached(postId, content, html);
+        }
+    }
+
+    // The cached PostDto may have been built before the HTML existed. A load still in flight may have read
+    // no HTML too, it is completed once cached. The flight is looked up first: a load starting after that
+    // reads the stored HTML, one finishing in between is already cached.
+    private void completeCached(Integer postId, String content, String html) {
+        org.springframework.cache.Cache posts = this.cacheManager.getCache(CacheInvalidator.POSTS);
+        if (posts == null) {
+            return;
+        }
+        if (posts instanceof CoalescingCache coalescing) {
+            CompletableFuture<Object> loading = coalescing.loading(postId);
+            if (loading != null) {
+                loading.thenRun(() -> completeCached(posts, postId, content, html));
+            }
+        }
+        completeCached(posts, postId, content, html);
+    }
+
+    // The cached instance may be written to a response at this moment, so it is replaced by a copy with the HTML
+    // rather than changed. Only while the entry is still that instance, a newer value or an evict since wins.
+    @SuppressWarnings("unchecked")
+    private static void completeCached(org.springframework.cache.Cache posts, Integer postId, String content, String html) {
+        PostDto cached = posts.get(postId, PostDto.class);
+        if (cached == null || cached.getHtml() != null || !content.equals(cached.getContent())) {
+            return;
+        }
+        PostDto completed = new PostDto();
+        BeanUtils.copyProperties(cached, completed);
+        completed.setHtml(html);
+        if (posts.getNativeCache() instanceof Cache<?, ?> caffeine) {
+            ((ConcurrentMap<Object, Object>) caffeine.asMap()).replace(postId, cached, completed);
+        } else if (posts.getNativeCache() instanceof ConcurrentMap<?, ?> entries) {
+            ((ConcurrentMap<Object, Object>) entries).replace(postId, cached, completed);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.ArchiveStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ArchiveStatsRepo extends JpaRepository<ArchiveStats, ArchiveStats.Key> {
+
+    // Posts per month, over all categories or one
+    interface MonthCount {
+        Integer getPostYear();
+        Integer getPostMonth();
+        Long getPostCount();
+    }
+
+    // Posts per month and category counted from the posts table
+    interface ArchiveCount {
+        Integer getPostYear();
+        Integer getPostMonth();
+        Integer getCategoryId();
+        Long getPostCount();
+    }
+
+    @Query("select a.postYear as postYear, a.postMonth as postMonth, sum(a.postCount) as postCount from ArchiveStats a"
+            + " group by a.postYear, a.postMonth having sum(a.postCount) > 0 order by a.postYear desc, a.postMonth desc")
+    List<MonthCount> findMonths();
+
+    @Query("select a.postYear as postYear, a.postMonth as postMonth, sum(a.postCount) as postCount from ArchiveStats a"
+            + " where a.categoryId = :categoryId and a.postCount > 0 group by a.postYear, a.postMonth"
+            + " order by a.postYear desc, a.postMonth desc")
+    List<MonthCount> findMonthsByCategory(@Param("categoryId") Integer categoryId);
+
+    // In place, concurrent writes to one month do not overwrite each other
+    @Modifying
+    @Query(value = "insert into archive_stats (post_year, post_month, category_id, post_count) "
+            + "values (:year, :month, :categoryId, :delta) on duplicate key update post_count = post_count + :delta",
+            nativeQuery = true)
+    int add(@Param("year") int year, @Param("month") int month, @Param("categoryId") Integer categoryId,
+            @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "delete from archive_stats where category_id = :categoryId", nativeQuery = true)
+    int deleteByCategory(@Param("categoryId") Integer categoryId);
+
+    // Every live post, for the reconciliation
+    @Query(value = "select year(p.added_date) as postYear, month(p.added_date) as postMonth, p.category_id as categoryId, "
+            + "count(*) as postCount from posts p where p.added_date is not null and p.category_id is not null and "
+            + PostRepo.LIVE_POSTS + " group by year(p.added_date), month(p.added_date), p.category_id", nativeQuery = true)
+    List<ArchiveCount> countLivePosts();
+
+    // Posts hidden by deleting their user, whose deleted_at is already set
+    @Query(value = "select year(p.added_date) as postYear, month(p.added_date) as postMonth, p.category_id as categoryId, "
+            + "count(*) as postCount from posts p where p.user_id = :userId and p.deleted_at is null "
+            + "and p.added_date is not null and p.category_id is not null "
+            + "and not exists (select 1 from categories dc where dc.category_id = p.category_id and dc.deleted_at is not null) "
+            + "group by year(p.added_date), month(p.added_date), p.category_id", nativeQuery = true)
+    List<ArchiveCount> countPostsOfUser(@Param("userId") Integer userId);
+}
@@ -0,0 +1,64 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.AuthorStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface AuthorStatsRepo extends JpaRepository<AuthorStats, Integer> {
+
+    // Posts and comments per author counted from the base tables
+    interface AuthorCount {
+        Integer getUserId();
+        Long getPostCount();
+        Long getCommentCount();
+        Date getLastPostedAt();
+    }
+
+    @Query("select a from AuthorStats a where a.userId > :afterId and a.userId <= :toId")
+    List<AuthorStats> findBetween(@Param("afterId") Integer afterId, @Param("toId") Integer toId);
+
+    @Modifying
+    @Query(value = "insert into author_stats (user_id, post_count, comment_count, last_posted_at) "
+            + "values (:userId, 1, 0, :postedAt) on duplicate key update post_count = post_count + 1, "
+            + "last_posted_at = greatest(coalesce(last_posted_at, :postedAt), :postedAt)", nativeQuery = true)
+    int addPost(@Param("userId") Integer userId, @Param("postedAt") Date postedAt);
+
+    // In place, concurrent writes for one author do not overwrite each other
+    @Modifying
+    @Query(value = "insert into author_stats (user_id, post_count, comment_count) values (:userId, :posts, :comments) "
+            + "on duplicate key update post_count = post_count + :posts, comment_count = comment_count + :comments",
+            nativeQuery = true)
+    int add(@Param("userId") Integer userId, @Param("posts") long posts, @Param("comments") long comments);
+
+    // After posts were hidden in this transaction, which is flushed first
+    @Modifying(flushAutomatically = true)
+    @Query(value = "update author_stats set last_posted_at = (select max(p.added_date) from posts p "
+            + "where p.user_id = author_stats.user_id and " + PostRepo.LIVE_POSTS + ") where user_id in (:userIds)",
+            nativeQuery = true)
+    int refreshLastPosted(@Param("userIds") Collection<Integer> userIds);
+
+    @Modifying
+    @Query(value = "delete from author_stats where user_id = :userId", nativeQuery = true)
+    int delete(@Param("userId") Integer userId);
+
+    // A range of authors, for the reconciliation
+    @Query(value = "select p.user_id as userId, count(distinct p.post_id) as postCount, count(c.id) as commentCount, "
+            + "max(p.added_date) as lastPostedAt from posts p left join comments c on c.post_id = p.post_id "
+            + "where p.user_id > :afterId and p.user_id <= :toId and " + PostRepo.LIVE_POSTS + " group by p.user_id",
+            nativeQuery = true)
+    List<AuthorCount> countLivePostsBetween(@Param("afterId") Integer afterId, @Param("toId") Integer toId);
+
+    // Posts hidden by deleting their category, whose deleted_at is already set
+    @Query(value = "select p.user_id as userId, count(distinct p.post_id) as postCount, count(c.id) as commentCount, "
+            + "max(p.added_date) as lastPostedAt from posts p left join comments c on c.post_id = p.post_id "
+            + "where p.category_id = :categoryId and p.deleted_at is null "
+            + "and not exists (select 1 from users du where du.id = p.user_id and du.deleted_at is not null) "
+            + "group by p.user_id", nativeQuery = true)
+    List<AuthorCount> countPostsInCategory(@Param("categoryId") Integer categoryId);
+}
@@ -0,0 +1,23 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.CacheInvalidation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface CacheInvalidationRepo extends JpaRepository<CacheInvalidation, Long> {
+
+    List<CacheInvalidation> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select coalesce(max(c.id), 0) from CacheInvalidation c")
+    long findMaxId();
+
+    @Modifying
+    @Query("delete from CacheInvalidation c where c.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Date cutoff);
+}
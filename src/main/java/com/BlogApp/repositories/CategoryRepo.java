@@ -1,7 +1,15 @@
 package com.BlogApp.repositories;
-import com.BlogApp.entities.Category;
 
+import com.BlogApp.entities.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CategoryRepo extends JpaRepository<Category, Integer> {
+
+    // Native, the entity restriction hides the soft-deleted row
+    @Modifying
+    @Query(value = "delete from categories where category_id = :categoryId", nativeQuery = true)
+    int purge(@Param("categoryId") Integer categoryId);
 }
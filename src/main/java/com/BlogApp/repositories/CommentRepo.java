@@ -1,7 +1,68 @@
 package com.BlogApp.repositories;
 
 import com.BlogApp.entities.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepo extends JpaRepository<Comment, Integer> {
+
+    // Comment columns only, without loading the owning posts
+    interface PostComment {
+        Integer getPostId();
+        int getId();
+        String getContent();
+        Integer getParentId();
+        int getReplyCount();
+    }
+
+    // The columns a thread is built from
+    interface ThreadComment {
+        int getId();
+        Integer getParentId();
+        String getContent();
+        int getReplyCount();
+        String getPath();
+    }
+
+    @Query("select c.post.postId as postId, c.id as id, c.content as content, c.parentId as parentId, "
+            + "c.replyCount as replyCount from Comment c where c.post.postId in :postIds")
+    List<PostComment> findByPostIds(@Param("postIds") Collection<Integer> postIds);
+
+    // Top-level comments after the one at after, oldest first
+    @Query("select c.id as id, c.parentId as parentId, c.content as content, c.replyCount as replyCount, c.path as path "
+            + "from Comment c where c.post.postId = :postId and c.depth = 0 and c.path > :after order by c.path")
+    List<ThreadComment> findTopLevel(@Param("postId") Integer postId, @Param("after") String after, Pageable pageable);
+
+    // Comments between the paths from and to, level by level, each level in path order
+    @Query("select c.id as id, c.parentId as parentId, c.content as content, c.replyCount as replyCount, c.path as path "
+            + "from Comment c where c.post.postId = :postId and c.depth between :fromDepth and :toDepth "
+            + "and c.path > :from and c.path < :to order by c.depth, c.path")
+    List<ThreadComment> findReplies(@Param("postId") Integer postId, @Param("fromDepth") int fromDepth,
+                                    @Param("toDepth") int toDepth, @Param("from") String from, @Param("to") String to,
+                                    Pageable pageable);
+
+    // A comment and every reply below it
+    @Modifying
+    @Query(value = "delete from comments where post_id = :postId and path >= :from and path < :to", nativeQuery = true)
+    int deleteSubtree(@Param("postId") Integer postId, @Param("from") String from, @Param("to") String to);
+
+    @Modifying
+    @Query("update Comment c set c.replyCount = c.replyCount + :delta where c.id = :id")
+    int addReplies(@Param("id") Integer id, @Param("delta") int delta);
+
+    @Query("select count(c) from Comment c where c.post.postId = :postId")
+    long countByPost(@Param("postId") Integer postId);
+
+    @Query(value = "select id from comments where post_id in (:postIds) limit :limit", nativeQuery = true)
+    List<Integer> findIdsToPurge(@Param("postIds") Collection<Integer> postIds, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "delete from comments where id in (:ids)", nativeQuery = true)
+    int purge(@Param("ids") Collection<Integer> ids);
 }
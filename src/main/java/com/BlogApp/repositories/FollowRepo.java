@@ -0,0 +1,43 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.Follow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface FollowRepo extends JpaRepository<Follow, Follow.Key> {
+
+    // 0 when already following, so a repeated follow does not count twice
+    @Modifying
+    @Query(value = "insert ignore into follows (follower_id, followee_id, created_at) values (:followerId, :followeeId, :createdAt)",
+            nativeQuery = true)
+    int insert(@Param("followerId") Integer followerId, @Param("followeeId") Integer followeeId,
+               @Param("createdAt") Date createdAt);
+
+    @Modifying
+    @Query(value = "delete from follows where follower_id = :followerId and followee_id = :followeeId", nativeQuery = true)
+    int delete(@Param("followerId") Integer followerId, @Param("followeeId") Integer followeeId);
+
+    // Followed authors whose posts are not all fanned out: over the threshold now, or at some point before
+    @Query("select f.followeeId from Follow f join User u on u.id = f.followeeId"
+            + " where f.followerId = :userId and (u.followerCount > :maxFollowers or u.timelinePulled = true)")
+    List<Integer> findPulledFolloweeIds(@Param("userId") Integer userId, @Param("maxFollowers") int maxFollowers);
+
+    // Keyset paging over idx_follows_followee
+    @Query(value = "select follower_id from follows where followee_id = :followeeId and follower_id > :afterId "
+            + "order by follower_id limit :limit", nativeQuery = true)
+    List<Integer> findFollowerIdsAfter(@Param("followeeId") Integer followeeId, @Param("afterId") Integer afterId,
+                                       @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "delete from follows where follower_id = :userId", nativeQuery = true)
+    int purgeByFollower(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query(value = "delete from follows where followee_id = :userId", nativeQuery = true)
+    int purgeByFollowee(@Param("userId") Integer userId);
+}
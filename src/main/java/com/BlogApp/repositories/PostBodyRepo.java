@@ -0,0 +1,16 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.PostBody;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface PostBodyRepo extends JpaRepository<PostBody, Integer> {
+
+    @Modifying
+    @Query(value = "delete from post_bodies where post_id in (:postIds)", nativeQuery = true)
+    int purge(@Param("postIds") Collection<Integer> postIds);
+}
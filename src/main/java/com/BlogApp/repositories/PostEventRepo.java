@@ -0,0 +1,29 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.PostEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface PostEventRepo extends JpaRepository<PostEvent, Long> {
+
+    // Locks the claimed rows, a dispatcher on another node skips them instead of waiting (lock timeout -2)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from PostEvent e where e.nextAttemptAt <= :now order by e.id")
+    List<PostEvent> findReady(@Param("now") Date now, Pageable pageable);
+
+    long countByNextAttemptAtIsNotNull();
+
+    // Oldest undelivered event, walks the primary key past the few abandoned rows
+    Optional<PostEvent> findFirstByNextAttemptAtIsNotNullOrderByIdAsc();
+}
@@ -2,13 +2,112 @@ package com.BlogApp.repositories;
 
 import com.BlogApp.entities.Category;
 import com.BlogApp.entities.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.BlogApp.entities.User;
+
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+
+public interface PostRepo extends JpaRepository<Post, Integer>, PostRepoCustom {
+
+    // The Post entity restriction for native queries over posts aliased p
+    String LIVE_POSTS = "p.deleted_at is null"
+            + " and not exists (select 1 from categories dc where dc.category_id = p.category_id and dc.deleted_at is not null)"
+            + " and not exists (select 1 from users du where du.id = p.user_id and du.deleted_at is not null)";
+
+    // Title columns only, for the suggestion index
+    interface PostTitle {
+        Integer getPostId();
+        String getTitle();
+        Date getAddedDate();
+    }
+
+    // Author of a post and how many follow them, for TimelineFanOut
+    interface PostAuthor {
+        Integer getPostId();
+        Integer getAuthorId();
+        Integer getFollowerCount();
+    }
+
+    // Category of a post, for TagIndex
+    interface PostCategory {
+        Integer getPostId();
+        Integer getCategoryId();
+    }
 
-public interface PostRepo extends JpaRepository<Post, Integer> {
-    List<Post> findByCategory(Category category);
-    List<Post> findByUser(User user);
+    // newest first, along idx_posts_category_added_date and idx_posts_user_added_date
+    List<Post> findByCategoryOrderByAddedDateDesc(Category category);
+    List<Post> findByUserOrderByAddedDateDesc(User user);
     List<Post> findByTitleContainingIgnoreCase(String title);
-    List<Post> findByContentContainingIgnoreCase(String content);
+    List<Post> findByExcerptContainingIgnoreCase(String excerpt);
+
+    // Batch read: the posts with their category, user and comments in one query
+    @Query("select distinct p from Post p left join fetch p.category left join fetch p.user left join fetch p.comments"
+            + " where p.postId in :postIds")
+    List<Post> findWithAssociationsByIds(@Param("postIds") Collection<Integer> postIds);
+
+    @Query("select p.postId as postId, p.title as title, p.addedDate as addedDate from Post p where p.postId > :afterId order by p.postId")
+    List<PostTitle> findTitlesAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select p.postId as postId, p.title as title, p.addedDate as addedDate from Post p where p.postId in :postIds")
+    List<PostTitle> findTitlesByIds(@Param("postIds") Collection<Integer> postIds);
+
+    @Query("select p.postId as postId, u.id as authorId, u.followerCount as followerCount from Post p join p.user u"
+            + " where p.postId in :postIds")
+    List<PostAuthor> findAuthorsByIds(@Param("postIds") Collection<Integer> postIds);
+
+    @Query("select p.postId as postId, c.categoryId as categoryId from Post p left join p.category c"
+            + " where p.postId > :afterId order by p.postId")
+    List<PostCategory> findCategoriesAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select p.postId as postId, c.categoryId as categoryId from Post p left join p.category c"
+            + " where p.postId in :postIds")
+    List<PostCategory> findCategoriesByIds(@Param("postIds") Collection<Integer> postIds);
+
+    // Newest first, before is exclusive, over idx_posts_user_post
+    @Query("select p.postId from Post p where p.user.id in :userIds and p.postId < :before order by p.postId desc")
+    List<Integer> findIdsByUsersBefore(@Param("userIds") Collection<Integer> userIds, @Param("before") Integer before,
+                                       Pageable pageable);
+
+    // The revision a draft is based on, see DraftBuffer
+    @Query("select p.revision from Post p where p.postId = :postId")
+    Optional<Integer> findRevision(@Param("postId") Integer postId);
+
+    // First statement of an update, it takes the row lock so concurrent updates of the post queue behind it
+    @Modifying
+    @Query(value = "update posts set revision = revision + 1 where post_id = :postId and deleted_at is null",
+            nativeQuery = true)
+    int incrementRevision(@Param("postId") Integer postId);
+
+    // 0 when the post was updated since it was at the revision
+    @Modifying
+    @Query(value = "update posts set revision = revision + 1 where post_id = :postId and revision = :revision"
+            + " and deleted_at is null", nativeQuery = true)
+    int incrementRevision(@Param("postId") Integer postId, @Param("revision") int revision);
+
+    // The image alone, the rest of the post is left as stored; a new revision so an older draft is not written over it
+    @Modifying
+    @Query(value = "update posts set image_name = :imageName, revision = revision + 1 where post_id = :postId"
+            + " and deleted_at is null", nativeQuery = true)
+    int updateImage(@Param("postId") Integer postId, @Param("imageName") String imageName);
+
+    // Purge queries are native, the entity restriction hides soft-deleted posts
+    @Query(value = "select post_id from posts where category_id = :categoryId limit :limit", nativeQuery = true)
+    List<Integer> findIdsToPurgeByCategory(@Param("categoryId") Integer categoryId, @Param("limit") int limit);
+
+    @Query(value = "select post_id from posts where user_id = :userId limit :limit", nativeQuery = true)
+    List<Integer> findIdsToPurgeByUser(@Param("userId") Integer userId, @Param("limit") int limit);
+
+    @Query(value = "select post_id from posts where post_id = :postId", nativeQuery = true)
+    List<Integer> findIdsToPurgeByPost(@Param("postId") Integer postId);
+
+    @Modifying
+    @Query(value = "delete from posts where post_id in (:postIds)", nativeQuery = true)
+    int purge(@Param("postIds") Collection<Integer> postIds);
 }
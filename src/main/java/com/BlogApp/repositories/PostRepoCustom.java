@@ -0,0 +1,19 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.Post;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Set;
+
+public interface PostRepoCustom {
+
+    // Selects only the requested post fields, user and category are joined only when asked for
+    List<Tuple> findFields(Set<String> fields, Specification<Post> filter, Sort sort);
+
+    Page<Tuple> findFields(Set<String> fields, Specification<Post> filter, Pageable pageable);
+}
@@ -0,0 +1,102 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.Category;
+import com.BlogApp.entities.Post;
+import com.BlogApp.entities.User;
+import com.BlogApp.payloads.PostFields;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class PostRepoCustomImpl implements PostRepoCustom {
+
+    // Tuple aliases for the joined columns
+    public static final String CATEGORY_ID = "categoryId";
+    public static final String CATEGORY_TITLE = "categoryTitle";
+    public static final String CATEGORY_DESCRIPTION = "categoryDescription";
+    public static final String USER_ID = "userId";
+    public static final String USER_NAME = "userName";
+    public static final String USER_EMAIL = "userEmail";
+    public static final String USER_ABOUT = "userAbout";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> findFields(Set<String> fields, Specification<Post> filter, Sort sort) {
+        return this.createQuery(fields, filter, sort).getResultList();
+    }
+
+    @Override
+    public Page<Tuple> findFields(Set<String> fields, Specification<Post> filter, Pageable pageable) {
+        TypedQuery<Tuple> query = this.createQuery(fields, filter, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> this.count(filter));
+    }
+
+    private TypedQuery<Tuple> createQuery(Set<String> fields, Specification<Post> filter, Sort sort) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Post> post = query.from(Post.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(post.get(PostFields.POST_ID).alias(PostFields.POST_ID));
+        for (String column : PostFields.COLUMNS) {
+            if (fields.contains(column)) {
+                selections.add(post.get(column).alias(column));
+            }
+        }
+        if (fields.contains(PostFields.CATEGORY)) {
+            Join<Post, Category> category = post.join("category", JoinType.LEFT);
+            selections.add(category.get("categoryId").alias(CATEGORY_ID));
+            selections.add(category.get("categoryTitle").alias(CATEGORY_TITLE));
+            selections.add(category.get("categoryDescription").alias(CATEGORY_DESCRIPTION));
+        }
+        // never the password hash
+        if (fields.contains(PostFields.USER)) {
+            Join<Post, User> user = post.join("user", JoinType.LEFT);
+            selections.add(user.get("id").alias(USER_ID));
+            selections.add(user.get("name").alias(USER_NAME));
+            selections.add(user.get("email").alias(USER_EMAIL));
+            selections.add(user.get("about").alias(USER_ABOUT));
+        }
+        query.multiselect(selections);
+
+        Predicate predicate = filter == null ? null : filter.toPredicate(post, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, post, cb));
+        }
+        return this.entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Post> filter) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Post> post = query.from(Post.class);
+        query.select(cb.count(post));
+
+        Predicate predicate = filter == null ? null : filter.toPredicate(post, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return this.entityManager.createQuery(query).getSingleResult();
+    }
+}
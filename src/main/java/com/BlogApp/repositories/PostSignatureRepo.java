@@ -0,0 +1,43 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.PostSignature;
+import com.BlogApp.search.MinHash;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PostSignatureRepo extends JpaRepository<PostSignature, Integer> {
+
+    // The signature column only, the index never holds the shingles
+    interface Signature {
+        Integer getPostId();
+        byte[] getSignature();
+
+        default int[] getHashes() {
+            return MinHash.fromBytes(this.getSignature());
+        }
+    }
+
+    // Signatures of live posts only, the Post restriction applies to the subquery
+    @Query("select s.postId as postId, s.signature as signature from PostSignature s where s.postId > :afterId "
+            + "and exists (select 1 from Post p where p.postId = s.postId) order by s.postId")
+    List<Signature> findLiveAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("select s.postId as postId, s.signature as signature from PostSignature s where s.postId in :postIds "
+            + "and exists (select 1 from Post p where p.postId = s.postId)")
+    List<Signature> findLiveByIds(@Param("postIds") Collection<Integer> postIds);
+
+    // Posts written before V8
+    @Query("select p.postId from Post p where p.postId > :afterId "
+            + "and not exists (select 1 from PostSignature s where s.postId = p.postId) order by p.postId")
+    List<Integer> findPostIdsWithoutSignatureAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from post_signatures where post_id in (:postIds)", nativeQuery = true)
+    int purge(@Param("postIds") Collection<Integer> postIds);
+}
@@ -0,0 +1,46 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.PostTag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PostTagRepo extends JpaRepository<PostTag, PostTag.Key> {
+
+    // Tag names with their post, without loading the posts
+    interface PostTagName {
+        Integer getPostId();
+        String getName();
+    }
+
+    @Query("select pt.postId as postId, t.name as name from PostTag pt join Tag t on t.tagId = pt.tagId"
+            + " where pt.postId in :postIds")
+    List<PostTagName> findNamesByPostIds(@Param("postIds") Collection<Integer> postIds);
+
+    // Tags of live posts only, the Post restriction applies to the subquery; a range of the primary key for TagIndex
+    @Query("select pt.postId as postId, t.name as name from PostTag pt join Tag t on t.tagId = pt.tagId"
+            + " where pt.postId between :fromId and :toId and exists (select 1 from Post p where p.postId = pt.postId)")
+    List<PostTagName> findLiveNamesBetween(@Param("fromId") Integer fromId, @Param("toId") Integer toId);
+
+    @Query("select pt.postId as postId, t.name as name from PostTag pt join Tag t on t.tagId = pt.tagId"
+            + " where pt.postId in :postIds and exists (select 1 from Post p where p.postId = pt.postId)")
+    List<PostTagName> findLiveNamesByPostIds(@Param("postIds") Collection<Integer> postIds);
+
+    // Tag ids looked up by name in the same statement
+    @Modifying
+    @Query(value = "insert ignore into post_tags (post_id, tag_id) select :postId, tag_id from tags where name in (:names)",
+            nativeQuery = true)
+    int insert(@Param("postId") Integer postId, @Param("names") Collection<String> names);
+
+    @Modifying
+    @Query(value = "delete from post_tags where post_id = :postId", nativeQuery = true)
+    int deleteByPost(@Param("postId") Integer postId);
+
+    @Modifying
+    @Query(value = "delete from post_tags where post_id in (:postIds)", nativeQuery = true)
+    int purge(@Param("postIds") Collection<Integer> postIds);
+}
@@ -0,0 +1,25 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.PurgeJob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PurgeJobRepo extends JpaRepository<PurgeJob, Long> {
+
+    @Query("select j.id from PurgeJob j where j.completedAt is null order by j.id")
+    List<Long> findPendingIds();
+
+    // A purger on another node skips a job that is being worked on (lock timeout -2)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select j from PurgeJob j where j.id = :id and j.completedAt is null")
+    Optional<PurgeJob> claim(@Param("id") Long id);
+}
@@ -0,0 +1,29 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.RevokedToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface RevokedTokenRepo extends JpaRepository<RevokedToken, String> {
+
+    // Revocations whose tokens have not expired, the whole filter
+    @Query("select t.jti from RevokedToken t where t.expiresAt > :now")
+    List<String> findLiveJtis(@Param("now") Date now);
+
+    @Query("select t.jti from RevokedToken t where t.revokedAt >= :since")
+    List<String> findJtisRevokedSince(@Param("since") Date since);
+
+    @Query("select t.jti from RevokedToken t where t.expiresAt < :now")
+    List<String> findExpiredJtis(@Param("now") Date now, Pageable pageable);
+
+    @Modifying
+    @Query("delete from RevokedToken t where t.jti in :jtis")
+    int purge(@Param("jtis") Collection<String> jtis);
+}
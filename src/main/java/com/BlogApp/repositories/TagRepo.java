@@ -0,0 +1,20 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.Tag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TagRepo extends JpaRepository<Tag, Integer> {
+
+    List<Tag> findByNameIn(Collection<String> names);
+
+    // 0 when another write created the tag first
+    @Modifying
+    @Query(value = "insert ignore into tags (name) values (:name)", nativeQuery = true)
+    int insert(@Param("name") String name);
+}
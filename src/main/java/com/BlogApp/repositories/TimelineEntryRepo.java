@@ -0,0 +1,50 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.TimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+// Inserts ignore rows that are already there: events are delivered at least once
+public interface TimelineEntryRepo extends JpaRepository<TimelineEntry, TimelineEntry.Key> {
+
+    // Newest first, before is exclusive
+    @Query("select t.postId from TimelineEntry t where t.userId = :userId and t.postId < :before order by t.postId desc")
+    List<Integer> findPostIds(@Param("userId") Integer userId, @Param("before") Integer before, Pageable pageable);
+
+    // The post into the timelines of the author's followers with ids from fromId to toId, one statement per range
+    @Modifying
+    @Query(value = "insert ignore into timeline_entries (user_id, post_id, author_id) "
+            + "select follower_id, :postId, :authorId from follows "
+            + "where followee_id = :authorId and follower_id between :fromId and :toId", nativeQuery = true)
+    int fanOut(@Param("postId") Integer postId, @Param("authorId") Integer authorId,
+               @Param("fromId") Integer fromId, @Param("toId") Integer toId);
+
+    // The newest posts of a newly followed author
+    @Modifying
+    @Query(value = "insert ignore into timeline_entries (user_id, post_id, author_id) "
+            + "select :userId, post_id, user_id from posts where user_id = :authorId and deleted_at is null "
+            + "order by post_id desc limit :limit", nativeQuery = true)
+    int backfill(@Param("userId") Integer userId, @Param("authorId") Integer authorId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "delete from timeline_entries where user_id = :userId and author_id = :authorId", nativeQuery = true)
+    int deleteByAuthor(@Param("userId") Integer userId, @Param("authorId") Integer authorId);
+
+    // The newest post id past the first keep entries, empty when the timeline is within bounds
+    @Query(value = "select post_id from timeline_entries where user_id = :userId order by post_id desc limit 1 offset :keep",
+            nativeQuery = true)
+    List<Integer> findTrimPoint(@Param("userId") Integer userId, @Param("keep") int keep);
+
+    @Modifying
+    @Query(value = "delete from timeline_entries where user_id = :userId and post_id <= :postId", nativeQuery = true)
+    int trim(@Param("userId") Integer userId, @Param("postId") Integer postId);
+
+    @Modifying
+    @Query(value = "delete from timeline_entries where user_id = :userId", nativeQuery = true)
+    int purge(@Param("userId") Integer userId);
+}
@@ -0,0 +1,31 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.UploadSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface UploadSessionRepo extends JpaRepository<UploadSession, String> {
+
+    // Only at the expected offset and while no other chunk holds a live claim, a concurrent retry of the same chunk gets 0
+    @Modifying
+    @Query("update UploadSession s set s.claim = :claim, s.claimedUntil = :claimedUntil "
+            + "where s.uploadId = :uploadId and s.received = :offset and (s.claimedUntil is null or s.claimedUntil < :now)")
+    int claim(@Param("uploadId") String uploadId, @Param("offset") long offset, @Param("claim") String claim,
+              @Param("now") Date now, @Param("claimedUntil") Date claimedUntil);
+
+    // Ends the claim, only while it is still held, e.g. not after it ran out and another chunk took the session
+    @Modifying
+    @Query("update UploadSession s set s.received = :received, s.expiresAt = :expiresAt, s.claim = null, "
+            + "s.claimedUntil = null where s.uploadId = :uploadId and s.claim = :claim")
+    int advance(@Param("uploadId") String uploadId, @Param("claim") String claim, @Param("received") long received,
+                @Param("expiresAt") Date expiresAt);
+
+    @Query("select s from UploadSession s where s.expiresAt < :now order by s.expiresAt")
+    List<UploadSession> findExpired(@Param("now") Date now, Pageable pageable);
+}
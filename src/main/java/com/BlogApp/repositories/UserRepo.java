@@ -1,7 +1,38 @@
 package com.BlogApp.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.BlogApp.entities.User;
 
+import java.util.List;
+
 public interface UserRepo extends JpaRepository<User,Integer> {
+
+    // Every user including deleted ones, keyset paging for the stats reconciliation
+    @Query(value = "select id from users where id > :afterId order by id limit :limit", nativeQuery = true)
+    List<Integer> findAllIdsAfter(@Param("afterId") Integer afterId, @Param("limit") int limit);
+
+    // Native, the entity restriction hides the soft-deleted row
+    @Modifying
+    @Query(value = "delete from users where id = :userId", nativeQuery = true)
+    int purge(@Param("userId") Integer userId);
+
+    // In place, concurrent follows of one author do not overwrite each other
+    @Modifying
+    @Query(value = "update users set follower_count = follower_count + :delta where id = :userId", nativeQuery = true)
+    int addFollowers(@Param("userId") Integer userId, @Param("delta") int delta);
+
+    // Once set, the author's posts are read at request time for good, see TimelineFanOut
+    @Modifying
+    @Query(value = "update users set timeline_pulled = true where id = :userId and timeline_pulled = false",
+            nativeQuery = true)
+    int markTimelinePulled(@Param("userId") Integer userId);
+
+    // Before a purged user's follows are removed
+    @Modifying
+    @Query(value = "update users set follower_count = follower_count - 1 "
+            + "where id in (select followee_id from follows where follower_id = :userId)", nativeQuery = true)
+    int removeFollower(@Param("userId") Integer userId);
 }
@@ -0,0 +1,85 @@
+package com.BlogApp.search;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Set membership with false positives and no false negatives: mightContain is false only for keys never added.
+// Sized for an expected number of keys and false positive rate, which is exceeded once more keys are added, so
+// owners rebuild it from their source of truth. Each key sets HASHES bits picked by double hashing of two 64 bit
+// hashes. Safe for concurrent adds and reads without locking, a read racing an add may miss the key being added.
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long n = Math.max(1, expectedKeys);
+        // m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) / 64));
+        this.words = new AtomicLongArray(words);
+        this.bits = words * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) this.bits / n * Math.log(2)));
+    }
+
+    // false when every bit was already set, the key was most likely added before
+    public boolean put(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+        boolean changed = false;
+        for (int i = 0; i < this.hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, this.bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = this.words.get(word);
+            while ((current & mask) == 0) {
+                if (this.words.weakCompareAndSetVolatile(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = this.words.get(word);
+            }
+        }
+        return changed;
+    }
+
+    public boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < this.hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, this.bits);
+            if ((this.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return this.bits;
+    }
+
+    int hashCount() {
+        return this.hashes;
+    }
+
+    // FNV-1a over the chars, then mixed so similar keys spread over the whole range
+    private static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    // the finalizer of MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85A53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
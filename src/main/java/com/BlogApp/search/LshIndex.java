@@ -0,0 +1,221 @@
+package com.BlogApp.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Locality-sensitive hashing over MinHash signatures. A signature is cut into BANDS bands of ROWS values,
+// posts that agree on every value of some band are candidates and are ranked by estimated similarity.
+// With 30 bands of 2 a pair with Jaccard similarity 0.3 is a candidate with probability 0.94, one with 0.5 with
+// almost 1. The estimate itself is too noisy to order posts of close similarity, so callers wanting the exact
+// top posts ask for more candidates and rank them again (see RelatedPostIndex).
+// Everything is held in int arrays indexed by slot: the signatures, and per band a bucket table of chain heads
+// with the chain links in next. Writers take the write lock, queries the read lock.
+public class LshIndex {
+
+    public static final class Match {
+        private final int postId;
+        private final double similarity;
+
+        Match(int postId, double similarity) {
+            this.postId = postId;
+            this.similarity = similarity;
+        }
+
+        public int getPostId() {
+            return postId;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    public static final int BANDS = 30;
+    static final int ROWS = MinHash.HASHES / BANDS;
+
+    private static final int NONE = -1;
+
+    // higher similarity first, newer post first on a tie
+    static final Comparator<Match> BEST_FIRST = Comparator.comparingDouble((Match m) -> m.similarity)
+            .thenComparingInt(m -> m.postId).reversed();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Integer> slots = new HashMap<>();
+
+    private int capacity;
+    // slot to post id, NONE for a free slot
+    private int[] postIds;
+    // HASHES values per slot
+    private int[] signatures;
+    // band * capacity + slot to the next slot in the same bucket
+    private int[] next;
+    // power of two, twice the capacity
+    private int buckets;
+    // band * buckets + bucket to the first slot of the chain
+    private int[] heads;
+    private int[] free;
+    private int freeCount;
+    private int used;
+
+    public LshIndex() {
+        this(1024);
+    }
+
+    public LshIndex(int capacity) {
+        this.allocate(Math.max(16, Integer.highestOneBit(capacity - 1) << 1));
+    }
+
+    public void put(int postId, int[] signature) {
+        this.lock.writeLock().lock();
+        try {
+            Integer existing = this.slots.get(postId);
+            if (existing != null) {
+                this.unlink(existing);
+            } else {
+                existing = this.allocateSlot();
+                this.slots.put(postId, existing);
+            }
+            int slot = existing;
+            this.postIds[slot] = postId;
+            System.arraycopy(signature, 0, this.signatures, slot * MinHash.HASHES, MinHash.HASHES);
+            this.link(slot);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int postId) {
+        this.lock.writeLock().lock();
+        try {
+            Integer slot = this.slots.remove(postId);
+            if (slot == null) {
+                return;
+            }
+            this.unlink(slot);
+            this.postIds[slot] = NONE;
+            this.free[this.freeCount++] = slot;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    // Best candidates sharing a band with the post, at least minSimilarity similar, empty for a post not indexed
+    public List<Match> related(int postId, int limit, double minSimilarity) {
+        this.lock.readLock().lock();
+        try {
+            Integer slot = this.slots.get(postId);
+            if (slot == null || limit <= 0) {
+                return List.of();
+            }
+            int[] candidates = new int[64];
+            int count = 0;
+            for (int band = 0; band < BANDS; band++) {
+                int bucket = this.bucket(this.signatures, slot * MinHash.HASHES, band);
+                for (int other = this.heads[band * this.buckets + bucket]; other != NONE;
+                     other = this.next[band * this.capacity + other]) {
+                    if (other != slot) {
+                        if (count == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, count * 2);
+                        }
+                        candidates[count++] = other;
+                    }
+                }
+            }
+            Arrays.sort(candidates, 0, count);
+            List<Match> matches = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && candidates[i] == candidates[i - 1]) {
+                    continue;
+                }
+                int other = candidates[i];
+                double similarity = MinHash.similarity(this.signatures, slot * MinHash.HASHES,
+                        this.signatures, other * MinHash.HASHES);
+                if (similarity >= minSimilarity) {
+                    matches.add(new Match(this.postIds[other], similarity));
+                }
+            }
+            matches.sort(BEST_FIRST);
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.slots.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private int allocateSlot() {
+        if (this.freeCount > 0) {
+            return this.free[--this.freeCount];
+        }
+        if (this.used == this.capacity) {
+            this.grow();
+        }
+        return this.used++;
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.buckets = capacity * 2;
+        this.postIds = new int[capacity];
+        Arrays.fill(this.postIds, NONE);
+        this.signatures = new int[capacity * MinHash.HASHES];
+        this.next = new int[BANDS * capacity];
+        this.heads = new int[BANDS * this.buckets];
+        Arrays.fill(this.heads, NONE);
+        this.free = new int[capacity];
+        this.freeCount = 0;
+    }
+
+    // Doubles the slots, the bucket tables are rebuilt for the new size
+    private void grow() {
+        int[] oldPostIds = this.postIds;
+        int[] oldSignatures = this.signatures;
+        this.allocate(this.capacity * 2);
+        System.arraycopy(oldPostIds, 0, this.postIds, 0, oldPostIds.length);
+        System.arraycopy(oldSignatures, 0, this.signatures, 0, oldSignatures.length);
+        for (int slot = 0; slot < this.used; slot++) {
+            if (this.postIds[slot] != NONE) {
+                this.link(slot);
+            }
+        }
+    }
+
+    private void link(int slot) {
+        for (int band = 0; band < BANDS; band++) {
+            int head = band * this.buckets + this.bucket(this.signatures, slot * MinHash.HASHES, band);
+            this.next[band * this.capacity + slot] = this.heads[head];
+            this.heads[head] = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        for (int band = 0; band < BANDS; band++) {
+            int head = band * this.buckets + this.bucket(this.signatures, slot * MinHash.HASHES, band);
+            int after = this.next[band * this.capacity + slot];
+            if (this.heads[head] == slot) {
+                this.heads[head] = after;
+                continue;
+            }
+            int previous = this.heads[head];
+            while (this.next[band * this.capacity + previous] != slot) {
+                previous = this.next[band * this.capacity + previous];
+            }
+            this.next[band * this.capacity + previous] = after;
+        }
+    }
+
+    private int bucket(int[] signatures, int offset, int band) {
+        int h = band;
+        for (int row = 0; row < ROWS; row++) {
+            h = 31 * h + signatures[offset + band * ROWS + row];
+        }
+        return MinHash.mix(h) & (this.buckets - 1);
+    }
+}
@@ -0,0 +1,133 @@
+package com.BlogApp.search;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// MinHash signatures of a post's title and content, one 32 bit minimum per hash function.
+// The shingles are the distinct words of at least 3 letters that are not stop words, so two posts
+// agree on a signature position with probability equal to the Jaccard similarity of their word sets.
+// Signatures and shingles are persisted in post_signatures, changing the shingles or SEED needs them rebuilt.
+public final class MinHash {
+
+    public static final int HASHES = 60;
+
+    private static final long SEED = 0x5EEDL;
+    private static final int[] SEEDS = new SplittableRandom(SEED).ints(HASHES).toArray();
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "are", "but", "not", "you", "all", "any", "can", "had", "her", "was", "one", "our",
+            "out", "has", "him", "his", "how", "its", "may", "who", "did", "get", "she", "too", "use", "that", "with",
+            "have", "this", "will", "your", "from", "they", "been", "were", "what", "when", "which", "their", "there",
+            "then", "than", "them", "these", "those", "into", "also", "more", "some", "such", "only", "just", "very");
+
+    private MinHash() {
+    }
+
+    // null when the text has no shingles, such a post has no related posts
+    public static int[] signature(String text) {
+        int[] shingles = shingles(text);
+        if (shingles.length == 0) {
+            return null;
+        }
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int shingle : shingles) {
+            for (int i = 0; i < HASHES; i++) {
+                int h = mix(shingle ^ SEEDS[i]);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    // Estimated Jaccard similarity, the share of positions where the signatures agree
+    public static double similarity(int[] a, int aOffset, int[] b, int bOffset) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[aOffset + i] == b[bOffset + i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    // Exact Jaccard similarity of two shingle arrays
+    public static double jaccard(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - common;
+        return union == 0 ? 0 : (double) common / union;
+    }
+
+    // Distinct hashed shingles, sorted
+    public static int[] shingles(String text) {
+        if (text == null) {
+            return new int[0];
+        }
+        int[] hashes = new int[16];
+        int count = 0;
+        int i = 0;
+        while (i < text.length()) {
+            while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i - start < 3) {
+                continue;
+            }
+            String word = text.substring(start, i).toLowerCase();
+            if (STOP_WORDS.contains(word)) {
+                continue;
+            }
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+            }
+            hashes[count++] = mix(word.hashCode());
+        }
+        hashes = Arrays.copyOf(hashes, count);
+        Arrays.sort(hashes);
+        return Arrays.stream(hashes).distinct().toArray();
+    }
+
+    // A signature or shingle array as big-endian ints
+    public static byte[] toBytes(int[] values) {
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * Integer.BYTES);
+        bytes.asIntBuffer().put(values);
+        return bytes.array();
+    }
+
+    public static int[] fromBytes(byte[] bytes) {
+        int[] values = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+
+    // MurmurHash3 finalizer
+    static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,435 @@
+package com.BlogApp.search;
+
+import java.util.Arrays;
+
+// Compressed set of post ids in the layout of Roaring bitmaps: ids are split by their high 16 bits into containers
+// of up to 65536 values, kept sorted by that key. A container holds its low 16 bits as a sorted char array while it
+// has at most ARRAY_MAX values (2 bytes each) and as a 65536 bit bitmap (8 KB) above that, so sparse and dense
+// ranges both stay small and intersections and unions work a container at a time.
+// Not thread-safe, TagIndex guards every bitmap with its lock. Results of and/or never share containers with
+// their inputs.
+public final class PostBitmap {
+
+    // where an array takes as much memory as the bitmap
+    static final int ARRAY_MAX = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public void add(int postId) {
+        char key = (char) (postId >>> 16);
+        int i = this.find(key);
+        if (i >= 0) {
+            this.containers[i] = this.containers[i].add((char) postId);
+        } else {
+            this.insert(-i - 1, key, new ArrayContainer().add((char) postId));
+        }
+    }
+
+    public boolean remove(int postId) {
+        int i = this.find((char) (postId >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        Container container = this.containers[i];
+        int cardinality = container.cardinality;
+        container = container.remove((char) postId);
+        if (container.cardinality == cardinality) {
+            return false;
+        }
+        if (container.cardinality == 0) {
+            System.arraycopy(this.keys, i + 1, this.keys, i, this.size - i - 1);
+            System.arraycopy(this.containers, i + 1, this.containers, i, this.size - i - 1);
+            this.containers[--this.size] = null;
+        } else {
+            this.containers[i] = container;
+        }
+        return true;
+    }
+
+    public boolean contains(int postId) {
+        int i = this.find((char) (postId >>> 16));
+        return i >= 0 && this.containers[i].contains((char) postId);
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < this.size; i++) {
+            cardinality += this.containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    // Approximate heap size of the keys and containers
+    public long sizeInBytes() {
+        long bytes = 2L * this.keys.length + 8L * this.containers.length;
+        for (int i = 0; i < this.size; i++) {
+            bytes += this.containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    // Ids below before, highest first, at most limit of them
+    public int[] descending(int before, int limit) {
+        int[] ids = new int[Math.min(limit, this.cardinality())];
+        int count = 0;
+        for (int i = this.size - 1; i >= 0 && count < ids.length; i--) {
+            long base = (long) this.keys[i] << 16;
+            if (base >= before) {
+                continue;
+            }
+            int below = (int) Math.min(1 << 16, before - base);
+            count = this.containers[i].descending(below, (int) base, ids, count);
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    public static PostBitmap and(PostBitmap a, PostBitmap b) {
+        PostBitmap result = new PostBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] == b.keys[j]) {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.cardinality > 0) {
+                    result.append(a.keys[i], container);
+                }
+                i++;
+                j++;
+            } else if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static PostBitmap or(PostBitmap a, PostBitmap b) {
+        PostBitmap result = new PostBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.size || b.keys[j] < a.keys[i]) {
+                result.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.append(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private int find(char key) {
+        return Arrays.binarySearch(this.keys, 0, this.size, key);
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            this.containers = Arrays.copyOf(this.containers, this.size * 2);
+        }
+        System.arraycopy(this.keys, index, this.keys, index + 1, this.size - index);
+        System.arraycopy(this.containers, index, this.containers, index + 1, this.size - index);
+        this.keys[index] = key;
+        this.containers[index] = container;
+        this.size++;
+    }
+
+    private void append(char key, Container container) {
+        this.insert(this.size, key, container);
+    }
+
+    // The low 16 bits of the ids under one key. add and remove return the container to keep, which is another
+    // kind once the cardinality crosses ARRAY_MAX.
+    private abstract static class Container {
+
+        int cardinality;
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container copy();
+
+        // Values below below, highest first, as base + value into ids from count on; returns the new count
+        abstract int descending(int below, int base, int[] ids, int count);
+
+        abstract long sizeInBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+
+        ArrayContainer() {
+            this.values = new char[4];
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = Arrays.binarySearch(this.values, 0, this.cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (this.cardinality == ARRAY_MAX) {
+                return this.toBitmap().add(value);
+            }
+            i = -i - 1;
+            if (this.cardinality == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.min(ARRAY_MAX, this.cardinality * 2));
+            }
+            System.arraycopy(this.values, i, this.values, i + 1, this.cardinality - i);
+            this.values[i] = value;
+            this.cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int i = Arrays.binarySearch(this.values, 0, this.cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(this.values, i + 1, this.values, i, this.cardinality - i - 1);
+                this.cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(this.values, 0, this.cardinality, value) >= 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(this.cardinality, other.cardinality)];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < this.cardinality && j < array.cardinality) {
+                    if (this.values[i] == array.values[j]) {
+                        result[count++] = this.values[i];
+                        i++;
+                        j++;
+                    } else if (this.values[i] < array.values[j]) {
+                        i++;
+                    } else {
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < this.cardinality; i++) {
+                    if (other.contains(this.values[i])) {
+                        result[count++] = this.values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            if (this.cardinality + array.cardinality > ARRAY_MAX) {
+                return this.toBitmap().or(array);
+            }
+            char[] result = new char[this.cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < this.cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < this.cardinality && this.values[i] < array.values[j])) {
+                    result[count++] = this.values[i++];
+                } else if (i == this.cardinality || array.values[j] < this.values[i]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = this.values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(this.values, this.cardinality), this.cardinality);
+        }
+
+        @Override
+        int descending(int below, int base, int[] ids, int count) {
+            // the first value not below
+            int low = 0;
+            int high = this.cardinality;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (this.values[mid] < below) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low - 1; i >= 0 && count < ids.length; i--) {
+                ids[count++] = base + this.values[i];
+            }
+            return count;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + 2L * this.values.length;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < this.cardinality; i++) {
+                bitmap.add(this.values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+
+        BitmapContainer() {
+            this.words = new long[1 << 10];
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((this.words[value >>> 6] & bit) == 0) {
+                this.words[value >>> 6] |= bit;
+                this.cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long bit = 1L << value;
+            if ((this.words[value >>> 6] & bit) != 0) {
+                this.words[value >>> 6] &= ~bit;
+                this.cardinality--;
+            }
+            return this.cardinality <= ARRAY_MAX ? this.toArray() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (this.words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[this.words.length];
+            int cardinality = 0;
+            for (int w = 0; w < result.length; w++) {
+                result[w] = this.words[w] & otherWords[w];
+                cardinality += Long.bitCount(result[w]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, cardinality);
+            return cardinality <= ARRAY_MAX ? bitmap.toArray() : bitmap;
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer result = (BitmapContainer) this.copy();
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.cardinality; i++) {
+                    result.add(array.values[i]);
+                }
+                return result;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int cardinality = 0;
+            for (int w = 0; w < result.words.length; w++) {
+                result.words[w] |= otherWords[w];
+                cardinality += Long.bitCount(result.words[w]);
+            }
+            result.cardinality = cardinality;
+            return result;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(this.words.clone(), this.cardinality);
+        }
+
+        @Override
+        int descending(int below, int base, int[] ids, int count) {
+            if (below == 0) {
+                return count;
+            }
+            int last = below - 1;
+            int w = last >>> 6;
+            long bits = this.words[w] & (-1L >>> (63 - (last & 63)));
+            while (count < ids.length) {
+                if (bits == 0) {
+                    if (--w < 0) {
+                        break;
+                    }
+                    bits = this.words[w];
+                    continue;
+                }
+                int bit = 63 - Long.numberOfLeadingZeros(bits);
+                ids[count++] = base + (w << 6) + bit;
+                bits &= ~(1L << bit);
+            }
+            return count;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + 8L * this.words.length;
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[this.cardinality];
+            int count = 0;
+            for (int w = 0; w < this.words.length; w++) {
+                long bits = this.words[w];
+                while (bits != 0) {
+                    values[count++] = (char) ((w << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.BlogApp.search;
+
+import com.BlogApp.cache.CacheEvictionListener;
+import com.BlogApp.cache.CacheInvalidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// An in-memory index over every post, loaded on the first refresh and kept up to date post by post.
+// Post writes on any node reach it through the cache invalidation journal: an evicted post id is read again on the
+// next refresh. Clearing the posts cache, as user and category edits do, does not touch the index, only
+// CacheInvalidator.reloadPostIndexes() loads it again. Subclasses call refresh() on their own schedule.
+public abstract class PostIndex implements CacheEvictionListener {
+
+    private final Logger logger = LoggerFactory.getLogger(PostIndex.class);
+
+    // for the log
+    private final String name;
+
+    private volatile boolean reloadRequested = true;
+    private final Set<Integer> changedPostIds = ConcurrentHashMap.newKeySet();
+
+    protected PostIndex(String name) {
+        this.name = name;
+    }
+
+    // Replaces the whole index with the posts in the database
+    protected abstract void load();
+
+    // Reads the given posts again, the ones deleted since are taken out
+    protected abstract void update(List<Integer> postIds);
+
+    @Override
+    public void onEvict(String cacheName, Integer id) {
+        if (CacheInvalidator.POST_INDEXES.equals(cacheName)) {
+            this.reloadRequested = true;
+        } else if (CacheInvalidator.POSTS.equals(cacheName) && id != null) {
+            this.changedPostIds.add(id);
+        }
+    }
+
+    public synchronized void refresh() {
+        if (this.reloadRequested) {
+            this.reloadRequested = false;
+            // changes arriving during the load are applied on the next refresh
+            this.changedPostIds.clear();
+            try {
+                this.load();
+            } catch (RuntimeException e) {
+                this.reloadRequested = true;
+                logger.warn("Loading the {} failed: {}", this.name, e.toString());
+            }
+            return;
+        }
+        if (this.changedPostIds.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(this.changedPostIds);
+        this.changedPostIds.removeAll(ids);
+        try {
+            this.update(ids);
+        } catch (RuntimeException e) {
+            this.changedPostIds.addAll(ids);
+            logger.warn("Refreshing the {} failed: {}", this.name, e.toString());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.BlogApp.search;
+
+import com.BlogApp.entities.PostBody;
+import com.BlogApp.entities.PostSignature;
+import com.BlogApp.repositories.PostBodyRepo;
+import com.BlogApp.repositories.PostRepo;
+import com.BlogApp.repositories.PostSignatureRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Related posts for /api/posts/{postId}/related, from an in-memory LshIndex over the signatures in post_signatures.
+// The index finds candidates-many posts by estimated similarity, these are ranked again by the exact Jaccard
+// similarity of their shingles, read from post_signatures by primary key.
+// Post writes save the signature in the write transaction (see save) and reach every node's index like any
+// PostIndex. Posts without a signature are filled in on the first load of the node.
+@Component
+public class RelatedPostIndex extends PostIndex {
+
+    private final Logger logger = LoggerFactory.getLogger(RelatedPostIndex.class);
+
+    @Autowired
+    private PostSignatureRepo postSignatureRepo;
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Autowired
+    private PostBodyRepo postBodyRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.related.top-k:10}")
+    private int topK;
+
+    @Value("${app.related.min-similarity:0.2}")
+    private double minSimilarity;
+
+    @Value("${app.related.candidates:30}")
+    private int candidates;
+
+    @Value("${app.related.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    private volatile LshIndex index = new LshIndex();
+    private boolean backfilled;
+
+    public RelatedPostIndex() {
+        super("related posts index");
+    }
+
+    // Called in a read transaction. The estimate is only used to pick candidates, so its threshold is halved.
+    public List<LshIndex.Match> related(Integer postId, int limit) {
+        List<LshIndex.Match> candidates = this.index.related(postId, Math.max(limit, this.candidates), this.minSimilarity / 2);
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        List<Integer> ids = new ArrayList<>(candidates.size() + 1);
+        ids.add(postId);
+        candidates.forEach(candidate -> ids.add(candidate.getPostId()));
+        Map<Integer, int[]> shingles = new HashMap<>();
+        for (PostSignature signature : this.postSignatureRepo.findAllById(ids)) {
+            shingles.put(signature.getPostId(), signature.getShingleHashes());
+        }
+        int[] query = shingles.get(postId);
+        if (query == null) {
+            return List.of();
+        }
+        List<LshIndex.Match> matches = new ArrayList<>();
+        for (LshIndex.Match candidate : candidates) {
+            int[] other = shingles.get(candidate.getPostId());
+            double similarity = other == null ? 0 : MinHash.jaccard(query, other);
+            if (similarity >= this.minSimilarity) {
+                matches.add(new LshIndex.Match(candidate.getPostId(), similarity));
+            }
+        }
+        matches.sort(LshIndex.BEST_FIRST);
+        return matches.size() > Math.min(limit, this.topK) ? matches.subList(0, Math.min(limit, this.topK)) : matches;
+    }
+
+    // Called in the post write transaction
+    public void save(Integer postId, String title, String content) {
+        String text = Objects.toString(title, "") + "\n" + Objects.toString(content, "");
+        int[] signature = MinHash.signature(text);
+        if (signature == null) {
+            this.postSignatureRepo.deleteById(postId);
+        } else {
+            this.postSignatureRepo.save(new PostSignature(postId, signature, MinHash.shingles(text)));
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.related.refresh-interval-ms:1000}")
+    public void refresh() {
+        super.refresh();
+    }
+
+    @Override
+    protected void update(List<Integer> postIds) {
+        Set<Integer> live = new HashSet<>();
+        for (PostSignatureRepo.Signature signature : this.postSignatureRepo.findLiveByIds(postIds)) {
+            this.index.put(signature.getPostId(), signature.getHashes());
+            live.add(signature.getPostId());
+        }
+        postIds.stream().filter(id -> !live.contains(id)).forEach(this.index::remove);
+    }
+
+    @Override
+    protected void load() {
+        // signatures of later posts are saved by their writes
+        if (!this.backfilled) {
+            this.backfill();
+            this.backfilled = true;
+        }
+        // sized like the index it replaces, it grows when needed
+        LshIndex loaded = new LshIndex(this.index.size());
+        int afterId = 0;
+        List<PostSignatureRepo.Signature> batch;
+        do {
+            batch = this.postSignatureRepo.findLiveAfter(afterId, PageRequest.of(0, this.loadBatchSize));
+            for (PostSignatureRepo.Signature signature : batch) {
+                loaded.put(signature.getPostId(), signature.getHashes());
+                afterId = signature.getPostId();
+            }
+        } while (batch.size() == this.loadBatchSize);
+        this.index = loaded;
+        logger.info("Related posts index loaded with {} posts", loaded.size());
+    }
+
+    // Signatures for posts written before post_signatures existed, one transaction per batch.
+    // A post without words keeps no signature and is looked at again on the next load.
+    private void backfill() {
+        int afterId = 0;
+        List<Integer> ids;
+        do {
+            ids = this.postSignatureRepo.findPostIdsWithoutSignatureAfter(afterId, PageRequest.of(0, this.loadBatchSize));
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<Integer> batch = ids;
+            this.transactionTemplate.executeWithoutResult(status -> {
+                Map<Integer, String> bodies = this.postBodyRepo.findAllById(batch).stream()
+                        .collect(Collectors.toMap(PostBody::getPostId, PostBody::getText));
+                Map<Integer, String> titles = this.postRepo.findTitlesByIds(batch).stream()
+                        .collect(Collectors.toMap(PostRepo.PostTitle::getPostId, PostRepo.PostTitle::getTitle));
+                for (Integer postId : batch) {
+                    this.save(postId, titles.get(postId), bodies.get(postId));
+                }
+            });
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == this.loadBatchSize);
+    }
+}
@@ -0,0 +1,210 @@
+package com.BlogApp.search;
+
+import com.BlogApp.repositories.PostRepo;
+import com.BlogApp.repositories.PostTagRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Posts per tag and per category as PostBitmaps of post ids, for /api/posts/tagged. Filters are intersected and
+// united in memory, newest first is descending post id, and only the page of ids is read back through the post cache.
+// Post writes reach every node's index like any PostIndex. Each post keeps a record of the bitmaps it is in, a
+// reference per post id and an array per post, so a changed post is taken out of only those and put back into the
+// ones it is in now. A tag or category left without posts keeps its empty bitmap until the next load.
+// Writers take the write lock, queries the read lock.
+@Component
+public class TagIndex extends PostIndex {
+
+    public static final class Matches {
+        private final int total;
+        private final int[] postIds;
+
+        Matches(int total, int[] postIds) {
+            this.total = total;
+            this.postIds = postIds;
+        }
+
+        // every match, whatever the cursor
+        public int getTotal() {
+            return total;
+        }
+
+        // newest first
+        public int[] getPostIds() {
+            return postIds;
+        }
+    }
+
+    private static final Matches NONE = new Matches(0, new int[0]);
+
+    private final Logger logger = LoggerFactory.getLogger(TagIndex.class);
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Autowired
+    private PostTagRepo postTagRepo;
+
+    @Value("${app.tags.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, PostBitmap> byTag = new HashMap<>();
+    private Map<Integer, PostBitmap> byCategory = new HashMap<>();
+    // by post id, null for posts in no bitmap
+    private PostBitmap[][] bitmapsOf = new PostBitmap[0][];
+
+    public TagIndex() {
+        super("tag index");
+    }
+
+    // Posts with all of allTags, at least one of anyTags when given, and in the category when given, below before.
+    // At least one filter must be given.
+    public Matches query(Collection<String> allTags, Collection<String> anyTags, Integer categoryId, int before, int limit) {
+        this.lock.readLock().lock();
+        try {
+            List<PostBitmap> required = new ArrayList<>();
+            for (String tag : allTags) {
+                PostBitmap posts = this.byTag.get(tag);
+                if (posts == null) {
+                    return NONE;
+                }
+                required.add(posts);
+            }
+            if (categoryId != null) {
+                PostBitmap posts = this.byCategory.get(categoryId);
+                if (posts == null) {
+                    return NONE;
+                }
+                required.add(posts);
+            }
+            if (!anyTags.isEmpty()) {
+                PostBitmap any = new PostBitmap();
+                for (String tag : anyTags) {
+                    PostBitmap posts = this.byTag.get(tag);
+                    if (posts != null) {
+                        any = PostBitmap.or(any, posts);
+                    }
+                }
+                required.add(any);
+            }
+            // smallest first, so the intermediate results only get smaller
+            required.sort(Comparator.comparingInt(PostBitmap::cardinality));
+            PostBitmap result = required.get(0);
+            for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+                result = PostBitmap.and(result, required.get(i));
+            }
+            return new Matches(result.cardinality(), result.descending(before, limit));
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.tags.refresh-interval-ms:1000}")
+    public void refresh() {
+        super.refresh();
+    }
+
+    @Override
+    protected void update(List<Integer> postIds) {
+        // read before taking the lock, deleted posts are in neither result
+        List<PostRepo.PostCategory> categories = this.postRepo.findCategoriesByIds(postIds);
+        List<PostTagRepo.PostTagName> tags = this.postTagRepo.findLiveNamesByPostIds(postIds);
+        this.lock.writeLock().lock();
+        try {
+            for (Integer postId : postIds) {
+                if (postId < this.bitmapsOf.length && this.bitmapsOf[postId] != null) {
+                    for (PostBitmap posts : this.bitmapsOf[postId]) {
+                        posts.remove(postId);
+                    }
+                    this.bitmapsOf[postId] = null;
+                }
+            }
+            this.bitmapsOf = add(this.byTag, this.byCategory, this.bitmapsOf, categories, tags);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    // Built aside and swapped in, queries keep using the old bitmaps meanwhile
+    @Override
+    protected void load() {
+        Map<String, PostBitmap> tags = new HashMap<>();
+        Map<Integer, PostBitmap> categories = new HashMap<>();
+        PostBitmap[][] bitmapsOf = new PostBitmap[0][];
+        int afterId = 0;
+        List<PostRepo.PostCategory> batch;
+        do {
+            batch = this.postRepo.findCategoriesAfter(afterId, PageRequest.of(0, this.loadBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            int fromId = batch.get(0).getPostId();
+            afterId = batch.get(batch.size() - 1).getPostId();
+            bitmapsOf = add(tags, categories, bitmapsOf, batch, this.postTagRepo.findLiveNamesBetween(fromId, afterId));
+        } while (batch.size() == this.loadBatchSize);
+
+        long bytes = 0;
+        for (PostBitmap posts : tags.values()) {
+            bytes += posts.sizeInBytes();
+        }
+        for (PostBitmap posts : categories.values()) {
+            bytes += posts.sizeInBytes();
+        }
+        bytes += 4L * bitmapsOf.length;
+        for (PostBitmap[] postBitmaps : bitmapsOf) {
+            bytes += postBitmaps == null ? 0 : 16 + 4L * postBitmaps.length;
+        }
+        this.lock.writeLock().lock();
+        try {
+            this.byTag = tags;
+            this.byCategory = categories;
+            this.bitmapsOf = bitmapsOf;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        logger.info("Tag index loaded with {} tags and {} categories in {} KB", tags.size(), categories.size(), bytes / 1024);
+    }
+
+    // Adds the posts to the bitmaps of their category and tags and records those; returns bitmapsOf, grown to fit.
+    // Tags of posts not in posts were deleted in between and are left out.
+    private static PostBitmap[][] add(Map<String, PostBitmap> tags, Map<Integer, PostBitmap> categories,
+                                      PostBitmap[][] bitmapsOf, List<PostRepo.PostCategory> posts,
+                                      List<PostTagRepo.PostTagName> postTags) {
+        Map<Integer, List<PostBitmap>> added = new HashMap<>();
+        int maxId = -1;
+        for (PostRepo.PostCategory post : posts) {
+            List<PostBitmap> postBitmaps = new ArrayList<>();
+            if (post.getCategoryId() != null) {
+                postBitmaps.add(categories.computeIfAbsent(post.getCategoryId(), id -> new PostBitmap()));
+            }
+            added.put(post.getPostId(), postBitmaps);
+            maxId = Math.max(maxId, post.getPostId());
+        }
+        for (PostTagRepo.PostTagName postTag : postTags) {
+            List<PostBitmap> postBitmaps = added.get(postTag.getPostId());
+            if (postBitmaps != null) {
+                postBitmaps.add(tags.computeIfAbsent(postTag.getName(), name -> new PostBitmap()));
+            }
+        }
+        if (maxId >= bitmapsOf.length) {
+            bitmapsOf = Arrays.copyOf(bitmapsOf, Math.max(maxId + 1, bitmapsOf.length + bitmapsOf.length / 2));
+        }
+        for (Map.Entry<Integer, List<PostBitmap>> post : added.entrySet()) {
+            int postId = post.getKey();
+            for (PostBitmap postBitmap : post.getValue()) {
+                postBitmap.add(postId);
+            }
+            bitmapsOf[postId] = post.getValue().isEmpty() ? null : post.getValue().toArray(new PostBitmap[0]);
+        }
+        return bitmapsOf;
+    }
+}
@@ -0,0 +1,78 @@
+package com.BlogApp.search;
+
+import com.BlogApp.repositories.PostRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// In-memory title completions for /api/posts/suggest, ranked by recency, kept up to date like every PostIndex
+@Component
+public class TitleSuggestIndex extends PostIndex {
+
+    private final Logger logger = LoggerFactory.getLogger(TitleSuggestIndex.class);
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Value("${app.suggest.top-k:10}")
+    private int topK;
+
+    @Value("${app.suggest.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    private volatile TitleTrie trie = new TitleTrie(1);
+
+    public TitleSuggestIndex() {
+        super("title index");
+    }
+
+    public List<TitleTrie.Entry> suggest(String prefix, int limit) {
+        return this.trie.complete(prefix, Math.min(limit, this.topK));
+    }
+
+    public int getTopK() {
+        return this.topK;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.suggest.refresh-interval-ms:1000}")
+    public void refresh() {
+        super.refresh();
+    }
+
+    @Override
+    protected void update(List<Integer> postIds) {
+        Set<Integer> live = new HashSet<>();
+        for (PostRepo.PostTitle title : this.postRepo.findTitlesByIds(postIds)) {
+            this.trie.put(title.getPostId(), title.getTitle(), rank(title));
+            live.add(title.getPostId());
+        }
+        postIds.stream().filter(id -> !live.contains(id)).forEach(this.trie::remove);
+    }
+
+    @Override
+    protected void load() {
+        TitleTrie loaded = new TitleTrie(this.topK);
+        int afterId = 0;
+        List<PostRepo.PostTitle> batch;
+        do {
+            batch = this.postRepo.findTitlesAfter(afterId, PageRequest.of(0, this.loadBatchSize));
+            for (PostRepo.PostTitle title : batch) {
+                loaded.put(title.getPostId(), title.getTitle(), rank(title));
+                afterId = title.getPostId();
+            }
+        } while (batch.size() == this.loadBatchSize);
+        this.trie = loaded;
+        logger.info("Title index loaded with {} posts", loaded.size());
+    }
+
+    private static long rank(PostRepo.PostTitle title) {
+        return title.getAddedDate() == null ? 0 : title.getAddedDate().getTime();
+    }
+}
@@ -0,0 +1,323 @@
+package com.BlogApp.search;
+
+import java.util.*;
+
+// Radix trie over normalized post titles. Every node keeps the best k entries of its subtree,
+// so a completion is a walk down the query prefix and a read of one array.
+// Writers are serialized, nodes publish new arrays instead of changing them, so readers take no lock.
+public class TitleTrie {
+
+    public static final class Entry {
+        private final int postId;
+        private final String title;
+        private final long rank;
+
+        Entry(int postId, String title, long rank) {
+            this.postId = postId;
+            this.title = title;
+            this.rank = rank;
+        }
+
+        public int getPostId() {
+            return postId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public long getRank() {
+            return rank;
+        }
+    }
+
+    private static final class Node {
+        final String label;
+        volatile Node[] children = NO_CHILDREN;
+        // entries whose key ends here, best first
+        volatile Entry[] here = NO_ENTRIES;
+        // best k entries of the subtree, best first
+        volatile Entry[] top = NO_ENTRIES;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    // higher rank first, newer post first on a tie
+    private static final Comparator<Entry> BEST_FIRST = Comparator.comparingLong((Entry e) -> e.rank)
+            .thenComparingInt(e -> e.postId).reversed();
+
+    private final int k;
+    private final Node root = new Node("");
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    public TitleTrie(int k) {
+        this.k = k;
+    }
+
+    public synchronized void put(int postId, String title, long rank) {
+        this.remove(postId);
+        String key = normalize(title);
+        if (key.isEmpty()) {
+            return;
+        }
+        Entry entry = new Entry(postId, title, rank);
+        this.entries.put(postId, entry);
+
+        List<Node> path = this.insertPath(key);
+        Node last = path.get(path.size() - 1);
+        last.here = with(last.here, entry);
+        for (Node node : path) {
+            node.top = node == last ? this.best(node) : this.offer(node.top, entry);
+        }
+    }
+
+    public synchronized void remove(int postId) {
+        Entry entry = this.entries.remove(postId);
+        if (entry == null) {
+            return;
+        }
+        List<Node> path = this.findPath(normalize(entry.title));
+        Node last = path.get(path.size() - 1);
+        last.here = without(last.here, entry);
+
+        // drop emptied nodes and fold single-child chains back into one edge
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (i > 0 && node.here.length == 0) {
+                Node parent = path.get(i - 1);
+                if (node.children.length == 0) {
+                    parent.children = without(parent.children, node);
+                    continue;
+                }
+                if (node.children.length == 1) {
+                    Node only = node.children[0];
+                    Node merged = new Node(node.label + only.label);
+                    merged.children = only.children;
+                    merged.here = only.here;
+                    merged.top = only.top;
+                    parent.children = replace(parent.children, node, merged);
+                    continue;
+                }
+            }
+            // an entry missing from a node's top is missing from every ancestor's top too
+            if (contains(node.top, entry)) {
+                node.top = this.best(node);
+            }
+        }
+    }
+
+    // Best entries whose normalized title starts with the normalized prefix
+    public List<Entry> complete(String prefix, int limit) {
+        String query = normalize(prefix);
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Node node = this.root;
+        int i = 0;
+        while (i < query.length()) {
+            Node[] children = node.children;
+            int index = indexOf(children, query.charAt(i));
+            if (index < 0) {
+                return List.of();
+            }
+            Node child = children[index];
+            int length = Math.min(child.label.length(), query.length() - i);
+            if (!query.regionMatches(i, child.label, 0, length)) {
+                return List.of();
+            }
+            node = child;
+            i += length;
+        }
+        Entry[] top = node.top;
+        return Collections.unmodifiableList(Arrays.asList(top).subList(0, Math.min(limit, top.length)));
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    // Lower case with runs of whitespace collapsed to one space
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = key.length() > 0;
+            } else {
+                if (space) {
+                    key.append(' ');
+                    space = false;
+                }
+                key.append(Character.toLowerCase(c));
+            }
+        }
+        return key.toString();
+    }
+
+    // Nodes from the root to the node where key ends, created or split as needed
+    private List<Node> insertPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = this.root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node[] children = node.children;
+            int index = indexOf(children, key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(i));
+                node.children = insert(children, -index - 1, leaf);
+                path.add(leaf);
+                return path;
+            }
+            Node child = children[index];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // the split copy is complete before it replaces the child
+                Node upper = new Node(child.label.substring(0, common));
+                Node lower = new Node(child.label.substring(common));
+                lower.children = child.children;
+                lower.here = child.here;
+                lower.top = child.top;
+                upper.children = new Node[]{lower};
+                upper.top = child.top;
+                Node[] replaced = children.clone();
+                replaced[index] = upper;
+                node.children = replaced;
+                child = upper;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        return path;
+    }
+
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = this.root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            node = node.children[indexOf(node.children, key.charAt(i))];
+            path.add(node);
+            i += node.label.length();
+        }
+        return path;
+    }
+
+    private Entry[] best(Node node) {
+        Node[] children = node.children;
+        if (children.length == 0 && node.here.length <= this.k) {
+            return node.here;
+        }
+        Entry[] best = new Entry[this.k];
+        int size = this.merge(best, 0, node.here);
+        for (Node child : children) {
+            size = this.merge(best, size, child.top);
+        }
+        return size == best.length ? best : Arrays.copyOf(best, size);
+    }
+
+    // Adds a sorted run to the bounded best array, stops at the first entry that does not make it
+    private int merge(Entry[] best, int size, Entry[] run) {
+        for (Entry entry : run) {
+            if (size == this.k && BEST_FIRST.compare(entry, best[size - 1]) >= 0) {
+                break;
+            }
+            int at = size < this.k ? size++ : size - 1;
+            while (at > 0 && BEST_FIRST.compare(entry, best[at - 1]) < 0) {
+                best[at] = best[at - 1];
+                at--;
+            }
+            best[at] = entry;
+        }
+        return size;
+    }
+
+    private Entry[] offer(Entry[] top, Entry entry) {
+        if (top.length == this.k && BEST_FIRST.compare(entry, top[top.length - 1]) >= 0) {
+            return top;
+        }
+        Entry[] best = Arrays.copyOf(top, Math.min(this.k, top.length + 1));
+        this.merge(best, top.length == this.k ? this.k : top.length, new Entry[]{entry});
+        return best;
+    }
+
+    private static boolean contains(Entry[] entries, Entry entry) {
+        for (Entry e : entries) {
+            if (e == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int max = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    // Binary search on the first label character, (-insertion point - 1) when absent
+    private static int indexOf(Node[] children, char c) {
+        int low = 0;
+        int high = children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char found = children[mid].label.charAt(0);
+            if (found < c) {
+                low = mid + 1;
+            } else if (found > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private static Node[] insert(Node[] children, int at, Node child) {
+        Node[] grown = new Node[children.length + 1];
+        System.arraycopy(children, 0, grown, 0, at);
+        grown[at] = child;
+        System.arraycopy(children, at, grown, at + 1, children.length - at);
+        return grown;
+    }
+
+    private static Node[] replace(Node[] children, Node old, Node replacement) {
+        Node[] replaced = children.clone();
+        for (int i = 0; i < replaced.length; i++) {
+            if (replaced[i] == old) {
+                replaced[i] = replacement;
+            }
+        }
+        return replaced;
+    }
+
+    private static Node[] without(Node[] children, Node child) {
+        return Arrays.stream(children).filter(node -> node != child).toArray(Node[]::new);
+    }
+
+    private static Entry[] with(Entry[] entries, Entry entry) {
+        Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+        grown[entries.length] = entry;
+        Arrays.sort(grown, BEST_FIRST);
+        return grown;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        return Arrays.stream(entries).filter(e -> e != entry).toArray(Entry[]::new);
+    }
+}
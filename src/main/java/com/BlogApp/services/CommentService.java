@@ -1,8 +1,12 @@
 package com.BlogApp.services;
 
 import com.BlogApp.payloads.CommentDto;
+import com.BlogApp.payloads.CommentThreadResponse;
 
 public interface CommentService {
     CommentDto createComment(CommentDto commentDto, Integer postId);
+    CommentDto createReply(CommentDto commentDto, Integer commentId);
     void deleteComment(Integer commentId);
+    CommentThreadResponse getThreads(Integer postId, Integer after, Integer pageSize, Integer depth, Integer limit);
+    CommentDto getReplies(Integer commentId, Integer depth, Integer limit);
 }
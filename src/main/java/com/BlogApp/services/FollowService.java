@@ -0,0 +1,13 @@
+package com.BlogApp.services;
+
+import com.BlogApp.payloads.TimelineResponse;
+
+public interface FollowService {
+
+    // Both are idempotent
+    void follow(Integer userId, Integer followeeId);
+    void unfollow(Integer userId, Integer followeeId);
+
+    // Posts of the followed authors, newest first, with post ids below before (all when null)
+    TimelineResponse getHomeTimeline(Integer userId, Integer before, Integer pageSize);
+}
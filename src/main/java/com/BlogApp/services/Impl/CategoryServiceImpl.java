@@ -1,14 +1,21 @@
 package com.BlogApp.services.Impl;
+import com.BlogApp.cache.CacheInvalidator;
 import com.BlogApp.entities.Category;
+import com.BlogApp.entities.PurgeJob;
 import com.BlogApp.exception.ResourceNotFoundException;
 import com.BlogApp.payloads.CategoryDto;
 import com.BlogApp.repositories.CategoryRepo;
+import com.BlogApp.repositories.PurgeJobRepo;
 import com.BlogApp.services.CategoryService;
+import com.BlogApp.stats.PostStats;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -21,15 +28,28 @@ public class CategoryServiceImpl implements CategoryService {
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private PurgeJobRepo purgeJobRepo;
+
+    @Autowired
+    private PostStats postStats;
+
 
     @Override
+    @Transactional
     public CategoryDto createCategory(CategoryDto categoryDto) {
         Category cat=this.modelMapper.map(categoryDto, Category.class);
         Category addedcategory=this.categoryRepo.save(cat);
+        // drops a cached miss for the new id on every node
+        this.cacheInvalidator.invalidate(CacheInvalidator.CATEGORIES, addedcategory.getCategoryId());
         return this.modelMapper.map(addedcategory, CategoryDto.class);
     }
 
     @Override
+    @Transactional
     public CategoryDto updateCategory(CategoryDto categoryDto, Integer categoryId) {
         // Find the category entity by ID
         Category cat = categoryRepo.findById(categoryId)
@@ -42,6 +62,10 @@ public class CategoryServiceImpl implements CategoryService {
         // Save the updated category entity
         Category updatedCategory = this.categoryRepo.save(cat);
 
+        // cached posts embed their category
+        this.cacheInvalidator.invalidate(CacheInvalidator.CATEGORIES, categoryId);
+        this.cacheInvalidator.invalidateAll(CacheInvalidator.POSTS);
+
         // Convert the updated category entity back to a CategoryDto
         CategoryDto updatedCategoryDto = modelMapper.map(updatedCategory, CategoryDto.class);
 
@@ -49,14 +73,23 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Transactional
     public void deleteCategory(Integer categoryId) {
         Category cat = categoryRepo.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
 
-        categoryRepo.delete(cat);
+        // hidden from now on together with its posts, ContentPurger removes the rows in chunks
+        cat.setDeletedAt(new Date());
+        this.postStats.categoryDeleted(categoryId);
+        this.purgeJobRepo.save(new PurgeJob(PurgeJob.TargetType.CATEGORY, categoryId));
+        this.cacheInvalidator.invalidate(CacheInvalidator.CATEGORIES, categoryId);
+        this.cacheInvalidator.invalidateAll(CacheInvalidator.POSTS);
+        this.cacheInvalidator.reloadPostIndexes();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheInvalidator.CATEGORIES, key = "#categoryId", sync = true)
     public CategoryDto getCategory(Integer categoryId) {
         Category cat = categoryRepo.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryId));
@@ -65,6 +98,7 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CategoryDto> getCategories() {
         List<Category> categories = categoryRepo.findAll();
         return categories.stream()
@@ -1,19 +1,43 @@
 package com.BlogApp.services.impl;
 
+import com.BlogApp.audit.AuditEvent;
+import com.BlogApp.audit.AuditLog;
 import com.BlogApp.entities.Comment;
 import com.BlogApp.entities.Post;
+import com.BlogApp.exception.BadRequestException;
 import com.BlogApp.exception.ResourceNotFoundException;
 import com.BlogApp.payloads.CommentDto;
+import com.BlogApp.payloads.CommentThreadResponse;
 import com.BlogApp.repositories.CommentRepo;
 import com.BlogApp.repositories.PostRepo;
 import com.BlogApp.services.CommentService;
+import com.BlogApp.stats.PostStats;
 import org.modelmapper.ModelMapper;
+import com.BlogApp.cache.CacheInvalidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Replies are stored with a materialized path, the padded ids from the top-level comment down to the reply. The
+// replies below a comment are one range of paths, so a thread or a page of threads is read with one query on
+// (post_id, depth, path), level by level up to the requested depth and at most limit replies. Each level comes
+// after the one above it, so every reply's parent is already in the tree when it is read and the tree is built
+// in one pass. A comment whose replyCount is larger than its loaded replies is expanded with getReplies.
 @Service
 public class CommentServiceImpl implements CommentService {
 
+    // a path segment is 10 digits and '/', 21 levels fit into comments.path
+    private static final int MAX_DEPTH = 20;
+    // sorts after every path segment, so prefix + END is the end of the range of paths starting with prefix
+    private static final String END = "~";
+
     @Autowired
     private PostRepo postRepo;
 
@@ -23,20 +47,166 @@ public class CommentServiceImpl implements CommentService {
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private PostStats postStats;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Value("${app.comments.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.comments.max-replies:500}")
+    private int maxReplies;
+
     @Override
+    @Transactional
     public CommentDto createComment(CommentDto commentDto, Integer postId) {
         Post post = postRepo.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
+        return this.save(commentDto, post, null);
+    }
+
+    @Override
+    @Transactional
+    public CommentDto createReply(CommentDto commentDto, Integer commentId) {
+        Comment parent = commentRepo.findById(commentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Comment", "Comment Id", commentId));
+        Post post = this.livePost(parent);
+        if (parent.getDepth() >= MAX_DEPTH) {
+            throw new BadRequestException("replies nest at most " + MAX_DEPTH + " levels deep");
+        }
+        this.commentRepo.addReplies(parent.getId(), 1);
+        return this.save(commentDto, post, parent);
+    }
+
+    @Override
+    @Transactional
+    public void deleteComment(Integer commentId) {
+        Comment comment = commentRepo.findById(commentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Comment", "Comment Id", commentId));
+        Post post = this.livePost(comment);
+        Integer postId = post.getPostId();
+
+        // the replies go with it
+        int deleted = this.commentRepo.deleteSubtree(postId, comment.getPath(), comment.getPath() + END);
+        if (comment.getParentId() != null) {
+            this.commentRepo.addReplies(comment.getParentId(), -1);
+        }
+        this.postStats.commentsDeleted(post, deleted);
+        this.auditLog.record(AuditEvent.Action.COMMENT_DELETED, "comment/" + commentId, "post/" + postId);
+        this.cacheInvalidator.invalidate(CacheInvalidator.POSTS, postId);
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CommentThreadResponse getThreads(Integer postId, Integer after, Integer pageSize, Integer depth, Integer limit) {
+        if (pageSize < 1 || pageSize > this.maxPageSize) {
+            throw new BadRequestException("pageSize must be between 1 and " + this.maxPageSize);
+        }
+        this.checkBounds(depth, limit);
+        postRepo.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
+
+        List<CommentRepo.ThreadComment> topLevel = this.commentRepo.findTopLevel(postId,
+                after == null ? "" : segment(after), PageRequest.of(0, pageSize));
+        List<CommentDto> threads = new ArrayList<>(topLevel.size());
+        Map<Integer, CommentDto> tree = new HashMap<>();
+        for (CommentRepo.ThreadComment comment : topLevel) {
+            threads.add(this.addTo(tree, comment));
+        }
+        if (!topLevel.isEmpty() && depth > 0) {
+            // the page's threads are one range of paths, from its first top-level comment to the end of its last
+            String from = topLevel.get(0).getPath();
+            String to = topLevel.get(topLevel.size() - 1).getPath() + END;
+            this.addReplies(tree, this.commentRepo.findReplies(postId, 1, depth, from, to, PageRequest.of(0, limit)));
+        }
+        Integer nextCursor = topLevel.size() == pageSize ? topLevel.get(pageSize - 1).getId() : null;
+        return new CommentThreadResponse(threads, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CommentDto getReplies(Integer commentId, Integer depth, Integer limit) {
+        this.checkBounds(depth, limit);
+        Comment comment = commentRepo.findById(commentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Comment", "Comment Id", commentId));
+        Post post = this.livePost(comment);
+
+        CommentDto root = modelMapper.map(comment, CommentDto.class);
+        root.setReplies(new ArrayList<>());
+        if (depth > 0) {
+            Map<Integer, CommentDto> tree = new HashMap<>();
+            tree.put(root.getId(), root);
+            this.addReplies(tree, this.commentRepo.findReplies(post.getPostId(), comment.getDepth() + 1,
+                    comment.getDepth() + depth, comment.getPath(), comment.getPath() + END, PageRequest.of(0, limit)));
+        }
+        return root;
+    }
+
+    private CommentDto save(CommentDto commentDto, Post post, Comment parent) {
         Comment comment = modelMapper.map(commentDto, Comment.class);
         comment.setPost(post);
+        comment.setParentId(parent == null ? null : parent.getId());
+        comment.setDepth(parent == null ? 0 : parent.getDepth() + 1);
+        comment.setReplyCount(0);
+        // the id is part of the path, which is completed once the insert has assigned it
+        comment.setPath(parent == null ? "" : parent.getPath());
         Comment savedComment = commentRepo.save(comment);
+        savedComment.setPath(savedComment.getPath() + segment(savedComment.getId()));
+
+        this.postStats.commentCreated(post);
+        this.auditLog.record(AuditEvent.Action.COMMENT_CREATED, "comment/" + savedComment.getId(), "post/" + post.getPostId());
+        // cached posts carry their comments
+        this.cacheInvalidator.invalidate(CacheInvalidator.POSTS, post.getPostId());
 
         return modelMapper.map(savedComment, CommentDto.class);
     }
 
-    @Override
-    public void deleteComment(Integer commentId) {
-        // Implementation code here
+    // comments of a deleted post are hidden with it, ContentPurger removes them
+    private Post livePost(Comment comment) {
+        Integer postId = comment.getPost() == null ? null : comment.getPost().getPostId();
+        Post post = postId == null ? null : postRepo.findById(postId).orElse(null);
+        if (post == null) {
+            throw new ResourceNotFoundException("Comment", "Comment Id", comment.getId());
+        }
+        return post;
+    }
+
+    private void checkBounds(Integer depth, Integer limit) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new BadRequestException("depth must be between 0 and " + MAX_DEPTH);
+        }
+        if (limit < 1 || limit > this.maxReplies) {
+            throw new BadRequestException("limit must be between 1 and " + this.maxReplies);
+        }
+    }
+
+    // Replies level by level, so each parent is in the tree before its replies
+    private void addReplies(Map<Integer, CommentDto> tree, List<CommentRepo.ThreadComment> replies) {
+        for (CommentRepo.ThreadComment reply : replies) {
+            CommentDto parent = tree.get(reply.getParentId());
+            // not there only when deleted with its replies between the two queries
+            if (parent != null) {
+                parent.getReplies().add(this.addTo(tree, reply));
+            }
+        }
+    }
+
+    private CommentDto addTo(Map<Integer, CommentDto> tree, CommentRepo.ThreadComment comment) {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setId(comment.getId());
+        commentDto.setContent(comment.getContent());
+        commentDto.setParentId(comment.getParentId());
+        commentDto.setReplyCount(comment.getReplyCount());
+        commentDto.setReplies(new ArrayList<>());
+        tree.put(commentDto.getId(), commentDto);
+        return commentDto;
+    }
+
+    private static String segment(int id) {
+        return String.format("%010d/", id);
     }
 }
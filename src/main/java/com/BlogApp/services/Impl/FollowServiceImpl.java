@@ -0,0 +1,123 @@
+package com.BlogApp.services.Impl;
+
+import com.BlogApp.entities.User;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.TimelineResponse;
+import com.BlogApp.repositories.FollowRepo;
+import com.BlogApp.repositories.PostRepo;
+import com.BlogApp.repositories.TimelineEntryRepo;
+import com.BlogApp.repositories.UserRepo;
+import com.BlogApp.services.FollowService;
+import com.BlogApp.services.PostService;
+import com.BlogApp.timeline.TimelineFanOut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Service
+public class FollowServiceImpl implements FollowService {
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private FollowRepo followRepo;
+
+    @Autowired
+    private TimelineEntryRepo timelineEntryRepo;
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private TimelineFanOut timelineFanOut;
+
+    @Value("${app.timeline.fan-out-max-followers:10000}")
+    private int fanOutMaxFollowers;
+
+    @Value("${app.timeline.max-entries:800}")
+    private int maxEntries;
+
+    @Value("${app.timeline.max-page-size:100}")
+    private int maxPageSize;
+
+    @Override
+    @Transactional
+    public void follow(Integer userId, Integer followeeId) {
+        if (userId.equals(followeeId)) {
+            throw new BadRequestException("users cannot follow themselves");
+        }
+        if (!this.userRepo.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "id", userId);
+        }
+        User followee = this.userRepo.findById(followeeId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", followeeId));
+        if (this.followRepo.insert(userId, followeeId, new Date()) == 0) {
+            return;
+        }
+        this.userRepo.addFollowers(followeeId, 1);
+        // posts of fanned-out authors written before the follow, the others are read with the timeline anyway
+        if (followee.isTimelinePulled()) {
+            return;
+        }
+        if (followee.getFollowerCount() + 1 > this.fanOutMaxFollowers) {
+            // this follower gets no backfill, so the author stays pulled if they drop back under the threshold
+            this.userRepo.markTimelinePulled(followeeId);
+        } else if (this.timelineEntryRepo.backfill(userId, followeeId, this.maxEntries) > 0) {
+            this.timelineFanOut.trimLater(List.of(userId));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void unfollow(Integer userId, Integer followeeId) {
+        if (!this.userRepo.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "id", userId);
+        }
+        if (this.followRepo.delete(userId, followeeId) == 0) {
+            return;
+        }
+        this.userRepo.addFollowers(followeeId, -1);
+        this.timelineEntryRepo.deleteByAuthor(userId, followeeId);
+    }
+
+    // The page is merged from the user's stored timeline and the newest posts of the followed authors that are
+    // not fanned out; post ids grow with time, so both are read newest first below the cursor and cut together.
+    @Override
+    @Transactional(readOnly = true)
+    public TimelineResponse getHomeTimeline(Integer userId, Integer before, Integer pageSize) {
+        if (pageSize < 1 || pageSize > this.maxPageSize) {
+            throw new BadRequestException("pageSize must be between 1 and " + this.maxPageSize);
+        }
+        if (!this.userRepo.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "id", userId);
+        }
+        Integer cursor = before == null ? Integer.MAX_VALUE : before;
+        PageRequest page = PageRequest.of(0, pageSize);
+        Set<Integer> merged = new TreeSet<>(Comparator.reverseOrder());
+        merged.addAll(this.timelineEntryRepo.findPostIds(userId, cursor, page));
+        List<Integer> pulled = this.followRepo.findPulledFolloweeIds(userId, this.fanOutMaxFollowers);
+        if (!pulled.isEmpty()) {
+            merged.addAll(this.postRepo.findIdsByUsersBefore(pulled, cursor, page));
+        }
+        List<Integer> postIds = merged.stream().limit(pageSize).toList();
+        if (postIds.isEmpty()) {
+            return new TimelineResponse(List.of(), null);
+        }
+        Integer nextCursor = postIds.size() == pageSize ? postIds.get(pageSize - 1) : null;
+        // through the post cache, deleted posts are left out
+        return new TimelineResponse(this.postService.getPostsByIds(postIds).getPosts(), nextCursor);
+    }
+}
@@ -1,31 +1,77 @@
 package com.BlogApp.services.Impl;
 
+import com.BlogApp.audit.AuditEvent;
+import com.BlogApp.audit.AuditLog;
+import com.BlogApp.cache.CacheInvalidator;
+import com.BlogApp.cache.CoalescingCache;
 import com.BlogApp.entities.Category;
 import com.BlogApp.entities.Post;
+import com.BlogApp.entities.PostBody;
+import com.BlogApp.entities.PostEvent;
+import com.BlogApp.entities.PurgeJob;
+import com.BlogApp.entities.Tag;
 import com.BlogApp.entities.User;
+import com.BlogApp.exception.BadRequestException;
 import com.BlogApp.exception.ResourceNotFoundException;
-import com.BlogApp.payloads.PostDto;
-import com.BlogApp.payloads.PostResponse;
+import com.BlogApp.payloads.*;
+import com.BlogApp.render.PostHtmlRenderer;
+import com.BlogApp.repositories.ArchiveStatsRepo;
 import com.BlogApp.repositories.CategoryRepo;
+import com.BlogApp.repositories.CommentRepo;
+import com.BlogApp.repositories.PostBodyRepo;
+import com.BlogApp.repositories.PostEventRepo;
+import com.BlogApp.repositories.PostHtmlRepo;
 import com.BlogApp.repositories.PostRepo;
+import com.BlogApp.repositories.PostTagRepo;
+import com.BlogApp.repositories.PurgeJobRepo;
+import com.BlogApp.repositories.TagRepo;
 import com.BlogApp.repositories.UserRepo;
+import com.BlogApp.search.LshIndex;
+import com.BlogApp.search.RelatedPostIndex;
+import com.BlogApp.search.TagIndex;
+import com.BlogApp.search.TitleSuggestIndex;
 import com.BlogApp.services.PostService;
+import com.BlogApp.stats.PostStats;
+import jakarta.persistence.Tuple;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Date;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.BlogApp.repositories.PostRepoCustomImpl.*;
+
 @Service
 public class PostServiceImpl implements PostService {
 
+    // getAllPosts orders backed by an index, see db/migration/V2__query_path_indexes.sql
+    private static final List<String> SORT_FIELDS = List.of("postId", "title", "addedDate");
+
+    // posts of a category or a user, like findByCategoryOrderByAddedDateDesc/findByUserOrderByAddedDateDesc
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "addedDate");
+
+    // posts.description is varchar(100)
+    private static final int EXCERPT_LENGTH = 100;
+
+    // tags.name is varchar(50)
+    private static final int TAG_LENGTH = 50;
+
     @Autowired
     private PostRepo postRepo;
 
@@ -38,8 +84,75 @@ public class PostServiceImpl implements PostService {
     @Autowired
     private CategoryRepo categoryRepo;
 
+    @Autowired
+    private CommentRepo commentRepo;
+
+    @Autowired
+    private PostEventRepo postEventRepo;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private PurgeJobRepo purgeJobRepo;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private TitleSuggestIndex titleSuggestIndex;
+
+    @Autowired
+    private PostBodyRepo postBodyRepo;
+
+    @Autowired
+    private RelatedPostIndex relatedPostIndex;
+
+    @Autowired
+    private PostHtmlRepo postHtmlRepo;
+
+    @Autowired
+    private PostHtmlRenderer postHtmlRenderer;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TagRepo tagRepo;
+
+    @Autowired
+    private PostTagRepo postTagRepo;
+
+    @Autowired
+    private TagIndex tagIndex;
+
+    @Autowired
+    private PostStats postStats;
+
+    @Autowired
+    private ArchiveStatsRepo archiveStatsRepo;
+
+    // the uncached posts of getPostsByIds, read apart from the caller's transaction
+    private TransactionTemplate primaryReads;
+
+    @Value("${app.posts.body-compress-threshold:1024}")
+    private int bodyCompressThreshold;
+
+    @Value("${app.posts.batch-max-ids:100}")
+    private int batchMaxIds;
+
+    @Value("${app.tags.max-per-post:10}")
+    private int maxTagsPerPost;
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        this.primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.primaryReads.setReadOnly(true);
+    }
 
     @Override
+    @Transactional
     public PostDto createPost(PostDto postDto, Integer userId, Integer categoryId) {
         User user = this.userRepo.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "User Id", userId));
@@ -47,81 +160,216 @@ public class PostServiceImpl implements PostService {
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "Category Id", categoryId));
 
         Post post = this.modelMapper.map(postDto, Post.class);
+        post.setExcerpt(excerpt(postDto.getContent()));
         post.setImageName("default.png");
         post.setAddedDate(new Date());
         post.setUser(user);
         post.setCategory(category);
 
         Post newPost = this.postRepo.save(post);
-        return this.modelMapper.map(newPost, PostDto.class);
+        this.saveBody(newPost.getPostId(), postDto.getContent());
+        Set<String> tags = this.saveTags(newPost.getPostId(), postDto.getTags());
+        this.postStats.postCreated(newPost);
+        this.relatedPostIndex.save(newPost.getPostId(), newPost.getTitle(), postDto.getContent());
+        this.postEventRepo.save(new PostEvent(PostEvent.Type.CREATED, newPost.getPostId()));
+        this.auditLog.record(AuditEvent.Action.POST_CREATED, "post/" + newPost.getPostId(), null);
+        // only a miss is cached yet, the journal entry also tells every node's TitleSuggestIndex and TagIndex about the post
+        this.cacheInvalidator.invalidate(CacheInvalidator.POSTS, newPost.getPostId());
+        PostDto newPostDto = this.modelMapper.map(newPost, PostDto.class);
+        newPostDto.setContent(postDto.getContent());
+        newPostDto.setTags(tags);
+        return newPostDto;
     }
 
 
     @Override
+    @Transactional
     public PostDto updatePost(PostDto postDto, Integer postId) {
+        this.postRepo.incrementRevision(postId);
+        return this.update(postDto, postId, AuditLog.currentActor());
+    }
+
+    @Override
+    @Transactional
+    public PostDto updatePost(PostDto postDto, Integer postId, int revision, String actor) {
+        if (this.postRepo.incrementRevision(postId, revision) == 0) {
+            if (!this.postRepo.existsById(postId)) {
+                throw new ResourceNotFoundException("Post", "Post Id", postId);
+            }
+            return null;
+        }
+        return this.update(postDto, postId, actor);
+    }
+
+    private PostDto update(PostDto postDto, Integer postId, String actor) {
         Post post = this.postRepo.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
         post.setTitle(postDto.getTitle());
-        post.setContent(postDto.getContent());
+        post.setExcerpt(excerpt(postDto.getContent()));
         post.setImageName(postDto.getImageName());
         Post updatedPost = this.postRepo.save(post);
+        this.saveBody(postId, postDto.getContent());
+        Set<String> tags = postDto.getTags() == null ? this.tagsOf(postId) : this.saveTags(postId, postDto.getTags());
+        this.relatedPostIndex.save(postId, updatedPost.getTitle(), postDto.getContent());
+        this.postEventRepo.save(new PostEvent(PostEvent.Type.UPDATED, postId));
+        this.auditLog.record(AuditEvent.Action.POST_UPDATED, actor, "post/" + postId, null);
+        this.cacheInvalidator.invalidate(CacheInvalidator.POSTS, postId);
 
-        return this.modelMapper.map(updatedPost, PostDto.class);
+        PostDto updatedPostDto = this.modelMapper.map(updatedPost, PostDto.class);
+        updatedPostDto.setContent(postDto.getContent());
+        updatedPostDto.setTags(tags);
+        return updatedPostDto;
     }
 
+    // Not a read-modify-write through getPostById, whose cached title and content may predate an edit on another node
     @Override
+    @Transactional
+    public PostDto setPostImage(Integer postId, String imageName) {
+        if (this.postRepo.updateImage(postId, imageName) == 0) {
+            throw new ResourceNotFoundException("Post", "Post Id", postId);
+        }
+        this.postEventRepo.save(new PostEvent(PostEvent.Type.UPDATED, postId));
+        this.auditLog.record(AuditEvent.Action.POST_UPDATED, "post/" + postId, null);
+        this.cacheInvalidator.invalidate(CacheInvalidator.POSTS, postId);
+
+        Post post = this.postRepo.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
+        PostDto postDto = this.modelMapper.map(post, PostDto.class);
+        this.postBodyRepo.findById(postId).ifPresent(body -> postDto.setContent(body.getText()));
+        postDto.setTags(this.tagsOf(postId));
+        return postDto;
+    }
+
+    @Override
+    @Transactional
     public void deletePost(Integer postId) {
         Post post = this.postRepo.findById(postId).orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
-        this.postRepo.delete(post);
+        // hidden from now on, ContentPurger removes the post and its comments
+        post.setDeletedAt(new Date());
+        this.postStats.postDeleted(post);
+        this.purgeJobRepo.save(new PurgeJob(PurgeJob.TargetType.POST, postId));
+        this.postEventRepo.save(new PostEvent(PostEvent.Type.DELETED, postId));
+        this.auditLog.record(AuditEvent.Action.POST_DELETED, "post/" + postId, null);
+        this.cacheInvalidator.invalidate(CacheInvalidator.POSTS, postId);
 
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PostResponse getAllPosts(Integer pageNumber, Integer pageSize, String sortBy, String sortDir) {
 
-        Pageable pageable;
-        if (sortDir.equalsIgnoreCase("dsc")) {
-            pageable = PageRequest.of(pageNumber, pageSize, Sort.by(sortBy).descending());
-        } else {
-            pageable = PageRequest.of(pageNumber, pageSize, Sort.by(sortBy).ascending());
-        }
-
-        Page<Post> pagePost = this.postRepo.findAll(pageable);
-        List<Post> allPosts = pagePost.getContent();
-        List<PostDto> postDtos = allPosts.stream()
+        Page<Post> pagePost = this.postRepo.findAll(this.pageRequest(pageNumber, pageSize, sortBy, sortDir));
+        List<PostDto> postDtos = pagePost.getContent().stream()
                 .map(post -> this.modelMapper.map(post, PostDto.class))
                 .collect(Collectors.toList());
-        PostResponse postResponse = new PostResponse();
-        postResponse.setContent(postDtos);
-        postResponse.setPageNumber(pagePost.getNumber());
-        postResponse.setPageSize(pagePost.getSize());
-        postResponse.setTotalPages(pagePost.getTotalPages());
-        postResponse.setTotalElements(pagePost.getTotalElements());
-        postResponse.setLastPage(pagePost.isLast());
-
-        return postResponse;
+        return this.postResponse(pagePost, postDtos);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PostResponse getAllPosts(Integer pageNumber, Integer pageSize, String sortBy, String sortDir, Set<String> fields) {
+        if (fields == null) {
+            return this.getAllPosts(pageNumber, pageSize, sortBy, sortDir);
+        }
+        requireListingFields(fields);
+        Page<Tuple> page = this.postRepo.findFields(fields, null, this.pageRequest(pageNumber, pageSize, sortBy, sortDir));
+        return this.postResponse(page, this.tuplesToDtos(page.getContent(), fields));
+    }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheInvalidator.POSTS, key = "#postId", sync = true)
     public PostDto getPostById(Integer postId) {
         Post post = this.postRepo.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
         PostDto postDto = this.modelMapper.map(post, PostDto.class);
+        this.postBodyRepo.findById(postId).ifPresent(body -> {
+            postDto.setContent(body.getText());
+            postDto.setHtml(this.postHtmlRenderer.html(postId, body));
+        });
+        postDto.setTags(this.tagsOf(postId));
         return postDto;
     }
 
+    // Posts already in the post cache are served from it, the rest are read with one query each for the
+    // posts with their associations, the bodies, the stored HTML and the tags, and cached like getPostById would:
+    // through CoalescingCache.loadAll, on the primary and in a transaction of their own, since a caller's
+    // transaction may already read from a replica.
     @Override
+    public PostBatchResponse getPostsByIds(List<Integer> postIds) {
+        if (postIds.isEmpty()) {
+            throw new BadRequestException("ids must not be empty");
+        }
+        if (postIds.size() > this.batchMaxIds) {
+            throw new BadRequestException("at most " + this.batchMaxIds + " ids per request");
+        }
+        Set<Integer> ids = new LinkedHashSet<>(postIds);
+        Cache cache = this.cacheManager.getCache(CacheInvalidator.POSTS);
+        Map<Integer, PostDto> found = new HashMap<>();
+        List<Integer> uncached = new ArrayList<>();
+        for (Integer id : ids) {
+            PostDto cached = cache == null ? null : cache.get(id, PostDto.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                uncached.add(id);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            Function<List<Integer>, Map<Integer, PostDto>> loader = batch -> this.primaryReads.execute(status -> this.loadPosts(batch));
+            found.putAll(cache instanceof CoalescingCache coalescing ? coalescing.loadAll(uncached, loader) : loader.apply(uncached));
+        }
+        List<PostDto> posts = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            if (found.containsKey(id)) {
+                posts.add(found.get(id));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new PostBatchResponse(posts, missing);
+    }
+
+    private Map<Integer, PostDto> loadPosts(List<Integer> ids) {
+        List<Post> posts = this.postRepo.findWithAssociationsByIds(ids);
+        Map<Integer, PostBody> bodies = new HashMap<>();
+        for (PostBody body : this.postBodyRepo.findAllById(posts.stream().map(Post::getPostId).toList())) {
+            bodies.put(body.getPostId(), body);
+        }
+        Map<Integer, String> html = this.postHtmlRenderer.html(bodies);
+        Map<Integer, Set<String>> tags = new HashMap<>();
+        if (!posts.isEmpty()) {
+            for (PostTagRepo.PostTagName tag : this.postTagRepo.findNamesByPostIds(posts.stream().map(Post::getPostId).toList())) {
+                tags.computeIfAbsent(tag.getPostId(), id -> new TreeSet<>()).add(tag.getName());
+            }
+        }
+        Map<Integer, PostDto> loaded = new HashMap<>();
+        for (Post post : posts) {
+            PostDto postDto = this.modelMapper.map(post, PostDto.class);
+            postDto.setTags(tags.getOrDefault(post.getPostId(), new TreeSet<>()));
+            PostBody body = bodies.get(post.getPostId());
+            if (body != null) {
+                postDto.setContent(body.getText());
+                postDto.setHtml(html.get(post.getPostId()));
+            }
+            loaded.put(post.getPostId(), postDto);
+        }
+        return loaded;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<PostDto> searchPosts(String search) {
         List<Post> posts = postRepo.findByTitleContainingIgnoreCase(search);
-        posts.addAll(postRepo.findByContentContainingIgnoreCase(search));
+        posts.addAll(postRepo.findByExcerptContainingIgnoreCase(search));
         List<PostDto> postDtos=posts.stream().map((post)->this.modelMapper.map(post, PostDto.class)).collect(Collectors.toList());
         return  postDtos;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PostDto> getPostByCategory(Integer categoryId) {
         Category category = this.categoryRepo.findById(categoryId).orElseThrow(() -> new ResourceNotFoundException("Category", "Category Id", categoryId));
-        List<Post> posts = this.postRepo.findByCategory(category);
+        List<Post> posts = this.postRepo.findByCategoryOrderByAddedDateDesc(category);
 
         List<PostDto> postDtoStream = posts.stream()
                 .map((post) -> this.modelMapper.map(post, PostDto.class))
@@ -131,12 +379,298 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PostDto> getPostByUser(Integer userId) {
         User user = this.userRepo.findById(userId).orElseThrow(() -> new ResourceNotFoundException("User", "User Id", userId));
-        List<Post> posts = this.postRepo.findByUser(user);
+        List<Post> posts = this.postRepo.findByUserOrderByAddedDateDesc(user);
         List<PostDto> postDtos = posts.stream()
                 .map(post -> this.modelMapper.map(post, PostDto.class))
                 .collect(Collectors.toList());
         return postDtos;
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostDto getPostById(Integer postId, Set<String> fields) {
+        if (fields == null) {
+            return this.getPostById(postId);
+        }
+        Specification<Post> byId = (post, query, cb) -> cb.equal(post.get("postId"), postId);
+        List<PostDto> posts = this.tuplesToDtos(this.postRepo.findFields(fields, byId, Sort.unsorted()), fields);
+        if (posts.isEmpty()) {
+            throw new ResourceNotFoundException("Post", "Post Id", postId);
+        }
+        PostDto postDto = posts.get(0);
+        if (fields.contains(PostFields.CONTENT) || fields.contains(PostFields.HTML)) {
+            this.postBodyRepo.findById(postId).ifPresent(body -> {
+                if (fields.contains(PostFields.CONTENT)) {
+                    postDto.setContent(body.getText());
+                }
+                if (fields.contains(PostFields.HTML)) {
+                    postDto.setHtml(this.postHtmlRenderer.html(postId, body));
+                }
+            });
+        }
+        return postDto;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostDto> getPostByCategory(Integer categoryId, Set<String> fields) {
+        if (fields == null) {
+            return this.getPostByCategory(categoryId);
+        }
+        requireListingFields(fields);
+        if (!this.categoryRepo.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category", "Category Id", categoryId);
+        }
+        Specification<Post> byCategory = (post, query, cb) -> cb.equal(post.get("category").get("categoryId"), categoryId);
+        return this.tuplesToDtos(this.postRepo.findFields(fields, byCategory, NEWEST_FIRST), fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostDto> getPostByUser(Integer userId, Set<String> fields) {
+        if (fields == null) {
+            return this.getPostByUser(userId);
+        }
+        requireListingFields(fields);
+        if (!this.userRepo.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "User Id", userId);
+        }
+        Specification<Post> byUser = (post, query, cb) -> cb.equal(post.get("user").get("id"), userId);
+        return this.tuplesToDtos(this.postRepo.findFields(fields, byUser, NEWEST_FIRST), fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostDto> searchPosts(String search, Set<String> fields) {
+        if (fields == null) {
+            return this.searchPosts(search);
+        }
+        requireListingFields(fields);
+        String pattern = "%" + search.toLowerCase() + "%";
+        Specification<Post> matches = (post, query, cb) -> cb.or(
+                cb.like(cb.lower(post.get("title")), pattern),
+                cb.like(cb.lower(post.get("excerpt")), pattern));
+        return this.tuplesToDtos(this.postRepo.findFields(fields, matches, Sort.unsorted()), fields);
+    }
+
+    @Override
+    public List<PostSuggestion> suggestPosts(String prefix, Integer limit) {
+        if (limit < 1) {
+            throw new BadRequestException("limit must be at least 1");
+        }
+        return this.titleSuggestIndex.suggest(prefix, limit).stream()
+                .map(entry -> new PostSuggestion(entry.getPostId(), entry.getTitle()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RelatedPost> getRelatedPosts(Integer postId, Integer limit) {
+        if (limit < 1) {
+            throw new BadRequestException("limit must be at least 1");
+        }
+        List<LshIndex.Match> matches = this.relatedPostIndex.related(postId, limit);
+        if (matches.isEmpty()) {
+            if (!this.postRepo.existsById(postId)) {
+                throw new ResourceNotFoundException("Post", "Post Id", postId);
+            }
+            return List.of();
+        }
+        Map<Integer, String> titles = new HashMap<>();
+        for (PostRepo.PostTitle title : this.postRepo.findTitlesByIds(matches.stream().map(LshIndex.Match::getPostId).toList())) {
+            titles.put(title.getPostId(), title.getTitle());
+        }
+        // posts deleted since the index last refreshed are left out
+        return matches.stream()
+                .filter(match -> titles.containsKey(match.getPostId()))
+                .map(match -> new RelatedPost(match.getPostId(), titles.get(match.getPostId()), match.getSimilarity()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TaggedPostResponse getPostsByTags(Set<String> tags, Set<String> anyTags, Integer categoryId, Integer before,
+                                             Integer pageSize) {
+        if (pageSize < 1 || pageSize > this.batchMaxIds) {
+            throw new BadRequestException("pageSize must be between 1 and " + this.batchMaxIds);
+        }
+        Set<String> allOf = normalizeTags(tags);
+        Set<String> anyOf = normalizeTags(anyTags);
+        if (allOf.isEmpty() && anyOf.isEmpty() && categoryId == null) {
+            throw new BadRequestException("at least one of tags, anyTags and categoryId is required");
+        }
+        TagIndex.Matches matches = this.tagIndex.query(allOf, anyOf, categoryId,
+                before == null ? Integer.MAX_VALUE : before, pageSize);
+        int[] postIds = matches.getPostIds();
+        if (postIds.length == 0) {
+            return new TaggedPostResponse(List.of(), null, matches.getTotal());
+        }
+        Integer nextCursor = postIds.length == pageSize ? postIds[pageSize - 1] : null;
+        // through the post cache, posts deleted since the index last refreshed are left out
+        List<PostDto> posts = this.getPostsByIds(Arrays.stream(postIds).boxed().toList()).getPosts();
+        return new TaggedPostResponse(posts, nextCursor, matches.getTotal());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ArchiveMonth> getArchive(Integer categoryId) {
+        List<ArchiveStatsRepo.MonthCount> months = categoryId == null
+                ? this.archiveStatsRepo.findMonths()
+                : this.archiveStatsRepo.findMonthsByCategory(categoryId);
+        return months.stream()
+                .map(month -> new ArchiveMonth(month.getPostYear(), month.getPostMonth(), month.getPostCount()))
+                .collect(Collectors.toList());
+    }
+
+    // Replaces the tags of a post, tags not used before are created
+    private Set<String> saveTags(Integer postId, Set<String> names) {
+        Set<String> tags = normalizeTags(names);
+        if (tags.size() > this.maxTagsPerPost) {
+            throw new BadRequestException("at most " + this.maxTagsPerPost + " tags per post");
+        }
+        if (tags.stream().anyMatch(tag -> tag.length() > TAG_LENGTH)) {
+            throw new BadRequestException("tags can be at most " + TAG_LENGTH + " characters");
+        }
+        this.postTagRepo.deleteByPost(postId);
+        if (tags.isEmpty()) {
+            return tags;
+        }
+        Set<String> missing = new HashSet<>(tags);
+        this.tagRepo.findByNameIn(tags).stream().map(Tag::getName).forEach(missing::remove);
+        missing.forEach(this.tagRepo::insert);
+        this.postTagRepo.insert(postId, tags);
+        return tags;
+    }
+
+    private Set<String> tagsOf(Integer postId) {
+        Set<String> tags = new TreeSet<>();
+        this.postTagRepo.findNamesByPostIds(List.of(postId)).forEach(tag -> tags.add(tag.getName()));
+        return tags;
+    }
+
+    // Trimmed and lower case, blank names dropped
+    private static Set<String> normalizeTags(Set<String> names) {
+        Set<String> tags = new TreeSet<>();
+        if (names != null) {
+            for (String name : names) {
+                String tag = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+                if (!tag.isEmpty()) {
+                    tags.add(tag);
+                }
+            }
+        }
+        return tags;
+    }
+
+    private void saveBody(Integer postId, String content) {
+        if (content == null) {
+            this.postHtmlRepo.deleteById(postId);
+            this.postBodyRepo.deleteById(postId);
+            return;
+        }
+        PostBody body = this.postBodyRepo.findById(postId).orElseGet(() -> new PostBody(postId));
+        body.setText(content, this.bodyCompressThreshold);
+        this.postBodyRepo.save(body);
+        this.postHtmlRenderer.renderAfterCommit(postId, body);
+    }
+
+    // Bodies are only read for a single post, listings carry the excerpt
+    private static void requireListingFields(Set<String> fields) {
+        if (fields.contains(PostFields.CONTENT) || fields.contains(PostFields.HTML)) {
+            throw new BadRequestException("content and html are only available from /posts/{postId}, use excerpt");
+        }
+    }
+
+    // Whitespace collapsed and cut at a word boundary, with an ellipsis when shortened
+    private static String excerpt(String content) {
+        if (content == null) {
+            return null;
+        }
+        String text = content.trim().replaceAll("\\s+", " ");
+        if (text.length() <= EXCERPT_LENGTH) {
+            return text;
+        }
+        int end = text.lastIndexOf(' ', EXCERPT_LENGTH - 1);
+        if (end < EXCERPT_LENGTH / 2) {
+            end = EXCERPT_LENGTH - 1;
+        }
+        return text.substring(0, end) + "\u2026";
+    }
+
+    private Pageable pageRequest(Integer pageNumber, Integer pageSize, String sortBy, String sortDir) {
+        if (!SORT_FIELDS.contains(sortBy)) {
+            throw new BadRequestException("sortBy must be one of " + String.join(", ", SORT_FIELDS));
+        }
+        if (sortDir.equalsIgnoreCase("dsc")) {
+            return PageRequest.of(pageNumber, pageSize, Sort.by(sortBy).descending());
+        }
+        return PageRequest.of(pageNumber, pageSize, Sort.by(sortBy).ascending());
+    }
+
+    private PostResponse postResponse(Page<?> page, List<PostDto> postDtos) {
+        PostResponse postResponse = new PostResponse();
+        postResponse.setContent(postDtos);
+        postResponse.setPageNumber(page.getNumber());
+        postResponse.setPageSize(page.getSize());
+        postResponse.setTotalPages(page.getTotalPages());
+        postResponse.setTotalElements(page.getTotalElements());
+        postResponse.setLastPage(page.isLast());
+        return postResponse;
+    }
+
+    // Builds DTOs from projected rows, comments are fetched in one extra query only when requested
+    private List<PostDto> tuplesToDtos(List<Tuple> tuples, Set<String> fields) {
+        Map<Integer, PostDto> postDtos = new LinkedHashMap<>();
+        for (Tuple tuple : tuples) {
+            PostDto postDto = this.tupleToDto(tuple, fields);
+            postDtos.put(postDto.getPostId(), postDto);
+        }
+        if (fields.contains(PostFields.COMMENTS) && !postDtos.isEmpty()) {
+            for (CommentRepo.PostComment comment : this.commentRepo.findByPostIds(postDtos.keySet())) {
+                CommentDto commentDto = new CommentDto();
+                commentDto.setId(comment.getId());
+                commentDto.setContent(comment.getContent());
+                commentDto.setParentId(comment.getParentId());
+                commentDto.setReplyCount(comment.getReplyCount());
+                postDtos.get(comment.getPostId()).getComments().add(commentDto);
+            }
+        }
+        return new ArrayList<>(postDtos.values());
+    }
+
+    private PostDto tupleToDto(Tuple tuple, Set<String> fields) {
+        PostDto postDto = new PostDto();
+        postDto.setPostId(tuple.get(PostFields.POST_ID, Integer.class));
+        if (fields.contains(PostFields.TITLE)) {
+            postDto.setTitle(tuple.get(PostFields.TITLE, String.class));
+        }
+        if (fields.contains(PostFields.EXCERPT)) {
+            postDto.setExcerpt(tuple.get(PostFields.EXCERPT, String.class));
+        }
+        if (fields.contains(PostFields.IMAGE_NAME)) {
+            postDto.setImageName(tuple.get(PostFields.IMAGE_NAME, String.class));
+        }
+        if (fields.contains(PostFields.ADDED_DATE)) {
+            postDto.setAddedDate(tuple.get(PostFields.ADDED_DATE, Date.class));
+        }
+        if (fields.contains(PostFields.CATEGORY) && tuple.get(CATEGORY_ID) != null) {
+            CategoryDto categoryDto = new CategoryDto();
+            categoryDto.setCategoryId(tuple.get(CATEGORY_ID, Integer.class));
+            categoryDto.setCategoryTitle(tuple.get(CATEGORY_TITLE, String.class));
+            categoryDto.setCategoryDescription(tuple.get(CATEGORY_DESCRIPTION, String.class));
+            postDto.setCategory(categoryDto);
+        }
+        if (fields.contains(PostFields.USER) && tuple.get(USER_ID) != null) {
+            UserDto userDto = new UserDto();
+            userDto.setId(tuple.get(USER_ID, Integer.class));
+            userDto.setName(tuple.get(USER_NAME, String.class));
+            userDto.setEmail(tuple.get(USER_EMAIL, String.class));
+            userDto.setAbout(tuple.get(USER_ABOUT, String.class));
+            postDto.setUser(userDto);
+        }
+        return postDto;
+    }
 }
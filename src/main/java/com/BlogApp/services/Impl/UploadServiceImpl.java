@@ -0,0 +1,243 @@
+package com.BlogApp.services.Impl;
+
+import com.BlogApp.entities.UploadSession;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.exception.ConflictException;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.UploadRequest;
+import com.BlogApp.payloads.UploadStatus;
+import com.BlogApp.repositories.PostRepo;
+import com.BlogApp.repositories.UploadSessionRepo;
+import com.BlogApp.services.UploadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+// Chunks are streamed from the request into the final file through a FileChannel at their offset, without multipart
+// parsing, a temp copy or a heap buffer larger than the channel's, so app.uploads.max-size is not bound by memory.
+// A chunk is forced to disk before the session's offset moves past it, a client resuming after any failure asks for
+// the offset and sends the rest. A chunk first claims the session at its offset, so a second request at the same
+// offset gets 409 instead of writing the same bytes alongside; a claim lasts app.uploads.chunk-timeout-ms at most,
+// and the chunk stops writing once it is over. No transaction is open while a chunk streams. Sessions untouched for
+// app.uploads.expiry-ms are removed with their file by expireSessions().
+@Service
+public class UploadServiceImpl implements UploadService {
+
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,10}");
+    private static final Pattern SHA_256 = Pattern.compile("[0-9a-f]{64}");
+    private static final int EXPIRE_BATCH_SIZE = 100;
+    // written between checks of the claim's deadline
+    private static final long TRANSFER_SLICE = 1024 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(UploadServiceImpl.class);
+
+    @Autowired
+    private UploadSessionRepo uploadSessionRepo;
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${project.image}")
+    private String imagePath;
+
+    @Value("${app.uploads.max-size:104857600}")
+    private long maxSize;
+
+    @Value("${app.uploads.expiry-ms:86400000}")
+    private long expiryMillis;
+
+    @Value("${app.uploads.chunk-timeout-ms:600000}")
+    private long chunkTimeoutMillis;
+
+    @Override
+    public UploadStatus startUpload(Integer postId, UploadRequest request) throws IOException {
+        if (!this.postRepo.existsById(postId)) {
+            throw new ResourceNotFoundException("Post", "Post Id", postId);
+        }
+        if (request.getLength() < 1 || request.getLength() > this.maxSize) {
+            throw new BadRequestException("length must be between 1 and " + this.maxSize + " bytes");
+        }
+        String name = request.getFileName() == null ? "" : request.getFileName();
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+        if (name.indexOf('.') < 0 || !EXTENSION.matcher(extension).matches()) {
+            throw new BadRequestException("fileName needs an extension of letters and digits");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setUploadId(UUID.randomUUID().toString());
+        session.setPostId(postId);
+        session.setFileName(UUID.randomUUID() + "." + extension);
+        session.setLength(request.getLength());
+        session.setCreatedAt(new Date());
+        session.setExpiresAt(this.expiresAt());
+        Files.createDirectories(Paths.get(this.imagePath));
+        Files.createFile(this.file(session));
+        return status(this.uploadSessionRepo.save(session));
+    }
+
+    @Override
+    public UploadStatus getUpload(Integer postId, String uploadId) {
+        return status(this.session(postId, uploadId));
+    }
+
+    @Override
+    public UploadStatus appendChunk(Integer postId, String uploadId, long offset, InputStream chunk) throws IOException {
+        UploadSession session = this.session(postId, uploadId);
+        if (offset != session.getReceived()) {
+            throw new ConflictException("offset must be " + session.getReceived());
+        }
+        String claim = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + this.chunkTimeoutMillis;
+        int claimed = this.transactionTemplate.execute(status ->
+                this.uploadSessionRepo.claim(uploadId, offset, claim, new Date(), new Date(deadline)));
+        if (claimed == 0) {
+            throw new ConflictException("another chunk is being written at offset " + offset);
+        }
+        long written;
+        try {
+            written = write(this.file(session), offset, session.getLength() - offset, chunk, deadline);
+        } catch (IOException | RuntimeException e) {
+            this.transactionTemplate.execute(status ->
+                    this.uploadSessionRepo.advance(uploadId, claim, offset, this.expiresAt()));
+            throw e;
+        }
+        long received = offset + written;
+        Date expiresAt = this.expiresAt();
+        int advanced = this.transactionTemplate.execute(status ->
+                this.uploadSessionRepo.advance(uploadId, claim, received, expiresAt));
+        if (advanced == 0) {
+            throw new ConflictException("the chunk at offset " + offset + " outlasted its claim, ask for the offset");
+        }
+        session.setReceived(received);
+        session.setExpiresAt(expiresAt);
+        return status(session);
+    }
+
+    @Override
+    public String completeUpload(Integer postId, String uploadId, String sha256) throws IOException {
+        UploadSession session = this.session(postId, uploadId);
+        String expected = sha256 == null ? "" : sha256.toLowerCase();
+        if (!SHA_256.matcher(expected).matches()) {
+            throw new BadRequestException("sha256 must be 64 hex digits");
+        }
+        if (session.getReceived() != session.getLength()) {
+            throw new BadRequestException("upload incomplete, " + session.getReceived() + " of " + session.getLength() + " bytes received");
+        }
+        if (!expected.equals(sha256(this.file(session)))) {
+            this.remove(session);
+            throw new BadRequestException("checksum mismatch, the upload has to start over");
+        }
+        this.uploadSessionRepo.deleteById(uploadId);
+        return session.getFileName();
+    }
+
+    @Scheduled(fixedDelayString = "${app.uploads.expire-interval-ms:600000}")
+    public void expireSessions() {
+        List<UploadSession> expired;
+        do {
+            expired = this.uploadSessionRepo.findExpired(new Date(), PageRequest.of(0, EXPIRE_BATCH_SIZE));
+            for (UploadSession session : expired) {
+                try {
+                    this.remove(session);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Removing expired upload {} failed, retrying on the next run: {}", session.getUploadId(), e.toString());
+                    return;
+                }
+            }
+        } while (expired.size() == EXPIRE_BATCH_SIZE);
+    }
+
+    // A session of another post or past its expiry is not found
+    private UploadSession session(Integer postId, String uploadId) {
+        return this.uploadSessionRepo.findById(uploadId)
+                .filter(session -> session.getPostId().equals(postId) && session.getExpiresAt().after(new Date()))
+                .orElseThrow(() -> new ResourceNotFoundException("Upload", "Upload Id", uploadId));
+    }
+
+    // The row goes first, a session is never left pointing at a missing file
+    private void remove(UploadSession session) throws IOException {
+        this.uploadSessionRepo.deleteById(session.getUploadId());
+        Files.deleteIfExists(this.file(session));
+    }
+
+    private Path file(UploadSession session) {
+        return Paths.get(this.imagePath, session.getFileName());
+    }
+
+    private Date expiresAt() {
+        return new Date(System.currentTimeMillis() + this.expiryMillis);
+    }
+
+    // Streams the chunk into the file at offset and forces it to disk, returns the bytes written
+    private static long write(Path path, long offset, long remaining, InputStream chunk, long deadline) throws IOException {
+        long written = 0;
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ReadableByteChannel in = Channels.newChannel(chunk);
+            while (written < remaining) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new ConflictException("the chunk at offset " + offset + " outlasted its claim, ask for the offset");
+                }
+                // short only once the request body ends
+                long transferred = file.transferFrom(in, offset + written, Math.min(remaining - written, TRANSFER_SLICE));
+                if (transferred == 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            if (written == remaining && chunk.read() != -1) {
+                throw new BadRequestException("the chunk runs past the declared length of " + (offset + remaining) + " bytes");
+            }
+            file.force(false);
+        }
+        return written;
+    }
+
+    private static String sha256(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (file.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static UploadStatus status(UploadSession session) {
+        return new UploadStatus(session.getUploadId(), session.getPostId(), session.getLength(), session.getReceived(),
+                session.getExpiresAt());
+    }
+}
@@ -1,15 +1,24 @@
 package com.BlogApp.services.Impl;
 
+import com.BlogApp.cache.CacheInvalidator;
+import com.BlogApp.entities.PurgeJob;
 import com.BlogApp.entities.User;
+import com.BlogApp.payloads.AuthorStatsDto;
 import com.BlogApp.payloads.UserDto;
 import com.BlogApp.services.UserService;
+import com.BlogApp.stats.PostStats;
+import com.BlogApp.repositories.AuthorStatsRepo;
+import com.BlogApp.repositories.PurgeJobRepo;
 import com.BlogApp.repositories.UserRepo;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import com.BlogApp.exception.*;
 import org.springframework.boot.context.config.ConfigDataResourceNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,19 +29,31 @@ public class UserServiceImpl implements UserService {
     private UserRepo userRepo;
     @Autowired
     private ModelMapper modelMapper;
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+    @Autowired
+    private PurgeJobRepo purgeJobRepo;
+    @Autowired
+    private PostStats postStats;
+    @Autowired
+    private AuthorStatsRepo authorStatsRepo;
 
     // Implementation of the createUser method from the UserService interface ,
     // Convert UserDto to User entity,Save the user entity to the database,
     // Convert the saved user entity back to UserDto and return
 
     @Override
+    @Transactional
     public UserDto createUser(UserDto userDto) {
         User user = this.dtoToUser(userDto);
         User savedUser = this.userRepo.save(user);
+        // drops a cached miss for the new id on every node
+        this.cacheInvalidator.invalidate(CacheInvalidator.USERS, savedUser.getId());
         return this.userToDto(savedUser);
     }
 
     @Override
+    @Transactional
     public UserDto updateUser(UserDto userDto, Integer userId) {
         // Find the user by ID
         User user = this.userRepo.findById(userId)
@@ -47,29 +68,57 @@ public class UserServiceImpl implements UserService {
         // Save the updated user entity
         User updatedUser = this.userRepo.save(user);
 
+        // cached posts embed their author
+        this.cacheInvalidator.invalidate(CacheInvalidator.USERS, userId);
+        this.cacheInvalidator.invalidateAll(CacheInvalidator.POSTS);
+
         // Convert updated user entity to UserDto and return
         UserDto updatedUserDto = this.userToDto(updatedUser);
         return updatedUserDto;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheInvalidator.USERS, key = "#userId", sync = true)
     public UserDto getUserById(Integer userId) {
         User user=this.userRepo.findById(userId).orElseThrow(()->new ResourceNotFoundException("User","id",userId));
         return this.userToDto(user);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<UserDto> getAllUsers() {
         List<User> users = this.userRepo.findAll();
         return users.stream().map(this::userToDto).collect(Collectors.toList());
     }
 
     @Override
+    @Transactional
     public void deleteUser(Integer userId) {
         // Implementation for deleting user
         User user=this.userRepo.findById(userId).orElseThrow(()->new ResourceNotFoundException("User","id",userId));
-        this.userRepo.delete(user);
+        // hidden from now on together with their posts, ContentPurger removes the rows in chunks
+        user.setDeletedAt(new Date());
+        this.postStats.userDeleted(userId);
+        this.purgeJobRepo.save(new PurgeJob(PurgeJob.TargetType.USER, userId));
+        this.cacheInvalidator.invalidate(CacheInvalidator.USERS, userId);
+        this.cacheInvalidator.invalidateAll(CacheInvalidator.POSTS);
+        this.cacheInvalidator.reloadPostIndexes();
+
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public AuthorStatsDto getAuthorStats(Integer userId) {
+        return this.authorStatsRepo.findById(userId)
+                .map(stats -> new AuthorStatsDto(userId, stats.getPostCount(), stats.getCommentCount(), stats.getLastPostedAt()))
+                .orElseGet(() -> {
+                    // authors get a row with their first post
+                    if (!this.userRepo.existsById(userId)) {
+                        throw new ResourceNotFoundException("User", "id", userId);
+                    }
+                    return new AuthorStatsDto(userId, 0, 0, null);
+                });
     }
     // Helper method to convert UserDto to User entity
     private User dtoToUser(UserDto userDto) {
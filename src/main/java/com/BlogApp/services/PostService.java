@@ -1,23 +1,57 @@
 package com.BlogApp.services;
 
 import com.BlogApp.entities.Post;
+import com.BlogApp.payloads.ArchiveMonth;
+import com.BlogApp.payloads.PostBatchResponse;
 import com.BlogApp.payloads.PostDto;
 import com.BlogApp.payloads.PostResponse;
+import com.BlogApp.payloads.PostSuggestion;
+import com.BlogApp.payloads.RelatedPost;
+import com.BlogApp.payloads.TaggedPostResponse;
 
 import java.util.List;
+import java.util.Set;
 
 public interface PostService {
 
     PostDto createPost(PostDto postDto, Integer userId, Integer categoryId);
     PostDto updatePost(PostDto postDto, Integer postId);
+    // Only while the post is at the given revision (PostRepo.findRevision), null when it was updated since.
+    // Audited as a change by actor rather than the current user.
+    PostDto updatePost(PostDto postDto, Integer postId, int revision, String actor);
+    // Sets the image without writing the rest of the post back
+    PostDto setPostImage(Integer postId, String imageName);
     void deletePost(Integer postId);
     PostResponse getAllPosts(Integer pageNumber, Integer pageSize, String sortBy,String sortDir);
     PostDto getPostById(Integer postId);
     List<PostDto> getPostByCategory(Integer categoryID);
     List<PostDto> getPostByUser(Integer userId);
 
+    // Full posts for a list of ids in one round-trip, missing ids are reported instead of failing the batch
+    PostBatchResponse getPostsByIds(List<Integer> postIds);
+
 
     //SearchPost
     List<PostDto>searchPosts(String search);
 
+    // Sparse fieldset variants, only the given PostFields are loaded and filled in
+    PostResponse getAllPosts(Integer pageNumber, Integer pageSize, String sortBy, String sortDir, Set<String> fields);
+    PostDto getPostById(Integer postId, Set<String> fields);
+    List<PostDto> getPostByCategory(Integer categoryId, Set<String> fields);
+    List<PostDto> getPostByUser(Integer userId, Set<String> fields);
+    List<PostDto> searchPosts(String search, Set<String> fields);
+
+    // Typeahead, newest posts whose title starts with the prefix, served from memory
+    List<PostSuggestion> suggestPosts(String prefix, Integer limit);
+
+    // Most similar posts by title and content words, served from memory
+    List<RelatedPost> getRelatedPosts(Integer postId, Integer limit);
+
+    // Newest posts with all of tags, one of anyTags and the category, whichever are given, filtered in memory
+    TaggedPostResponse getPostsByTags(Set<String> tags, Set<String> anyTags, Integer categoryId, Integer before,
+                                      Integer pageSize);
+
+    // Live posts per month, newest first, over all categories or one, read from the maintained counts
+    List<ArchiveMonth> getArchive(Integer categoryId);
+
 }
@@ -0,0 +1,22 @@
+package com.BlogApp.services;
+
+import com.BlogApp.payloads.UploadRequest;
+import com.BlogApp.payloads.UploadStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Resumable image uploads: start a session, append chunks at the offset received so far, complete with a checksum
+public interface UploadService {
+
+    UploadStatus startUpload(Integer postId, UploadRequest request) throws IOException;
+
+    // Where an interrupted upload resumes
+    UploadStatus getUpload(Integer postId, String uploadId);
+
+    // The chunk must start at the current offset, it is streamed to the file as it arrives
+    UploadStatus appendChunk(Integer postId, String uploadId, long offset, InputStream chunk) throws IOException;
+
+    // Checks the whole file against its SHA-256 and ends the session; returns the image name
+    String completeUpload(Integer postId, String uploadId, String sha256) throws IOException;
+}
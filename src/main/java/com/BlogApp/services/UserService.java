@@ -1,5 +1,6 @@
 package com.BlogApp.services;
 import com.BlogApp.entities.User;
+import com.BlogApp.payloads.AuthorStatsDto;
 import com.BlogApp.payloads.UserDto;
 
 import java.util.List;
@@ -11,4 +12,7 @@ public interface UserService {
     UserDto getUserById(Integer userId);
     List<UserDto> getAllUsers();
     void deleteUser(Integer userId);
+
+    // Read from the maintained counts
+    AuthorStatsDto getAuthorStats(Integer userId);
 }
@@ -0,0 +1,193 @@
+package com.BlogApp.stats;
+
+import com.BlogApp.entities.ArchiveStats;
+import com.BlogApp.entities.AuthorStats;
+import com.BlogApp.entities.Post;
+import com.BlogApp.repositories.ArchiveStatsRepo;
+import com.BlogApp.repositories.AuthorStatsRepo;
+import com.BlogApp.repositories.CommentRepo;
+import com.BlogApp.repositories.UserRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+// Keeps archive_stats (live posts per month and category) and author_stats (live posts of an author, the comments on
+// them and the newest post date) in step with the posts, so the archive and author stats endpoints read a handful of
+// rows instead of counting posts. Every method runs in the caller's write transaction, after its change, so the counts
+// commit or roll back with it. Counters are changed in place with upserts, concurrent writers never overwrite each
+// other. reconcile() recounts from the posts and fixes any drift, counted in blog.stats.corrected.
+@Component
+public class PostStats {
+
+    private final Logger logger = LoggerFactory.getLogger(PostStats.class);
+
+    private final ArchiveStatsRepo archiveStatsRepo;
+    private final AuthorStatsRepo authorStatsRepo;
+    private final CommentRepo commentRepo;
+    private final UserRepo userRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.stats.reconcile-batch-size:1000}")
+    private int reconcileBatchSize;
+
+    private final Counter corrected;
+
+    public PostStats(ArchiveStatsRepo archiveStatsRepo, AuthorStatsRepo authorStatsRepo, CommentRepo commentRepo,
+                     UserRepo userRepo, TransactionTemplate transactionTemplate, MeterRegistry registry) {
+        this.archiveStatsRepo = archiveStatsRepo;
+        this.authorStatsRepo = authorStatsRepo;
+        this.commentRepo = commentRepo;
+        this.userRepo = userRepo;
+        this.transactionTemplate = transactionTemplate;
+
+        this.corrected = Counter.builder("blog.stats.corrected").description("Stats rows fixed by the reconciliation").register(registry);
+    }
+
+    public void postCreated(Post post) {
+        this.addToArchive(post, 1);
+        this.authorStatsRepo.addPost(post.getUser().getId(), post.getAddedDate());
+    }
+
+    // After deletedAt is set
+    public void postDeleted(Post post) {
+        Integer userId = post.getUser().getId();
+        this.addToArchive(post, -1);
+        this.authorStatsRepo.add(userId, -1, -this.commentRepo.countByPost(post.getPostId()));
+        this.authorStatsRepo.refreshLastPosted(List.of(userId));
+    }
+
+    public void commentCreated(Post post) {
+        this.authorStatsRepo.add(post.getUser().getId(), 0, 1);
+    }
+
+    // Of a live post, a comment with its replies
+    public void commentsDeleted(Post post, int count) {
+        this.authorStatsRepo.add(post.getUser().getId(), 0, -count);
+    }
+
+    // After deletedAt is set; the author's row goes, their posts leave the archive
+    public void userDeleted(Integer userId) {
+        for (ArchiveStatsRepo.ArchiveCount count : this.archiveStatsRepo.countPostsOfUser(userId)) {
+            this.archiveStatsRepo.add(count.getPostYear(), count.getPostMonth(), count.getCategoryId(), -count.getPostCount());
+        }
+        this.authorStatsRepo.delete(userId);
+    }
+
+    // After deletedAt is set; the category's rows go, its posts leave their authors' counts
+    public void categoryDeleted(Integer categoryId) {
+        List<Integer> userIds = new ArrayList<>();
+        for (AuthorStatsRepo.AuthorCount count : this.authorStatsRepo.countPostsInCategory(categoryId)) {
+            this.authorStatsRepo.add(count.getUserId(), -count.getPostCount(), -count.getCommentCount());
+            userIds.add(count.getUserId());
+        }
+        this.archiveStatsRepo.deleteByCategory(categoryId);
+        if (!userIds.isEmpty()) {
+            this.authorStatsRepo.refreshLastPosted(userIds);
+        }
+    }
+
+    // Recounts the archive in one transaction and the authors in batches of users, each transaction reading the
+    // posts and the stats rows from one snapshot. Corrections are applied as deltas, so writes committed meanwhile
+    // are kept. Writes to the base tables that bypass the services are picked up here.
+    @Scheduled(initialDelayString = "${app.stats.reconcile-interval-ms:86400000}",
+            fixedDelayString = "${app.stats.reconcile-interval-ms:86400000}")
+    public void reconcile() {
+        try {
+            int fixed = this.transactionTemplate.execute(status -> this.reconcileArchive());
+            int afterId = 0;
+            List<Integer> userIds;
+            do {
+                userIds = this.userRepo.findAllIdsAfter(afterId, this.reconcileBatchSize);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                int fromId = afterId;
+                int toId = userIds.get(userIds.size() - 1);
+                fixed += this.transactionTemplate.execute(status -> this.reconcileAuthors(fromId, toId));
+                afterId = toId;
+            } while (userIds.size() == this.reconcileBatchSize);
+            if (fixed > 0) {
+                logger.warn("Post stats reconciliation fixed {} rows", fixed);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Post stats reconciliation failed, retrying on the next run: {}", e.toString());
+        }
+    }
+
+    private int reconcileArchive() {
+        Map<ArchiveStats.Key, Long> deltas = new HashMap<>();
+        for (ArchiveStatsRepo.ArchiveCount count : this.archiveStatsRepo.countLivePosts()) {
+            deltas.merge(new ArchiveStats.Key(count.getPostYear(), count.getPostMonth(), count.getCategoryId()),
+                    count.getPostCount(), Long::sum);
+        }
+        for (ArchiveStats stored : this.archiveStatsRepo.findAll()) {
+            deltas.merge(new ArchiveStats.Key(stored.getPostYear(), stored.getPostMonth(), stored.getCategoryId()),
+                    (long) -stored.getPostCount(), Long::sum);
+        }
+        int fixed = 0;
+        for (Map.Entry<ArchiveStats.Key, Long> delta : deltas.entrySet()) {
+            if (delta.getValue() != 0) {
+                ArchiveStats.Key key = delta.getKey();
+                this.archiveStatsRepo.add(key.getPostYear(), key.getPostMonth(), key.getCategoryId(), delta.getValue());
+                fixed++;
+            }
+        }
+        this.corrected.increment(fixed);
+        return fixed;
+    }
+
+    private int reconcileAuthors(int afterId, int toId) {
+        Map<Integer, AuthorStatsRepo.AuthorCount> expected = new HashMap<>();
+        for (AuthorStatsRepo.AuthorCount count : this.authorStatsRepo.countLivePostsBetween(afterId, toId)) {
+            expected.put(count.getUserId(), count);
+        }
+        Map<Integer, AuthorStats> stored = new HashMap<>();
+        for (AuthorStats stats : this.authorStatsRepo.findBetween(afterId, toId)) {
+            stored.put(stats.getUserId(), stats);
+        }
+        Set<Integer> userIds = new HashSet<>(expected.keySet());
+        userIds.addAll(stored.keySet());
+        List<Integer> stale = new ArrayList<>();
+        for (Integer userId : userIds) {
+            AuthorStatsRepo.AuthorCount count = expected.get(userId);
+            AuthorStats stats = stored.get(userId);
+            long posts = (count == null ? 0 : count.getPostCount()) - (stats == null ? 0 : stats.getPostCount());
+            long comments = (count == null ? 0 : count.getCommentCount()) - (stats == null ? 0 : stats.getCommentCount());
+            if (posts != 0 || comments != 0) {
+                this.authorStatsRepo.add(userId, posts, comments);
+            }
+            if (posts != 0 || comments != 0 || !Objects.equals(time(count == null ? null : count.getLastPostedAt()),
+                    time(stats == null ? null : stats.getLastPostedAt()))) {
+                stale.add(userId);
+            }
+        }
+        if (!stale.isEmpty()) {
+            this.authorStatsRepo.refreshLastPosted(stale);
+        }
+        this.corrected.increment(stale.size());
+        return stale.size();
+    }
+
+    private void addToArchive(Post post, int delta) {
+        if (post.getAddedDate() == null || post.getCategory() == null) {
+            return;
+        }
+        // the server zone, as year() and month() see the stored datetime
+        LocalDate day = post.getAddedDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        this.archiveStatsRepo.add(day.getYear(), day.getMonthValue(), post.getCategory().getCategoryId(), delta);
+    }
+
+    // Timestamp and Date of one instant are not equal
+    private static Long time(Date date) {
+        return date == null ? null : date.getTime();
+    }
+}
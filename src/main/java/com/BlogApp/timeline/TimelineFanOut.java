@@ -0,0 +1,137 @@
+package com.BlogApp.timeline;
+
+import com.BlogApp.entities.PostEvent;
+import com.BlogApp.events.PostEventListener;
+import com.BlogApp.repositories.FollowRepo;
+import com.BlogApp.repositories.PostRepo;
+import com.BlogApp.repositories.TimelineEntryRepo;
+import com.BlogApp.repositories.UserRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Fan-out on write: a new post goes into timeline_entries for every follower of its author, in the outbox
+// delivery transaction. Authors with more than app.timeline.fan-out-max-followers followers are skipped,
+// their posts are read at request time instead (see FollowServiceImpl.getHomeTimeline). A skipped author is
+// marked timeline_pulled and read at request time from then on: after dropping back under the threshold their
+// new posts are fanned out again, but the skipped ones are in no timeline.
+// Timelines written to are trimmed to app.timeline.max-entries in the background, one pass per user however
+// many posts arrived; the set of untrimmed timelines is per node, a restart leaves them until their next post.
+@Component
+public class TimelineFanOut implements PostEventListener {
+
+    private final Logger logger = LoggerFactory.getLogger(TimelineFanOut.class);
+
+    private final PostRepo postRepo;
+    private final FollowRepo followRepo;
+    private final UserRepo userRepo;
+    private final TimelineEntryRepo timelineEntryRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Integer> untrimmed = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.timeline.fan-out-max-followers:10000}")
+    private int fanOutMaxFollowers;
+
+    @Value("${app.timeline.max-entries:800}")
+    private int maxEntries;
+
+    @Value("${app.timeline.fan-out-batch-size:1000}")
+    private int batchSize;
+
+    private final Counter written;
+    private final Counter pulled;
+    private final Counter trimmed;
+
+    public TimelineFanOut(PostRepo postRepo, FollowRepo followRepo, UserRepo userRepo, TimelineEntryRepo timelineEntryRepo,
+                          TransactionTemplate transactionTemplate, MeterRegistry registry) {
+        this.postRepo = postRepo;
+        this.followRepo = followRepo;
+        this.userRepo = userRepo;
+        this.timelineEntryRepo = timelineEntryRepo;
+        this.transactionTemplate = transactionTemplate;
+
+        this.written = Counter.builder("blog.timeline.written").description("Timeline entries written by the fan-out").register(registry);
+        this.pulled = Counter.builder("blog.timeline.pulled").description("Posts left to be read from their author at request time").register(registry);
+        this.trimmed = Counter.builder("blog.timeline.trimmed").description("Timeline entries removed past the bound").register(registry);
+    }
+
+    @Override
+    public void onPostEvents(List<PostEvent> events) {
+        List<Integer> created = events.stream()
+                .filter(event -> event.getType() == PostEvent.Type.CREATED)
+                .map(PostEvent::getPostId)
+                .distinct()
+                .toList();
+        if (created.isEmpty()) {
+            return;
+        }
+        // posts deleted since are not found
+        for (PostRepo.PostAuthor post : this.postRepo.findAuthorsByIds(created)) {
+            if (post.getFollowerCount() > this.fanOutMaxFollowers) {
+                this.pulled.increment();
+                this.userRepo.markTimelinePulled(post.getAuthorId());
+            } else {
+                this.fanOut(post.getPostId(), post.getAuthorId());
+            }
+        }
+    }
+
+    // Timelines written to in the current transaction, picked up once it commits
+    public void trimLater(Collection<Integer> userIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    untrimmed.addAll(userIds);
+                }
+            });
+        } else {
+            this.untrimmed.addAll(userIds);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.timeline.trim-interval-ms:60000}")
+    public void trim() {
+        List<Integer> userIds = new ArrayList<>(this.untrimmed);
+        this.untrimmed.removeAll(userIds);
+        for (Integer userId : userIds) {
+            try {
+                this.transactionTemplate.executeWithoutResult(status ->
+                        this.timelineEntryRepo.findTrimPoint(userId, this.maxEntries).forEach(postId ->
+                                this.trimmed.increment(this.timelineEntryRepo.trim(userId, postId))));
+            } catch (RuntimeException e) {
+                this.untrimmed.add(userId);
+                logger.warn("Trimming the timeline of user {} failed: {}", userId, e.toString());
+            }
+        }
+    }
+
+    // One insert per batch of followers, over the id range the batch covers
+    private void fanOut(Integer postId, Integer authorId) {
+        int afterId = 0;
+        List<Integer> followers;
+        do {
+            followers = this.followRepo.findFollowerIdsAfter(authorId, afterId, this.batchSize);
+            if (followers.isEmpty()) {
+                return;
+            }
+            int lastId = followers.get(followers.size() - 1);
+            this.written.increment(this.timelineEntryRepo.fanOut(postId, authorId, followers.get(0), lastId));
+            this.trimLater(followers);
+            afterId = lastId;
+        } while (followers.size() == this.batchSize);
+    }
+}
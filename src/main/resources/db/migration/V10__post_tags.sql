@@ -0,0 +1,20 @@
+-- Tags, names are stored trimmed and lower case
+create table tags (
+    tag_id int not null auto_increment,
+    name varchar(50) not null,
+    primary key (tag_id),
+    constraint uk_tags_name unique (name)
+);
+
+-- Tags of a post. Read by post id for the post itself and in post id ranges by TagIndex,
+-- multi-tag filtering runs on the in-memory bitmaps rather than on joins over this table.
+create table post_tags (
+    post_id int not null,
+    tag_id int not null,
+    primary key (post_id, tag_id),
+    constraint fk_post_tags_post foreign key (post_id) references posts (post_id),
+    constraint fk_post_tags_tag foreign key (tag_id) references tags (tag_id)
+);
+
+-- posts of a tag, for the foreign key and ad hoc queries
+create index idx_post_tags_tag on post_tags (tag_id, post_id);
@@ -0,0 +1,41 @@
+-- Aggregates over live posts, kept by PostStats in the transaction of each post write and rebuilt from the base
+-- tables by its reconciliation job. Derived data without foreign keys, soft deletes adjust them at once.
+
+-- Posts per month and category, for archive sidebars
+create table archive_stats (
+    post_year int not null,
+    post_month int not null,
+    category_id int not null,
+    post_count int not null,
+    primary key (post_year, post_month, category_id)
+);
+
+-- the archive of one category
+create index idx_archive_stats_category on archive_stats (category_id, post_year, post_month);
+
+-- Per author: posts, comments on those posts, and the date of the newest post
+create table author_stats (
+    user_id int not null,
+    post_count int not null,
+    comment_count int not null,
+    last_posted_at datetime(6),
+    primary key (user_id)
+);
+
+-- Posts written before this migration; live posts as in the Post entity restriction
+insert into archive_stats (post_year, post_month, category_id, post_count)
+select year(p.added_date), month(p.added_date), p.category_id, count(*)
+from posts p
+where p.deleted_at is null and p.added_date is not null and p.category_id is not null
+  and not exists (select 1 from categories dc where dc.category_id = p.category_id and dc.deleted_at is not null)
+  and not exists (select 1 from users du where du.id = p.user_id and du.deleted_at is not null)
+group by year(p.added_date), month(p.added_date), p.category_id;
+
+insert into author_stats (user_id, post_count, comment_count, last_posted_at)
+select p.user_id, count(distinct p.post_id), count(c.id), max(p.added_date)
+from posts p
+left join comments c on c.post_id = p.post_id
+where p.deleted_at is null and p.user_id is not null
+  and not exists (select 1 from categories dc where dc.category_id = p.category_id and dc.deleted_at is not null)
+  and not exists (select 1 from users du where du.id = p.user_id and du.deleted_at is not null)
+group by p.user_id;
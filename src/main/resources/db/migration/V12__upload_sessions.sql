@@ -0,0 +1,14 @@
+-- Resumable image uploads in progress, see UploadServiceImpl. The bytes are written straight into file_name under
+-- the image directory; received is how many of them are on disk, and the next chunk must start there.
+-- Sessions not touched until expires_at are removed with their file.
+create table upload_sessions (
+    upload_id varchar(36) not null primary key,
+    post_id int not null,
+    file_name varchar(50) not null,
+    length bigint not null,
+    received bigint not null,
+    created_at datetime(6) not null,
+    expires_at datetime(6) not null
+);
+
+create index idx_upload_sessions_expires on upload_sessions (expires_at);
@@ -0,0 +1,13 @@
+-- Revoked JWTs by their jti claim, see TokenRevocation. A row is needed only until the token would have expired
+-- anyway (expires_at, the token's exp), the purge removes it after that.
+create table revoked_tokens (
+    jti varchar(36) not null primary key,
+    expires_at datetime(6) not null,
+    revoked_at datetime(6) not null
+);
+
+-- the purge and the full load of the filter
+create index idx_revoked_tokens_expires on revoked_tokens (expires_at);
+
+-- the periodic load of new revocations from other nodes
+create index idx_revoked_tokens_revoked on revoked_tokens (revoked_at);
@@ -0,0 +1,14 @@
+-- Replies to comments, see CommentServiceImpl. path is the ids from the top-level comment down to the comment, each
+-- zero padded to 10 digits and followed by '/', so the replies below a comment at any depth are the rows whose path
+-- starts with its path, and sorting by path sorts top-level comments by id. depth is 0 for top-level comments.
+-- reply_count is the number of direct replies.
+alter table comments add column parent_id int;
+alter table comments add column depth int not null default 0;
+alter table comments add column reply_count int not null default 0;
+alter table comments add column path varchar(255);
+
+update comments set path = concat(lpad(id, 10, '0'), '/');
+alter table comments modify column path varchar(255) not null;
+
+-- top-level comments of a post in order, and the replies of a range of threads level by level
+create index idx_comments_post_depth_path on comments (post_id, depth, path);
@@ -0,0 +1,5 @@
+-- Distinct word hashes of each post (sorted big-endian ints, see search.MinHash.shingles), read for the
+-- candidates of a related posts request to rank them by exact Jaccard similarity.
+-- The existing rows are dropped, RelatedPostIndex fills in both columns on its first load.
+delete from post_signatures;
+alter table post_signatures add column shingles longblob not null;
@@ -0,0 +1,3 @@
+-- Counts the updates of a post. DraftBuffer bases an autosaved draft on the revision it found and writes it only
+-- while the post is still at that revision, so a draft held on one node never overwrites an update made on another.
+alter table posts add column revision int not null default 0;
@@ -0,0 +1,4 @@
+-- Authors some of whose posts were not fanned out, because they had more than app.timeline.fan-out-max-followers
+-- followers when they posted or were followed. Their posts are read at request time from then on, even after
+-- they drop back under the threshold, otherwise those posts would be missing from their followers' timelines.
+alter table users add column timeline_pulled boolean not null default false;
@@ -0,0 +1,5 @@
+-- The chunk being written to an upload, see UploadServiceImpl.appendChunk. A chunk claims the session at its offset
+-- before it streams, so two requests at the same offset never write the file at once; claimed_until bounds a claim
+-- whose node went away.
+alter table upload_sessions add column claim varchar(36);
+alter table upload_sessions add column claimed_until datetime(6);
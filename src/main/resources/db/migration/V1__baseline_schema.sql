@@ -0,0 +1,45 @@
+-- Schema as previously generated by hibernate ddl-auto=update.
+-- Existing databases are baselined at this version and start from V2.
+
+create table users (
+    id int not null,
+    user_name varchar(50) not null,
+    email varchar(255),
+    password varchar(255),
+    about varchar(255),
+    primary key (id)
+);
+
+-- id generator used by User (GenerationType.AUTO)
+create table users_seq (
+    next_val bigint
+);
+insert into users_seq values (1);
+
+create table categories (
+    category_id int not null auto_increment,
+    title varchar(100) not null,
+    description varchar(255),
+    primary key (category_id)
+);
+
+create table posts (
+    post_id int not null auto_increment,
+    post_title varchar(100) not null,
+    description varchar(100),
+    image_name varchar(255),
+    added_date datetime(6),
+    category_id int,
+    user_id int,
+    primary key (post_id),
+    constraint fk_posts_category foreign key (category_id) references categories (category_id),
+    constraint fk_posts_user foreign key (user_id) references users (id)
+);
+
+create table comments (
+    id int not null auto_increment,
+    content varchar(255),
+    post_id int,
+    primary key (id),
+    constraint fk_comments_post foreign key (post_id) references posts (post_id)
+);
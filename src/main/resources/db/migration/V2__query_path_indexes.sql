@@ -0,0 +1,15 @@
+-- Indexes for the access paths used by the repositories.
+-- comments.post_id is covered by the index backing fk_comments_post.
+
+-- findByCategory, newest first
+create index idx_posts_category_added_date on posts (category_id, added_date desc);
+
+-- findByUser, newest first
+create index idx_posts_user_added_date on posts (user_id, added_date desc);
+
+-- getAllPosts sort orders (postId uses the primary key)
+create index idx_posts_added_date on posts (added_date desc);
+create index idx_posts_title on posts (post_title);
+
+-- user lookup by email
+create index idx_users_email on users (email);
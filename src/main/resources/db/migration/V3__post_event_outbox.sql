@@ -0,0 +1,15 @@
+-- Outbox for post change events, written in the same transaction as the post
+-- and deleted once the dispatcher has delivered them.
+create table post_events (
+    id bigint not null auto_increment,
+    type varchar(20) not null,
+    post_id int not null,
+    created_at datetime(6) not null,
+    attempts int not null,
+    next_attempt_at datetime(6),
+    last_error varchar(255),
+    primary key (id)
+);
+
+-- dispatcher poll, next_attempt_at is null for events that ran out of attempts
+create index idx_post_events_next_attempt on post_events (next_attempt_at);
@@ -0,0 +1,12 @@
+-- Journal of cache invalidations shared by all nodes. The id is the version:
+-- each node tails rows above the last id it applied and evicts its local entries.
+create table cache_invalidations (
+    id bigint not null auto_increment,
+    cache_name varchar(50) not null,
+    entity_id int,
+    created_at datetime(6) not null,
+    primary key (id)
+);
+
+-- retention purge
+create index idx_cache_invalidations_created_at on cache_invalidations (created_at);
@@ -0,0 +1,20 @@
+-- Deletes mark the row and hide it at once, ContentPurger removes it and its children later.
+alter table categories add column deleted_at datetime(6);
+alter table users add column deleted_at datetime(6);
+alter table posts add column deleted_at datetime(6);
+
+-- One row per deleted category, user or post. The counters record progress,
+-- completed_at stays null until the target row itself has been removed.
+create table purge_jobs (
+    id bigint not null auto_increment,
+    target_type varchar(20) not null,
+    target_id int not null,
+    posts_deleted bigint not null,
+    comments_deleted bigint not null,
+    created_at datetime(6) not null,
+    completed_at datetime(6),
+    primary key (id)
+);
+
+-- purger poll
+create index idx_purge_jobs_completed_at on purge_jobs (completed_at);
@@ -0,0 +1,13 @@
+-- Full post bodies live apart from posts, which keeps only a short excerpt in description.
+-- body is the UTF-8 text, deflated when compressed is set.
+create table post_bodies (
+    post_id int not null,
+    compressed boolean not null,
+    body longblob not null,
+    primary key (post_id),
+    constraint fk_post_bodies_post foreign key (post_id) references posts (post_id)
+);
+
+-- description was at most 100 characters, it is the body and the excerpt of existing posts
+insert into post_bodies (post_id, compressed, body)
+select post_id, false, description from posts where description is not null;
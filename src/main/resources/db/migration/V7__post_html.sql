@@ -0,0 +1,13 @@
+-- SHA-256 of the body text, null for bodies written before V7 (computed when read)
+alter table post_bodies add column content_hash varchar(64);
+
+-- Sanitized HTML rendered from a post's Markdown body, valid while content_hash matches post_bodies.content_hash.
+-- html is UTF-8, deflated when compressed is set.
+create table post_html (
+    post_id int not null,
+    content_hash varchar(64) not null,
+    compressed boolean not null,
+    html longblob not null,
+    primary key (post_id),
+    constraint fk_post_html_post foreign key (post_id) references posts (post_id)
+);
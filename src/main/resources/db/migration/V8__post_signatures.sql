@@ -0,0 +1,8 @@
+-- MinHash signature of each post's title and content (60 big-endian ints), see search.MinHash.
+-- Loaded by RelatedPostIndex on startup, posts written before V8 get theirs on the first load.
+create table post_signatures (
+    post_id int not null,
+    signature varbinary(240) not null,
+    primary key (post_id),
+    constraint fk_post_signatures_post foreign key (post_id) references posts (post_id)
+);
@@ -0,0 +1,26 @@
+-- Who follows whom. follower_count on users is kept with it and decides how an author's posts reach timelines.
+create table follows (
+    follower_id int not null,
+    followee_id int not null,
+    created_at datetime(6) not null,
+    primary key (follower_id, followee_id),
+    constraint fk_follows_follower foreign key (follower_id) references users (id),
+    constraint fk_follows_followee foreign key (followee_id) references users (id)
+);
+
+-- followers of an author, in id order for the fan-out
+create index idx_follows_followee on follows (followee_id, follower_id);
+
+alter table users add column follower_count int not null default 0;
+
+-- newest posts of the authors read at request time
+create index idx_posts_user_post on posts (user_id, post_id);
+
+-- Home timelines, newest post ids of the followed authors per user, filled in by TimelineFanOut and kept to
+-- app.timeline.max-entries. Derived data without foreign keys: deleted posts are skipped when read and age out.
+create table timeline_entries (
+    user_id int not null,
+    post_id int not null,
+    author_id int not null,
+    primary key (user_id, post_id)
+);
@@ -0,0 +1,113 @@
+package com.BlogApp.Security;
+
+import com.BlogApp.controller.AuthController;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.exception.UnauthorizedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The scheduled refresh and purge are pushed out of the way and called directly
+@SpringBootTest(properties = {"app.revocation.refresh-interval-ms=3600000", "app.revocation.purge-interval-ms=3600000"})
+class TokenRevocationTests {
+
+    @Autowired
+    private TokenRevocation tokenRevocation;
+
+    @Autowired
+    private JwtHelper jwtHelper;
+
+    @Autowired
+    private AuthController authController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final UserDetails admin = User.withUsername("admin").password("unused").roles("ADMIN").build();
+
+    @Test
+    void revokedTokensAreRefusedAndOthersPassTheFilter() {
+        tokenRevocation.refresh();
+        String token = jwtHelper.generateToken(admin);
+        String other = jwtHelper.generateToken(admin);
+        String jti = jwtHelper.getIdFromToken(token);
+        assertNotEquals(jti, jwtHelper.getIdFromToken(other));
+
+        tokenRevocation.revoke(jti, jwtHelper.getExpirationDateFromToken(token));
+        assertTrue(tokenRevocation.isRevoked(jti));
+        double lookups = count("blog.revocation.lookups");
+        double filtered = count("blog.revocation.filtered");
+        for (int i = 0; i < 100; i++) {
+            assertFalse(tokenRevocation.isRevoked(UUID.randomUUID().toString()));
+        }
+        // at a 1% false positive rate
+        assertTrue(count("blog.revocation.filtered") - filtered > 90);
+        assertTrue(count("blog.revocation.lookups") - lookups < 10);
+        assertFalse(tokenRevocation.isRevoked(null));
+    }
+
+    @Test
+    void revocationsOfOtherNodesAreLoadedOnRefresh() {
+        tokenRevocation.refresh();
+        String jti = UUID.randomUUID().toString();
+        // as if revoked on another node
+        jdbcTemplate.update("insert into revoked_tokens (jti, expires_at, revoked_at) values (?, ?, ?)", jti,
+                new Timestamp(System.currentTimeMillis() + 3_600_000), new Timestamp(System.currentTimeMillis()));
+
+        tokenRevocation.refresh();
+        double rejected = count("blog.revocation.rejected");
+        assertTrue(tokenRevocation.isRevoked(jti));
+        assertEquals(rejected + 1, count("blog.revocation.rejected"));
+    }
+
+    @Test
+    void revocationsOfExpiredTokensArePurged() {
+        String expired = UUID.randomUUID().toString();
+        String live = UUID.randomUUID().toString();
+        jdbcTemplate.update("insert into revoked_tokens (jti, expires_at, revoked_at) values (?, ?, ?), (?, ?, ?)",
+                expired, new Timestamp(System.currentTimeMillis() - 1000), new Timestamp(System.currentTimeMillis() - 5000),
+                live, new Timestamp(System.currentTimeMillis() + 3_600_000), new Timestamp(System.currentTimeMillis()));
+
+        tokenRevocation.purge();
+        assertEquals(List.of(live), jdbcTemplate.queryForList(
+                "select jti from revoked_tokens where jti in (?, ?)", String.class, expired, live));
+        assertTrue(tokenRevocation.isRevoked(live));
+    }
+
+    @Test
+    void logoutRefusesHeadersThatAreNotAValidBearerToken() {
+        String token = jwtHelper.generateToken(admin);
+        assertThrows(BadRequestException.class, () -> authController.logout(token));
+        assertThrows(BadRequestException.class, () -> authController.logout("Basic " + token));
+        assertThrows(UnauthorizedException.class, () -> authController.logout("Bearer "));
+        assertThrows(UnauthorizedException.class, () -> authController.logout("Bearer " + token + "x"));
+
+        // signed with the same secret, expired a minute ago
+        JwtHelper expiring = new JwtHelper();
+        ReflectionTestUtils.setField(expiring, "secret", ReflectionTestUtils.getField(jwtHelper, "secret"));
+        ReflectionTestUtils.setField(expiring, "jwtExpiration", -60L);
+        String expired = expiring.generateToken(admin);
+        assertThrows(UnauthorizedException.class, () -> authController.logout("Bearer " + expired));
+
+        authController.logout("Bearer " + token);
+        assertTrue(tokenRevocation.isRevoked(jwtHelper.getIdFromToken(token)));
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+}
@@ -0,0 +1,53 @@
+package com.BlogApp;
+
+import com.BlogApp.payloads.CategoryDto;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.UserDto;
+import com.BlogApp.services.CategoryService;
+import com.BlogApp.services.PostService;
+import com.BlogApp.services.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Users, categories and posts for tests, created through the services. Picked up by the component scan of every
+// context a test starts, a second node's too (node.getBean(TestContent.class)). Emails are unique per user, as the
+// test contexts share their database.
+@Component
+public class TestContent {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private PostService postService;
+
+    public UserDto user(String name) {
+        UserDto user = new UserDto();
+        user.setName(name);
+        user.setEmail(name.replace(" ", "") + System.nanoTime() + "@example.com");
+        user.setPassword("Secret@123");
+        user.setAbout("writes posts");
+        return this.userService.createUser(user);
+    }
+
+    public CategoryDto category(String title) {
+        CategoryDto category = new CategoryDto();
+        category.setCategoryTitle(title);
+        return this.categoryService.createCategory(category);
+    }
+
+    public PostDto post(Integer userId, Integer categoryId, String title, String content) {
+        PostDto post = new PostDto();
+        post.setTitle(title);
+        post.setContent(content);
+        return this.postService.createPost(post, userId, categoryId);
+    }
+
+    // By a new user, in a new category
+    public PostDto post(String title, String content) {
+        return this.post(this.user("post author").getId(), this.category("posts").getCategoryId(), title, content);
+    }
+}
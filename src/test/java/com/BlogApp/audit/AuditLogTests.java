@@ -0,0 +1,98 @@
+package com.BlogApp.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @TempDir
+    private Path dir;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changesAreWrittenAfterTheCommitWithTheirUser() throws Exception {
+        AuditLog auditLog = auditLog(1024, 1 << 20);
+        auditLog.start();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null, List.of()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        auditLog.record(AuditEvent.Action.POST_DELETED, "post/7", null);
+        assertEquals(0, count("blog.audit.recorded"));
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+        // a rolled back transaction never calls afterCommit
+        TransactionSynchronizationManager.initSynchronization();
+        auditLog.record(AuditEvent.Action.POST_DELETED, "post/8", null);
+        TransactionSynchronizationManager.clearSynchronization();
+        auditLog.access(AuditEvent.Action.TOKEN_REJECTED, "10.0.0.1", "expired token on GET /api/posts");
+        auditLog.stop();
+
+        List<String> lines = Files.readAllLines(dir.resolve("audit.log"));
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"action\":\"POST_DELETED\",\"actor\":\"admin\",\"target\":\"post/7\""), lines.get(0));
+        assertTrue(lines.get(0).startsWith("{\"time\":\"20"), lines.get(0));
+        assertTrue(lines.get(1).contains("\"actor\":\"10.0.0.1\",\"detail\":\"expired token on GET /api/posts\""), lines.get(1));
+        assertEquals(2, count("blog.audit.written"));
+    }
+
+    @Test
+    void eventsBeyondTheBufferAreDroppedAndCounted() throws Exception {
+        // not started, nothing drains the buffer
+        AuditLog auditLog = auditLog(4, 1 << 20);
+        for (int i = 0; i < 10; i++) {
+            auditLog.access(AuditEvent.Action.LOGIN_FAILED, "guest", null);
+        }
+        assertEquals(4, count("blog.audit.recorded"));
+        assertEquals(6, count("blog.audit.dropped"));
+        assertEquals(4, registry.get("blog.audit.pending").gauge().value());
+    }
+
+    @Test
+    void theFileIsRolledAtItsMaximumSize() throws Exception {
+        AuditLog auditLog = auditLog(1024, 1000);
+        auditLog.start();
+        for (int i = 0; i < 100; i++) {
+            auditLog.access(AuditEvent.Action.LOGIN, "user" + i, null);
+        }
+        auditLog.stop();
+
+        assertEquals(100, count("blog.audit.written"));
+        assertTrue(Files.exists(dir.resolve("audit.log.1")));
+        assertTrue(Files.exists(dir.resolve("audit.log.3")));
+        assertFalse(Files.exists(dir.resolve("audit.log.4")));
+        assertTrue(Files.size(dir.resolve("audit.log.1")) < 1100);
+        assertTrue(Files.readAllLines(dir.resolve("audit.log")).get(Files.readAllLines(dir.resolve("audit.log")).size() - 1)
+                .contains("\"actor\":\"user99\""));
+    }
+
+    private AuditLog auditLog(int capacity, long maxFileSize) {
+        return new AuditLog(Jackson2ObjectMapperBuilder.json().build(), true, dir.resolve("audit.log").toString(),
+                maxFileSize, 3, capacity, 16, 10, registry);
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+}
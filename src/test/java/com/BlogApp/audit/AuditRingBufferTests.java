@@ -0,0 +1,78 @@
+package com.BlogApp.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTests {
+
+    @Test
+    void aFullBufferRefusesInsteadOfWaiting() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(event("p", i)));
+        }
+        assertFalse(buffer.offer(event("p", 4)));
+        assertEquals(4, buffer.size());
+
+        List<AuditEvent> drained = new ArrayList<>();
+        assertEquals(3, buffer.drain(drained, 3));
+        // the freed slots are reused around the end of the array
+        for (int i = 5; i < 8; i++) {
+            assertTrue(buffer.offer(event("p", i)));
+        }
+        assertFalse(buffer.offer(event("p", 8)));
+        assertEquals(4, buffer.drain(drained, 10));
+        assertEquals(List.of("0", "1", "2", "3", "5", "6", "7"), drained.stream().map(AuditEvent::getDetail).toList());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void concurrentProducersLoseNothingAndKeepTheirOrder() throws Exception {
+        AuditRingBuffer buffer = new AuditRingBuffer(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        List<Future<?>> done = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String actor = "producer-" + p;
+            done.add(pool.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(event(actor, i))) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+
+        int[] next = new int[producers];
+        List<AuditEvent> batch = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 30_000;
+        int received = 0;
+        while (received < producers * perProducer && System.currentTimeMillis() < deadline) {
+            batch.clear();
+            received += buffer.drain(batch, 256);
+            for (AuditEvent event : batch) {
+                int p = Integer.parseInt(event.getActor().substring("producer-".length()));
+                assertEquals(next[p]++, Integer.parseInt(event.getDetail()));
+            }
+        }
+        for (Future<?> producer : done) {
+            producer.get(5, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertEquals(producers * perProducer, received);
+    }
+
+    private static AuditEvent event(String actor, int i) {
+        return new AuditEvent(Instant.now(), AuditEvent.Action.POST_UPDATED, actor, "post/1", String.valueOf(i));
+    }
+}
@@ -0,0 +1,159 @@
+package com.BlogApp.benchmarks;
+
+import com.BlogApp.entities.PostBody;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Listing throughput and storage before and after moving post bodies to post_bodies.
+// WIDE is the alternative of widening posts.description to hold the whole body,
+// SPLIT is the V6 layout: a 100 character excerpt on posts and the deflated body in post_bodies.
+// Both run on file-backed H2 in MySQL mode with synthetic 2-16 KB articles. The page cache is cacheMb, smaller than
+// the WIDE table like a buffer pool is smaller than a production posts table, so listing reads pages as MySQL would
+// on a buffer pool miss. With everything in memory both layouts list at the same speed, rows are only walked.
+// Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+//           -Dexec.args="-cp %classpath org.openjdk.jmh.Main PostStorageBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class PostStorageBenchmark {
+
+    private static final String[] WORDS = {
+            "the", "post", "explains", "how", "a", "query", "reads", "rows", "from", "an", "index", "and", "why",
+            "caching", "helps", "latency", "when", "traffic", "grows", "spring", "boot", "service", "database",
+            "request", "response", "memory", "thread", "pool", "connection", "transaction", "commit", "replica"};
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"WIDE", "SPLIT"})
+    private String layout;
+
+    @Param({"20000"})
+    private int posts;
+
+    @Param({"16"})
+    private int cacheMb;
+
+    private Connection connection;
+    private PreparedStatement listPage;
+    private PreparedStatement readBody;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException, IOException {
+        Path file = Path.of("target", "post_storage_" + layout);
+        Files.deleteIfExists(Path.of(file + ".mv.db"));
+        connection = DriverManager.getConnection("jdbc:h2:file:" + file.toAbsolutePath() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CACHE_SIZE="
+                + cacheMb * 1024, "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            if (layout.equals("WIDE")) {
+                ddl.execute("create table posts (post_id int primary key, post_title varchar(100) not null, "
+                        + "description varchar(65535), image_name varchar(255), added_date datetime(6))");
+            } else {
+                ddl.execute("create table posts (post_id int primary key, post_title varchar(100) not null, "
+                        + "description varchar(100), image_name varchar(255), added_date datetime(6))");
+                ddl.execute("create table post_bodies (post_id int primary key, compressed boolean not null, body longblob not null)");
+            }
+        }
+        Random text = new Random(42);
+        try (PreparedStatement post = connection.prepareStatement("insert into posts values (?, ?, ?, 'default.png', now())");
+             PreparedStatement body = layout.equals("WIDE") ? null : connection.prepareStatement("insert into post_bodies values (?, ?, ?)")) {
+            for (int id = 1; id <= posts; id++) {
+                String article = article(text);
+                post.setInt(1, id);
+                post.setString(2, "post " + id);
+                if (layout.equals("WIDE")) {
+                    post.setString(3, article);
+                } else {
+                    post.setString(3, article.substring(0, 99) + "…");
+                    PostBody stored = new PostBody(id);
+                    stored.setText(article, 1024);
+                    body.setInt(1, id);
+                    body.setBoolean(2, stored.isCompressed());
+                    body.setBytes(3, stored.getBody());
+                    body.executeUpdate();
+                }
+                post.executeUpdate();
+            }
+        }
+        listPage = connection.prepareStatement("select post_id, post_title, description, image_name, added_date "
+                + "from posts order by post_id desc limit " + PAGE_SIZE + " offset ?");
+        readBody = layout.equals("WIDE")
+                ? connection.prepareStatement("select description from posts where post_id = ?")
+                : connection.prepareStatement("select compressed, body from post_bodies where post_id = ?");
+        System.out.printf("%n%s stores %.1f MB in posts and %.1f MB in post_bodies for %d posts%n", layout,
+                bytes("posts") / 1e6, layout.equals("WIDE") ? 0.0 : bytes("post_bodies") / 1e6, posts);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    // One page of the post listing, as getAllPosts reads it
+    @Benchmark
+    public void listPage(Blackhole blackhole) throws SQLException {
+        listPage.setInt(1, random.nextInt(posts - PAGE_SIZE));
+        try (ResultSet rows = listPage.executeQuery()) {
+            while (rows.next()) {
+                blackhole.consume(rows.getInt(1));
+                blackhole.consume(rows.getString(2));
+                blackhole.consume(rows.getString(3));
+                blackhole.consume(rows.getString(4));
+                blackhole.consume(rows.getTimestamp(5));
+            }
+        }
+    }
+
+    // The full body of one post, as getPostById reads it
+    @Benchmark
+    public String readBody() throws SQLException {
+        readBody.setInt(1, 1 + random.nextInt(posts));
+        try (ResultSet row = readBody.executeQuery()) {
+            row.next();
+            if (layout.equals("WIDE")) {
+                return row.getString(1);
+            }
+            PostBody body = new PostBody();
+            body.setCompressed(row.getBoolean(1));
+            body.setBody(row.getBytes(2));
+            return body.getText();
+        }
+    }
+
+    // Stored size of the columns that grow with the body
+    private long bytes(String table) throws SQLException {
+        String column = table.equals("posts") ? "description" : "body";
+        try (Statement query = connection.createStatement();
+             ResultSet sum = query.executeQuery("select sum(octet_length(" + column + ")) from " + table)) {
+            sum.next();
+            return sum.getLong(1);
+        }
+    }
+
+    private static String article(Random random) {
+        int target = 2048 + random.nextInt(14 * 1024);
+        StringBuilder article = new StringBuilder(target + 64);
+        while (article.length() < target) {
+            int words = 8 + random.nextInt(12);
+            for (int w = 0; w < words; w++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                article.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+                article.append(w == words - 1 ? ". " : " ");
+            }
+            if (random.nextInt(5) == 0) {
+                article.append("\n\n");
+            }
+        }
+        return article.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package com.BlogApp.benchmarks;
+
+import com.BlogApp.search.LshIndex;
+import com.BlogApp.search.MinHash;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+// Quality and latency of RelatedPostIndex's LshIndex on a synthetic corpus.
+// Posts belong to one of 400 topics: three quarters of their words come from the topic's 150 word vocabulary,
+// the rest from a 50k word vocabulary, and one post in ten is an edited copy of an earlier one.
+// Like RelatedPostIndex, a related query takes 30 candidates from the index and ranks them by exact Jaccard similarity.
+// The setup prints, over a sample of posts, the precision of the top 10 (the share whose exact Jaccard similarity
+// is at least 0.2), its recall of the exact top 10, and its recall of the posts at least 0.5 similar, for the
+// estimate alone and with the ranking. The benchmarks time a related query with the shingles in memory, where
+// RelatedPostIndex reads them by primary key, an update, and the full scan it replaces.
+// Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+//           -Dexec.args="-cp %classpath org.openjdk.jmh.Main RelatedPostsBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RelatedPostsBenchmark {
+
+    private static final int TOPICS = 400;
+    private static final int TOPIC_WORDS = 150;
+    private static final int VOCABULARY = 50_000;
+    private static final int LIMIT = 10;
+    private static final int CANDIDATES = 30;
+    private static final double MIN_SIMILARITY = 0.2;
+    private static final double STRONG_SIMILARITY = 0.5;
+    private static final int SAMPLE = 200;
+
+    @Param({"20000"})
+    private int posts;
+
+    private String[] texts;
+    private int[][] signatures;
+    private int[][] shingles;
+    private LshIndex index;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void load() {
+        Random corpus = new Random(42);
+        int[][] topics = new int[TOPICS][TOPIC_WORDS];
+        for (int[] topic : topics) {
+            for (int w = 0; w < TOPIC_WORDS; w++) {
+                topic[w] = corpus.nextInt(VOCABULARY);
+            }
+        }
+        this.texts = new String[this.posts];
+        this.signatures = new int[this.posts][];
+        this.shingles = new int[this.posts][];
+        this.index = new LshIndex(this.posts);
+        for (int id = 0; id < this.posts; id++) {
+            this.texts[id] = id > 0 && corpus.nextInt(10) == 0
+                    ? edit(this.texts[corpus.nextInt(id)], corpus)
+                    : text(topics[corpus.nextInt(TOPICS)], corpus);
+            this.signatures[id] = MinHash.signature(this.texts[id]);
+            this.shingles[id] = MinHash.shingles(this.texts[id]);
+            this.index.put(id, this.signatures[id]);
+        }
+        this.printQuality("estimated", query -> this.index.related(query, LIMIT, MIN_SIMILARITY));
+        this.printQuality("ranked", this::ranked);
+    }
+
+    @Benchmark
+    public List<LshIndex.Match> related() {
+        return this.ranked(this.random.nextInt(this.posts));
+    }
+
+    // Signature of an edited post and its move in the index
+    @Benchmark
+    public void update() {
+        int id = this.random.nextInt(this.posts);
+        this.index.put(id, MinHash.signature(this.texts[id]));
+    }
+
+    // Estimated similarity against every post, what the index saves a request from
+    @Benchmark
+    public void fullScan(Blackhole blackhole) {
+        int[] query = this.signatures[this.random.nextInt(this.posts)];
+        for (int[] signature : this.signatures) {
+            blackhole.consume(MinHash.similarity(query, 0, signature, 0));
+        }
+    }
+
+    // What RelatedPostIndex.related does
+    private List<LshIndex.Match> ranked(int query) {
+        Map<LshIndex.Match, Double> similarities = new HashMap<>();
+        for (LshIndex.Match candidate : this.index.related(query, CANDIDATES, MIN_SIMILARITY / 2)) {
+            double similarity = MinHash.jaccard(this.shingles[query], this.shingles[candidate.getPostId()]);
+            if (similarity >= MIN_SIMILARITY) {
+                similarities.put(candidate, similarity);
+            }
+        }
+        List<LshIndex.Match> matches = new ArrayList<>(similarities.keySet());
+        matches.sort(Comparator.comparingDouble(similarities::get).reversed());
+        return matches.size() > LIMIT ? matches.subList(0, LIMIT) : matches;
+    }
+
+    private void printQuality(String name, IntFunction<List<LshIndex.Match>> search) {
+        int[][] shingles = this.shingles;
+        Random sample = new Random(3);
+        int returned = 0;
+        int related = 0;
+        int relevant = 0;
+        int found = 0;
+        int strong = 0;
+        int strongFound = 0;
+        for (int q = 0; q < SAMPLE; q++) {
+            int query = sample.nextInt(this.posts);
+            Set<Integer> exact = exactTop(shingles, query);
+            List<LshIndex.Match> matches = search.apply(query);
+            returned += matches.size();
+            related += (int) matches.stream()
+                    .filter(match -> MinHash.jaccard(shingles[query], shingles[match.getPostId()]) >= MIN_SIMILARITY).count();
+            relevant += exact.size();
+            found += (int) matches.stream().filter(match -> exact.contains(match.getPostId())).count();
+            Set<Integer> close = new HashSet<>(exact);
+            close.removeIf(id -> MinHash.jaccard(shingles[query], shingles[id]) < STRONG_SIMILARITY);
+            strong += close.size();
+            strongFound += (int) matches.stream().filter(match -> close.contains(match.getPostId())).count();
+        }
+        System.out.printf("%n%s: precision %.3f, recall %.3f of the exact top %d, recall %.3f of posts %.1f similar, over %d posts"
+                        + " (%d returned, %d related, %d of %d, %d of %d)%n", name,
+                returned == 0 ? 1.0 : (double) related / returned, relevant == 0 ? 1.0 : (double) found / relevant, LIMIT,
+                strong == 0 ? 1.0 : (double) strongFound / strong, STRONG_SIMILARITY, SAMPLE,
+                returned, related, found, relevant, strongFound, strong);
+    }
+
+    // Exact top LIMIT by Jaccard similarity of the word sets, at least MIN_SIMILARITY
+    private Set<Integer> exactTop(int[][] shingles, int query) {
+        List<double[]> scored = new ArrayList<>();
+        for (int id = 0; id < this.posts; id++) {
+            if (id != query) {
+                double jaccard = MinHash.jaccard(shingles[query], shingles[id]);
+                if (jaccard >= MIN_SIMILARITY) {
+                    scored.add(new double[]{jaccard, id});
+                }
+            }
+        }
+        scored.sort((a, b) -> Double.compare(b[0], a[0]));
+        Set<Integer> top = new HashSet<>();
+        for (int i = 0; i < Math.min(LIMIT, scored.size()); i++) {
+            top.add((int) scored.get(i)[1]);
+        }
+        return top;
+    }
+
+    private static String text(int[] topic, Random random) {
+        int words = 150 + random.nextInt(250);
+        StringBuilder text = new StringBuilder(words * 8);
+        for (int w = 0; w < words; w++) {
+            int word = random.nextInt(4) == 0 ? random.nextInt(VOCABULARY) : topic[random.nextInt(TOPIC_WORDS)];
+            text.append("word").append(Integer.toString(word, 36)).append(' ');
+        }
+        return text.toString();
+    }
+
+    // One word in ten replaced
+    private static String edit(String original, Random random) {
+        String[] words = original.split(" ");
+        for (int w = 0; w < words.length; w++) {
+            if (random.nextInt(10) == 0) {
+                words[w] = "word" + Integer.toString(random.nextInt(VOCABULARY), 36);
+            }
+        }
+        return String.join(" ", words);
+    }
+}
@@ -0,0 +1,228 @@
+package com.BlogApp.benchmarks;
+
+import com.BlogApp.search.PostBitmap;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Multi-tag queries answered by PostBitmaps the way TagIndex does, and by the equivalent SQL joins over post_tags on
+// in-memory H2 in MySQL mode with the V10 indexes. Both return a page of the newest post ids and the total number of
+// matches, as /api/posts/tagged does; loading the posts of the page is the same for both and left out.
+// Posts get one to four tags drawn from a Zipf(1) popularity distribution over the tags, and a uniform category.
+// Every query uses tags drawn from the 50 most popular, so matches run from a few posts to thousands.
+// The setup prints the rows in post_tags and the heap held by the bitmaps.
+// Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+//           -Dexec.args="-cp %classpath org.openjdk.jmh.Main TagQueryBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class TagQueryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int QUERY_TAGS = 50;
+
+    @Param({"BITMAP", "SQL"})
+    private String engine;
+
+    // ALL: tags A and B, ALL_IN_CATEGORY: tags A and B in category C, ANY_IN_CATEGORY: tag A, B or D in category C
+    @Param({"ALL", "ALL_IN_CATEGORY", "ANY_IN_CATEGORY"})
+    private String query;
+
+    @Param({"200000"})
+    private int posts;
+
+    @Param({"1000"})
+    private int tags;
+
+    @Param({"20"})
+    private int categories;
+
+    private Connection connection;
+    private PreparedStatement all;
+    private PreparedStatement allCount;
+    private PreparedStatement allInCategory;
+    private PreparedStatement allInCategoryCount;
+    private PreparedStatement anyInCategory;
+    private PreparedStatement anyInCategoryCount;
+    private Map<Integer, PostBitmap> byTag;
+    private Map<Integer, PostBitmap> byCategory;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException {
+        // tag rank r has weight 1 / r, tag ids are the ranks
+        double[] cumulative = new double[tags];
+        double total = 0;
+        for (int r = 0; r < tags; r++) {
+            total += 1.0 / (r + 1);
+            cumulative[r] = total;
+        }
+        Random data = new Random(42);
+        byTag = new HashMap<>();
+        byCategory = new HashMap<>();
+        if (engine.equals("SQL")) {
+            connection = DriverManager.getConnection("jdbc:h2:mem:tags;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+            try (Statement ddl = connection.createStatement()) {
+                ddl.execute("create table posts (post_id int primary key, category_id int not null)");
+                ddl.execute("create index idx_posts_category on posts (category_id)");
+                ddl.execute("create table post_tags (post_id int not null, tag_id int not null, primary key (post_id, tag_id))");
+                ddl.execute("create index idx_post_tags_tag on post_tags (tag_id, post_id)");
+            }
+            connection.setAutoCommit(false);
+        }
+        long rows = 0;
+        try (PreparedStatement insertPost = connection == null ? null : connection.prepareStatement("insert into posts values (?, ?)");
+             PreparedStatement insertTag = connection == null ? null : connection.prepareStatement("insert into post_tags values (?, ?)")) {
+            for (int postId = 1; postId <= posts; postId++) {
+                int categoryId = 1 + data.nextInt(categories);
+                Set<Integer> postTags = new HashSet<>();
+                int count = 1 + data.nextInt(4);
+                while (postTags.size() < count) {
+                    int rank = Arrays.binarySearch(cumulative, data.nextDouble() * total);
+                    postTags.add(1 + (rank < 0 ? Math.min(-rank - 1, tags - 1) : rank));
+                }
+                rows += postTags.size();
+                if (connection == null) {
+                    byCategory.computeIfAbsent(categoryId, id -> new PostBitmap()).add(postId);
+                    for (Integer tagId : postTags) {
+                        byTag.computeIfAbsent(tagId, id -> new PostBitmap()).add(postId);
+                    }
+                    continue;
+                }
+                insertPost.setInt(1, postId);
+                insertPost.setInt(2, categoryId);
+                insertPost.addBatch();
+                for (Integer tagId : postTags) {
+                    insertTag.setInt(1, postId);
+                    insertTag.setInt(2, tagId);
+                    insertTag.addBatch();
+                }
+                if (postId % 5000 == 0) {
+                    insertPost.executeBatch();
+                    insertTag.executeBatch();
+                    connection.commit();
+                }
+            }
+            if (connection != null) {
+                insertPost.executeBatch();
+                insertTag.executeBatch();
+                connection.commit();
+            }
+        }
+        if (connection == null) {
+            long bytes = 0;
+            for (PostBitmap bitmap : byTag.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            for (PostBitmap bitmap : byCategory.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            System.out.printf("%n%d post_tags rows, bitmaps hold %d KB (%.1f bits per row)%n", rows, bytes / 1024,
+                    8.0 * bytes / rows);
+        } else {
+            this.prepare();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    // The newest page of post ids followed by the total
+    @Benchmark
+    public int[] tagged() throws SQLException {
+        int a = 1 + random.nextInt(QUERY_TAGS);
+        int b = 1 + random.nextInt(QUERY_TAGS);
+        int d = 1 + random.nextInt(QUERY_TAGS);
+        int categoryId = 1 + random.nextInt(categories);
+        if (engine.equals("BITMAP")) {
+            List<PostBitmap> required = new ArrayList<>();
+            switch (query) {
+                case "ALL" -> {
+                    required.add(byTag.get(a));
+                    required.add(byTag.get(b));
+                }
+                case "ALL_IN_CATEGORY" -> {
+                    required.add(byTag.get(a));
+                    required.add(byTag.get(b));
+                    required.add(byCategory.get(categoryId));
+                }
+                default -> {
+                    required.add(PostBitmap.or(PostBitmap.or(byTag.get(a), byTag.get(b)), byTag.get(d)));
+                    required.add(byCategory.get(categoryId));
+                }
+            }
+            // what TagIndex.query does
+            required.sort(Comparator.comparingInt(PostBitmap::cardinality));
+            PostBitmap result = required.get(0);
+            for (int i = 1; i < required.size(); i++) {
+                result = PostBitmap.and(result, required.get(i));
+            }
+            return page(result.descending(Integer.MAX_VALUE, PAGE_SIZE), result.cardinality());
+        }
+        return switch (query) {
+            case "ALL" -> page(ids(all, b, a), count(allCount, b, a));
+            case "ALL_IN_CATEGORY" -> page(ids(allInCategory, b, categoryId, a), count(allInCategoryCount, b, categoryId, a));
+            default -> page(ids(anyInCategory, categoryId, a, b, d), count(anyInCategoryCount, categoryId, a, b, d));
+        };
+    }
+
+    // One join per required tag, the page and its total as two statements
+    private void prepare() throws SQLException {
+        String allJoin = "from post_tags a join post_tags b on b.post_id = a.post_id and b.tag_id = ? where a.tag_id = ?";
+        all = connection.prepareStatement("select a.post_id " + allJoin + " order by a.post_id desc limit " + PAGE_SIZE);
+        allCount = connection.prepareStatement("select count(*) " + allJoin);
+        String inCategory = "from post_tags a join post_tags b on b.post_id = a.post_id and b.tag_id = ? "
+                + "join posts p on p.post_id = a.post_id and p.category_id = ? where a.tag_id = ?";
+        allInCategory = connection.prepareStatement("select a.post_id " + inCategory + " order by a.post_id desc limit " + PAGE_SIZE);
+        allInCategoryCount = connection.prepareStatement("select count(*) " + inCategory);
+        String any = "from posts p where p.category_id = ? and exists (select 1 from post_tags t "
+                + "where t.post_id = p.post_id and t.tag_id in (?, ?, ?))";
+        anyInCategory = connection.prepareStatement("select p.post_id " + any + " order by p.post_id desc limit " + PAGE_SIZE);
+        anyInCategoryCount = connection.prepareStatement("select count(*) " + any);
+    }
+
+    private static List<Integer> ids(PreparedStatement statement, int... values) throws SQLException {
+        bind(statement, values);
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private static int count(PreparedStatement statement, int... values) throws SQLException {
+        bind(statement, values);
+        try (ResultSet rows = statement.executeQuery()) {
+            rows.next();
+            return rows.getInt(1);
+        }
+    }
+
+    // values in the order of the placeholders
+    private static void bind(PreparedStatement statement, int... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setInt(i + 1, values[i]);
+        }
+    }
+
+    private static int[] page(List<Integer> ids, int total) {
+        return page(ids.stream().mapToInt(Integer::intValue).toArray(), total);
+    }
+
+    private static int[] page(int[] ids, int total) {
+        int[] page = Arrays.copyOf(ids, ids.length + 1);
+        page[ids.length] = total;
+        return page;
+    }
+}
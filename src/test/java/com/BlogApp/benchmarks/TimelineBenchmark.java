@@ -0,0 +1,264 @@
+package com.BlogApp.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Home timeline reads and post writes with the three ways of building a timeline, on in-memory H2 in MySQL mode
+// with the V9 tables. PULL reads the newest posts of every followed author per request (no timeline storage),
+// PUSH fans every post out to timeline_entries, HYBRID is what TimelineFanOut does: fan-out for authors with at most
+// fanOutMaxFollowers followers, a read-time merge for the others.
+// Users follow authors drawn from a Zipf(1) popularity distribution, so a few authors are followed by nearly everyone
+// and most by a handful; posts are written by uniformly chosen authors. The setup prints the follower distribution and
+// the rows written per post (the post plus its timeline entries) over the initial posts.
+// Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+//           -Dexec.args="-cp %classpath org.openjdk.jmh.Main TimelineBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class TimelineBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_ENTRIES = 200;
+    private static final int FAN_OUT_BATCH_SIZE = 1000;
+
+    @Param({"PULL", "PUSH", "HYBRID"})
+    private String strategy;
+
+    @Param({"10000"})
+    private int users;
+
+    // follows per user, on average
+    @Param({"50"})
+    private int follows;
+
+    @Param({"50000"})
+    private int posts;
+
+    @Param({"1000"})
+    private int fanOutMaxFollowers;
+
+    private Connection connection;
+    private PreparedStatement insertPost;
+    private PreparedStatement followersAfter;
+    private PreparedStatement fanOut;
+    private PreparedStatement readStored;
+    private PreparedStatement followees;
+    private PreparedStatement pulledFollowees;
+    private int[] counts;
+    private int nextPostId = 1;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:timeline_" + strategy + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create table users (id int primary key, follower_count int not null default 0)");
+            // idx_posts_user_post from V9, newest posts per author
+            ddl.execute("create table posts (post_id int primary key, user_id int not null, added_date datetime(6))");
+            ddl.execute("create index idx_posts_user_post on posts (user_id, post_id)");
+            ddl.execute("create table follows (follower_id int not null, followee_id int not null, "
+                    + "primary key (follower_id, followee_id))");
+            ddl.execute("create index idx_follows_followee on follows (followee_id, follower_id)");
+            ddl.execute("create table timeline_entries (user_id int not null, post_id int not null, author_id int not null, "
+                    + "primary key (user_id, post_id))");
+        }
+        connection.setAutoCommit(false);
+        this.loadGraph();
+        this.prepare();
+
+        long[] written = new long[posts];
+        for (int i = 0; i < posts; i++) {
+            written[i] = this.write();
+            if ((i + 1) % 5000 == 0) {
+                this.trimAll();
+            }
+        }
+        this.trimAll();
+        Arrays.sort(written);
+        System.out.printf("%n%s: rows written per post mean %.1f, p50 %d, p99 %d, max %d over %d posts%n", strategy,
+                Arrays.stream(written).average().orElse(0), written[posts / 2], written[posts * 99 / 100],
+                written[posts - 1], posts);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    // First page of a random user's timeline, post ids only: loading the posts is the same for all three
+    @Benchmark
+    public List<Integer> read() throws SQLException {
+        int userId = 1 + random.nextInt(users);
+        return switch (strategy) {
+            case "PULL" -> {
+                followees.setInt(1, userId);
+                yield postsOf(ids(followees), Integer.MAX_VALUE);
+            }
+            case "PUSH" -> ids(readStored, userId, Integer.MAX_VALUE);
+            default -> {
+                TreeSet<Integer> merged = new TreeSet<>(Comparator.reverseOrder());
+                merged.addAll(ids(readStored, userId, Integer.MAX_VALUE));
+                pulledFollowees.setInt(1, userId);
+                pulledFollowees.setInt(2, fanOutMaxFollowers);
+                merged.addAll(postsOf(ids(pulledFollowees), Integer.MAX_VALUE));
+                yield merged.stream().limit(PAGE_SIZE).toList();
+            }
+        };
+    }
+
+    // A post by a random author with its fan-out, returns the rows written
+    @Benchmark
+    public long write() throws SQLException {
+        int authorId = 1 + random.nextInt(users);
+        int postId = nextPostId++;
+        insertPost.setInt(1, postId);
+        insertPost.setInt(2, authorId);
+        insertPost.executeUpdate();
+        long rows = 1;
+        if (!strategy.equals("PULL") && (strategy.equals("PUSH") || counts[authorId] <= fanOutMaxFollowers)) {
+            int afterId = 0;
+            List<Integer> followers;
+            do {
+                followersAfter.setInt(1, authorId);
+                followersAfter.setInt(2, afterId);
+                followers = ids(followersAfter);
+                if (followers.isEmpty()) {
+                    break;
+                }
+                afterId = followers.get(followers.size() - 1);
+                fanOut.setInt(1, postId);
+                fanOut.setInt(2, authorId);
+                fanOut.setInt(3, authorId);
+                fanOut.setInt(4, followers.get(0));
+                fanOut.setInt(5, afterId);
+                rows += fanOut.executeUpdate();
+            } while (followers.size() == FAN_OUT_BATCH_SIZE);
+        }
+        connection.commit();
+        return rows;
+    }
+
+    private void loadGraph() throws SQLException {
+        // popularity rank r has weight 1 / r, ranks are shuffled over the user ids
+        double[] cumulative = new double[users];
+        double total = 0;
+        for (int r = 0; r < users; r++) {
+            total += 1.0 / (r + 1);
+            cumulative[r] = total;
+        }
+        List<Integer> byRank = new ArrayList<>();
+        for (int id = 1; id <= users; id++) {
+            byRank.add(id);
+        }
+        Random graph = new Random(42);
+        Collections.shuffle(byRank, graph);
+
+        counts = new int[users + 1];
+        try (PreparedStatement insert = connection.prepareStatement("insert into follows values (?, ?)")) {
+            for (int follower = 1; follower <= users; follower++) {
+                Set<Integer> followees = new HashSet<>();
+                int target = 1 + graph.nextInt(2 * follows - 1);
+                while (followees.size() < target) {
+                    int rank = Arrays.binarySearch(cumulative, graph.nextDouble() * total);
+                    int followee = byRank.get(rank < 0 ? Math.min(-rank - 1, users - 1) : rank);
+                    if (followee != follower && followees.add(followee)) {
+                        counts[followee]++;
+                        insert.setInt(1, follower);
+                        insert.setInt(2, followee);
+                        insert.addBatch();
+                    }
+                }
+                if (follower % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        try (PreparedStatement insert = connection.prepareStatement("insert into users values (?, ?)")) {
+            for (int id = 1; id <= users; id++) {
+                insert.setInt(1, id);
+                insert.setInt(2, counts[id]);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+
+        int[] sorted = Arrays.copyOfRange(counts, 1, users + 1);
+        Arrays.sort(sorted);
+        long pulled = Arrays.stream(sorted).filter(count -> count > fanOutMaxFollowers).count();
+        System.out.printf("%nfollowers per user: median %d, p99 %d, max %d; %d authors over %d followers%n",
+                sorted[users / 2], sorted[users * 99 / 100], sorted[users - 1], pulled, fanOutMaxFollowers);
+    }
+
+    // The statements of TimelineEntryRepo, FollowRepo and PostRepo
+    private void prepare() throws SQLException {
+        insertPost = connection.prepareStatement("insert into posts values (?, ?, now())");
+        followersAfter = connection.prepareStatement("select follower_id from follows where followee_id = ? "
+                + "and follower_id > ? order by follower_id limit " + FAN_OUT_BATCH_SIZE);
+        fanOut = connection.prepareStatement("insert ignore into timeline_entries (user_id, post_id, author_id) "
+                + "select follower_id, ?, ? from follows where followee_id = ? and follower_id between ? and ?");
+        readStored = connection.prepareStatement("select post_id from timeline_entries where user_id = ? and post_id < ? "
+                + "order by post_id desc limit " + PAGE_SIZE);
+        followees = connection.prepareStatement("select followee_id from follows where follower_id = ?");
+        pulledFollowees = connection.prepareStatement("select f.followee_id from follows f join users u "
+                + "on u.id = f.followee_id where f.follower_id = ? and u.follower_count > ?");
+    }
+
+    // What the scheduled trim does for every timeline written to
+    private void trimAll() throws SQLException {
+        try (PreparedStatement trimPoint = connection.prepareStatement(
+                "select post_id from timeline_entries where user_id = ? order by post_id desc limit 1 offset " + MAX_ENTRIES);
+             PreparedStatement trim = connection.prepareStatement(
+                     "delete from timeline_entries where user_id = ? and post_id <= ?")) {
+            for (int userId = 1; userId <= users; userId++) {
+                trimPoint.setInt(1, userId);
+                List<Integer> point = ids(trimPoint);
+                if (!point.isEmpty()) {
+                    trim.setInt(1, userId);
+                    trim.setInt(2, point.get(0));
+                    trim.executeUpdate();
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    // Newest posts of the authors, the in list expanded like Hibernate does
+    private List<Integer> postsOf(List<Integer> authorIds, int before) throws SQLException {
+        if (authorIds.isEmpty()) {
+            return List.of();
+        }
+        try (PreparedStatement query = connection.prepareStatement("select post_id from posts where user_id in ("
+                + String.join(", ", Collections.nCopies(authorIds.size(), "?")) + ") and post_id < ? "
+                + "order by post_id desc limit " + PAGE_SIZE)) {
+            for (int i = 0; i < authorIds.size(); i++) {
+                query.setInt(i + 1, authorIds.get(i));
+            }
+            query.setInt(authorIds.size() + 1, before);
+            return ids(query);
+        }
+    }
+
+    private static List<Integer> ids(PreparedStatement query, int userId, int before) throws SQLException {
+        query.setInt(1, userId);
+        query.setInt(2, before);
+        return ids(query);
+    }
+
+    private static List<Integer> ids(PreparedStatement query) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getInt(1));
+            }
+        }
+        return ids;
+    }
+}
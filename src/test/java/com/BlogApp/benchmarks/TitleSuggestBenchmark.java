@@ -0,0 +1,82 @@
+package com.BlogApp.benchmarks;
+
+import com.BlogApp.search.TitleTrie;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Completion latency of TitleTrie, and the heap it retains, for synthetic titles.
+// Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+//           -Dexec.args="-cp %classpath org.openjdk.jmh.Main TitleSuggestBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class TitleSuggestBenchmark {
+
+    private static final String[] WORDS = {
+            "spring", "boot", "java", "records", "streams", "jpa", "hibernate", "caching", "security", "jwt",
+            "mysql", "index", "query", "tuning", "virtual", "threads", "docker", "kubernetes", "testing", "junit",
+            "rest", "api", "design", "patterns", "performance", "memory", "garbage", "collector", "latency", "scaling"};
+
+    @Param({"1000000"})
+    private int titles;
+
+    private TitleTrie trie;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(42);
+        long before = usedHeap();
+        trie = new TitleTrie(10);
+        String[] generated = new String[titles];
+        for (int i = 0; i < titles; i++) {
+            generated[i] = title(random, i);
+        }
+        for (int i = 0; i < titles; i++) {
+            trie.put(i + 1, generated[i], i);
+        }
+        queries = new String[4096];
+        for (int i = 0; i < queries.length; i++) {
+            String source = generated[random.nextInt(titles)];
+            queries[i] = source.substring(0, 1 + random.nextInt(Math.min(12, source.length())));
+        }
+        generated = null;
+        long retained = usedHeap() - before;
+        System.out.printf("%nTitleTrie retains %.1f MB for %d titles (%.1f MB per million)%n",
+                retained / 1e6, titles, retained / 1e6 * 1_000_000 / titles);
+    }
+
+    @Benchmark
+    public Object complete() {
+        return trie.complete(queries[next++ & (queries.length - 1)], 10);
+    }
+
+    @Benchmark
+    public void update() {
+        int postId = 1 + (next++ % titles);
+        trie.put(postId, "updated " + WORDS[postId % WORDS.length] + " " + postId, titles + next);
+    }
+
+    private static String title(Random random, int i) {
+        StringBuilder title = new StringBuilder();
+        int words = 3 + random.nextInt(5);
+        for (int w = 0; w < words; w++) {
+            title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return title.append(i).toString();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,109 @@
+package com.BlogApp.cache;
+
+import com.BlogApp.BlogAppApplication;
+import com.BlogApp.TestContent;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.CategoryDto;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.UserDto;
+import com.BlogApp.services.CategoryService;
+import com.BlogApp.services.PostService;
+import com.BlogApp.services.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Two application contexts share one H2 database and stand in for two nodes.
+// The scheduled poll is pushed out of the way, poll() is called directly.
+class CacheCoherenceTests {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void otherNodeEvictsAfterPolling() {
+        PostDto post = createPost(nodeA);
+        PostService postsA = nodeA.getBean(PostService.class);
+        PostService postsB = nodeB.getBean(PostService.class);
+        assertEquals("first", postsB.getPostById(post.getPostId()).getTitle());
+
+        post.setTitle("second");
+        postsA.updatePost(post, post.getPostId());
+
+        assertEquals("second", postsA.getPostById(post.getPostId()).getTitle());
+        assertEquals("first", postsB.getPostById(post.getPostId()).getTitle());
+
+        nodeB.getBean(CacheInvalidationPoller.class).poll();
+        assertEquals("second", postsB.getPostById(post.getPostId()).getTitle());
+    }
+
+    @Test
+    void categoryChangeClearsCachedPostsOnOtherNode() {
+        PostDto post = createPost(nodeA);
+        PostService postsB = nodeB.getBean(PostService.class);
+        Integer categoryId = post.getCategory().getCategoryId();
+        assertEquals("posts", postsB.getPostById(post.getPostId()).getCategory().getCategoryTitle());
+
+        CategoryDto category = new CategoryDto();
+        category.setCategoryTitle("renamed");
+        category.setCategoryDescription("renamed");
+        nodeA.getBean(CategoryService.class).updateCategory(category, categoryId);
+
+        nodeB.getBean(CacheInvalidationPoller.class).poll();
+        assertEquals("renamed", postsB.getPostById(post.getPostId()).getCategory().getCategoryTitle());
+    }
+
+    @Test
+    void missingIdsAreCachedUntilCreatedOnAnyNode() {
+        UserService usersA = nodeA.getBean(UserService.class);
+        UserService usersB = nodeB.getBean(UserService.class);
+        Integer nextId = createUser(nodeA).getId() + 1;
+        ResourceNotFoundException miss = assertThrows(ResourceNotFoundException.class, () -> usersB.getUserById(nextId));
+        // answered from the cached miss, the same stackless exception
+        assertSame(miss, assertThrows(ResourceNotFoundException.class, () -> usersB.getUserById(nextId)));
+        assertEquals(0, miss.getStackTrace().length);
+        assertEquals(1, nodeB.getBean(MeterRegistry.class).get("blog.cache.miss-hits").tag("cache", "users").counter().count());
+
+        UserDto created = createUser(nodeA);
+        assumeTrue(created.getId() == nextId, "ids are not handed out in sequence");
+        assertEquals(created.getEmail(), usersA.getUserById(nextId).getEmail());
+        assertThrows(ResourceNotFoundException.class, () -> usersB.getUserById(nextId));
+
+        nodeB.getBean(CacheInvalidationPoller.class).poll();
+        assertEquals(created.getEmail(), usersB.getUserById(nextId).getEmail());
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(BlogAppApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:cache_nodes;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--app.cache.poll-interval-ms=3600000",
+                "--app.outbox.poll-interval-ms=3600000");
+    }
+
+    private static UserDto createUser(ConfigurableApplicationContext node) {
+        return node.getBean(TestContent.class).user("cache author");
+    }
+
+    private static PostDto createPost(ConfigurableApplicationContext node) {
+        return node.getBean(TestContent.class).post("first", "content");
+    }
+}
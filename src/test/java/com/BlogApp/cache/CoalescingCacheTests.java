@@ -0,0 +1,228 @@
+package com.BlogApp.cache;
+
+import com.BlogApp.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingCacheTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CoalescingCache cache = cache(10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            release.await();
+            return "post";
+        };
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(callers.submit(() -> cache.get(1, loader)));
+        }
+        awaitCount("blog.cache.coalesced", 19);
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("post", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, count("blog.cache.loads"));
+        assertEquals("post", cache.get(1).get());
+        assertEquals(0, cache.inFlight());
+    }
+
+    @Test
+    void failuresReachTheWaitersAndAreNotCached() throws Exception {
+        CoalescingCache cache = cache(10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+        Callable<String> failing = () -> {
+            release.await();
+            throw failure;
+        };
+
+        Future<String> leader = callers.submit(() -> cache.get(1, failing));
+        awaitInFlight(cache);
+        Future<String> waiter = callers.submit(() -> cache.get(1, () -> "unused"));
+        awaitCount("blog.cache.coalesced", 1);
+        release.countDown();
+        for (Future<String> result : List.of(leader, waiter)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(Cache.ValueRetrievalException.class, e.getCause());
+            assertSame(failure, e.getCause().getCause());
+        }
+        assertNull(cache.get(1));
+        assertEquals("post", cache.get(1, () -> "post"));
+    }
+
+    @Test
+    void waitersGiveUpAfterTheTimeoutAndLoadThemselves() throws Exception {
+        CoalescingCache cache = cache(50);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stuck = callers.submit(() -> cache.get(1, () -> {
+            release.await();
+            return "slow";
+        }));
+        awaitInFlight(cache);
+
+        assertEquals("fast", cache.get(1, () -> "fast"));
+        assertEquals(1, count("blog.cache.coalesce-timeouts"));
+        release.countDown();
+        assertEquals("slow", stuck.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void anEvictDuringTheLoadKeepsItsResultOutOfTheCache() throws Exception {
+        CoalescingCache cache = cache(10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> before = callers.submit(() -> cache.get(1, () -> {
+            release.await();
+            return "before the write";
+        }));
+        awaitInFlight(cache);
+
+        cache.evict(1);
+        // a caller after the evict does not join the old load
+        assertEquals("after the write", cache.get(1, () -> "after the write"));
+        release.countDown();
+        assertEquals("before the write", before.get(5, TimeUnit.SECONDS));
+        assertEquals("after the write", cache.get(1).get());
+    }
+
+    // The evict arrives while the load is writing its value into the cache
+    @Test
+    void anEvictDuringThePutIsNotLost() throws Exception {
+        CountDownLatch putting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CoalescingCache cache = new CoalescingCache(new ConcurrentMapCache("posts") {
+            @Override
+            public void put(Object key, Object value) {
+                putting.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.put(key, value);
+            }
+        }, 10_000, 60_000, 1000, registry);
+        Future<String> load = callers.submit(() -> cache.get(1, () -> "before the write"));
+        assertTrue(putting.await(5, TimeUnit.SECONDS));
+
+        Thread evict = new Thread(() -> cache.evict(1));
+        evict.start();
+        // blocked behind the put, or done already when the two are not ordered
+        long deadline = System.currentTimeMillis() + 5000;
+        while (evict.getState() != Thread.State.BLOCKED && evict.getState() != Thread.State.TERMINATED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        evict.join(5000);
+        assertEquals("before the write", load.get(5, TimeUnit.SECONDS));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void notFoundIsCachedAsAMissUntilEvicted() {
+        CoalescingCache cache = cache(10_000);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> missing = () -> {
+            loads.incrementAndGet();
+            throw new ResourceNotFoundException("Post", "Post Id", 1);
+        };
+
+        Cache.ValueRetrievalException first = assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(1, missing));
+        ResourceNotFoundException again = assertThrows(ResourceNotFoundException.class, () -> cache.get(1, missing));
+        assertSame(first.getCause(), again);
+        assertEquals(1, loads.get());
+        assertEquals(1, count("blog.cache.miss-hits"));
+
+        // the entry was created
+        cache.evict(1);
+        assertEquals("post", cache.get(1, () -> "post"));
+        // other failures are not remembered
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get(2, () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals("post", cache.get(2, () -> "post"));
+    }
+
+    @Test
+    void loadAllCachesLikeSingleLoads() throws Exception {
+        CoalescingCache cache = cache(10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Map<Integer, String>> batch = callers.submit(() -> cache.loadAll(List.of(1, 2, 3), keys -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            // 3 does not exist
+            return Map.of(1, "one", 2, "two before the write");
+        }));
+        awaitInFlight(cache, 3);
+
+        Future<String> waiter = callers.submit(() -> cache.get(1, () -> "unused"));
+        Future<String> missing = callers.submit(() -> cache.get(3, () -> "three"));
+        awaitCount("blog.cache.coalesced", 2);
+        cache.evict(2);
+        release.countDown();
+
+        assertEquals(Map.of(1, "one", 2, "two before the write"), batch.get(5, TimeUnit.SECONDS));
+        assertEquals("one", waiter.get(5, TimeUnit.SECONDS));
+        // the waiters of a key the batch did not find load it themselves
+        assertEquals("three", missing.get(5, TimeUnit.SECONDS));
+        assertEquals("one", cache.get(1).get());
+        assertNull(cache.get(2));
+        assertEquals(0, cache.inFlight());
+    }
+
+    private CoalescingCache cache(long timeoutMillis) {
+        return new CoalescingCache(new ConcurrentMapCache("posts"), timeoutMillis, 60_000, 1000, registry);
+    }
+
+    private double count(String name) {
+        return registry.get(name).tag("cache", "posts").counter().count();
+    }
+
+    private void awaitCount(String name, double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count(name) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, count(name));
+    }
+
+    private static void awaitInFlight(CoalescingCache cache) throws InterruptedException {
+        awaitInFlight(cache, 1);
+    }
+
+    private static void awaitInFlight(CoalescingCache cache, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.inFlight() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, cache.inFlight());
+    }
+}
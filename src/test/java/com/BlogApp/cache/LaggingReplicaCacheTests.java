@@ -0,0 +1,126 @@
+package com.BlogApp.cache;
+
+import com.BlogApp.BlogAppApplication;
+import com.BlogApp.TestContent;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.UserDto;
+import com.BlogApp.services.PostService;
+import com.BlogApp.services.UserService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two nodes share a primary and read from one replica, a copy of the primary taken by freezeReplica()
+// that has stopped applying writes. The scheduled poll is pushed out of the way, poll() is called directly.
+class LaggingReplicaCacheTests {
+
+    private static final String PRIMARY = "jdbc:h2:mem:lagging_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA = "jdbc:h2:mem:lagging_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        nodeA = startNode();
+        // the schema, until a test freezes the replica again
+        freezeReplica();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void entriesEvictedByTheJournalAreNotRefilledFromTheReplica() throws Exception {
+        PostDto post = createPost(nodeA);
+        freezeReplica();
+        PostService postsA = nodeA.getBean(PostService.class);
+        PostService postsB = nodeB.getBean(PostService.class);
+        assertEquals("first", postsB.getPostById(post.getPostId()).getTitle());
+
+        post.setTitle("second");
+        postsA.updatePost(post, post.getPostId());
+        assertEquals("first", replica().queryForObject("select post_title from posts where post_id = ?", String.class, post.getPostId()));
+
+        // the first read after the eviction fills the cache
+        nodeB.getBean(CacheInvalidationPoller.class).poll();
+        assertEquals("second", postsB.getPostById(post.getPostId()).getTitle());
+        assertEquals("second", postsB.getPostById(post.getPostId()).getTitle());
+    }
+
+    @Test
+    void batchReadsAreNotFilledFromTheReplica() throws Exception {
+        PostDto post = createPost(nodeA);
+        freezeReplica();
+        PostService postsA = nodeA.getBean(PostService.class);
+        PostService postsB = nodeB.getBean(PostService.class);
+        assertEquals("first", postsB.getPostsByIds(List.of(post.getPostId())).getPosts().get(0).getTitle());
+
+        post.setTitle("second");
+        postsA.updatePost(post, post.getPostId());
+        nodeB.getBean(CacheInvalidationPoller.class).poll();
+        assertEquals("second", postsB.getPostsByIds(List.of(post.getPostId())).getPosts().get(0).getTitle());
+        assertEquals("second", postsB.getPostById(post.getPostId()).getTitle());
+    }
+
+    // Misses are cached as well, a miss read from the replica would hide the user until it is evicted
+    @Test
+    void missesAreNotReadFromTheReplica() throws Exception {
+        freezeReplica();
+        UserDto user = createUser(nodeA);
+        assertEquals(0, replica().queryForObject("select count(*) from users where id = ?", Integer.class, user.getId()));
+
+        UserService usersB = nodeB.getBean(UserService.class);
+        assertEquals(user.getEmail(), usersB.getUserById(user.getId()).getEmail());
+        assertEquals(user.getEmail(), usersB.getUserById(user.getId()).getEmail());
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(BlogAppApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + PRIMARY,
+                "--app.datasource.replica-urls=" + REPLICA,
+                "--app.datasource.replica-username=sa",
+                "--app.datasource.replica-password=",
+                "--app.cache.poll-interval-ms=3600000",
+                "--app.outbox.poll-interval-ms=3600000");
+    }
+
+    // Copies the primary into the replica, which then stays at this point
+    private static void freezeReplica() throws Exception {
+        Path script = Files.createTempFile("replica", ".sql");
+        try {
+            new JdbcTemplate(new DriverManagerDataSource(PRIMARY, "sa", "")).execute("script to '" + script + "'");
+            replica().execute("drop all objects");
+            replica().execute("runscript from '" + script + "'");
+        } finally {
+            Files.delete(script);
+        }
+    }
+
+    private static JdbcTemplate replica() {
+        return new JdbcTemplate(new DriverManagerDataSource(REPLICA, "sa", ""));
+    }
+
+    private static UserDto createUser(ConfigurableApplicationContext node) {
+        return node.getBean(TestContent.class).user("replica author");
+    }
+
+    private static PostDto createPost(ConfigurableApplicationContext node) {
+        return node.getBean(TestContent.class).post("first", "content");
+    }
+}
@@ -0,0 +1,27 @@
+package com.BlogApp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.main.lazy-initialization=true")
+class LazyInitializationTests {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    void requestPathIsLazyButSchemaAndSchedulersAreNot() {
+        assertTrue(this.beanFactory.getBeanDefinition("postController").isLazyInit());
+        assertTrue(this.beanFactory.getBeanDefinition("postServiceImpl").isLazyInit());
+        assertFalse(this.beanFactory.containsSingleton("postController"));
+
+        assertFalse(this.beanFactory.getBeanDefinition("flywayInitializer").isLazyInit());
+        assertFalse(this.beanFactory.getBeanDefinition("entityManagerFactory").isLazyInit());
+        assertFalse(this.beanFactory.getBeanDefinition("contentPurger").isLazyInit());
+        assertFalse(this.beanFactory.getBeanDefinition("cacheInvalidationPoller").isLazyInit());
+    }
+}
@@ -0,0 +1,176 @@
+package com.BlogApp.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Separate in-memory H2 databases stand in for the primary and the replicas,
+// each one answers "select name from node" with its own name.
+class ReadWriteRoutingDataSourceTests {
+
+    private ReadWriteRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        route(List.of("replica"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN);
+
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void writesAndNonTransactionalCallsGoToPrimary() {
+        route(List.of("replica"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN);
+
+        assertEquals("primary", readWrite.execute(status -> node()));
+        assertEquals("primary", node());
+    }
+
+    @Test
+    void readsAfterWriteArePinnedToPrimaryForThatUser() {
+        route(List.of("replica"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN);
+
+        login("writer");
+        readWrite.execute(status -> jdbcTemplate.update("update node set name = name"));
+        assertEquals("primary", readOnly.execute(status -> node()));
+
+        login("reader");
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void writersAreForgottenOnceTheirWindowEnds() {
+        route(List.of("replica"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN, 200);
+
+        for (int i = 0; i < 50; i++) {
+            login("writer " + i);
+            readWrite.execute(status -> jdbcTemplate.update("update node set name = name"));
+        }
+        assertEquals("primary", readOnly.execute(status -> node()));
+        // none of them reads again, their entries still go
+        Cache<?, ?> recentWriters = (Cache<?, ?>) ReflectionTestUtils.getField(routing, "recentWriters");
+        await().atMost(Duration.ofSeconds(5)).until(() -> {
+            recentWriters.cleanUp();
+            return recentWriters.estimatedSize() == 0;
+        });
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void readsRunOnPrimaryGoToPrimary() throws Exception {
+        route(List.of("replica"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN);
+
+        assertEquals("primary", ReadWriteRoutingDataSource.onPrimary(() -> readOnly.execute(status -> node())));
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void roundRobinAlternatesReplicas() {
+        route(List.of("replica_a", "replica_b"), ReadWriteRoutingDataSource.Selection.ROUND_ROBIN);
+
+        assertEquals("replica_a", readOnly.execute(status -> node()));
+        assertEquals("replica_b", readOnly.execute(status -> node()));
+        assertEquals("replica_a", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void leastConnectionsSpreadsIdleReplicas() {
+        route(List.of("replica_a", "replica_b"), ReadWriteRoutingDataSource.Selection.LEAST_CONNECTIONS);
+
+        assertEquals("replica_a", readOnly.execute(status -> node()));
+        assertEquals("replica_b", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void replicaPoolsAreClosedWithTheContext() {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        new ApplicationContextRunner()
+                // splits replica-urls like the application does
+                .withInitializer(context -> context.getBeanFactory()
+                        .setConversionService(ApplicationConversionService.getSharedInstance()))
+                .withUserConfiguration(DataSourcePropertiesConfig.class, ReadReplicaConfig.class)
+                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:closing_primary",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "app.datasource.replica-urls=jdbc:h2:mem:closing_a,jdbc:h2:mem:closing_b",
+                        "app.datasource.replica-username=sa", "app.datasource.replica-password=")
+                .run(context -> {
+                    LazyConnectionDataSourceProxy proxy = (LazyConnectionDataSourceProxy) context.getBean(DataSource.class);
+                    ReadWriteRoutingDataSource routing = (ReadWriteRoutingDataSource) proxy.getTargetDataSource();
+                    routing.getResolvedDataSources().values().stream()
+                            .map(HikariDataSource.class::cast)
+                            .filter(HikariDataSource::isReadOnly)
+                            .forEach(replicas::add);
+                    assertEquals(2, replicas.size());
+                    assertFalse(replicas.get(0).isClosed());
+                });
+        assertTrue(replicas.stream().allMatch(HikariDataSource::isClosed));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class DataSourcePropertiesConfig {
+    }
+
+    private void route(List<String> replicaNames, ReadWriteRoutingDataSource.Selection selection) {
+        route(replicaNames, selection, 60_000);
+    }
+
+    private void route(List<String> replicaNames, ReadWriteRoutingDataSource.Selection selection, long readYourWritesMillis) {
+        List<DataSource> replicas = replicaNames.stream().map(ReadWriteRoutingDataSourceTests::database).toList();
+        routing = new ReadWriteRoutingDataSource(database("primary"), replicas, selection, readYourWritesMillis);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static void login(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table if not exists node (name varchar(20))");
+        jdbc.update("delete from node");
+        jdbc.update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,89 @@
+package com.BlogApp.controller;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.payloads.CommentDto;
+import com.BlogApp.services.CommentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// With open-in-view off the session closes with the service transaction, so every association a response
+// writes must be loaded inside it. Each endpoint is read with empty caches, and a lazy association left
+// unloaded would fail serialization with LazyInitializationException. The security filters are left out.
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc(addFilters = false)
+class OpenInViewTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TestContent content;
+
+    private Integer userId;
+    private Integer categoryId;
+    private Integer postId;
+
+    @BeforeEach
+    void createPost() {
+        userId = content.user("session author").getId();
+        categoryId = content.category("sessions").getCategoryId();
+        postId = content.post(userId, categoryId, "session post", "session post content").getPostId();
+
+        for (String text : new String[]{"first", "second"}) {
+            CommentDto comment = new CommentDto();
+            comment.setContent(text);
+            commentService.createComment(comment, postId);
+        }
+        this.cacheManager.getCacheNames().forEach(name -> this.cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void postWithCommentsSerializes() throws Exception {
+        mvc.perform(get("/api/posts/{postId}", postId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments", hasSize(2)))
+                .andExpect(jsonPath("$.category.categoryTitle").value("sessions"))
+                .andExpect(jsonPath("$.user.name").value("session author"));
+    }
+
+    @Test
+    void categoryPostsSerialize() throws Exception {
+        mvc.perform(get("/api/category/{categoryId}/posts", categoryId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].comments", hasSize(2)))
+                .andExpect(jsonPath("$[0].user.name").value("session author"));
+    }
+
+    @Test
+    void userPostsSerialize() throws Exception {
+        mvc.perform(get("/api/user/{userId}/posts", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].comments", hasSize(2)))
+                .andExpect(jsonPath("$[0].category.categoryTitle").value("sessions"));
+    }
+
+    @Test
+    void postPagesSerialize() throws Exception {
+        mvc.perform(get("/api/posts").param("pageSize", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[?(@.postId == %s)].comments[*]", postId).value(hasSize(2)));
+    }
+}
@@ -0,0 +1,163 @@
+package com.BlogApp.drafts;
+
+import com.BlogApp.BlogAppApplication;
+import com.BlogApp.TestContent;
+import com.BlogApp.audit.AuditEvent;
+import com.BlogApp.audit.AuditLog;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.services.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+// Writes are counted by their UPDATED rows in the outbox, which is not drained here. The audit log is a spy to see
+// whom a write is recorded for.
+@SpringBootTest(properties = {"app.drafts.debounce-ms=300", "app.drafts.max-delay-ms=1500",
+        "app.drafts.flush-interval-ms=50", "app.outbox.poll-interval-ms=3600000"})
+class DraftBufferTests {
+
+    @Autowired
+    private DraftBuffer draftBuffer;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestContent content;
+
+    @SpyBean
+    private AuditLog auditLog;
+
+    @Test
+    void burstOfAutosavesIsOneWrite() {
+        Integer postId = createPost();
+        for (int i = 1; i <= 5; i++) {
+            draftBuffer.save(postId, draft("Version " + i));
+        }
+        assertEquals("Original", postService.getPostById(postId).getContent());
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> "Version 5".equals(postService.getPostById(postId).getContent()));
+        assertEquals(1, updates(postId));
+    }
+
+    @Test
+    void steadyAutosavesAreWrittenAfterTheMaxDelay() throws InterruptedException {
+        Integer postId = createPost();
+        long started = System.currentTimeMillis();
+        // one every 100 ms never lets the debounce expire
+        while (updates(postId) == 0) {
+            assertTrue(System.currentTimeMillis() - started < 5000, "draft was not written");
+            draftBuffer.save(postId, draft("Typing"));
+            Thread.sleep(100);
+        }
+        assertTrue(System.currentTimeMillis() - started >= 1500);
+    }
+
+    @Test
+    void publishReplacesThePendingDraft() throws InterruptedException {
+        Integer postId = createPost();
+        draftBuffer.save(postId, draft("Autosaved"));
+        draftBuffer.publish(postId, draft("Published"));
+
+        Thread.sleep(600);
+        assertEquals("Published", postService.getPostById(postId).getContent());
+        assertEquals(1, updates(postId));
+    }
+
+    @Test
+    void draftsAreAuditedAsTheUserWhoSavedThem() {
+        Integer postId = createPost();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("writer@example.com", null, List.of()));
+        try {
+            draftBuffer.save(postId, draft("Autosaved"));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        // written on the scheduler thread
+        await().atMost(Duration.ofSeconds(5)).until(() -> updates(postId) == 1);
+        verify(auditLog).record(AuditEvent.Action.POST_UPDATED, "writer@example.com", "post/" + postId, null);
+    }
+
+    @Test
+    void autosaveOfMissingPostIsRejected() {
+        assertThrows(ResourceNotFoundException.class, () -> draftBuffer.save(Integer.MAX_VALUE, draft("Nothing")));
+    }
+
+    // A second application on the same database (startNode), closed like a node being stopped
+    @Test
+    void pendingDraftsAreWrittenOnShutdown() {
+        Integer postId = createPost();
+        ConfigurableApplicationContext node = startNode();
+        node.getBean(DraftBuffer.class).save(postId, draft("Unsaved"));
+        assertEquals(0, updates(postId));
+
+        node.close();
+
+        assertEquals(1, updates(postId));
+        assertEquals("Unsaved", postService.getPostById(postId).getContent());
+    }
+
+    // The draft stays on the second node, which never hears of the publish on this one
+    @Test
+    void draftOnAnotherNodeDoesNotOverwriteAPublish() {
+        Integer postId = createPost();
+        ConfigurableApplicationContext node = startNode();
+        try {
+            DraftBuffer other = node.getBean(DraftBuffer.class);
+            other.save(postId, draft("Autosaved"));
+            draftBuffer.publish(postId, draft("Published"));
+
+            other.flush(postId);
+            assertEquals(1, updates(postId));
+            assertEquals("Published", postService.getPostById(postId).getContent());
+
+            // a draft started after the publish is based on it
+            other.save(postId, draft("Edited after publishing"));
+            other.flush(postId);
+            assertEquals(2, updates(postId));
+        } finally {
+            node.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(BlogAppApplication.class)
+                .run("--server.port=0", "--app.drafts.debounce-ms=3600000", "--app.drafts.max-delay-ms=3600000",
+                        "--app.outbox.poll-interval-ms=3600000");
+    }
+
+    private int updates(Integer postId) {
+        return jdbcTemplate.queryForObject("select count(*) from post_events where post_id = ? and type = 'UPDATED'",
+                Integer.class, postId);
+    }
+
+    private static PostDto draft(String content) {
+        PostDto post = new PostDto();
+        post.setTitle("Draft");
+        post.setContent(content);
+        return post;
+    }
+
+    private Integer createPost() {
+        return content.post("Draft", "Original").getPostId();
+    }
+}
@@ -0,0 +1,135 @@
+package com.BlogApp.events;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.entities.PostEvent;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.repositories.PostEventRepo;
+import com.BlogApp.services.PostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The scheduled poll is pushed out of the way, dispatchBatch() is called directly
+@SpringBootTest(properties = {"app.outbox.poll-interval-ms=3600000", "app.outbox.max-attempts=2"})
+class PostEventDispatcherTests {
+
+    static class RecordingListener implements PostEventListener {
+
+        final List<PostEvent> received = new CopyOnWriteArrayList<>();
+        volatile boolean failing;
+        // events of this post fail every delivery they are part of
+        volatile Integer poisonPostId;
+
+        @Override
+        public void onPostEvents(List<PostEvent> events) {
+            if (failing) {
+                throw new IllegalStateException("listener down");
+            }
+            if (events.stream().anyMatch(event -> event.getPostId().equals(poisonPostId))) {
+                throw new IllegalStateException("poison");
+            }
+            received.addAll(events);
+        }
+    }
+
+    @TestConfiguration
+    static class ListenerConfig {
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    @Autowired
+    private PostEventDispatcher dispatcher;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @Autowired
+    private PostEventRepo postEventRepo;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private TestContent content;
+
+    @BeforeEach
+    void reset() {
+        postEventRepo.deleteAll();
+        listener.received.clear();
+        listener.failing = false;
+        listener.poisonPostId = null;
+    }
+
+    @Test
+    void postWritesAreDeliveredInOrderAndRemoved() {
+        PostDto post = createPost();
+        post.setTitle("changed");
+        postService.updatePost(post, post.getPostId());
+        postService.deletePost(post.getPostId());
+
+        assertEquals(3, dispatcher.dispatchBatch());
+
+        assertEquals(List.of(PostEvent.Type.CREATED, PostEvent.Type.UPDATED, PostEvent.Type.DELETED),
+                listener.received.stream().map(PostEvent::getType).toList());
+        assertTrue(listener.received.stream().allMatch(event -> event.getPostId().equals(post.getPostId())));
+        assertEquals(0, postEventRepo.count());
+    }
+
+    @Test
+    void failedBatchIsRetriedWithBackoffThenAbandoned() {
+        createPost();
+        listener.failing = true;
+
+        assertEquals(0, dispatcher.dispatchBatch());
+        PostEvent event = postEventRepo.findAll().get(0);
+        assertEquals(1, event.getAttempts());
+        assertTrue(event.getNextAttemptAt().getTime() > System.currentTimeMillis());
+        assertEquals("listener down", event.getLastError());
+
+        // not due yet
+        assertEquals(0, dispatcher.dispatchBatch());
+        assertEquals(1, postEventRepo.findAll().get(0).getAttempts());
+
+        event.setNextAttemptAt(new java.util.Date());
+        postEventRepo.save(event);
+        dispatcher.dispatchBatch();
+        assertNull(postEventRepo.findAll().get(0).getNextAttemptAt());
+        assertEquals(0, postEventRepo.countByNextAttemptAtIsNotNull());
+    }
+
+    @Test
+    void onlyTheFailingEventIsChargedAnAttempt() {
+        List<Integer> postIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            postIds.add(createPost().getPostId());
+        }
+        listener.poisonPostId = postIds.get(2);
+
+        assertEquals(4, dispatcher.dispatchBatch());
+
+        assertEquals(postIds.stream().filter(id -> !id.equals(postIds.get(2))).toList(),
+                listener.received.stream().map(PostEvent::getPostId).toList());
+        List<PostEvent> left = postEventRepo.findAll();
+        assertEquals(1, left.size());
+        assertEquals(postIds.get(2), left.get(0).getPostId());
+        assertEquals(1, left.get(0).getAttempts());
+        assertEquals("poison", left.get(0).getLastError());
+    }
+
+    private PostDto createPost() {
+        return content.post("outbox post", "content");
+    }
+}
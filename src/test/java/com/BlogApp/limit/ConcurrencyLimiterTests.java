@@ -0,0 +1,137 @@
+package com.BlogApp.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // limit 10: writes may fill 6, reads 9, critical requests all 10
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 5, 100, 1.5, 0.2, 100, 0.9, 0.6, 2, registry);
+
+    @Test
+    void writesAreShedBeforeReadsAndReadsBeforeLogins() {
+        for (int i = 0; i < 6; i++) {
+            assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.WRITE));
+        }
+        assertFalse(limiter.tryAcquire(ConcurrencyLimiter.Priority.WRITE));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.READ));
+        }
+        assertFalse(limiter.tryAcquire(ConcurrencyLimiter.Priority.READ));
+        assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.CRITICAL));
+        assertFalse(limiter.tryAcquire(ConcurrencyLimiter.Priority.CRITICAL));
+
+        assertEquals(1, rejected("write"));
+        assertEquals(1, rejected("read"));
+        assertEquals(1, rejected("critical"));
+        assertEquals(10, registry.get("blog.limit.in-flight").gauge().value());
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.CRITICAL));
+    }
+
+    @Test
+    void theLimitFollowsLatencyOncePerWindow() {
+        long window = TimeUnit.MILLISECONDS.toNanos(100);
+        long now = System.nanoTime();
+        for (int w = 1; w <= 20; w++) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.CRITICAL));
+            }
+            for (int i = 0; i < 10; i++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(5), now + w * window);
+            }
+        }
+        assertTrue(limiter.getLimit() > 10, "limit " + limiter.getLimit());
+        assertEquals(limiter.getLimit(), registry.get("blog.limit.limit").gauge().value());
+    }
+
+    @Test
+    void concurrentReleasesRollEachWindowOnce() throws Exception {
+        long window = TimeUnit.MILLISECONDS.toNanos(100);
+        long now = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int w = 1; w <= 20; w++) {
+                long end = now + w * window;
+                List<Callable<Void>> releases = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.CRITICAL));
+                    releases.add(() -> {
+                        limiter.release(TimeUnit.MILLISECONDS.toNanos(5), end);
+                        return null;
+                    });
+                }
+                for (Future<Void> release : pool.invokeAll(releases)) {
+                    release.get();
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(0, registry.get("blog.limit.in-flight").gauge().value());
+        assertTrue(limiter.getLimit() > 10, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void theFilterAnswers503OverTheLimit() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter();
+        ReflectionTestUtils.setField(filter, "limiter", new ConcurrencyLimiter(1, 1, 1, 1.5, 0.2, 100, 0.9, 0.6, 2, registry));
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        MockHttpServletRequest outer = new MockHttpServletRequest("GET", "/api/posts/1");
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        // a second request arrives while the first is still in the chain
+        filter.doFilter(outer, new MockHttpServletResponse(), (request, response) ->
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/posts/2"), shed, new MockFilterChain()));
+
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+        assertEquals(0, registry.get("blog.limit.in-flight").gauge().value());
+    }
+
+    @Test
+    void uploadChunksHaveABudgetOfTheirOwn() {
+        for (int i = 0; i < 6; i++) {
+            assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.WRITE));
+        }
+        assertTrue(limiter.tryAcquireUpload());
+        assertTrue(limiter.tryAcquireUpload());
+        assertFalse(limiter.tryAcquireUpload());
+        assertEquals(1, rejected("upload"));
+        // chunks in flight take no slot of the limit
+        assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.READ));
+
+        limiter.releaseUpload();
+        assertTrue(limiter.tryAcquireUpload());
+        assertEquals(7, registry.get("blog.limit.in-flight").gauge().value());
+        assertTrue(ConcurrencyLimitFilter.isUploadChunk(new MockHttpServletRequest("PUT", "/api/posts/1/uploads/abc")));
+        assertFalse(ConcurrencyLimitFilter.isUploadChunk(new MockHttpServletRequest("PUT", "/api/posts/1")));
+    }
+
+    @Test
+    void requestsAreClassifiedByPathAndMethod() {
+        assertEquals(ConcurrencyLimiter.Priority.CRITICAL, ConcurrencyLimitFilter.priorityOf(new MockHttpServletRequest("POST", "/auth/login")));
+        assertEquals(ConcurrencyLimiter.Priority.READ, ConcurrencyLimitFilter.priorityOf(new MockHttpServletRequest("GET", "/api/posts")));
+        assertEquals(ConcurrencyLimiter.Priority.WRITE, ConcurrencyLimitFilter.priorityOf(new MockHttpServletRequest("PUT", "/api/posts/1")));
+    }
+
+    private double rejected(String priority) {
+        return registry.get("blog.limit.rejected").tag("priority", priority).counter().count();
+    }
+}
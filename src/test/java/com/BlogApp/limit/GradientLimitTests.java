@@ -0,0 +1,52 @@
+package com.BlogApp.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientLimitTests {
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenRequestsQueue() {
+        GradientLimit limit = new GradientLimit(20, 5, 200, 1.5, 0.2);
+        for (int i = 0; i < 50; i++) {
+            limit.update(10, limit.getLimit());
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 40, "grown to " + grown);
+
+        // the database slows down four times over
+        for (int i = 0; i < 10; i++) {
+            limit.update(40, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() < grown / 2, "shrunk to " + limit.getLimit());
+    }
+
+    @Test
+    void staysWithinItsBounds() {
+        GradientLimit limit = new GradientLimit(20, 5, 60, 1.5, 0.5);
+        for (int i = 0; i < 200; i++) {
+            limit.update(10, limit.getLimit());
+        }
+        assertEquals(60, limit.getLimit());
+        for (int i = 0; i < 30; i++) {
+            limit.update(10_000, limit.getLimit());
+        }
+        assertEquals(5, limit.getLimit());
+
+        // a latency that lasts becomes the long average, and the limit grows again
+        for (int i = 0; i < 500; i++) {
+            limit.update(10_000, limit.getLimit());
+        }
+        assertEquals(60, limit.getLimit());
+    }
+
+    @Test
+    void windowsUsingLessThanHalfTheLimitLeaveItAlone() {
+        GradientLimit limit = new GradientLimit(20, 5, 200, 1.5, 0.2);
+        for (int i = 0; i < 50; i++) {
+            limit.update(10, 3);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+}
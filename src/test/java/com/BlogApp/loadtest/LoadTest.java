@@ -0,0 +1,94 @@
+package com.BlogApp.loadtest;
+
+import com.BlogApp.BlogAppApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.imageio.ImageIO;
+import javax.sql.DataSource;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// Starts the application on a random port with an in-memory H2 database, loads a synthetic dataset
+// and runs the scenario mix against it. Arguments are name=value pairs, see DEFAULTS.
+// Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+//           -Dexec.args="-Xmx4g -cp %classpath com.BlogApp.loadtest.LoadTest posts=20000 threads=64 duration=60"
+public class LoadTest {
+
+    // rate is requests per second per virtual user, 0 for back to back (see ScenarioRunner)
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("db", "jdbc:h2:mem:load_test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+            Map.entry("users", "1000"),
+            Map.entry("categories", "50"),
+            Map.entry("posts", "10000"),
+            Map.entry("comments", "5"),
+            Map.entry("threads", "32"),
+            Map.entry("warmup", "10"),
+            Map.entry("duration", "30"),
+            Map.entry("relogin", "500"),
+            Map.entry("rate", "0"),
+            Map.entry("mix", "feed:30,read:40,search:5,comment:10,image:15"));
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !DEFAULTS.containsKey(option[0])) {
+                throw new IllegalArgumentException("Expected one of " + DEFAULTS.keySet() + " as name=value, got " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+
+        File images = new File("target/load-test-images");
+        images.mkdirs();
+        ImageIO.write(new BufferedImage(200, 120, BufferedImage.TYPE_INT_RGB), "png", new File(images, "default.png"));
+
+        try (ConfigurableApplicationContext app = start(options.get("db"), images)) {
+            SyntheticDataLoader.Dataset dataset = new SyntheticDataLoader(app.getBean(DataSource.class)).load(
+                    integer(options, "users"), integer(options, "categories"),
+                    integer(options, "posts"), integer(options, "comments"));
+            String baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+
+            ScenarioRunner runner = new ScenarioRunner(baseUrl, dataset, mix(options.get("mix")), integer(options, "relogin"),
+                    Double.parseDouble(options.get("rate")));
+            System.out.printf("Running %s virtual users for %s s after %s s of warmup%n",
+                    options.get("threads"), options.get("duration"), options.get("warmup"));
+            ScenarioRunner.Result result = runner.run(integer(options, "threads"),
+                    Duration.ofSeconds(integer(options, "warmup")), Duration.ofSeconds(integer(options, "duration")));
+            result.print(System.out);
+        }
+    }
+
+    static ConfigurableApplicationContext start(String db, File images) {
+        // devtools would restart main() in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(BlogAppApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + db,
+                // inferred from the url
+                "--spring.datasource.driver-class-name=",
+                // H2 does not read backslash escapes in string literals, like MySQL in NO_BACKSLASH_ESCAPES mode.
+                // Without this the LIKE escape of search is written as '\\', which H2 rejects.
+                "--spring.jpa.properties.hibernate.dialect.mysql.no_backslash_escapes=" + db.startsWith("jdbc:h2:"),
+                "--project.image=" + images.getPath(),
+                "--logging.level.root=WARN");
+    }
+
+    // endpoint:weight pairs, e.g. read:40,feed:30
+    static Map<ScenarioRunner.Endpoint, Integer> mix(String mix) {
+        Map<ScenarioRunner.Endpoint, Integer> weights = new EnumMap<>(ScenarioRunner.Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split(":");
+            weights.put(ScenarioRunner.Endpoint.valueOf(weight[0].toUpperCase()), Integer.parseInt(weight[1]));
+        }
+        return weights;
+    }
+
+    private static int integer(Map<String, String> options, String name) {
+        return Integer.parseInt(options.get(name));
+    }
+}
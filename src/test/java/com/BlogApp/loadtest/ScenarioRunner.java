@@ -0,0 +1,233 @@
+package com.BlogApp.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Closed-loop load against a running instance: every virtual user logs in, then sends requests picked from the
+// weighted mix, and logs in again every reloginEvery requests. Latencies after the warmup are recorded per endpoint
+// in HdrHistograms, from the request being sent until its body has been read.
+// Without a rate the requests go back to back and the numbers are closed-loop: a slow response delays the requests
+// behind it instead of being measured by them (coordinated omission), so the percentiles are too low.
+// With a rate each user sends on a fixed schedule and records with recordValueWithExpectedInterval, which adds
+// the requests a stall kept from being sent.
+public class ScenarioRunner {
+
+    public enum Endpoint {
+        LOGIN, FEED, READ, SEARCH, COMMENT, IMAGE
+    }
+
+    // 60 second histograms at 3 significant digits, in microseconds
+    private static final long HIGHEST_MICROS = TimeUnit.SECONDS.toMicros(60);
+    private static final Pattern TOKEN = Pattern.compile("\"jwtToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final SyntheticDataLoader.Dataset dataset;
+    private final Map<Endpoint, Integer> mix;
+    private final int reloginEvery;
+    // per virtual user, 0 when back to back
+    private final long intervalNanos;
+
+    public ScenarioRunner(String baseUrl, SyntheticDataLoader.Dataset dataset, Map<Endpoint, Integer> mix, int reloginEvery,
+                          double ratePerUser) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.mix = new EnumMap<>(mix);
+        this.reloginEvery = reloginEvery;
+        this.intervalNanos = ratePerUser > 0 ? (long) (1e9 / ratePerUser) : 0;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static final class Result {
+        private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+        // the histograms also count the values added for coordinated omission
+        private final Map<Endpoint, Long> requests = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, Long> errors = new EnumMap<>(Endpoint.class);
+        private double seconds;
+
+        Result() {
+            for (Endpoint endpoint : Endpoint.values()) {
+                this.latencies.put(endpoint, new Histogram(HIGHEST_MICROS, 3));
+                this.requests.put(endpoint, 0L);
+                this.errors.put(endpoint, 0L);
+            }
+        }
+
+        public long getCount(Endpoint endpoint) {
+            return this.requests.get(endpoint);
+        }
+
+        public long getErrors(Endpoint endpoint) {
+            return this.errors.get(endpoint);
+        }
+
+        public Histogram getLatencies(Endpoint endpoint) {
+            return this.latencies.get(endpoint);
+        }
+
+        void add(Result other) {
+            for (Endpoint endpoint : Endpoint.values()) {
+                this.latencies.get(endpoint).add(other.latencies.get(endpoint));
+                this.requests.merge(endpoint, other.requests.get(endpoint), Long::sum);
+                this.errors.merge(endpoint, other.errors.get(endpoint), Long::sum);
+            }
+        }
+
+        public void print(PrintStream out) {
+            out.printf("%-8s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            Histogram total = new Histogram(HIGHEST_MICROS, 3);
+            long totalRequests = 0;
+            long totalErrors = 0;
+            for (Endpoint endpoint : Endpoint.values()) {
+                Histogram histogram = this.latencies.get(endpoint);
+                if (this.requests.get(endpoint) > 0 || this.errors.get(endpoint) > 0) {
+                    this.printRow(out, endpoint.name().toLowerCase(), histogram, this.requests.get(endpoint),
+                            this.errors.get(endpoint));
+                }
+                total.add(histogram);
+                totalRequests += this.requests.get(endpoint);
+                totalErrors += this.errors.get(endpoint);
+            }
+            this.printRow(out, "total", total, totalRequests, totalErrors);
+        }
+
+        private void printRow(PrintStream out, String name, Histogram histogram, long requests, long errors) {
+            out.printf("%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, requests, errors,
+                    requests / this.seconds,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+
+    public Result run(int virtualUsers, Duration warmup, Duration duration) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+        ExecutorService threads = Executors.newFixedThreadPool(virtualUsers);
+        List<Future<Result>> users = new ArrayList<>();
+        for (int user = 0; user < virtualUsers; user++) {
+            long seed = user;
+            users.add(threads.submit(() -> this.virtualUser(new Random(seed), measureFrom, stopAt)));
+        }
+        threads.shutdown();
+        Result result = new Result();
+        result.seconds = duration.toNanos() / 1e9;
+        for (Future<Result> user : users) {
+            try {
+                result.add(user.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Virtual user failed", e.getCause());
+            }
+        }
+        return result;
+    }
+
+    private Result virtualUser(Random random, long measureFrom, long stopAt) {
+        Result result = new Result();
+        int total = this.mix.values().stream().mapToInt(Integer::intValue).sum();
+        String token = null;
+        int sent = 0;
+        long nextSend = System.nanoTime();
+        while (System.nanoTime() < stopAt) {
+            if (this.intervalNanos > 0) {
+                long wait = nextSend - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                nextSend += this.intervalNanos;
+            }
+            Endpoint endpoint;
+            if (token == null || sent % this.reloginEvery == 0) {
+                endpoint = Endpoint.LOGIN;
+            } else {
+                endpoint = this.pick(random, total);
+            }
+            long started = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = this.client.send(this.request(endpoint, random, token), HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                response = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long micros = (System.nanoTime() - started) / 1000;
+            sent++;
+            if (endpoint == Endpoint.LOGIN && response != null && response.statusCode() == 200) {
+                Matcher matcher = TOKEN.matcher(response.body());
+                token = matcher.find() ? matcher.group(1) : null;
+            }
+            if (started < measureFrom) {
+                continue;
+            }
+            if (response == null || response.statusCode() >= 400) {
+                result.errors.merge(endpoint, 1L, Long::sum);
+            } else {
+                result.requests.merge(endpoint, 1L, Long::sum);
+                result.latencies.get(endpoint).recordValueWithExpectedInterval(Math.min(micros, HIGHEST_MICROS),
+                        this.intervalNanos / 1000);
+            }
+        }
+        return result;
+    }
+
+    private Endpoint pick(Random random, int total) {
+        int r = random.nextInt(total);
+        for (Map.Entry<Endpoint, Integer> weight : this.mix.entrySet()) {
+            r -= weight.getValue();
+            if (r < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("empty mix");
+    }
+
+    private HttpRequest request(Endpoint endpoint, Random random, String token) {
+        int posts = this.dataset.getLastPostId() - this.dataset.getFirstPostId() + 1;
+        int postId = this.dataset.getFirstPostId() + random.nextInt(posts);
+        HttpRequest.Builder request = switch (endpoint) {
+            case LOGIN -> this.post("/auth/login", "{\"email\":\"admin\",\"password\":\"admin\"}");
+            // mostly the first pages, like people reading a feed
+            case FEED -> this.get("/api/posts?pageSize=10&sortBy=addedDate&sortDir=dsc&pageNumber="
+                    + (int) (Math.pow(random.nextDouble(), 3) * Math.max(1, posts / 10)));
+            case READ -> this.get("/api/posts/" + postId);
+            case SEARCH -> this.get("/api/posts/search/" + URLEncoder.encode(
+                    SyntheticDataLoader.WORDS[random.nextInt(SyntheticDataLoader.WORDS.length)], StandardCharsets.UTF_8));
+            case COMMENT -> this.post("/api/post/" + postId + "/comments", "{\"content\":\"load test comment\"}");
+            case IMAGE -> this.get("/api/posts/image/default.png");
+        };
+        if (token != null && endpoint != Endpoint.LOGIN) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request.timeout(Duration.ofSeconds(30)).build();
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(this.baseUrl + path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(this.baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+}
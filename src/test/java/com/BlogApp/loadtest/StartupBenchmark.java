@@ -0,0 +1,199 @@
+package com.BlogApp.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Time to first request of the extracted fast-startup build (mvn -Pfast-startup package) in a fresh JVM per run:
+// until the context reports started, until the first login succeeds and until the first post listing is answered.
+// Modes: default (reflection, no CDS), aot, aot-cds, and aot-cds-lazy with LAZY_INIT. The CDS archive is trained
+// here with the same classpath and database. The default database is a fresh in-memory H2 per run, so every run also
+// applies the migrations; with db=jdbc:mysql://... the DB_USERNAME and DB_PASSWORD environment variables are used.
+// Run with: mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+//           -Dexec.args="-cp %classpath com.BlogApp.loadtest.StartupBenchmark runs=5"
+public class StartupBenchmark {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "app", "target/app",
+            "runs", "5",
+            "modes", "default,aot,aot-cds,aot-cds-lazy",
+            "db", "jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final Pattern STARTED = Pattern.compile("Started BlogAppApplication in ([0-9.]+) seconds");
+    private static final Pattern TOKEN = Pattern.compile("\"jwtToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final Path work = Paths.get("target/startup-benchmark");
+    private final List<String> classpath = new ArrayList<>();
+    private final List<String> appArgs = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !DEFAULTS.containsKey(option[0])) {
+                throw new IllegalArgumentException("Expected one of " + DEFAULTS.keySet() + " as name=value, got " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+        new StartupBenchmark(Paths.get(options.get("app")), options.get("db"))
+                .run(List.of(options.get("modes").split(",")), Integer.parseInt(options.get("runs")));
+    }
+
+    StartupBenchmark(Path app, String db) throws Exception {
+        try (var jars = Files.list(app)) {
+            this.classpath.add(jars.filter(jar -> jar.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No extracted jar in " + app
+                            + ", build it with mvn -Pfast-startup package")).toAbsolutePath().toString());
+        }
+        this.appArgs.add("--spring.datasource.url=" + db);
+        if (db.startsWith("jdbc:h2:")) {
+            // the same H2 in MySQL mode as the tests, appended after the application so the CDS archive still matches
+            this.classpath.add(Paths.get(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    .toString());
+            this.appArgs.addAll(List.of("--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa", "--spring.datasource.password=",
+                    "--spring.jpa.properties.jakarta.persistence.database-product-name=MySQL",
+                    "--spring.jpa.properties.jakarta.persistence.database-major-version=8"));
+        }
+        if (System.getenv("JWT_SECRET") == null) {
+            this.appArgs.add("--jwt.secret=" + "startupBenchmarkSecret".repeat(4));
+        }
+        if (System.getenv("JWT_EXPIRATION") == null) {
+            this.appArgs.add("--jwt.expiration=3600");
+        }
+        Files.createDirectories(this.work);
+    }
+
+    void run(List<String> modes, int runs) throws Exception {
+        Path archive = this.work.resolve("application.jsa").toAbsolutePath();
+        if (modes.stream().anyMatch(mode -> mode.contains("cds"))) {
+            System.out.println("Training the CDS archive");
+            this.train(archive);
+        }
+        System.out.printf("%-14s %5s %12s %12s %12s %12s%n",
+                "mode", "runs", "started ms", "login ms", "first read", "best read");
+        for (String mode : modes) {
+            List<String> jvm = new ArrayList<>();
+            List<String> app = new ArrayList<>();
+            switch (mode) {
+                case "default" -> { }
+                case "aot" -> jvm.add("-Dspring.aot.enabled=true");
+                case "aot-cds" -> jvm.addAll(List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive));
+                case "aot-cds-lazy" -> {
+                    jvm.addAll(List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive));
+                    app.add("--spring.main.lazy-initialization=true");
+                }
+                default -> throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+            long[] started = new long[runs];
+            long[] login = new long[runs];
+            long[] read = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] times = this.start(mode + "-" + run, jvm, app);
+                started[run] = times[0];
+                login[run] = times[1];
+                read[run] = times[2];
+            }
+            System.out.printf("%-14s %5d %12d %12d %12d %12d%n",
+                    mode, runs, median(started), median(login), median(read), Arrays.stream(read).min().orElse(0));
+        }
+    }
+
+    // Same flags as the fast-startup build: AOT on, exit once the context is refreshed
+    private void train(Path archive) throws Exception {
+        Files.deleteIfExists(archive);
+        Process process = this.launch("training", List.of("-XX:ArchiveClassesAtExit=" + archive,
+                "-Dspring.aot.enabled=true", "-Dspring.context.exit=onRefresh"), List.of());
+        if (!process.waitFor(TIMEOUT.toSeconds(), TimeUnit.SECONDS) || process.exitValue() != 0 || !Files.exists(archive)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("CDS training failed, see " + this.work.resolve("training.log"));
+        }
+    }
+
+    // Milliseconds from launch until the context reported started, the first login and the first post listing
+    private long[] start(String name, List<String> jvm, List<String> app) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> args = new ArrayList<>(app);
+        args.add("--server.port=" + port);
+        long launched = System.nanoTime();
+        Process process = this.launch(name, jvm, args);
+        try {
+            String base = "http://localhost:" + port;
+            String token = null;
+            while (token == null) {
+                if (!process.isAlive() || System.nanoTime() - launched > TIMEOUT.toNanos()) {
+                    throw new IllegalStateException("Application did not start, see " + this.work.resolve(name + ".log"));
+                }
+                token = this.login(base);
+                if (token == null) {
+                    Thread.sleep(10);
+                }
+            }
+            long login = System.nanoTime();
+            HttpResponse<String> posts = this.client.send(HttpRequest.newBuilder(URI.create(base + "/api/posts?pageSize=10"))
+                    .header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+            long read = System.nanoTime();
+            if (posts.statusCode() != 200) {
+                throw new IllegalStateException("First read failed with " + posts.statusCode());
+            }
+            Matcher started = STARTED.matcher(Files.readString(this.work.resolve(name + ".log")));
+            return new long[]{started.find() ? (long) (Double.parseDouble(started.group(1)) * 1000) : -1,
+                    TimeUnit.NANOSECONDS.toMillis(login - launched), TimeUnit.NANOSECONDS.toMillis(read - launched)};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private Process launch(String name, List<String> jvm, List<String> app) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvm);
+        command.addAll(List.of("-cp", String.join(File.pathSeparator, this.classpath), "com.BlogApp.BlogAppApplication"));
+        command.addAll(this.appArgs);
+        command.addAll(app);
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(this.work.resolve(name + ".log").toFile())
+                .start();
+    }
+
+    private String login(String base) throws InterruptedException {
+        try {
+            HttpResponse<String> response = this.client.send(HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"admin\",\"password\":\"admin\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Matcher token = TOKEN.matcher(response.body());
+            return response.statusCode() == 200 && token.find() ? token.group(1) : null;
+        } catch (IOException e) {
+            // not listening yet
+            return null;
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
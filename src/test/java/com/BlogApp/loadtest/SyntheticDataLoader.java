@@ -0,0 +1,255 @@
+package com.BlogApp.loadtest;
+
+import com.BlogApp.entities.PostBody;
+import com.BlogApp.entities.PostHtml;
+import com.BlogApp.render.PostHtmlRenderer;
+import com.BlogApp.search.MinHash;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.Random;
+
+// Fills an empty, migrated database with users, categories, posts and comments using batched JDBC inserts,
+// one transaction per batch. Rows are written the way the services write them: every post has its body,
+// rendered HTML and MinHash signature. Ids start after the existing rows and the id generators are moved past them.
+public class SyntheticDataLoader {
+
+    public static final String[] WORDS = {
+            "spring", "boot", "java", "query", "index", "cache", "latency", "thread", "pool", "replica", "transaction",
+            "commit", "memory", "heap", "garbage", "collector", "kernel", "socket", "buffer", "stream", "batch", "queue",
+            "lock", "mutex", "schema", "migration", "flyway", "hibernate", "entity", "repository", "service", "controller",
+            "request", "response", "header", "token", "security", "filter", "endpoint", "metric", "histogram", "trace",
+            "profile", "benchmark", "throughput", "capacity", "shard", "partition", "cluster", "node", "leader", "follower"};
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int COMPRESS_THRESHOLD = 1024;
+
+    private final DataSource dataSource;
+    private final Random random = new Random(42);
+    private final PostHtmlRenderer renderer = new PostHtmlRenderer();
+
+    public SyntheticDataLoader(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Post ids of the loaded posts are firstPostId to lastPostId
+    public static final class Dataset {
+        private final int firstPostId;
+        private final int lastPostId;
+        private final int firstCategoryId;
+        private final int lastCategoryId;
+
+        Dataset(int firstPostId, int lastPostId, int firstCategoryId, int lastCategoryId) {
+            this.firstPostId = firstPostId;
+            this.lastPostId = lastPostId;
+            this.firstCategoryId = firstCategoryId;
+            this.lastCategoryId = lastCategoryId;
+        }
+
+        public int getFirstPostId() {
+            return firstPostId;
+        }
+
+        public int getLastPostId() {
+            return lastPostId;
+        }
+
+        public int getFirstCategoryId() {
+            return firstCategoryId;
+        }
+
+        public int getLastCategoryId() {
+            return lastCategoryId;
+        }
+    }
+
+    public Dataset load(int users, int categories, int posts, int commentsPerPost) throws SQLException {
+        long started = System.nanoTime();
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            int firstUserId = maxId(connection, "users", "id") + 1;
+            int firstCategoryId = maxId(connection, "categories", "category_id") + 1;
+            int firstPostId = maxId(connection, "posts", "post_id") + 1;
+            int firstCommentId = maxId(connection, "comments", "id") + 1;
+
+            // one hash for everyone, bcrypt is slow on purpose
+            String password = new BCryptPasswordEncoder().encode("Secret@123");
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into users (id, user_name, email, password, about) values (?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < users; i++) {
+                    int id = firstUserId + i;
+                    insert.setInt(1, id);
+                    insert.setString(2, "user " + id);
+                    insert.setString(3, "user" + id + "@example.com");
+                    insert.setString(4, password);
+                    insert.setString(5, this.sentence(8));
+                    add(connection, insert, i);
+                }
+                flush(connection, insert);
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into categories (category_id, title, description) values (?, ?, ?)")) {
+                for (int i = 0; i < categories; i++) {
+                    insert.setInt(1, firstCategoryId + i);
+                    insert.setString(2, this.word() + " " + (firstCategoryId + i));
+                    insert.setString(3, this.sentence(10));
+                    add(connection, insert, i);
+                }
+                flush(connection, insert);
+            }
+            this.loadPosts(connection, posts, firstPostId, firstUserId, users, firstCategoryId, categories);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into comments (id, content, post_id, path) values (?, ?, ?, ?)")) {
+                for (int i = 0; i < posts * commentsPerPost; i++) {
+                    insert.setInt(1, firstCommentId + i);
+                    insert.setString(2, this.sentence(5 + this.random.nextInt(20)));
+                    insert.setInt(3, firstPostId + i / commentsPerPost);
+                    // top-level comments, see V14__comment_threads.sql
+                    insert.setString(4, String.format("%010d/", firstCommentId + i));
+                    add(connection, insert, i);
+                }
+                flush(connection, insert);
+            }
+
+            moveIdsPast(connection, "users", "id", firstUserId + users);
+            moveIdsPast(connection, "categories", "category_id", firstCategoryId + categories);
+            moveIdsPast(connection, "posts", "post_id", firstPostId + posts);
+            moveIdsPast(connection, "comments", "id", firstCommentId + posts * commentsPerPost);
+            connection.commit();
+
+            System.out.printf("Loaded %d users, %d categories, %d posts and %d comments in %.1f s%n",
+                    users, categories, posts, posts * commentsPerPost, (System.nanoTime() - started) / 1e9);
+            return new Dataset(firstPostId, firstPostId + posts - 1, firstCategoryId, firstCategoryId + categories - 1);
+        }
+    }
+
+    private void loadPosts(Connection connection, int posts, int firstPostId, int firstUserId, int users,
+                           int firstCategoryId, int categories) throws SQLException {
+        long now = System.currentTimeMillis();
+        try (PreparedStatement post = connection.prepareStatement("insert into posts (post_id, post_title, description, "
+                + "image_name, added_date, category_id, user_id) values (?, ?, ?, 'default.png', ?, ?, ?)");
+             PreparedStatement body = connection.prepareStatement(
+                     "insert into post_bodies (post_id, compressed, body, content_hash) values (?, ?, ?, ?)");
+             PreparedStatement html = connection.prepareStatement(
+                     "insert into post_html (post_id, content_hash, compressed, html) values (?, ?, ?, ?)");
+             PreparedStatement signature = connection.prepareStatement(
+                     "insert into post_signatures (post_id, signature, shingles) values (?, ?, ?)")) {
+            for (int i = 0; i < posts; i++) {
+                int id = firstPostId + i;
+                String title = this.sentence(3 + this.random.nextInt(5));
+                String content = this.article();
+
+                post.setInt(1, id);
+                post.setString(2, title.length() > 100 ? title.substring(0, 100) : title);
+                post.setString(3, content.substring(0, 99));
+                // spread over the last year, newest last
+                post.setTimestamp(4, new Timestamp(now - (long) (posts - i) * 365L * 24 * 3600 * 1000 / posts));
+                post.setInt(5, firstCategoryId + this.random.nextInt(categories));
+                post.setInt(6, firstUserId + this.random.nextInt(users));
+                post.addBatch();
+
+                PostBody postBody = new PostBody(id);
+                postBody.setText(content, COMPRESS_THRESHOLD);
+                body.setInt(1, id);
+                body.setBoolean(2, postBody.isCompressed());
+                body.setBytes(3, postBody.getBody());
+                body.setString(4, postBody.getContentHash());
+                body.addBatch();
+
+                PostHtml postHtml = new PostHtml(id);
+                postHtml.setText(this.renderer.render(content), COMPRESS_THRESHOLD);
+                html.setInt(1, id);
+                html.setString(2, postBody.getContentHash());
+                html.setBoolean(3, postHtml.isCompressed());
+                html.setBytes(4, postHtml.getHtml());
+                html.addBatch();
+
+                signature.setInt(1, id);
+                signature.setBytes(2, MinHash.toBytes(MinHash.signature(title + "\n" + content)));
+                signature.setBytes(3, MinHash.toBytes(MinHash.shingles(title + "\n" + content)));
+                signature.addBatch();
+
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    flush(connection, post, body, html, signature);
+                }
+            }
+            flush(connection, post, body, html, signature);
+        }
+    }
+
+    private static void add(Connection connection, PreparedStatement insert, int index) throws SQLException {
+        insert.addBatch();
+        if ((index + 1) % BATCH_SIZE == 0) {
+            flush(connection, insert);
+        }
+    }
+
+    // Parents before children, the foreign keys are checked per statement
+    private static void flush(Connection connection, PreparedStatement... inserts) throws SQLException {
+        for (PreparedStatement insert : inserts) {
+            insert.executeBatch();
+        }
+        connection.commit();
+    }
+
+    private static int maxId(Connection connection, String table, String column) throws SQLException {
+        try (Statement query = connection.createStatement();
+             ResultSet max = query.executeQuery("select coalesce(max(" + column + "), 0) from " + table)) {
+            max.next();
+            return max.getInt(1);
+        }
+    }
+
+    // User ids come from the users_seq table generator (allocation size 50), the others are auto_increment
+    private static void moveIdsPast(Connection connection, String table, String column, int nextId) throws SQLException {
+        try (Statement update = connection.createStatement()) {
+            if (table.equals("users")) {
+                update.executeUpdate("update users_seq set next_val = " + (nextId + 50));
+            } else if (connection.getMetaData().getDatabaseProductName().equals("H2")) {
+                update.executeUpdate("alter table " + table + " alter column " + column + " restart with " + nextId);
+            } else {
+                update.executeUpdate("alter table " + table + " auto_increment = " + nextId);
+            }
+        }
+    }
+
+    // Markdown paragraphs of 2-12 KB with the odd heading, list and emphasis
+    private String article() {
+        int target = 2048 + this.random.nextInt(10 * 1024);
+        StringBuilder article = new StringBuilder(target + 256);
+        while (article.length() < target) {
+            switch (this.random.nextInt(8)) {
+                case 0 -> article.append("## ").append(this.sentence(4)).append("\n\n");
+                case 1 -> {
+                    for (int item = 0; item < 3; item++) {
+                        article.append("- ").append(this.sentence(6)).append('\n');
+                    }
+                    article.append('\n');
+                }
+                default -> {
+                    for (int s = 0; s < 4 + this.random.nextInt(6); s++) {
+                        article.append(this.sentence(8 + this.random.nextInt(12))).append(". ");
+                    }
+                    article.append("*").append(this.word()).append("* matters.\n\n");
+                }
+            }
+        }
+        return article.toString();
+    }
+
+    private String sentence(int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            String word = this.word();
+            sentence.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : " " + word);
+        }
+        return sentence.toString();
+    }
+
+    private String word() {
+        // skewed towards the start of the list, like real word frequencies
+        double r = this.random.nextDouble();
+        return WORDS[(int) (r * r * WORDS.length)];
+    }
+}
@@ -0,0 +1,158 @@
+package com.BlogApp.purge;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.entities.PurgeJob;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.CategoryDto;
+import com.BlogApp.payloads.CommentDto;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.UserDto;
+import com.BlogApp.repositories.PurgeJobRepo;
+import com.BlogApp.services.CategoryService;
+import com.BlogApp.services.CommentService;
+import com.BlogApp.services.FollowService;
+import com.BlogApp.services.PostService;
+import com.BlogApp.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The scheduled purge is pushed out of the way, chunks of two rows make every step observable
+@SpringBootTest(properties = {"app.purge.interval-ms=3600000", "app.purge.chunk-size=2",
+        "app.outbox.poll-interval-ms=3600000"})
+class ContentPurgerTests {
+
+    @Autowired
+    private ContentPurger purger;
+
+    @Autowired
+    private PurgeJobRepo purgeJobRepo;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestContent content;
+
+    private UserDto user;
+
+    @BeforeEach
+    void reset() {
+        purgeJobRepo.deleteAll();
+        user = content.user("purge author");
+    }
+
+    @Test
+    void deletedCategoryIsHiddenAtOnceAndPurgedInChunks() {
+        CategoryDto category = content.category("purge");
+        List<PostDto> posts = createPosts(category, 3, 3);
+
+        categoryService.deleteCategory(category.getCategoryId());
+
+        assertThrows(ResourceNotFoundException.class, () -> categoryService.getCategory(category.getCategoryId()));
+        assertThrows(ResourceNotFoundException.class, () -> postService.getPostById(posts.get(0).getPostId()));
+        assertEquals(3, countPosts("category_id = ?", category.getCategoryId()));
+
+        // one chunk of comments per transaction
+        assertTrue(purger.purgeChunk(pendingJob().getId()));
+        assertEquals(7, countComments(category.getCategoryId()));
+        assertEquals(2, pendingJob().getCommentsDeleted());
+
+        // a later run resumes from what is left
+        purger.purge();
+        assertEquals(0, countComments(category.getCategoryId()));
+        assertEquals(0, countPosts("category_id = ?", category.getCategoryId()));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from categories where category_id = ?",
+                Integer.class, category.getCategoryId()));
+
+        PurgeJob job = purgeJobRepo.findAll().get(0);
+        assertNotNull(job.getCompletedAt());
+        assertEquals(3, job.getPostsDeleted());
+        assertEquals(9, job.getCommentsDeleted());
+    }
+
+    @Test
+    void deletedUserHidesTheirPostsInEveryCategory() {
+        List<PostDto> posts = new ArrayList<>(createPosts(content.category("purge"), 1, 1));
+        posts.addAll(createPosts(content.category("purge"), 1, 0));
+        UserDto followee = content.user("purge author");
+        followService.follow(user.getId(), followee.getId());
+        followService.follow(content.user("purge author").getId(), user.getId());
+
+        userService.deleteUser(user.getId());
+
+        for (PostDto post : posts) {
+            assertThrows(ResourceNotFoundException.class, () -> postService.getPostById(post.getPostId()));
+        }
+        purger.purge();
+        assertEquals(0, countPosts("user_id = ?", user.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from users where id = ?", Integer.class, user.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from follows where follower_id = ? or followee_id = ?",
+                Integer.class, user.getId(), user.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject("select follower_count from users where id = ?",
+                Integer.class, followee.getId()));
+    }
+
+    @Test
+    void deletedPostIsPurgedWithItsComments() {
+        CategoryDto category = content.category("purge");
+        List<PostDto> posts = createPosts(category, 2, 2);
+
+        postService.deletePost(posts.get(0).getPostId());
+        assertThrows(ResourceNotFoundException.class, () -> postService.getPostById(posts.get(0).getPostId()));
+
+        purger.purge();
+        assertEquals(1, countPosts("category_id = ?", category.getCategoryId()));
+        assertEquals(2, countComments(category.getCategoryId()));
+        assertEquals(posts.get(1).getPostId(), postService.getPostById(posts.get(1).getPostId()).getPostId());
+    }
+
+    private PurgeJob pendingJob() {
+        return purgeJobRepo.findById(purgeJobRepo.findPendingIds().get(0)).orElseThrow();
+    }
+
+    private int countPosts(String where, Object arg) {
+        return jdbcTemplate.queryForObject("select count(*) from posts where " + where, Integer.class, arg);
+    }
+
+    private int countComments(int categoryId) {
+        return jdbcTemplate.queryForObject("select count(*) from comments c join posts p on p.post_id = c.post_id "
+                + "where p.category_id = ?", Integer.class, categoryId);
+    }
+
+    private List<PostDto> createPosts(CategoryDto category, int posts, int commentsEach) {
+        List<PostDto> created = new ArrayList<>();
+        for (int i = 0; i < posts; i++) {
+            PostDto post = content.post(user.getId(), category.getCategoryId(), "purge post " + i, "content");
+            for (int j = 0; j < commentsEach; j++) {
+                CommentDto comment = new CommentDto();
+                comment.setContent("comment " + j);
+                commentService.createComment(comment, post.getPostId());
+            }
+            created.add(post);
+        }
+        return created;
+    }
+}
@@ -0,0 +1,122 @@
+package com.BlogApp.render;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.cache.CacheInvalidator;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.repositories.PostBodyRepo;
+import com.BlogApp.services.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.outbox.poll-interval-ms=3600000")
+class PostHtmlRendererTests {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PostHtmlRenderer renderer;
+
+    @Autowired
+    private PostBodyRepo postBodyRepo;
+
+    @Autowired
+    private TestContent content;
+
+    @Test
+    void htmlIsRenderedAfterCommitAndSanitized() {
+        PostDto post = createPost("# Heading\n\nSome *text* <script>alert(1)</script> [link](javascript:alert(1))");
+
+        String html = awaitHtml(post.getPostId());
+        assertTrue(html.contains("<h1>Heading</h1>"));
+        assertTrue(html.contains("<em>text</em>"));
+        assertTrue(html.contains("&lt;script&gt;"));
+        assertFalse(html.contains("javascript:"));
+        assertEquals(storedHash("post_bodies", post.getPostId()), storedHash("post_html", post.getPostId()));
+        // the cached post was completed with the HTML, only the create went through the invalidation journal
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from cache_invalidations where cache_name = ? and entity_id = ?",
+                Integer.class, CacheInvalidator.POSTS, post.getPostId()));
+    }
+
+    @Test
+    void updatedContentIsRenderedAgain() {
+        PostDto post = createPost("first **version**");
+        assertTrue(awaitHtml(post.getPostId()).contains("<strong>version</strong>"));
+
+        post.setContent("second _version_");
+        postService.updatePost(post, post.getPostId());
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> {
+            String html = postService.getPostById(post.getPostId()).getHtml();
+            // the first rendering is never served for the second version
+            assertFalse(html != null && html.contains("<strong>"));
+            return html != null;
+        });
+        assertTrue(postService.getPostById(post.getPostId()).getHtml().contains("<em>version</em>"));
+    }
+
+    @Test
+    void postsWithoutHtmlAreRenderedOnFirstRead() {
+        PostDto post = createPost("backfilled *post*");
+        awaitHtml(post.getPostId());
+        // as a body written before post_html existed
+        jdbcTemplate.update("delete from post_html where post_id = ?", post.getPostId());
+        jdbcTemplate.update("update post_bodies set content_hash = null where post_id = ?", post.getPostId());
+        cacheManager.getCache(CacheInvalidator.POSTS).evict(post.getPostId());
+
+        // still in the bounded cache from the first render
+        assertTrue(postService.getPostById(post.getPostId()).getHtml().contains("<em>post</em>"));
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> storedHash("post_html", post.getPostId()) != null);
+        // stored with the HTML, the read itself writes nothing
+        assertEquals(storedHash("post_html", post.getPostId()), storedHash("post_bodies", post.getPostId()));
+    }
+
+    // A response may be writing the cached instance, the HTML goes into a copy
+    @Test
+    void theCachedPostIsReplacedNotChanged() {
+        PostDto post = createPost("replaced *post*");
+        awaitHtml(post.getPostId());
+        PostDto cached = new PostDto();
+        cached.setPostId(post.getPostId());
+        cached.setTitle(post.getTitle());
+        cached.setContent(post.getContent());
+        cacheManager.getCache(CacheInvalidator.POSTS).put(post.getPostId(), cached);
+
+        String hash = postBodyRepo.findById(post.getPostId()).orElseThrow().hashOfText();
+        renderer.store(post.getPostId(), hash, post.getContent());
+        assertNull(cached.getHtml());
+        PostDto completed = postService.getPostById(post.getPostId());
+        assertNotSame(cached, completed);
+        assertEquals(post.getTitle(), completed.getTitle());
+        assertTrue(completed.getHtml().contains("<em>post</em>"));
+    }
+
+    private String awaitHtml(Integer postId) {
+        await().atMost(Duration.ofSeconds(5)).until(() -> postService.getPostById(postId).getHtml() != null);
+        return postService.getPostById(postId).getHtml();
+    }
+
+    private String storedHash(String table, Integer postId) {
+        return jdbcTemplate.query("select content_hash from " + table + " where post_id = ?",
+                rs -> rs.next() ? rs.getString(1) : null, postId);
+    }
+
+    private PostDto createPost(String markdown) {
+        return content.post("markdown post", markdown);
+    }
+}
@@ -0,0 +1,309 @@
+package com.BlogApp.repositories;
+
+import com.BlogApp.entities.Post;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs every repository query against the Flyway schema on H2 (MySQL mode) and checks
+// the EXPLAIN output, so a query path without an index fails here instead of in production.
+// findByTitleContainingIgnoreCase/findByExcerptContainingIgnoreCase are unanchored LIKE scans and are not checked,
+// nor is ArchiveStatsRepo.countLivePosts, which the daily stats reconciliation runs over every post on purpose.
+// It seeds fixed ids, so it gets a database of its own.
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.BlogApp.repositories.RepositoryQueryPlanTests$RecordingInspector",
+        "spring.datasource.url=jdbc:h2:mem:query_plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryQueryPlanTests {
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private PostRepo postRepo;
+
+    @Autowired
+    private CommentRepo commentRepo;
+
+    @Autowired
+    private CategoryRepo categoryRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private PostEventRepo postEventRepo;
+
+    @Autowired
+    private CacheInvalidationRepo cacheInvalidationRepo;
+
+    @Autowired
+    private PurgeJobRepo purgeJobRepo;
+
+    @Autowired
+    private PostSignatureRepo postSignatureRepo;
+
+    @Autowired
+    private FollowRepo followRepo;
+
+    @Autowired
+    private TimelineEntryRepo timelineEntryRepo;
+
+    @Autowired
+    private TagRepo tagRepo;
+
+    @Autowired
+    private PostTagRepo postTagRepo;
+
+    @Autowired
+    private ArchiveStatsRepo archiveStatsRepo;
+
+    @Autowired
+    private AuthorStatsRepo authorStatsRepo;
+
+    @Autowired
+    private UploadSessionRepo uploadSessionRepo;
+
+    @Autowired
+    private RevokedTokenRepo revokedTokenRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("insert into users (id, user_name, email) values (1, 'author', 'author@example.com')");
+        jdbcTemplate.update("insert into categories (category_id, title) values (1, 'first'), (2, 'second')");
+        for (int i = 0; i < 200; i++) {
+            jdbcTemplate.update("insert into posts (post_title, added_date, category_id, user_id) values (?, now(), ?, 1)",
+                    "title " + i, i % 2 + 1);
+        }
+        jdbcTemplate.update("insert into comments (content, post_id, path) select 'comment', post_id, '' from posts");
+        jdbcTemplate.update("update comments set path = concat(lpad(id, 10, '0'), '/')");
+        jdbcTemplate.update("insert into post_events (type, post_id, created_at, attempts, next_attempt_at) "
+                + "select 'CREATED', post_id, now(), 0, now() from posts");
+        jdbcTemplate.update("insert into purge_jobs (target_type, target_id, posts_deleted, comments_deleted, created_at, completed_at) "
+                + "select 'POST', post_id, 0, 0, now(), now() from posts");
+        jdbcTemplate.update("insert into cache_invalidations (cache_name, entity_id, created_at) "
+                + "select 'posts', post_id, now() from posts");
+        jdbcTemplate.update("insert into post_signatures (post_id, signature, shingles) select post_id, x'00', x'00' from posts where post_id % 2 = 0");
+        jdbcTemplate.update("insert into users (id, user_name, email, follower_count) values (2, 'reader', 'reader@example.com', 1)");
+        jdbcTemplate.update("insert into follows (follower_id, followee_id, created_at) values (2, 1, now()), (1, 2, now())");
+        jdbcTemplate.update("insert into timeline_entries (user_id, post_id, author_id) select 2, post_id, 1 from posts");
+        jdbcTemplate.update("insert into tags (tag_id, name) values (1, 'java'), (2, 'spring')");
+        jdbcTemplate.update("insert into post_tags (post_id, tag_id) select post_id, 1 + post_id % 2 from posts");
+    }
+
+    @Test
+    void findByIdUsesPrimaryKeys() {
+        assertIndexed(plansOf(() -> postRepo.findById(10)));
+        assertIndexed(plansOf(() -> userRepo.findById(1)));
+        assertIndexed(plansOf(() -> categoryRepo.findById(1)));
+        assertIndexed(plansOf(() -> commentRepo.findById(1)));
+    }
+
+    @Test
+    void findByCategoryAndUserUseIndexes() {
+        assertIndexed(plansOf(() -> postRepo.findByCategoryOrderByAddedDateDesc(categoryRepo.getReferenceById(1))));
+        assertIndexed(plansOf(() -> postRepo.findByUserOrderByAddedDateDesc(userRepo.getReferenceById(1))));
+    }
+
+    @Test
+    void findByCategoryAndUserAreNewestFirst() {
+        jdbcTemplate.update("update posts set added_date = dateadd('MINUTE', mod(post_id * 37, 200), now())");
+        List<Post> byCategory = postRepo.findByCategoryOrderByAddedDateDesc(categoryRepo.getReferenceById(1));
+        List<Post> byUser = postRepo.findByUserOrderByAddedDateDesc(userRepo.getReferenceById(1));
+        assertEquals(100, byCategory.size());
+        assertEquals(200, byUser.size());
+        assertNewestFirst(byCategory);
+        assertNewestFirst(byUser);
+    }
+
+    private static void assertNewestFirst(List<Post> posts) {
+        for (int i = 1; i < posts.size(); i++) {
+            assertFalse(posts.get(i).getAddedDate().after(posts.get(i - 1).getAddedDate()),
+                    "post " + posts.get(i).getPostId() + " is newer than " + posts.get(i - 1).getPostId());
+        }
+    }
+
+    @Test
+    void commentsByPostUseIndex() {
+        assertIndexed(plansOf(() -> commentRepo.findByPostIds(List.of(1, 2, 3))));
+    }
+
+    @Test
+    void commentThreadQueriesUseIndexes() {
+        assertIndexed(plansOf(() -> commentRepo.findTopLevel(1, "", PageRequest.of(0, 10))));
+        assertIndexed(plansOf(() -> commentRepo.findReplies(1, 1, 3, "0000000001/", "0000000001/~", PageRequest.of(0, 100))));
+    }
+
+    // H2 cannot scan an index backwards, so each sortBy is checked in the direction its index is declared.
+    // MySQL serves the opposite direction from the same index.
+    @Test
+    void getAllPostsSortOrdersAreIndexSorted() {
+        for (Sort sort : List.of(Sort.by("postId").ascending(), Sort.by("title").ascending(), Sort.by("addedDate").descending())) {
+            List<String> plans = plansOf(() -> postRepo.findAll(PageRequest.of(2, 10, sort)));
+            assertTrue(plans.get(0).contains("/* index sorted */"), sort + " is not index sorted: " + plans.get(0));
+            assertIndexed(plans);
+        }
+    }
+
+    @Test
+    void findFieldsUsesIndexes() {
+        Specification<Post> byCategory = (post, query, cb) -> cb.equal(post.get("category").get("categoryId"), 1);
+        Specification<Post> byUser = (post, query, cb) -> cb.equal(post.get("user").get("id"), 1);
+
+        assertIndexed(plansOf(() -> postRepo.findFields(Set.of("postId", "title", "category"), byCategory, Sort.unsorted())));
+        assertIndexed(plansOf(() -> postRepo.findFields(Set.of("postId", "title", "user"), byUser, Sort.unsorted())));
+        assertIndexed(plansOf(() -> postRepo.findFields(Set.of("postId", "addedDate"), null,
+                PageRequest.of(1, 10, Sort.by("addedDate").descending()))));
+    }
+
+    @Test
+    void outboxPollUsesIndex() {
+        assertIndexed(plansOf(() -> postEventRepo.findReady(new Date(), PageRequest.of(0, 100))));
+        assertIndexed(plansOf(() -> postEventRepo.countByNextAttemptAtIsNotNull()));
+        assertIndexed(plansOf(() -> postEventRepo.findFirstByNextAttemptAtIsNotNullOrderByIdAsc()));
+    }
+
+    @Test
+    void titleIndexLoadUsesPrimaryKey() {
+        assertIndexed(plansOf(() -> postRepo.findTitlesAfter(100, PageRequest.of(0, 10000))));
+        assertIndexed(plansOf(() -> postRepo.findTitlesByIds(List.of(1, 2, 3))));
+    }
+
+    @Test
+    void purgeQueriesUseIndexes() {
+        assertIndexed(plansOf(() -> postRepo.findIdsToPurgeByCategory(1, 500)));
+        assertIndexed(plansOf(() -> postRepo.findIdsToPurgeByUser(1, 500)));
+        assertIndexed(plansOf(() -> postRepo.findIdsToPurgeByPost(1)));
+        assertIndexed(plansOf(() -> commentRepo.findIdsToPurge(List.of(1, 2, 3), 500)));
+        assertIndexed(plansOf(() -> purgeJobRepo.findPendingIds()));
+    }
+
+    @Test
+    void signatureQueriesUseIndexes() {
+        assertIndexed(plansOf(() -> postSignatureRepo.findLiveAfter(100, PageRequest.of(0, 10000))));
+        assertIndexed(plansOf(() -> postSignatureRepo.findLiveByIds(List.of(2, 4, 6))));
+        assertIndexed(plansOf(() -> postSignatureRepo.findPostIdsWithoutSignatureAfter(100, PageRequest.of(0, 10000))));
+    }
+
+    @Test
+    void cacheJournalQueriesUseIndexes() {
+        assertIndexed(plansOf(() -> cacheInvalidationRepo.findByIdGreaterThanOrderByIdAsc(150L, PageRequest.of(0, 500))));
+        assertIndexed(plansOf(() -> cacheInvalidationRepo.findMaxId()));
+    }
+
+    @Test
+    void timelineQueriesUseIndexes() {
+        assertIndexed(plansOf(() -> timelineEntryRepo.findPostIds(2, 100, PageRequest.of(0, 10))));
+        assertIndexed(plansOf(() -> timelineEntryRepo.findTrimPoint(2, 50)));
+        assertIndexed(plansOf(() -> followRepo.findPulledFolloweeIds(2, 0)));
+        assertIndexed(plansOf(() -> followRepo.findFollowerIdsAfter(1, 0, 1000)));
+        assertIndexed(plansOf(() -> postRepo.findIdsByUsersBefore(List.of(1), 100, PageRequest.of(0, 10))));
+        assertIndexed(plansOf(() -> postRepo.findAuthorsByIds(List.of(1, 2, 3))));
+    }
+
+    @Test
+    void tagQueriesUseIndexes() {
+        assertIndexed(plansOf(() -> tagRepo.findByNameIn(List.of("java", "jpa"))));
+        assertIndexed(plansOf(() -> postTagRepo.findNamesByPostIds(List.of(1, 2, 3))));
+        assertIndexed(plansOf(() -> postTagRepo.findLiveNamesBetween(100, 150)));
+        assertIndexed(plansOf(() -> postTagRepo.findLiveNamesByPostIds(List.of(1, 2, 3))));
+        assertIndexed(plansOf(() -> postRepo.findCategoriesAfter(100, PageRequest.of(0, 10000))));
+        assertIndexed(plansOf(() -> postRepo.findCategoriesByIds(List.of(1, 2, 3))));
+    }
+
+    @Test
+    void statsQueriesUseIndexes() {
+        assertIndexed(plansOf(() -> archiveStatsRepo.findMonths()));
+        assertIndexed(plansOf(() -> archiveStatsRepo.findMonthsByCategory(1)));
+        assertIndexed(plansOf(() -> archiveStatsRepo.countPostsOfUser(1)));
+        assertIndexed(plansOf(() -> authorStatsRepo.findById(1)));
+        assertIndexed(plansOf(() -> authorStatsRepo.findBetween(0, 1000)));
+        assertIndexed(plansOf(() -> authorStatsRepo.countLivePostsBetween(0, 1000)));
+        assertIndexed(plansOf(() -> authorStatsRepo.countPostsInCategory(1)));
+        assertIndexed(plansOf(() -> authorStatsRepo.refreshLastPosted(List.of(1, 2))));
+        assertIndexed(plansOf(() -> commentRepo.countByPost(1)));
+        assertIndexed(plansOf(() -> userRepo.findAllIdsAfter(0, 1000)));
+    }
+
+    @Test
+    void uploadQueriesUseIndexes() {
+        assertIndexed(plansOf(() -> uploadSessionRepo.findById("00000000-0000-0000-0000-000000000000")));
+        assertIndexed(plansOf(() -> uploadSessionRepo.claim("00000000-0000-0000-0000-000000000000", 0,
+                "00000000-0000-0000-0000-000000000001", new Date(), new Date())));
+        assertIndexed(plansOf(() -> uploadSessionRepo.advance("00000000-0000-0000-0000-000000000000",
+                "00000000-0000-0000-0000-000000000001", 10, new Date())));
+        assertIndexed(plansOf(() -> uploadSessionRepo.findExpired(new Date(), PageRequest.of(0, 100))));
+    }
+
+    @Test
+    void revocationQueriesUseIndexes() {
+        assertIndexed(plansOf(() -> revokedTokenRepo.existsById("00000000-0000-0000-0000-000000000000")));
+        assertIndexed(plansOf(() -> revokedTokenRepo.findJtisRevokedSince(new Date())));
+        assertIndexed(plansOf(() -> revokedTokenRepo.findLiveJtis(new Date())));
+        assertIndexed(plansOf(() -> revokedTokenRepo.findExpiredJtis(new Date(), PageRequest.of(0, 1000))));
+        assertIndexed(plansOf(() -> revokedTokenRepo.purge(List.of("00000000-0000-0000-0000-000000000000"))));
+    }
+
+    private List<String> plansOf(Runnable call) {
+        entityManager.clear();
+        RecordingInspector.STATEMENTS.clear();
+        call.run();
+        List<String> plans = new ArrayList<>();
+        for (String sql : RecordingInspector.STATEMENTS) {
+            // EXPLAIN plans the statement with its parameters unbound, it does not take a locking clause
+            String explain = "explain " + sql.replaceAll(" for update.*$", "");
+            plans.add(jdbcTemplate.query(connection -> connection.prepareStatement(explain),
+                    (ResultSetExtractor<String>) rs -> rs.next() ? rs.getString(1) : ""));
+        }
+        assertFalse(plans.isEmpty(), "no statement was executed");
+        return plans;
+    }
+
+    // A full scan is only acceptable for a count of every row, which H2 answers without reading rows,
+    // or of every live post (the Post soft-delete restriction and nothing else), which reads them as MySQL does
+    private void assertIndexed(List<String> plans) {
+        for (String plan : plans) {
+            assertTrue(!plan.contains(".tableScan") || plan.contains("/* direct lookup */") || countsLivePosts(plan),
+                    "full table scan: " + plan);
+        }
+    }
+
+    private static boolean countsLivePosts(String plan) {
+        return plan.startsWith("SELECT\n    COUNT(")
+                && plan.contains("WHERE (\"p1_0\".\"deleted_at\" IS NULL)\n    AND (NOT EXISTS(")
+                && plan.endsWith("AND (\"du\".\"id\" = \"p1_0\".\"user_id\")))");
+    }
+}
@@ -0,0 +1,46 @@
+package com.BlogApp.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTests {
+
+    @Test
+    void addedKeysAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("key-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("key-" + i));
+        }
+    }
+
+    @Test
+    void falsePositivesStayNearTheRateAtCapacity() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        assertEquals(7, filter.hashCount());
+        assertTrue(filter.bitCount() >= 95_850);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1_500, falsePositives + " false positives in 100000");
+    }
+
+    @Test
+    void putReportsKeysAlreadyAdded() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertFalse(filter.mightContain("jti"));
+        assertTrue(filter.put("jti"));
+        assertFalse(filter.put("jti"));
+    }
+}
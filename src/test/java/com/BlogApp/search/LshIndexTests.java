@@ -0,0 +1,77 @@
+package com.BlogApp.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LshIndexTests {
+
+    private static final String CACHING = "Caching database queries with Caffeine keeps latency low when traffic grows "
+            + "and the cache is invalidated through a journal table";
+
+    @Test
+    void similarPostsAreRelatedMostSimilarFirst() {
+        LshIndex index = new LshIndex(16);
+        index.put(1, MinHash.signature(CACHING));
+        index.put(2, MinHash.signature(CACHING + " on every node"));
+        index.put(3, MinHash.signature("Caching database queries with Caffeine keeps latency low"));
+        index.put(4, MinHash.signature("Gardening tomatoes on a balcony during a hot summer"));
+
+        List<LshIndex.Match> related = index.related(1, 10, 0.2);
+        assertEquals(List.of(2, 3), ids(related));
+        assertTrue(related.get(0).getSimilarity() > related.get(1).getSimilarity());
+        assertEquals(List.of(2), ids(index.related(1, 1, 0.2)));
+        assertTrue(index.related(4, 10, 0.2).isEmpty());
+        assertTrue(index.related(99, 10, 0.2).isEmpty());
+    }
+
+    @Test
+    void updatesAndRemovesKeepChainsConsistent() {
+        LshIndex index = new LshIndex(16);
+        index.put(1, MinHash.signature(CACHING));
+        index.put(2, MinHash.signature(CACHING));
+        index.put(3, MinHash.signature(CACHING));
+
+        index.put(2, MinHash.signature("Gardening tomatoes on a balcony during a hot summer"));
+        assertEquals(List.of(3), ids(index.related(1, 10, 0.2)));
+
+        index.remove(3);
+        assertTrue(index.related(1, 10, 0.2).isEmpty());
+        index.put(4, MinHash.signature(CACHING));
+        assertEquals(List.of(4), ids(index.related(1, 10, 0.2)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        LshIndex index = new LshIndex(16);
+        for (int i = 1; i <= 1000; i++) {
+            int group = i % 10;
+            index.put(i, MinHash.signature("post number" + i + " about topic" + group + " theme" + group
+                    + " subject" + group + " area" + group));
+        }
+        List<LshIndex.Match> related = index.related(7, 200, 0.5);
+        assertEquals(99, related.size());
+        assertTrue(related.stream().allMatch(match -> match.getPostId() % 10 == 7));
+    }
+
+    @Test
+    void signaturesEstimateJaccardSimilarity() {
+        // 200 shared words out of 400 distinct, Jaccard 0.5
+        StringBuilder a = new StringBuilder();
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            a.append(" word").append(i);
+            b.append(" word").append(i + 100);
+        }
+        double similarity = MinHash.similarity(MinHash.signature(a.toString()), 0, MinHash.signature(b.toString()), 0);
+        assertEquals(0.5, similarity, 0.2);
+        assertNull(MinHash.signature("a is of the"));
+    }
+
+    private static List<Integer> ids(List<LshIndex.Match> matches) {
+        return matches.stream().map(LshIndex.Match::getPostId).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package com.BlogApp.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostBitmapTests {
+
+    @Test
+    void addRemoveAndContains() {
+        PostBitmap posts = new PostBitmap();
+        posts.add(7);
+        posts.add(7);
+        posts.add(70_000);
+        posts.add(3);
+
+        assertEquals(3, posts.cardinality());
+        assertTrue(posts.contains(70_000));
+        assertFalse(posts.contains(4));
+        assertTrue(posts.remove(7));
+        assertFalse(posts.remove(7));
+        assertFalse(posts.remove(131_072));
+        assertArrayEquals(new int[]{70_000, 3}, posts.descending(Integer.MAX_VALUE, 10));
+
+        posts.remove(3);
+        posts.remove(70_000);
+        assertTrue(posts.isEmpty());
+    }
+
+    @Test
+    void descendingPagesBelowTheCursor() {
+        PostBitmap posts = new PostBitmap();
+        for (int id = 1; id <= 200_000; id += 3) {
+            posts.add(id);
+        }
+        assertArrayEquals(new int[]{199_999, 199_996}, posts.descending(Integer.MAX_VALUE, 2));
+        assertArrayEquals(new int[]{65_533, 65_530, 65_527}, posts.descending(65_536, 3));
+        assertArrayEquals(new int[]{65_539, 65_536, 65_533}, posts.descending(65_540, 3));
+        assertArrayEquals(new int[]{4, 1}, posts.descending(7, 10));
+        assertArrayEquals(new int[0], posts.descending(1, 10));
+    }
+
+    // Dense and sparse ranges, so containers switch between arrays and bitmaps both ways
+    @Test
+    void matchesASortedSetThroughRandomChanges() {
+        Random random = new Random(11);
+        PostBitmap[] bitmaps = {new PostBitmap(), new PostBitmap(), new PostBitmap()};
+        List<TreeSet<Integer>> sets = List.of(new TreeSet<>(), new TreeSet<>(), new TreeSet<>());
+        for (int round = 0; round < 200_000; round++) {
+            int which = random.nextInt(3);
+            // the first 64K ids get dense, the rest stays sparse
+            int id = random.nextBoolean() ? random.nextInt(1 << 16) : random.nextInt(1 << 22);
+            if (random.nextInt(4) == 0 || round > 150_000) {
+                assertEquals(sets.get(which).remove(id), bitmaps[which].remove(id));
+            } else {
+                bitmaps[which].add(id);
+                sets.get(which).add(id);
+            }
+            if (round % 50_000 == 0) {
+                assertContent(sets.get(which), bitmaps[which]);
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            assertContent(sets.get(i), bitmaps[i]);
+            for (int j = 0; j < 3; j++) {
+                TreeSet<Integer> and = new TreeSet<>(sets.get(i));
+                and.retainAll(sets.get(j));
+                assertContent(and, PostBitmap.and(bitmaps[i], bitmaps[j]));
+                TreeSet<Integer> or = new TreeSet<>(sets.get(i));
+                or.addAll(sets.get(j));
+                assertContent(or, PostBitmap.or(bitmaps[i], bitmaps[j]));
+            }
+        }
+    }
+
+    @Test
+    void resultsDoNotShareContainersWithTheirInputs() {
+        PostBitmap a = new PostBitmap();
+        PostBitmap b = new PostBitmap();
+        for (int id = 0; id < 10_000; id++) {
+            a.add(id);
+            b.add(id * 2);
+        }
+        PostBitmap or = PostBitmap.or(a, b);
+        or.add(123_456);
+        or.remove(5);
+        PostBitmap and = PostBitmap.and(a, b);
+        and.remove(4);
+
+        assertEquals(10_000, a.cardinality());
+        assertTrue(a.contains(5) && a.contains(4) && b.contains(4));
+        assertFalse(a.contains(123_456));
+    }
+
+    @Test
+    void denseAndSparseRangesBothStaySmall() {
+        PostBitmap dense = new PostBitmap();
+        for (int id = 0; id < 60_000; id++) {
+            dense.add(id);
+        }
+        PostBitmap sparse = new PostBitmap();
+        for (int id = 0; id < 60_000; id += 100) {
+            sparse.add(id);
+        }
+        // one 8 KB bitmap for 60000 ids, a char array for 600
+        assertTrue(dense.sizeInBytes() < 9_000, "dense: " + dense.sizeInBytes());
+        assertTrue(sparse.sizeInBytes() < 3_000, "sparse: " + sparse.sizeInBytes());
+    }
+
+    private static void assertContent(TreeSet<Integer> expected, PostBitmap actual) {
+        assertEquals(expected.size(), actual.cardinality());
+        int[] descending = expected.descendingSet().stream().mapToInt(Integer::intValue).toArray();
+        assertArrayEquals(descending, actual.descending(Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,87 @@
+package com.BlogApp.search;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.cache.CacheInvalidator;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.RelatedPost;
+import com.BlogApp.services.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The scheduled refresh is pushed out of the way, refresh() is called directly
+@SpringBootTest(properties = {"app.related.refresh-interval-ms=3600000", "app.outbox.poll-interval-ms=3600000"})
+class RelatedPostIndexTests {
+
+    private static final String REPLICAS = "Routing read only transactions to MySQL replicas while writes stay on the primary";
+
+    @Autowired
+    private RelatedPostIndex index;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestContent content;
+
+    @Test
+    void postWritesReachTheIndexOnRefresh() {
+        PostDto first = createPost("Read replicas", REPLICAS);
+        PostDto second = createPost("More read replicas", REPLICAS + " with round robin selection");
+        index.refresh();
+        assertEquals(List.of(second.getPostId()), ids(postService.getRelatedPosts(first.getPostId(), 5)));
+        assertEquals("More read replicas", postService.getRelatedPosts(first.getPostId(), 5).get(0).getTitle());
+
+        second.setTitle("Gardening");
+        second.setContent("Growing tomatoes on a balcony during a hot summer");
+        postService.updatePost(second, second.getPostId());
+        index.refresh();
+        assertTrue(postService.getRelatedPosts(first.getPostId(), 5).isEmpty());
+
+        PostDto third = createPost("Replicas again", REPLICAS);
+        index.refresh();
+        assertEquals(List.of(third.getPostId()), ids(postService.getRelatedPosts(first.getPostId(), 5)));
+        postService.deletePost(third.getPostId());
+        index.refresh();
+        assertTrue(postService.getRelatedPosts(first.getPostId(), 5).isEmpty());
+
+        assertThrows(ResourceNotFoundException.class, () -> postService.getRelatedPosts(Integer.MAX_VALUE, 5));
+    }
+
+    @Test
+    void postsWithoutSignaturesAreFilledInOnLoad() {
+        PostDto first = createPost("Outbox", "Delivering post events from an outbox table in batches");
+        PostDto second = createPost("Outbox retries", "Delivering post events from an outbox table with retries");
+        // as posts written before post_signatures existed
+        jdbcTemplate.update("delete from post_signatures where post_id in (?, ?)", first.getPostId(), second.getPostId());
+        // the backfill runs on the first load of a node only
+        ReflectionTestUtils.setField(index, "backfilled", false);
+
+        cacheInvalidator.reloadPostIndexes();
+        index.refresh();
+        assertEquals(List.of(second.getPostId()), ids(postService.getRelatedPosts(first.getPostId(), 5)));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from post_signatures where post_id in (?, ?)",
+                Integer.class, first.getPostId(), second.getPostId()));
+    }
+
+    private static List<Integer> ids(List<RelatedPost> related) {
+        return related.stream().map(RelatedPost::getPostId).toList();
+    }
+
+    private PostDto createPost(String title, String body) {
+        return content.post(title, body);
+    }
+}
@@ -0,0 +1,195 @@
+package com.BlogApp.search;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.cache.CacheInvalidator;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.payloads.CategoryDto;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.TaggedPostResponse;
+import com.BlogApp.services.CategoryService;
+import com.BlogApp.services.PostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// The scheduled refresh is pushed out of the way, refresh() is called directly.
+// Tags are shared by every test on the database, so each test uses names of its own. The journal poll is pushed out
+// too, so reloads asked for by other contexts do not reach the index; writes here evict locally. The index is a spy
+// to see when it loads.
+@SpringBootTest(properties = {"app.tags.refresh-interval-ms=3600000", "app.tags.max-per-post=3", "app.cache.poll-interval-ms=3600000"})
+class TagIndexTests {
+
+    @SpyBean
+    private TagIndex index;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestContent content;
+
+    private Integer userId;
+    private Integer categoryId;
+    private String java;
+    private String spring;
+    private String jpa;
+
+    @BeforeEach
+    void createAuthor() {
+        userId = content.user("tag author").getId();
+        categoryId = createCategory();
+        long run = System.nanoTime();
+        java = "java" + run;
+        spring = "spring" + run;
+        jpa = "jpa" + run;
+    }
+
+    @Test
+    void tagsAndCategoriesAreIntersectedAndUnited() {
+        Integer other = createCategory();
+        Integer both = createPost(categoryId, java, spring);
+        Integer javaOnly = createPost(categoryId, java);
+        Integer withJpa = createPost(categoryId, java, spring, jpa);
+        Integer elsewhere = createPost(other, java, spring);
+        index.refresh();
+
+        assertEquals(List.of(elsewhere, withJpa, both), ids(query(Set.of(java, spring), null, null, null, 10)));
+        assertEquals(List.of(withJpa, both), ids(query(Set.of(java, spring), null, categoryId, null, 10)));
+        assertEquals(List.of(withJpa, both), ids(query(Set.of(java), Set.of(jpa, spring), categoryId, null, 10)));
+        assertEquals(List.of(withJpa), ids(query(null, Set.of(jpa, "unknown" + java), null, null, 10)));
+        assertEquals(List.of(withJpa, javaOnly, both), ids(query(null, null, categoryId, null, 10)));
+        assertEquals(List.of(), ids(query(Set.of(java, "unknown" + java), null, null, null, 10)));
+    }
+
+    @Test
+    void pagesFollowTheCursor() {
+        Integer first = createPost(categoryId, java);
+        Integer second = createPost(categoryId, java);
+        Integer third = createPost(categoryId, java);
+        index.refresh();
+
+        TaggedPostResponse page = query(Set.of(java), null, null, null, 2);
+        assertEquals(List.of(third, second), ids(page));
+        assertEquals(3, page.getTotalElements());
+        TaggedPostResponse last = query(Set.of(java), null, null, page.getNextCursor(), 2);
+        assertEquals(List.of(first), ids(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void postWritesReachTheIndexOnRefresh() {
+        Integer postId = createPost(categoryId, java);
+        index.refresh();
+        assertEquals(List.of(postId), ids(query(Set.of(java), null, null, null, 10)));
+
+        PostDto changes = new PostDto();
+        changes.setTitle("Retagged");
+        changes.setContent("Now about Spring");
+        changes.setTags(Set.of(spring));
+        assertEquals(Set.of(spring), postService.updatePost(changes, postId).getTags());
+        index.refresh();
+        assertEquals(List.of(), ids(query(Set.of(java), null, null, null, 10)));
+        assertEquals(List.of(postId), ids(query(Set.of(spring), null, null, null, 10)));
+
+        // tags left out keep the current ones
+        changes.setTags(null);
+        assertEquals(Set.of(spring), postService.updatePost(changes, postId).getTags());
+        assertEquals(Set.of(spring), postService.getPostById(postId).getTags());
+
+        postService.deletePost(postId);
+        index.refresh();
+        assertEquals(0, query(Set.of(spring), null, null, null, 10).getTotalElements());
+    }
+
+    @Test
+    void aReloadReadsEveryPost() {
+        Integer postId = createPost(categoryId, java, spring);
+        index.refresh();
+        // as if written by a node whose journal entry was missed
+        jdbcTemplate.update("delete from post_tags where post_id = ?", postId);
+
+        cacheInvalidator.reloadPostIndexes();
+        index.refresh();
+        assertEquals(List.of(postId), ids(query(null, null, categoryId, null, 10)));
+        assertEquals(List.of(), ids(query(Set.of(java), null, null, null, 10)));
+    }
+
+    @Test
+    void onlyHidingEveryPostOfACategoryReloads() {
+        Integer postId = createPost(categoryId, java);
+        index.refresh();
+        clearInvocations(index);
+
+        // clears the posts cache, which embeds the category, but leaves the index alone
+        CategoryDto category = new CategoryDto();
+        category.setCategoryTitle("renamed");
+        categoryService.updateCategory(category, categoryId);
+        index.refresh();
+        verify(index, never()).load();
+        assertEquals(List.of(postId), ids(query(Set.of(java), null, categoryId, null, 10)));
+
+        categoryService.deleteCategory(categoryId);
+        index.refresh();
+        verify(index).load();
+        assertEquals(0, query(Set.of(java), null, null, null, 10).getTotalElements());
+    }
+
+    @Test
+    void namesAreNormalizedAndValidated() {
+        PostDto post = new PostDto();
+        post.setTitle("Tagged");
+        post.setContent("Tagged post");
+        post.setTags(Set.of("  " + java.toUpperCase() + " ", java, " "));
+        PostDto created = postService.createPost(post, userId, categoryId);
+        assertEquals(Set.of(java), created.getTags());
+        assertEquals(Set.of(java), postService.getPostsByIds(List.of(created.getPostId())).getPosts().get(0).getTags());
+
+        post.setTags(Set.of(java, spring, jpa, "more" + java));
+        assertThrows(BadRequestException.class, () -> postService.createPost(post, userId, categoryId));
+        post.setTags(Set.of(String.join("", Collections.nCopies(51, "x"))));
+        assertThrows(BadRequestException.class, () -> postService.createPost(post, userId, categoryId));
+        assertThrows(BadRequestException.class, () -> query(null, Set.of(" "), null, null, 10));
+        assertThrows(BadRequestException.class, () -> query(Set.of(java), null, null, null, 0));
+    }
+
+    private TaggedPostResponse query(Set<String> tags, Set<String> anyTags, Integer categoryId, Integer before, int pageSize) {
+        return postService.getPostsByTags(tags, anyTags, categoryId, before, pageSize);
+    }
+
+    private static List<Integer> ids(TaggedPostResponse response) {
+        return response.getContent().stream().map(PostDto::getPostId).toList();
+    }
+
+    private Integer createCategory() {
+        return content.category("tagged").getCategoryId();
+    }
+
+    private Integer createPost(Integer categoryId, String... tags) {
+        PostDto post = new PostDto();
+        post.setTitle("Tagged post");
+        post.setContent("About " + String.join(", ", tags));
+        post.setTags(Set.of(tags));
+        return postService.createPost(post, userId, categoryId).getPostId();
+    }
+}
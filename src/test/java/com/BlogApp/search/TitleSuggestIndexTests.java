@@ -0,0 +1,53 @@
+package com.BlogApp.search;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.PostSuggestion;
+import com.BlogApp.services.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The scheduled refresh is pushed out of the way, refresh() is called directly
+@SpringBootTest(properties = {"app.suggest.refresh-interval-ms=3600000", "app.outbox.poll-interval-ms=3600000"})
+class TitleSuggestIndexTests {
+
+    @Autowired
+    private TitleSuggestIndex index;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private TestContent content;
+
+    @Test
+    void postWritesReachTheIndexOnRefresh() {
+        PostDto post = createPost("Typeahead with tries");
+        index.refresh();
+        assertEquals(List.of(post.getPostId()), ids(postService.suggestPosts("typeahead w", 5)));
+
+        post.setTitle("Typeahead with sorted arrays");
+        postService.updatePost(post, post.getPostId());
+        assertEquals("Typeahead with tries", postService.suggestPosts("typeahead w", 5).get(0).getTitle());
+        index.refresh();
+        assertEquals("Typeahead with sorted arrays", postService.suggestPosts("typeahead w", 5).get(0).getTitle());
+
+        postService.deletePost(post.getPostId());
+        index.refresh();
+        assertTrue(postService.suggestPosts("typeahead", 5).isEmpty());
+    }
+
+    private static List<Integer> ids(List<PostSuggestion> suggestions) {
+        return suggestions.stream().map(PostSuggestion::getPostId).toList();
+    }
+
+    private PostDto createPost(String title) {
+        return content.post(title, "content");
+    }
+}
@@ -0,0 +1,76 @@
+package com.BlogApp.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TitleTrieTests {
+
+    @Test
+    void completesPrefixesNewestFirst() {
+        TitleTrie trie = new TitleTrie(10);
+        trie.put(1, "Spring Boot basics", 100);
+        trie.put(2, "Spring Security", 300);
+        trie.put(3, "Spring", 200);
+        trie.put(4, "Summer", 400);
+
+        assertEquals(List.of(2, 3, 1), ids(trie.complete("spr", 10)));
+        assertEquals(List.of(4, 2, 3, 1), ids(trie.complete("s", 10)));
+        assertEquals(List.of(1), ids(trie.complete("spring b", 10)));
+        assertEquals(List.of(2, 3, 1), ids(trie.complete("Spring", 10)));
+        assertTrue(trie.complete("springs", 10).isEmpty());
+        assertTrue(trie.complete("", 10).isEmpty());
+    }
+
+    @Test
+    void keepsOnlyTheBestKPerPrefix() {
+        TitleTrie trie = new TitleTrie(2);
+        for (int i = 1; i <= 5; i++) {
+            trie.put(i, "post " + i, i);
+        }
+        assertEquals(List.of(5, 4), ids(trie.complete("post", 10)));
+        assertEquals(List.of(5), ids(trie.complete("post", 1)));
+    }
+
+    @Test
+    void normalizesCaseAndWhitespace() {
+        TitleTrie trie = new TitleTrie(10);
+        trie.put(1, "  Hello   World ", 1);
+
+        assertEquals(List.of(1), ids(trie.complete("HELLO w", 10)));
+        assertEquals("  Hello   World ", trie.complete("hello", 10).get(0).getTitle());
+    }
+
+    @Test
+    void updatesAndRemovalsRestoreTheRanking() {
+        TitleTrie trie = new TitleTrie(2);
+        trie.put(1, "java streams", 1);
+        trie.put(2, "java records", 2);
+        trie.put(3, "java modules", 3);
+        assertEquals(List.of(3, 2), ids(trie.complete("java", 10)));
+
+        trie.remove(3);
+        assertEquals(List.of(2, 1), ids(trie.complete("java", 10)));
+        assertTrue(trie.complete("java m", 10).isEmpty());
+
+        trie.put(2, "kotlin records", 2);
+        assertEquals(List.of(1), ids(trie.complete("java", 10)));
+        assertEquals(List.of(2), ids(trie.complete("kot", 10)));
+
+        trie.remove(1);
+        trie.remove(2);
+        assertTrue(trie.complete("j", 10).isEmpty());
+        assertEquals(0, trie.size());
+
+        // the emptied branches are gone, a new title starts from a clean root
+        trie.put(4, "javascript", 4);
+        assertEquals(List.of(4), ids(trie.complete("java", 10)));
+    }
+
+    private static List<Integer> ids(List<TitleTrie.Entry> entries) {
+        return entries.stream().map(TitleTrie.Entry::getPostId).toList();
+    }
+}
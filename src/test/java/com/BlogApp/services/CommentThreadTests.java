@@ -0,0 +1,145 @@
+package com.BlogApp.services;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.CommentDto;
+import com.BlogApp.payloads.CommentThreadResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CommentThreadTests {
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TestContent content;
+
+    private Integer userId;
+    private Integer postId;
+
+    @BeforeEach
+    void createPost() {
+        userId = content.user("thread author").getId();
+        Integer categoryId = content.category("threads").getCategoryId();
+        postId = content.post(userId, categoryId, "thread post", "thread post content").getPostId();
+    }
+
+    @Test
+    void threadsLoadAsTreesDownToTheRequestedDepth() {
+        int first = comment("first");
+        int firstA = reply(first, "first a");
+        int firstB = reply(first, "first b");
+        int firstAA = reply(firstA, "first a a");
+        int second = comment("second");
+        int secondA = reply(second, "second a");
+
+        List<CommentDto> threads = commentService.getThreads(postId, null, 10, 2, 100).getContent();
+        assertEquals(List.of(first, second), ids(threads));
+        assertEquals(List.of(firstA, firstB), ids(threads.get(0).getReplies()));
+        assertEquals(List.of(firstAA), ids(threads.get(0).getReplies().get(0).getReplies()));
+        assertEquals(List.of(secondA), ids(threads.get(1).getReplies()));
+        assertEquals(2, threads.get(0).getReplyCount());
+
+        // one level only, first a says it has a reply to expand
+        CommentDto shallow = commentService.getThreads(postId, null, 10, 1, 100).getContent().get(0);
+        CommentDto shallowA = shallow.getReplies().get(0);
+        assertEquals(List.of(), shallowA.getReplies());
+        assertEquals(1, shallowA.getReplyCount());
+        CommentDto expanded = commentService.getReplies(firstA, 3, 100);
+        assertEquals(firstA, expanded.getId());
+        assertEquals(first, expanded.getParentId());
+        assertEquals(List.of(firstAA), ids(expanded.getReplies()));
+
+        // the limit is spent level by level, so the shallow replies come first
+        CommentDto limited = commentService.getThreads(postId, null, 10, 5, 2).getContent().get(0);
+        assertEquals(List.of(firstA, firstB), ids(limited.getReplies()));
+        assertEquals(List.of(), limited.getReplies().get(0).getReplies());
+
+        // posts still list every comment flat
+        assertEquals(6, postService.getPostById(postId).getComments().size());
+    }
+
+    @Test
+    void threadsArePagedByTheirTopLevelComment() {
+        int first = comment("first");
+        int second = comment("second");
+        int secondA = reply(second, "second a");
+        reply(first, "first a");
+
+        CommentThreadResponse page = commentService.getThreads(postId, null, 1, 2, 100);
+        assertEquals(List.of(first), ids(page.getContent()));
+        assertEquals(first, page.getNextCursor());
+
+        page = commentService.getThreads(postId, page.getNextCursor(), 1, 2, 100);
+        assertEquals(List.of(second), ids(page.getContent()));
+        assertEquals(List.of(secondA), ids(page.getContent().get(0).getReplies()));
+
+        page = commentService.getThreads(postId, page.getNextCursor(), 1, 2, 100);
+        assertEquals(List.of(), page.getContent());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void deletingACommentDeletesItsReplies() {
+        int first = comment("first");
+        int firstA = reply(first, "first a");
+        reply(firstA, "first a a");
+        reply(first, "first b");
+        assertEquals(4, userService.getAuthorStats(userId).getCommentCount());
+
+        commentService.deleteComment(firstA);
+        CommentDto thread = commentService.getReplies(first, 3, 100);
+        assertEquals(1, thread.getReplyCount());
+        assertEquals(1, thread.getReplies().size());
+        assertEquals(2, userService.getAuthorStats(userId).getCommentCount());
+        assertThrows(ResourceNotFoundException.class, () -> commentService.getReplies(firstA, 3, 100));
+    }
+
+    @Test
+    void nestingAndRequestsAreBounded() {
+        int parent = comment("top");
+        for (int depth = 1; depth <= 20; depth++) {
+            parent = reply(parent, "level " + depth);
+        }
+        int deepest = parent;
+        assertThrows(BadRequestException.class, () -> reply(deepest, "too deep"));
+
+        assertThrows(BadRequestException.class, () -> commentService.getThreads(postId, null, 0, 2, 100));
+        assertThrows(BadRequestException.class, () -> commentService.getThreads(postId, null, 10, 21, 100));
+        assertThrows(BadRequestException.class, () -> commentService.getReplies(deepest, 2, 0));
+        assertThrows(ResourceNotFoundException.class, () -> reply(Integer.MAX_VALUE, "nobody"));
+    }
+
+    private int comment(String content) {
+        return commentService.createComment(dto(content), postId).getId();
+    }
+
+    private int reply(int commentId, String content) {
+        return commentService.createReply(dto(content), commentId).getId();
+    }
+
+    private static CommentDto dto(String content) {
+        CommentDto comment = new CommentDto();
+        comment.setContent(content);
+        return comment;
+    }
+
+    private static List<Integer> ids(List<CommentDto> comments) {
+        return comments.stream().map(CommentDto::getId).toList();
+    }
+}
@@ -0,0 +1,107 @@
+package com.BlogApp.services;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.cache.CacheInvalidator;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.payloads.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Statements are counted for the whole session factory, so the scheduled readers are pushed out of the way
+@SpringBootTest(properties = {"app.posts.batch-max-ids=5", "app.cache.poll-interval-ms=3600000",
+        "app.suggest.refresh-interval-ms=3600000", "app.related.refresh-interval-ms=3600000", "app.tags.refresh-interval-ms=3600000",
+        "app.purge.interval-ms=3600000", "spring.jpa.properties.hibernate.generate_statistics=true"})
+class PostBatchReadTests {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestContent content;
+
+    @Test
+    void postsComeBackInRequestOrderWithMissingIdsReported() {
+        List<Integer> ids = createPosts(3);
+        postService.deletePost(ids.get(1));
+
+        PostBatchResponse batch = postService.getPostsByIds(
+                List.of(ids.get(2), Integer.MAX_VALUE, ids.get(0), ids.get(1), ids.get(2)));
+
+        assertEquals(List.of(ids.get(2), ids.get(0)), batch.getPosts().stream().map(PostDto::getPostId).toList());
+        assertEquals(List.of(Integer.MAX_VALUE, ids.get(1)), batch.getMissing());
+        PostDto first = batch.getPosts().get(1);
+        assertEquals("Body of post 0", first.getContent());
+        assertEquals("batch", first.getCategory().getCategoryTitle());
+        assertEquals(1, first.getComments().size());
+    }
+
+    @Test
+    void uncachedPostsAreReadWithOneQueryPerTable() {
+        List<Integer> ids = createPosts(4);
+        // the stored HTML is current, so no render is queued while counting
+        await().atMost(Duration.ofSeconds(10)).until(() -> jdbcTemplate.queryForObject(
+                "select count(*) from post_html where post_id in (?, ?, ?, ?)", Integer.class, ids.toArray()) == 4);
+        cacheManager.getCache(CacheInvalidator.POSTS).clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        PostBatchResponse batch = postService.getPostsByIds(ids);
+
+        assertEquals(4, batch.getPosts().size());
+        assertTrue(batch.getPosts().stream().allMatch(post -> post.getHtml().startsWith("<p>Body of post")));
+        // posts with category, user and comments, then bodies, then HTML, then tags
+        assertEquals(4, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(ids, postService.getPostsByIds(ids).getPosts().stream().map(PostDto::getPostId).toList());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void batchSizeIsBounded() {
+        assertThrows(BadRequestException.class, () -> postService.getPostsByIds(List.of()));
+        assertThrows(BadRequestException.class, () -> postService.getPostsByIds(Collections.nCopies(6, 1)));
+    }
+
+    private List<Integer> createPosts(int count) {
+        UserDto user = content.user("batch author");
+        CategoryDto category = content.category("batch");
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Integer postId = content.post(user.getId(), category.getCategoryId(), "Batch post " + i, "Body of post " + i)
+                    .getPostId();
+            CommentDto comment = new CommentDto();
+            comment.setContent("Comment on post " + i);
+            commentService.createComment(comment, postId);
+            ids.add(postId);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,83 @@
+package com.BlogApp.services;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.PostFields;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"app.posts.body-compress-threshold=1024", "app.outbox.poll-interval-ms=3600000"})
+class PostBodyStorageTests {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestContent content;
+
+    @Test
+    void longBodiesAreCompressedAndOnlyReadById() {
+        String article = "Deflate works well on prose that repeats itself.\n\n".repeat(400);
+        PostDto post = createPost(article);
+
+        assertTrue(compressed(post.getPostId()));
+        assertTrue(storedBytes(post.getPostId()) < article.length() / 10);
+        assertEquals(article, postService.getPostById(post.getPostId()).getContent());
+
+        PostDto listed = postService.getPostByCategory(post.getCategory().getCategoryId()).get(0);
+        assertNull(listed.getContent());
+        assertTrue(listed.getExcerpt().startsWith("Deflate works well on prose that repeats itself. Deflate"));
+        assertTrue(listed.getExcerpt().length() <= 100);
+        assertTrue(listed.getExcerpt().endsWith("…"));
+    }
+
+    @Test
+    void shortBodiesAreStoredAsText() {
+        PostDto post = createPost("A short post.");
+
+        assertFalse(compressed(post.getPostId()));
+        assertEquals("A short post.", postService.getPostById(post.getPostId()).getContent());
+        assertEquals("A short post.", post.getExcerpt());
+
+        post.setContent("Now a little longer, and edited.");
+        postService.updatePost(post, post.getPostId());
+        PostDto updated = postService.getPostById(post.getPostId());
+        assertEquals("Now a little longer, and edited.", updated.getContent());
+        assertEquals("Now a little longer, and edited.", updated.getExcerpt());
+    }
+
+    @Test
+    void contentFieldIsOnlyAvailableForOnePost() {
+        PostDto post = createPost("Body text");
+
+        PostDto sparse = postService.getPostById(post.getPostId(), PostFields.parse("title,content"));
+        assertEquals("Body text", sparse.getContent());
+
+        assertThrows(BadRequestException.class,
+                () -> postService.getPostByCategory(post.getCategory().getCategoryId(), PostFields.parse("content")));
+        List<PostDto> excerpts = postService.getPostByCategory(post.getCategory().getCategoryId(), PostFields.parse("excerpt"));
+        assertEquals("Body text", excerpts.get(0).getExcerpt());
+    }
+
+    private boolean compressed(Integer postId) {
+        return jdbcTemplate.queryForObject("select compressed from post_bodies where post_id = ?", Boolean.class, postId);
+    }
+
+    private int storedBytes(Integer postId) {
+        return jdbcTemplate.queryForObject("select octet_length(body) from post_bodies where post_id = ?", Integer.class, postId);
+    }
+
+    private PostDto createPost(String body) {
+        return content.post("body post", body);
+    }
+}
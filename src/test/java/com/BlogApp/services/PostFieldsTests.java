@@ -0,0 +1,107 @@
+package com.BlogApp.services;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.payloads.CategoryDto;
+import com.BlogApp.payloads.CommentDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The fields= parameter of the post read endpoints, through the controllers and the Jackson filter.
+// Authentication is not what is tested here, so the security filters are left out.
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+class PostFieldsTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private TestContent content;
+
+    private Integer userId;
+    private Integer categoryId;
+    private Integer postId;
+
+    @BeforeEach
+    void createPost() {
+        userId = content.user("fields author").getId();
+
+        CategoryDto category = new CategoryDto();
+        category.setCategoryTitle("fields");
+        category.setCategoryDescription("sparse fieldsets");
+        categoryId = categoryService.createCategory(category).getCategoryId();
+
+        postId = content.post(userId, categoryId, "fields post", "fields post content").getPostId();
+
+        CommentDto comment = new CommentDto();
+        comment.setContent("fields comment");
+        commentService.createComment(comment, postId);
+    }
+
+    @Test
+    void onlyTheSelectedFieldsAreWritten() throws Exception {
+        mvc.perform(get("/api/posts/{postId}", postId).param("fields", "title,category"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.postId").value(postId))
+                .andExpect(jsonPath("$.title").value("fields post"))
+                .andExpect(jsonPath("$.category.categoryTitle").value("fields"))
+                .andExpect(jsonPath("$.category.categoryDescription").value("sparse fieldsets"))
+                .andExpect(jsonPath("$.content").doesNotExist())
+                .andExpect(jsonPath("$.user").doesNotExist())
+                .andExpect(jsonPath("$.comments").doesNotExist());
+    }
+
+    @Test
+    void theJoinedUserLeavesThePasswordOut() throws Exception {
+        mvc.perform(get("/api/user/{userId}/posts", userId).param("fields", "title,user"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].user.name").value("fields author"))
+                .andExpect(jsonPath("$[0].user.password").doesNotExist())
+                .andExpect(jsonPath("$[0].category").doesNotExist());
+    }
+
+    @Test
+    void commentsAreReadOnlyWhenSelected() throws Exception {
+        mvc.perform(get("/api/category/{categoryId}/posts", categoryId).param("fields", "comments"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].postId").value(postId))
+                .andExpect(jsonPath("$[0].comments", hasSize(1)))
+                .andExpect(jsonPath("$[0].comments[0].content").value("fields comment"))
+                .andExpect(jsonPath("$[0].title").doesNotExist());
+    }
+
+    @Test
+    void unknownFieldsAreRejected() throws Exception {
+        mvc.perform(get("/api/posts/{postId}", postId).param("fields", "title,bogus"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/posts").param("fields", "user.password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void withoutFieldsTheWholePostIsWritten() throws Exception {
+        mvc.perform(get("/api/posts/{postId}", postId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("fields post"))
+                .andExpect(jsonPath("$.content").value("fields post content"))
+                .andExpect(jsonPath("$.category.categoryId").value(categoryId))
+                .andExpect(jsonPath("$.user.id").value(userId))
+                .andExpect(jsonPath("$.comments", hasSize(1)));
+    }
+}
@@ -0,0 +1,216 @@
+package com.BlogApp.services;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.exception.ConflictException;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.UploadRequest;
+import com.BlogApp.payloads.UploadStatus;
+import com.BlogApp.cache.CacheInvalidator;
+import com.BlogApp.services.Impl.UploadServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The expiry job is pushed out of the way, expireSessions() is called directly
+@SpringBootTest(properties = {"project.image=target/test-uploads/", "app.uploads.max-size=100000",
+        "app.uploads.expire-interval-ms=3600000"})
+class ResumableUploadTests {
+
+    private static final Path IMAGES = Path.of("target/test-uploads");
+
+    @Autowired
+    private UploadServiceImpl uploadService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TestContent content;
+
+    private final byte[] image = new byte[30_000];
+    private Integer postId;
+
+    @BeforeEach
+    void createPost() {
+        new Random(7).nextBytes(image);
+        postId = createPostId();
+    }
+
+    @Test
+    void chunksResumeFromTheStoredOffset() throws Exception {
+        UploadStatus upload = uploadService.startUpload(postId, request("cover.PNG", image.length));
+        String uploadId = upload.getUploadId();
+        assertEquals(0, upload.getOffset());
+
+        assertEquals(10_000, append(uploadId, 0, 0, 10_000).getOffset());
+        // a retry of a chunk already stored
+        ConflictException retry = assertThrows(ConflictException.class, () -> append(uploadId, 0, 0, 10_000));
+        assertEquals("offset must be 10000", retry.getMessage());
+        // a connection that drops halfway keeps what arrived
+        assertEquals(14_000, append(uploadId, 10_000, 10_000, 14_000).getOffset());
+        assertEquals(14_000, uploadService.getUpload(postId, uploadId).getOffset());
+        assertEquals(30_000, append(uploadId, 14_000, 14_000, 30_000).getOffset());
+
+        String fileName = uploadService.completeUpload(postId, uploadId, sha256(image));
+        assertTrue(fileName.endsWith(".png"));
+        assertArrayEquals(image, Files.readAllBytes(IMAGES.resolve(fileName)));
+        assertThrows(ResourceNotFoundException.class, () -> uploadService.getUpload(postId, uploadId));
+    }
+
+    @Test
+    void aChunkAtTheSameOffsetIsRejectedWhileOneStreams() throws Exception {
+        String uploadId = uploadService.startUpload(postId, request("cover.png", image.length)).getUploadId();
+        CountDownLatch streaming = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        // stalls on its first read, like a slow connection
+        InputStream slow = new FilterInputStream(new ByteArrayInputStream(image, 0, 10_000)) {
+            @Override
+            public int read(byte[] bytes, int off, int len) throws IOException {
+                streaming.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return super.read(bytes, off, len);
+            }
+        };
+        CompletableFuture<UploadStatus> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return uploadService.appendChunk(postId, uploadId, 0, slow);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertTrue(streaming.await(10, TimeUnit.SECONDS));
+
+        ConflictException second = assertThrows(ConflictException.class, () -> append(uploadId, 0, 0, 10_000));
+        assertEquals("another chunk is being written at offset 0", second.getMessage());
+        resume.countDown();
+        assertEquals(10_000, first.get(10, TimeUnit.SECONDS).getOffset());
+        assertEquals(20_000, append(uploadId, 10_000, 10_000, 20_000).getOffset());
+
+        // a claim whose node went away lapses
+        jdbcTemplate.update("update upload_sessions set claim = 'gone', claimed_until = ? where upload_id = ?",
+                new java.sql.Timestamp(System.currentTimeMillis() - 1000), uploadId);
+        assertEquals(30_000, append(uploadId, 20_000, 20_000, 30_000).getOffset());
+        assertArrayEquals(image, Files.readAllBytes(IMAGES.resolve(jdbcTemplate.queryForObject(
+                "select file_name from upload_sessions where upload_id = ?", String.class, uploadId))));
+    }
+
+    @Test
+    void theImageIsSetWithoutWritingBackACachedPost() throws Exception {
+        // as cached on a node that has not seen the latest edit
+        PostDto stale = postService.getPostById(postId);
+        PostDto edit = new PostDto();
+        edit.setTitle("edited");
+        edit.setContent("edited content");
+        postService.updatePost(edit, postId);
+        cacheManager.getCache(CacheInvalidator.POSTS).put(postId, stale);
+
+        String uploadId = uploadService.startUpload(postId, request("cover.png", image.length)).getUploadId();
+        append(uploadId, 0, 0, image.length);
+        String fileName = uploadService.completeUpload(postId, uploadId, sha256(image));
+        PostDto attached = postService.setPostImage(postId, fileName);
+        assertEquals("edited content", attached.getContent());
+
+        PostDto post = postService.getPostById(postId);
+        assertEquals("edited", post.getTitle());
+        assertEquals("edited content", post.getContent());
+        assertEquals(fileName, post.getImageName());
+        assertThrows(ResourceNotFoundException.class, () -> postService.setPostImage(Integer.MAX_VALUE, fileName));
+    }
+
+    @Test
+    void aChecksumMismatchDiscardsTheUpload() throws Exception {
+        String uploadId = uploadService.startUpload(postId, request("cover.jpg", image.length)).getUploadId();
+        BadRequestException early = assertThrows(BadRequestException.class,
+                () -> uploadService.completeUpload(postId, uploadId, sha256(image)));
+        assertEquals("upload incomplete, 0 of 30000 bytes received", early.getMessage());
+        append(uploadId, 0, 0, image.length);
+
+        byte[] other = image.clone();
+        other[0]++;
+        assertThrows(BadRequestException.class, () -> uploadService.completeUpload(postId, uploadId, sha256(other)));
+        assertThrows(ResourceNotFoundException.class, () -> uploadService.getUpload(postId, uploadId));
+    }
+
+    @Test
+    void requestsOutsideTheDeclaredUploadAreRejected() throws Exception {
+        assertThrows(BadRequestException.class, () -> uploadService.startUpload(postId, request("cover.png", 100_001)));
+        assertThrows(BadRequestException.class, () -> uploadService.startUpload(postId, request("cover", 10)));
+        assertThrows(BadRequestException.class, () -> uploadService.startUpload(postId, request("cover.p/ng", 10)));
+        assertThrows(ResourceNotFoundException.class,
+                () -> uploadService.startUpload(Integer.MAX_VALUE, request("cover.png", 10)));
+
+        String uploadId = uploadService.startUpload(postId, request("cover.png", 10_000)).getUploadId();
+        assertThrows(BadRequestException.class, () -> append(uploadId, 0, 0, 10_001));
+        assertEquals(0, uploadService.getUpload(postId, uploadId).getOffset());
+        assertThrows(ResourceNotFoundException.class, () -> uploadService.getUpload(createPostId(), uploadId));
+    }
+
+    @Test
+    void expiredUploadsAreRemovedWithTheirFile() throws Exception {
+        String uploadId = uploadService.startUpload(postId, request("cover.png", image.length)).getUploadId();
+        append(uploadId, 0, 0, 5_000);
+        String fileName = jdbcTemplate.queryForObject("select file_name from upload_sessions where upload_id = ?",
+                String.class, uploadId);
+        jdbcTemplate.update("update upload_sessions set expires_at = ? where upload_id = ?",
+                new java.sql.Timestamp(System.currentTimeMillis() - 1000), uploadId);
+
+        assertThrows(ResourceNotFoundException.class, () -> uploadService.getUpload(postId, uploadId));
+        uploadService.expireSessions();
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from upload_sessions where upload_id = ?",
+                Integer.class, uploadId));
+        assertFalse(Files.exists(IMAGES.resolve(fileName)));
+    }
+
+    private UploadStatus append(String uploadId, long offset, int from, int to) throws Exception {
+        return uploadService.appendChunk(postId, uploadId, offset,
+                new ByteArrayInputStream(Arrays.copyOfRange(image, from, to)));
+    }
+
+    private static UploadRequest request(String fileName, long length) {
+        UploadRequest request = new UploadRequest();
+        request.setFileName(fileName);
+        request.setLength(length);
+        return request;
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    private Integer createPostId() {
+        return content.post("upload post", "upload post content").getPostId();
+    }
+}
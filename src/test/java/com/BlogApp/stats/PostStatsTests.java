@@ -0,0 +1,159 @@
+package com.BlogApp.stats;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.exception.ResourceNotFoundException;
+import com.BlogApp.payloads.ArchiveMonth;
+import com.BlogApp.payloads.AuthorStatsDto;
+import com.BlogApp.payloads.CommentDto;
+import com.BlogApp.services.CategoryService;
+import com.BlogApp.services.CommentService;
+import com.BlogApp.services.PostService;
+import com.BlogApp.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The scheduled reconciliation is pushed out of the way, reconcile() is called directly.
+// Archive rows are shared by every test on the database, so each test reads the categories it created.
+@SpringBootTest(properties = "app.stats.reconcile-interval-ms=3600000")
+class PostStatsTests {
+
+    @Autowired
+    private PostStats postStats;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestContent content;
+
+    private Integer userId;
+    private Integer categoryId;
+
+    @BeforeEach
+    void createAuthor() {
+        userId = createUser();
+        categoryId = createCategory();
+    }
+
+    @Test
+    void postAndCommentWritesAreCounted() {
+        Integer first = createPost(userId, categoryId);
+        Integer second = createPost(userId, categoryId);
+        comment(first);
+        Integer deleted = comment(first);
+        comment(first);
+        comment(second);
+        commentService.deleteComment(deleted);
+
+        AuthorStatsDto stats = userService.getAuthorStats(userId);
+        assertEquals(2, stats.getPostCount());
+        assertEquals(3, stats.getCommentCount());
+        assertEquals(postService.getPostById(second).getAddedDate().getTime(), stats.getLastPostedAt().getTime());
+        assertArchive(2, categoryId);
+
+        postService.deletePost(second);
+        stats = userService.getAuthorStats(userId);
+        assertEquals(1, stats.getPostCount());
+        assertEquals(2, stats.getCommentCount());
+        assertEquals(postService.getPostById(first).getAddedDate().getTime(), stats.getLastPostedAt().getTime());
+        assertArchive(1, categoryId);
+
+        postService.deletePost(first);
+        stats = userService.getAuthorStats(userId);
+        assertEquals(0, stats.getPostCount());
+        assertNull(stats.getLastPostedAt());
+        assertEquals(List.of(), postService.getArchive(categoryId));
+    }
+
+    @Test
+    void authorsWithoutPostsHaveZerosAndUnknownUsersAreNotFound() {
+        AuthorStatsDto stats = userService.getAuthorStats(userId);
+        assertEquals(0, stats.getPostCount());
+        assertEquals(0, stats.getCommentCount());
+        assertThrows(ResourceNotFoundException.class, () -> userService.getAuthorStats(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void categoryAndUserDeletesLeaveTheCounts() {
+        Integer other = createCategory();
+        Integer coauthor = createUser();
+        comment(createPost(userId, categoryId));
+        createPost(userId, other);
+        createPost(coauthor, categoryId);
+
+        categoryService.deleteCategory(categoryId);
+        AuthorStatsDto stats = userService.getAuthorStats(userId);
+        assertEquals(1, stats.getPostCount());
+        assertEquals(0, stats.getCommentCount());
+        assertEquals(0, userService.getAuthorStats(coauthor).getPostCount());
+        assertEquals(List.of(), postService.getArchive(categoryId));
+        assertArchive(1, other);
+
+        userService.deleteUser(userId);
+        assertThrows(ResourceNotFoundException.class, () -> userService.getAuthorStats(userId));
+        assertEquals(List.of(), postService.getArchive(other));
+    }
+
+    @Test
+    void reconciliationFixesDrift() {
+        Integer postId = createPost(userId, categoryId);
+        comment(postId);
+        // as if written around the services
+        jdbcTemplate.update("update author_stats set post_count = 5, comment_count = 0, last_posted_at = null where user_id = ?", userId);
+        jdbcTemplate.update("update archive_stats set post_count = 0 where category_id = ?", categoryId);
+
+        postStats.reconcile();
+        AuthorStatsDto stats = userService.getAuthorStats(userId);
+        assertEquals(1, stats.getPostCount());
+        assertEquals(1, stats.getCommentCount());
+        assertNotNull(stats.getLastPostedAt());
+        assertArchive(1, categoryId);
+    }
+
+    private void assertArchive(long postCount, Integer categoryId) {
+        LocalDate today = LocalDate.now();
+        List<ArchiveMonth> archive = postService.getArchive(categoryId);
+        assertEquals(1, archive.size());
+        assertEquals(today.getYear(), archive.get(0).getYear());
+        assertEquals(today.getMonthValue(), archive.get(0).getMonth());
+        assertEquals(postCount, archive.get(0).getPostCount());
+    }
+
+    private Integer createUser() {
+        return content.user("stats author").getId();
+    }
+
+    private Integer createCategory() {
+        return content.category("counted").getCategoryId();
+    }
+
+    private Integer createPost(Integer userId, Integer categoryId) {
+        return content.post(userId, categoryId, "Counted post", "Counted post content").getPostId();
+    }
+
+    private Integer comment(Integer postId) {
+        CommentDto comment = new CommentDto();
+        comment.setContent("Nice post");
+        return commentService.createComment(comment, postId).getId();
+    }
+}
@@ -0,0 +1,180 @@
+package com.BlogApp.timeline;
+
+import com.BlogApp.TestContent;
+import com.BlogApp.events.PostEventDispatcher;
+import com.BlogApp.exception.BadRequestException;
+import com.BlogApp.payloads.PostDto;
+import com.BlogApp.payloads.TimelineResponse;
+import com.BlogApp.repositories.UserRepo;
+import com.BlogApp.services.FollowService;
+import com.BlogApp.services.PostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Authors with more than two followers are read at request time; the outbox is dispatched and timelines trimmed by hand
+@SpringBootTest(properties = {"app.timeline.fan-out-max-followers=2", "app.timeline.max-entries=3",
+        "app.timeline.trim-interval-ms=3600000"})
+class HomeTimelineTests {
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private PostEventDispatcher dispatcher;
+
+    @Autowired
+    private TimelineFanOut timelineFanOut;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestContent content;
+
+    private Integer categoryId;
+
+    @BeforeEach
+    void createCategory() {
+        categoryId = content.category("timeline").getCategoryId();
+    }
+
+    @Test
+    void fannedOutPostsArePagedNewestFirst() {
+        Integer reader = createUser();
+        Integer author = createUser();
+        followService.follow(reader, author);
+        List<Integer> posts = createPosts(author, 5);
+        dispatcher.dispatch();
+        assertEquals(5, entries(reader));
+
+        TimelineResponse first = followService.getHomeTimeline(reader, null, 2);
+        assertEquals(List.of(posts.get(4), posts.get(3)), ids(first));
+        TimelineResponse second = followService.getHomeTimeline(reader, first.getNextCursor(), 2);
+        assertEquals(List.of(posts.get(2), posts.get(1)), ids(second));
+        TimelineResponse last = followService.getHomeTimeline(reader, second.getNextCursor(), 2);
+        assertEquals(List.of(posts.get(0)), ids(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void postsOfAuthorsWithManyFollowersAreMergedAtReadTime() {
+        Integer reader = createUser();
+        Integer author = createUser();
+        Integer popular = createUser();
+        followService.follow(reader, author);
+        followService.follow(reader, popular);
+        followService.follow(createUser(), popular);
+        followService.follow(createUser(), popular);
+        assertEquals(3, userRepo.findById(popular).orElseThrow().getFollowerCount());
+
+        Integer older = createPosts(author, 1).get(0);
+        Integer pulled = createPosts(popular, 1).get(0);
+        Integer newer = createPosts(author, 1).get(0);
+        dispatcher.dispatch();
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from timeline_entries where post_id = ?",
+                Integer.class, pulled));
+        assertEquals(List.of(newer, pulled, older), ids(followService.getHomeTimeline(reader, null, 10)));
+        assertEquals(List.of(pulled, older), ids(followService.getHomeTimeline(reader, newer, 10)));
+    }
+
+    @Test
+    void pulledPostsStayVisibleAfterTheAuthorDropsUnderTheThreshold() {
+        Integer reader = createUser();
+        Integer leaving = createUser();
+        Integer late = createUser();
+        Integer author = createUser();
+        followService.follow(reader, author);
+        followService.follow(leaving, author);
+        Integer fannedOut = createPosts(author, 1).get(0);
+        dispatcher.dispatch();
+        // the third follower gets no copy of the earlier post
+        followService.follow(late, author);
+        Integer pulled = createPosts(author, 1).get(0);
+        dispatcher.dispatch();
+
+        followService.unfollow(leaving, author);
+        assertEquals(2, userRepo.findById(author).orElseThrow().getFollowerCount());
+        Integer newer = createPosts(author, 1).get(0);
+        dispatcher.dispatch();
+
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from timeline_entries where post_id = ?",
+                Integer.class, newer));
+        assertEquals(List.of(newer, pulled, fannedOut), ids(followService.getHomeTimeline(reader, null, 10)));
+        assertEquals(List.of(newer, pulled, fannedOut), ids(followService.getHomeTimeline(late, null, 10)));
+    }
+
+    @Test
+    void followCopiesEarlierPostsAndUnfollowRemovesThem() {
+        Integer reader = createUser();
+        Integer author = createUser();
+        List<Integer> posts = createPosts(author, 2);
+
+        followService.follow(reader, author);
+        followService.follow(reader, author);
+        assertEquals(1, userRepo.findById(author).orElseThrow().getFollowerCount());
+        assertEquals(List.of(posts.get(1), posts.get(0)), ids(followService.getHomeTimeline(reader, null, 10)));
+
+        followService.unfollow(reader, author);
+        assertEquals(0, userRepo.findById(author).orElseThrow().getFollowerCount());
+        assertTrue(followService.getHomeTimeline(reader, null, 10).getContent().isEmpty());
+    }
+
+    @Test
+    void timelinesAreTrimmedAndDeletedPostsLeftOut() {
+        Integer reader = createUser();
+        Integer author = createUser();
+        followService.follow(reader, author);
+        List<Integer> posts = createPosts(author, 5);
+        dispatcher.dispatch();
+
+        timelineFanOut.trim();
+        assertEquals(3, entries(reader));
+
+        postService.deletePost(posts.get(3));
+        TimelineResponse timeline = followService.getHomeTimeline(reader, null, 3);
+        assertEquals(List.of(posts.get(4), posts.get(2)), ids(timeline));
+        assertEquals(posts.get(2), timeline.getNextCursor());
+    }
+
+    @Test
+    void invalidRequestsAreRejected() {
+        Integer user = createUser();
+        assertThrows(BadRequestException.class, () -> followService.follow(user, user));
+        assertThrows(BadRequestException.class, () -> followService.getHomeTimeline(user, null, 0));
+    }
+
+    private int entries(Integer userId) {
+        return jdbcTemplate.queryForObject("select count(*) from timeline_entries where user_id = ?", Integer.class, userId);
+    }
+
+    private static List<Integer> ids(TimelineResponse timeline) {
+        return timeline.getContent().stream().map(PostDto::getPostId).toList();
+    }
+
+    private Integer createUser() {
+        return content.user("timeline user").getId();
+    }
+
+    private List<Integer> createPosts(Integer userId, int count) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(content.post(userId, categoryId, "Timeline post " + i, "Post " + i + " of user " + userId).getPostId());
+        }
+        return ids;
+    }
+}